@@ -0,0 +1,92 @@
+package shactor.utils.formatters;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the qse:confidence regex passes ({@link ShaclFormatter#postProcessConfidence(String)})
+ * applied to a whole Turtle document and line by line through {@link LineFilterWriter},
+ * as done by the Jena writer mode.
+ *
+ * The input mimics TurtleFormatter output with untyped confidence values in the forms
+ * the passes rewrite (decimal comma, exponent without decimal point, plain decimal).
+ *
+ * Run with: mvn -Pjmh test-compile exec:exec -Djmh.args="PostProcessingBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PostProcessingBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int propertyShapes;
+
+    private String document;
+    private ShaclFormatter formatter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        formatter = new ShaclFormatter(ShaclFormatter.Mode.JENA);
+        document = turtleDocument(propertyShapes, new Random(42L));
+    }
+
+    @Benchmark
+    public String wholeDocument() {
+        return formatter.postProcessConfidence(document);
+    }
+
+    @Benchmark
+    public String lineFilter() throws IOException {
+        StringWriter out = new StringWriter(document.length() + document.length() / 8);
+        LineFilterWriter filtered = new LineFilterWriter(out, formatter::postProcessConfidence);
+        filtered.write(document);
+        filtered.finish();
+        return out.toString();
+    }
+
+    private static String turtleDocument(int propertyShapes, Random random) {
+        StringBuilder sb = new StringBuilder(propertyShapes * 220);
+        sb.append("@prefix qse: <").append(PrefixMap.QSE_NAMESPACE).append("> .\n");
+        sb.append("@prefix sh: <").append(PrefixMap.SHACL_NAMESPACE).append("> .\n");
+        sb.append("@prefix xsd: <").append(PrefixMap.XSD_NAMESPACE).append("> .\n\n");
+        for (int i = 0; i < propertyShapes; i++) {
+            sb.append("qse:p").append(i).append(" a sh:PropertyShape ;\n");
+            sb.append("  sh:path <").append(PrefixMap.UB_NAMESPACE).append("property").append(i % 97).append("> ;\n");
+            sb.append("  sh:nodeKind sh:Literal ;\n");
+            sb.append("  sh:datatype xsd:string ;\n");
+            sb.append("  qse:support ").append(1 + random.nextInt(10_000)).append(" ;\n");
+            sb.append("  qse:confidence ").append(confidence(random)).append(" ;\n");
+            sb.append("  sh:minCount 1 .\n\n");
+        }
+        return sb.toString();
+    }
+
+    private static String confidence(Random random) {
+        switch (random.nextInt(3)) {
+            case 0:
+                return random.nextInt(10) + "," + random.nextInt(1000) + "E-" + (1 + random.nextInt(3));
+            case 1:
+                return (1 + random.nextInt(9)) + "E-" + random.nextInt(3);
+            default:
+                return "0." + random.nextInt(1000);
+        }
+    }
+}
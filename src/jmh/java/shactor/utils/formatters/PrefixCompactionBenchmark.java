@@ -0,0 +1,101 @@
+package shactor.utils.formatters;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of prefix compaction: {@link ShExFormatter#formatPath(String)} (which compacts
+ * via the private toPrefixed) and {@link PrefixMap#compact(String)} on the SHACL defaults.
+ *
+ * The IRI mix covers known namespaces, inverse paths, unknown namespaces and local names
+ * that cannot be written as prefixed names. Each invocation compacts the next {@value #BATCH}
+ * IRIs of a pool of {@code distinctIris}: the small pool fits the {@link PrefixMap} memo and
+ * measures memo hits, the large one is four times the memo size, so apart from the repeated
+ * rdf:type every lookup misses and walks the namespace trie.
+ *
+ * Run with: mvn -Pjmh test-compile exec:exec -Djmh.args="PrefixCompactionBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrefixCompactionBenchmark {
+
+    static final int BATCH = 1024;
+
+    @Param({"1024", "262144"})
+    public int distinctIris;
+
+    private String[] paths;
+    private int next;
+    private PrefixMap shaclPrefixes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42L);
+        paths = new String[distinctIris];
+        for (int i = 0; i < distinctIris; i++) {
+            switch (random.nextInt(5)) {
+                case 0:
+                    paths[i] = PrefixMap.UB_NAMESPACE + "property" + i;
+                    break;
+                case 1:
+                    paths[i] = "^" + PrefixMap.UB_NAMESPACE + "inverse" + i;
+                    break;
+                case 2:
+                    paths[i] = PrefixMap.RDF_NAMESPACE + "type";
+                    break;
+                case 3:
+                    paths[i] = "http://dbpedia.org/ontology/" + "prop" + i;
+                    break;
+                default:
+                    // Not a valid prefixed name, stays an <IRI>
+                    paths[i] = PrefixMap.UB_NAMESPACE + "name/with/slashes" + i;
+                    break;
+            }
+        }
+        shaclPrefixes = PrefixMap.shaclDefaults();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void formatPath(Blackhole bh) {
+        int start = nextBatch();
+        for (int i = start; i < start + BATCH; i++) {
+            bh.consume(ShExFormatter.formatPath(paths[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void compact(Blackhole bh) {
+        int start = nextBatch();
+        for (int i = start; i < start + BATCH; i++) {
+            String path = paths[i];
+            bh.consume(shaclPrefixes.compact(path.startsWith("^") ? path.substring(1) : path));
+        }
+    }
+
+    private int nextBatch() {
+        int start = next;
+        next = (start + BATCH) % distinctIris;
+        return start;
+    }
+}
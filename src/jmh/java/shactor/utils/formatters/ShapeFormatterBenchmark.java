@@ -0,0 +1,75 @@
+package shactor.utils.formatters;
+
+import cs.qse.common.structure.NS;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import shactor.utils.benchmark.SyntheticNodeShapes;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link ShaclFormatter#formatShapes(Set)} and {@link ShExFormatter#formatShapes(Set)}
+ * by schema size and OR-list density, on inputs from {@link SyntheticNodeShapes}.
+ *
+ * Run with: mvn -Pjmh test-compile exec:exec -Djmh.args="ShapeFormatterBenchmark -prof gc"
+ *
+ * 1M PropertyShapes do not fit the default 4 GB heap and are not in the default sizes; run them
+ * with -Djmh.args="ShapeFormatterBenchmark -p propertyShapes=1000000 -jvmArgsAppend -Xmx8g -prof gc"
+ * (-jvmArgsAppend on the command line replaces the -Xmx4g of the annotation; -jvmArgs would not).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ShapeFormatterBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int propertyShapes;
+
+    @Param({"0.0", "0.2", "0.5"})
+    public double orListDensity;
+
+    private Set<NS> nodeShapes;
+    private ShaclFormatter shaclDirect;
+    private ShaclFormatter shaclJena;
+    private ShExFormatter shex;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticNodeShapes.Profile profile = SyntheticNodeShapes.Profile.DEFAULT
+                .withPropertyShapes(propertyShapes)
+                .withOrLists(orListDensity, 4);
+        nodeShapes = SyntheticNodeShapes.generate(profile, 42L);
+        shaclDirect = new ShaclFormatter(ShaclFormatter.Mode.DIRECT);
+        shaclJena = new ShaclFormatter(ShaclFormatter.Mode.JENA);
+        shex = new ShExFormatter();
+    }
+
+    @Benchmark
+    public String shaclDirect() {
+        return shaclDirect.formatShapes(nodeShapes);
+    }
+
+    @Benchmark
+    public String shaclJena() {
+        return shaclJena.formatShapes(nodeShapes);
+    }
+
+    @Benchmark
+    public String shex() {
+        return shex.formatShapes(nodeShapes);
+    }
+}
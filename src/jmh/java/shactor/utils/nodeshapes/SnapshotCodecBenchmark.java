@@ -0,0 +1,78 @@
+package shactor.utils.nodeshapes;
+
+import cs.qse.common.structure.NS;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import shactor.utils.benchmark.SyntheticNodeShapes;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load and save time of {@link NodeShapesSnapshotIO} for the JSON and binary codecs by schema size.
+ *
+ * Run with: mvn -Pjmh test-compile exec:exec -Djmh.args="SnapshotCodecBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SnapshotCodecBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int propertyShapes;
+
+    @Param({".json", NodeShapesSnapshotIO.BINARY_EXTENSION})
+    public String extension;
+
+    private Set<NS> nodeShapes;
+    private Path directory;
+    private Path snapshot;
+    private Path target;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        SyntheticNodeShapes.Profile profile = SyntheticNodeShapes.Profile.DEFAULT
+                .withPropertyShapes(propertyShapes)
+                .withOrLists(0.2, 4);
+        nodeShapes = SyntheticNodeShapes.generate(profile, 42L);
+        directory = Files.createTempDirectory("snapshot-codec-benchmark");
+        snapshot = directory.resolve("load" + extension);
+        target = directory.resolve("save" + extension);
+        NodeShapesSnapshotIO.save(nodeShapes, snapshot, false);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(snapshot);
+        Files.deleteIfExists(target);
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public Set<NS> load() {
+        return NodeShapesSnapshotIO.load(snapshot);
+    }
+
+    @Benchmark
+    public Path save() {
+        NodeShapesSnapshotIO.save(nodeShapes, target, false);
+        return target;
+    }
+}
@@ -3,6 +3,7 @@ package shactor;
 import com.vaadin.flow.component.Tag;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.button.ButtonVariant;
+import com.vaadin.flow.component.checkbox.Checkbox;
 import com.vaadin.flow.component.dependency.CssImport;
 import com.vaadin.flow.component.dependency.JsModule;
 import com.vaadin.flow.component.grid.Grid;
@@ -29,28 +30,39 @@ import com.vaadin.flow.data.renderer.ComponentRenderer;
 import com.vaadin.flow.data.value.ValueChangeMode;
 import com.vaadin.flow.router.Route;
 import com.vaadin.flow.router.RouterLink;
-import com.vaadin.flow.server.StreamResource;
+import com.vaadin.flow.server.StreamResourceWriter;
 import cs.qse.common.structure.NS;
 import cs.qse.common.structure.PS;
 import cs.qse.common.structure.ShaclOrListItem;
 import cs.qse.filebased.Parser;
 import cs.qse.querybased.nonsampling.QbParser;
-import org.apache.commons.io.FileUtils;
 import org.springframework.beans.factory.annotation.Value;
 import org.vaadin.olli.FileDownloadWrapper;
 import shactor.utils.ChartsUtil;
 import shactor.utils.DialogUtil;
+import shactor.utils.DownloadUtil;
 import shactor.utils.PruningUtil;
 import shactor.utils.Utils;
+import shactor.utils.formatters.LineFilterWriter;
+import shactor.utils.formatters.ShapeFragmentStore;
+import shactor.utils.nodeshapes.NodeShapesSnapshotStore;
+import shactor.utils.nodeshapes.SnapshotKey;
+import shactor.utils.qse.InternPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayInputStream;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import static shactor.utils.ChartsUtil.*;
 import static shactor.utils.Utils.*;
@@ -63,7 +75,6 @@ import static shactor.utils.Utils.*;
 public class ExtractionView extends LitTemplate {
     private static final Logger LOG = LoggerFactory.getLogger(ExtractionView.class);
     private static final String FORMAT_SHACL = "SHACL";
-    private static final String FORMAT_SHEX = "ShEx";
 
     @Id("contentVerticalLayout")
     private VerticalLayout contentVerticalLayout;
@@ -99,6 +110,7 @@ public class ExtractionView extends LitTemplate {
     String currNodeShape;
     String prunedFileAddress = "";
     List<NS> prunedNodeShapes = null; // Store pruned NodeShapes for format-aware download
+    ShapeFragmentStore prunedFragments = null; // Rendered NodeShapes reused across pruning runs
 
     @Id("headingPieCharts")
     private H2 headingPieCharts;
@@ -143,6 +155,9 @@ public class ExtractionView extends LitTemplate {
     @Id("pruningParamsHorizontalLayout")
     private HorizontalLayout pruningParamsHorizontalLayout;
 
+    // Per-session choice of compressed downloads; the configured setting is the default
+    private final Checkbox gzipDownloadsCheckbox = new Checkbox("Compress downloads (.gz)", DownloadUtil.gzipEnabled());
+
     public ExtractionView() {
         chartsContainerHorizontalLayout.removeAll();
         soChartsContainerHorizontalLayout.setVisible(false);
@@ -186,6 +201,8 @@ public class ExtractionView extends LitTemplate {
         confidenceTextField.setPreventInvalidInput(true);
         confidenceTextField.setAllowedCharPattern("[0-9]");
 
+        gzipDownloadsCheckbox.getElement().setAttribute("title", "Downloads are gzip-compressed while they stream");
+        actionButtonsHorizontalLayout.add(gzipDownloadsCheckbox);
         configureButtonWithFileWrapper(VaadinIcon.BAR_CHART, "Download Shapes Statistics", SelectionView.outputDirectory + SelectionView.buildDatasetName(IndexView.category) + ".csv");
         configureButtonWithFileWrapper(VaadinIcon.TIMER, "Download SHACTOR extraction logs", SelectionView.outputDirectory + SelectionView.buildDatasetName(IndexView.category) + "_RUNTIME_LOGS.csv");
         // Download Shapes button will be configured after parser is available in beginPruning()
@@ -215,7 +232,7 @@ public class ExtractionView extends LitTemplate {
      */
     private void updateDynamicText() {
         String formatName = IndexView.selectedFormat != null ? IndexView.selectedFormat : FORMAT_SHACL;
-        String shapesType = formatName.equals(FORMAT_SHEX) ? "ShExC shapes" : "SHACL shapes";
+        String shapesType = Utils.getSyntaxNameForFormat(formatName) + " shapes";
         
         // Update the extracted shapes text
         if (extractedShapesText != null) {
@@ -228,18 +245,25 @@ public class ExtractionView extends LitTemplate {
         Button button = new Button();
         Utils.setIconForButtonWithToolTip(button, vaadinIcon, label);
         button.addThemeVariants(ButtonVariant.LUMO_PRIMARY);
-        FileDownloadWrapper buttonWrapper;
-        try {
-            File file = new File(fileAddress);
-            ByteArrayInputStream stream = new ByteArrayInputStream(FileUtils.readFileToByteArray(file));
-            buttonWrapper = new FileDownloadWrapper(new StreamResource(file.getName(), () -> stream));
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+        // Streamed from disk at download time (gzip-compressed if chosen)
+        File file = new File(fileAddress);
+        FileDownloadWrapper buttonWrapper = downloadWrapper(file.getName(), DownloadUtil.fileWriter(file));
         buttonWrapper.wrapComponent(button);
         actionButtonsHorizontalLayout.add(buttonWrapper);
     }
 
+    /**
+     * Creates a download wrapper whose resource follows the "Compress downloads" checkbox:
+     * the plain file, or the gzip-compressed one with a .gz suffix.
+     */
+    private FileDownloadWrapper downloadWrapper(String fileName, StreamResourceWriter writer) {
+        FileDownloadWrapper wrapper = new FileDownloadWrapper(
+                DownloadUtil.resource(fileName, writer, gzipDownloadsCheckbox.getValue()));
+        gzipDownloadsCheckbox.addValueChangeListener(event ->
+                wrapper.setResource(DownloadUtil.resource(fileName, writer, event.getValue())));
+        return wrapper;
+    }
+
     /**
      * Configures the "Download Shapes" button with lazy content generation.
      * 
@@ -249,7 +273,7 @@ public class ExtractionView extends LitTemplate {
      * 
      * Key features:
      * - Button is only enabled when parser and shapesExtractor are available
-     * - Content is generated lazily via StreamResource supplier (no pre-generation)
+     * - Content is generated lazily and streamed via StreamResourceWriter (no pre-generation)
      * - Format-aware filename and content generation (SHACL .ttl vs ShEx .shex)
      * - No fallbacks to legacy files - eliminates old formatting issues
      */
@@ -260,7 +284,7 @@ public class ExtractionView extends LitTemplate {
 
         // Determine format-aware filename based on selected format
         String formatName = IndexView.selectedFormat != null ? IndexView.selectedFormat : FORMAT_SHACL;
-        String fileExtension = formatName.equals(FORMAT_SHEX) ? "shex" : "ttl";
+        String fileExtension = Utils.getFileExtensionForFormat(formatName);
         String fileName = "shapes." + fileExtension;
 
         // Enable button only when shapes generator (parser + shapesExtractor) is available
@@ -274,31 +298,20 @@ public class ExtractionView extends LitTemplate {
         }
 
         // Create StreamResource with lazy content generation
-        // Content is generated only when download is requested, ensuring fresh output
-        StreamResource resource = new StreamResource(fileName, () -> {
+        // Content is generated only when download is requested, ensuring fresh output;
+        // with compression chosen it is gzipped while it streams (file name gets a .gz suffix)
+        FileDownloadWrapper buttonWrapper = downloadWrapper(fileName, (outputStream, session) -> {
             // Double-check availability at download time (defensive programming)
             if (parser == null || parser.shapesExtractor == null) {
                 throw new RuntimeException("Shapes generator is not initialized yet. Please run extraction first.");
             }
             
-            // Generate format-aware content using current node shapes from extractor
-            // This eliminates legacy issues: correct sh:nodeKind casing, typed numeric literals, etc.
-            String syntax = Utils.constructModelForGivenNodeShapesAndTheirPropertyShapes(
-                new HashSet<>(parser.shapesExtractor.getNodeShapes()), 
-                formatName
-            );
-            
-            // Conditionally apply post-processing fix for remaining issues (only for SHACL/Turtle)
-            if (postProcessingEnabled && !FORMAT_SHEX.equals(formatName)) {
-                syntax = postProcessTurtleContent(syntax);
-            }
-            
-            // Return content as UTF-8 byte stream for download
-            return new ByteArrayInputStream(syntax.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+            // Stream format-aware content using current node shapes from extractor directly
+            // into the response, without materializing the whole document in memory
+            writeShapesForDownload(new HashSet<>(parser.shapesExtractor.getNodeShapes()), formatName, outputStream, null);
         });
 
         // Wrap button with FileDownloadWrapper for proper Vaadin download handling
-        FileDownloadWrapper buttonWrapper = new FileDownloadWrapper(resource);
         buttonWrapper.wrapComponent(button);
         actionButtonsHorizontalLayout.add(buttonWrapper);
     }
@@ -312,7 +325,7 @@ public class ExtractionView extends LitTemplate {
      * 
      * Key features:
      * - Button is only enabled when prunedNodeShapes are available (post-pruning)
-     * - Content is generated lazily via StreamResource supplier (no pre-generation)
+     * - Content is generated lazily and streamed via StreamResourceWriter (no pre-generation)
      * - Format-aware filename and content generation (reliable_shapes.ttl vs .shex)
      * - No fallbacks to prunedFileAddress - eliminates legacy formatting issues
      * - Proper error handling with clear user feedback
@@ -324,7 +337,7 @@ public class ExtractionView extends LitTemplate {
 
         // Determine format-aware filename based on selected format
         String formatName = IndexView.selectedFormat != null ? IndexView.selectedFormat : "SHACL";
-        String fileExtension = formatName.equals("ShEx") ? "shex" : "ttl";
+        String fileExtension = Utils.getFileExtensionForFormat(formatName);
         String fileName = "reliable_shapes." + fileExtension;
 
         // Enable button only when pruned shapes data is available
@@ -338,31 +351,20 @@ public class ExtractionView extends LitTemplate {
         button.getElement().setAttribute("title", tooltipText);
 
         // Create StreamResource with lazy content generation
-        // Content is generated only when download is requested, ensuring fresh output
-        StreamResource resource = new StreamResource(fileName, () -> {
+        // Content is generated only when download is requested, ensuring fresh output;
+        // with compression chosen it is gzipped while it streams (file name gets a .gz suffix)
+        FileDownloadWrapper buttonWrapper = downloadWrapper(fileName, (outputStream, session) -> {
             // Double-check availability at download time (defensive programming)
             if (this.prunedNodeShapes == null || this.prunedNodeShapes.isEmpty()) {
                 throw new RuntimeException("Pruned shapes are not available yet. Please run pruning first.");
             }
             
-            // Generate format-aware content using current pruned node shapes
-            // This eliminates legacy issues: correct sh:nodeKind casing, typed numeric literals, etc.
-            String syntax = Utils.constructModelForGivenNodeShapesAndTheirPropertyShapes(
-                new HashSet<>(this.prunedNodeShapes), 
-                formatName
-            );
-            
-            // Conditionally apply post-processing fix for remaining issues (only for SHACL/Turtle)
-            if (postProcessingEnabled && !FORMAT_SHEX.equals(formatName)) {
-                syntax = postProcessTurtleContent(syntax);
-            }
-            
-            // Return content as UTF-8 byte stream for download
-            return new ByteArrayInputStream(syntax.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+            // Stream format-aware content using current pruned node shapes; NodeShapes whose kept
+            // PropertyShapes did not change since the last download are taken from the fragment store
+            writeShapesForDownload(new LinkedHashSet<>(this.prunedNodeShapes), formatName, outputStream, this.prunedFragments);
         });
 
         // Wrap button with FileDownloadWrapper for proper Vaadin download handling
-        FileDownloadWrapper buttonWrapper = new FileDownloadWrapper(resource);
         buttonWrapper.getStyle().set("align-self", "end");
         // Mirror the same tooltip on the wrapper to ensure the hint appears regardless of hover target
         buttonWrapper.getElement().setAttribute("title", tooltipText);
@@ -370,6 +372,61 @@ public class ExtractionView extends LitTemplate {
         pruningParamsHorizontalLayout.add(buttonWrapper);
     }
 
+    /**
+     * Streams the given shapes in the requested format into a download response.
+     * 
+     * Output is encoded as UTF-8 while it is generated. For SHACL/Turtle the optional
+     * post-processing fix is applied line by line, so neither the formatted document
+     * nor its byte encoding is ever held in memory as a whole.
+     * 
+     * If a fragment store is given and supports the format, the document is assembled
+     * from its cached per-NodeShape fragments instead of being formatted from scratch.
+     */
+    private void writeShapesForDownload(Set<NS> nodeShapes, String formatName, OutputStream outputStream,
+                                        ShapeFragmentStore fragments) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        if (postProcessingEnabled && FORMAT_SHACL.equals(formatName)) {
+            // Conditionally apply post-processing fix for remaining issues (only for SHACL/Turtle)
+            LineFilterWriter filtered = new LineFilterWriter(writer, this::postProcessTurtleContent);
+            writeShapes(nodeShapes, formatName, filtered, fragments);
+            filtered.finish();
+        } else {
+            writeShapes(nodeShapes, formatName, writer, fragments);
+        }
+        writer.flush();
+    }
+
+    private static void writeShapes(Set<NS> nodeShapes, String formatName, Writer writer,
+                                    ShapeFragmentStore fragments) throws IOException {
+        if (fragments != null && fragments.supports(formatName)) {
+            fragments.write(nodeShapes, formatName, writer);
+        } else {
+            Utils.writeModelForGivenNodeShapesAndTheirPropertyShapes(nodeShapes, formatName, writer);
+        }
+    }
+
+    /**
+     * Keeps the extracted and the pruned NodeShapes in the keyed snapshot store, so benchmarks
+     * can later select exactly this dataset, format and threshold combination as input.
+     * The extracted NodeShapes are only stored for a new extraction result; threshold changes
+     * only add the pruned ones.
+     */
+    private static void storeSnapshot(List<NS> nodeShapes, boolean newExtraction, List<NS> prunedNodeShapes,
+                                      Integer support, Double confidence) {
+        try {
+            SnapshotKey key = SnapshotKey.of(SelectionView.buildDatasetName(IndexView.category),
+                    IndexView.category.name(), IndexView.selectedFormat);
+            NodeShapesSnapshotStore store = NodeShapesSnapshotStore.shared();
+            if (newExtraction) {
+                store.put(key, nodeShapes);
+            }
+            store.put(key.withThresholds(support, confidence), prunedNodeShapes);
+        } catch (Throwable t) {
+            // Snapshots are best-effort; never interfere with the analysis
+            LOG.debug("Could not store NodeShapes snapshot: {}", t.toString());
+        }
+    }
+
     /**
      * Builds a filtered list of NodeShapes that satisfy the configured thresholds.
      * Behavior matches the previous inline logic (no semantic change).
@@ -553,9 +610,21 @@ public class ExtractionView extends LitTemplate {
         setupFilterRadioGroup(vaadinRadioGroup);
         vaadinRadioGroup.setVisible(true);
         List<NS> finalNodeShapes = nodeShapes;
+        // Every pruning run re-extracts and rebuilds the NS/PS objects; compare by content
+        boolean newExtraction = this.prunedFragments == null || !this.prunedFragments.isFor(nodeShapes);
+        if (newExtraction) {
+            // Share IRIs and constraint strings with loaded snapshots, once per extraction result;
+            // the pruned copies below reuse these NodeShapes' IRIs and PropertyShapes
+            InternPool.shared().internAll(nodeShapes);
+        }
         
         // Store pruned NodeShapes for format-aware download using extracted method
         this.prunedNodeShapes = buildPrunedNodeShapes(nodeShapes, support, confidence);
+        storeSnapshot(nodeShapes, newExtraction, prunedNodeShapes, support, confidence);
+        // Keep rendered fragments across threshold changes as long as the extraction result is the same
+        if (newExtraction) {
+            this.prunedFragments = new ShapeFragmentStore(nodeShapes);
+        }
         
         // Configure Download Reliable Shapes button now that prunedNodeShapes is available
         // This ensures the button is properly enabled with correct pruned data
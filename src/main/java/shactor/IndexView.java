@@ -57,7 +57,7 @@ public class IndexView extends LitTemplate {
     /**
      * Selected output format for shape generation.
      * Defaults to "SHACL" for backward compatibility.
-     * Supported values: "SHACL", "ShEx"
+     * Supported values: "SHACL", "ShEx", "ShExJ", "SHACL-NT"
      */
     public static String selectedFormat = "SHACL";
 
@@ -70,7 +70,7 @@ public class IndexView extends LitTemplate {
         tabSheet.add("Upload Graph", getTabTwoLayout());
         tabSheet.add("Connect to SPARQL Endpoint", getTabThreeLayout());
         // Make tab title dynamic based on selected format
-        String analyzeTabTitle = selectedFormat.equals("ShEx") ? "Analyze ShEx Shapes" : "Analyze SHACL Shapes";
+        String analyzeTabTitle = Utils.isShExFormat(selectedFormat) ? "Analyze ShEx Shapes" : "Analyze SHACL Shapes";
         tabSheet.add(analyzeTabTitle, getTabFourLayout());
         
         // Set dynamic text based on selected format
@@ -177,7 +177,9 @@ public class IndexView extends LitTemplate {
         String formatName = selectedFormat != null ? selectedFormat : "SHACL";
         String description;
         
-        if (formatName.equals("ShEx")) {
+        if (formatName.equals("ShExJ")) {
+            description = "SHACTOR is a system for extracting quality ShExJ (JSON ShEx) shape constraints from very large Knowledge Graphs (KGs), analyzing them to find spurious shapes constraints, and finding erroneous triples in the KG.";
+        } else if (formatName.equals("ShEx")) {
             description = "SHACTOR is a system for extracting quality ShExC (compact ShEx) shape constraints from very large Knowledge Graphs (KGs), analyzing them to find spurious shapes constraints, and finding erroneous triples in the KG.";
         } else {
             description = "SHACTOR is a system for extracting quality SHACL shape constraints from very large Knowledge Graphs (KGs), analyzing them to find spurious shapes constraints, and finding erroneous triples in the KG.";
@@ -208,7 +210,7 @@ public class IndexView extends LitTemplate {
      * Creates a RadioButtonGroup for selecting the output format for shape generation.
      * 
      * This method creates a format selection component that allows users to choose
-     * between SHACL and ShEx output formats. The selection is stored in the static
+     * between SHACL (Turtle, N-Triples) and ShEx (ShExC, ShExJ) output formats. The selection is stored in the static
      * selectedFormat field and defaults to SHACL for backward compatibility.
      * 
      * @return RadioButtonGroup configured for format selection
@@ -217,7 +219,7 @@ public class IndexView extends LitTemplate {
         RadioButtonGroup<String> formatSelection = new RadioButtonGroup<>();
         formatSelection.setLabel("Select Output Format:");
         formatSelection.setWidth("50%");
-        formatSelection.setItems("SHACL", "ShEx");
+        formatSelection.setItems("SHACL", "ShEx", "ShExJ", "SHACL-NT");
         formatSelection.setValue("SHACL"); // Default to SHACL for backward compatibility
         
         // Add descriptions for each format option
@@ -227,6 +229,10 @@ public class IndexView extends LitTemplate {
                     return "SHACL (Turtle format - .ttl)";
                 case "ShEx":
                     return "ShExC (compact syntax - .shex)";
+                case "ShExJ":
+                    return "ShExJ (JSON syntax - .json)";
+                case "SHACL-NT":
+                    return "SHACL (N-Triples format - .nt)";
                 default:
                     return item;
             }
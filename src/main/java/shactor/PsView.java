@@ -21,6 +21,7 @@ import com.vaadin.flow.component.orderedlayout.VerticalLayout;
 import com.vaadin.flow.component.select.Select;
 import com.vaadin.flow.component.template.Id;
 import com.vaadin.flow.component.textfield.TextArea;
+import com.vaadin.flow.data.provider.DataProvider;
 import com.vaadin.flow.data.renderer.ComponentRenderer;
 import com.vaadin.flow.router.Route;
 import com.vaadin.flow.router.RouteAlias;
@@ -41,6 +42,7 @@ import org.apache.jena.shacl.validation.ReportEntry;
 import org.apache.jena.vocabulary.RDF;
 import org.eclipse.rdf4j.model.vocabulary.SHACL;
 import org.eclipse.rdf4j.query.BindingSet;
+import shactor.graphdb.SparqlCursor;
 import shactor.utils.*;
 
 import java.io.ByteArrayOutputStream;
@@ -80,6 +82,9 @@ public class PsView extends LitTemplate {
 //    @Id("statusHorizontalLayout")
 //    private HorizontalLayout statusHorizontalLayout;
 
+    // Rows requested per grid round trip
+    private static final int GRID_PAGE_SIZE = 50;
+
     NS nodeShape;
     PS propertyShape;
     GraphExplorer graphExplorer;
@@ -126,7 +131,7 @@ public class PsView extends LitTemplate {
      */
     private void updateDynamicText() {
         String formatName = IndexView.selectedFormat != null ? IndexView.selectedFormat : "SHACL";
-        String syntaxHeading = formatName.equals("ShEx") ? "Shape Syntax (ShExC)" : "Shape Syntax (SHACL)";
+        String syntaxHeading = "Shape Syntax (" + Utils.getSyntaxNameForFormat(formatName) + ")";
         
         // Update the shape syntax heading
         if (shapeSyntaxHeading != null) {
@@ -166,15 +171,22 @@ public class PsView extends LitTemplate {
         propertyShape.getPath();
         String[] propPathSplit = propertyShape.getPath().split("/");
         String propLocalName = propPathSplit[propPathSplit.length - 1];
-        List<BindingSet> result = graphExplorer.runSelectQuery(QueryUtil.buildQueryToExtractEntitiesNotHavingFocusProperty(nodeShape.getTargetClass(), propertyShape.getPath()));
-        propCoverageInfoParagraph.setText("There are total " + Utils.formatWithCommas(nodeShape.getSupport()) + " entities of " + nodeShape.getTargetClass().getLocalName() + " class out of which " + result.size() + " are missing " + propertyShape.getPath() + " property. SHACTOR allows to add this property to selected entities.");
+        // Only counted here; the entities are loaded page by page when the dialog shows them
+        SparqlCursor<Triple> missingEntities = graphExplorer.selectCursor(QueryUtil.buildQueryToExtractEntitiesNotHavingFocusProperty(nodeShape.getTargetClass(), propertyShape.getPath()), "?entity",
+                bindings -> new Triple(bindings.getValue("entity").stringValue(), "", ""));
+        // A failed COUNT is reported as unknown rather than as zero missing entities
+        long missingCount = missingEntities.count();
+        String missingText = missingCount < 0 ? "an unknown number" : Utils.formatWithCommas((int) missingCount);
+        String matchedText = missingCount < 0 ? "An unknown number of" : Utils.formatWithCommas(nodeShape.getSupport() - (int) missingCount);
+        String missingHeadingText = missingCount < 0 ? "An unknown number of" : Utils.formatWithCommas((int) missingCount);
+        propCoverageInfoParagraph.setText("There are total " + Utils.formatWithCommas(nodeShape.getSupport()) + " entities of " + nodeShape.getTargetClass().getLocalName() + " class out of which " + missingText + " are missing " + propertyShape.getPath() + " property. SHACTOR allows to add this property to selected entities.");
         entitiesInspectionInfoParagraph.setText("Explore all entities of type " + nodeShape.getTargetClass().getLocalName() + " having property <" + propertyShape.getPath() + ">. SHACTOR allows to generate queries to delete the chosen entities.");
 
-        matchedEntitiesHeading.setText(Utils.formatWithCommas(nodeShape.getSupport() - result.size()) + " entities matched " + propLocalName + " property shape:");
-        missingPropertiesHeading.setText(Utils.formatWithCommas(result.size()) + " entities of type " + nodeShape.getTargetClass().getLocalName() + " are missing " + propLocalName + " property:");
+        matchedEntitiesHeading.setText(matchedText + " entities matched " + propLocalName + " property shape:");
+        missingPropertiesHeading.setText(missingHeadingText + " entities of type " + nodeShape.getTargetClass().getLocalName() + " are missing " + propLocalName + " property:");
 
         propCoverageQueryButton.addClickListener(buttonClickEvent -> {
-            createDialogueToShowEntitiesHavingMissingProperty(result);
+            createDialogueToShowEntitiesHavingMissingProperty(missingEntities);
         });
     }
 
@@ -209,8 +221,8 @@ public class PsView extends LitTemplate {
     private void setupGrid() {
         // Make column headers dynamic based on selected format
         String formatName = IndexView.selectedFormat != null ? IndexView.selectedFormat : "SHACL";
-        String nodeKindHeader = formatName.equals("ShEx") ? "NodeKind" : "sh:NodeKind";
-        String classOrDataTypeHeader = formatName.equals("ShEx") ? "Class or dataType" : "sh:Class or sh:dataType";
+        String nodeKindHeader = Utils.isShExFormat(formatName) ? "NodeKind" : "sh:NodeKind";
+        String classOrDataTypeHeader = Utils.isShExFormat(formatName) ? "Class or dataType" : "sh:Class or sh:dataType";
         
         if (propertyShape.getHasOrList()) {
             psConstraintsGrid.setVisible(false);
@@ -243,13 +255,13 @@ public class PsView extends LitTemplate {
                 button.addThemeVariants(ButtonVariant.LUMO_ICON, ButtonVariant.LUMO_CONTRAST, ButtonVariant.LUMO_TERTIARY);
                 if ("IRI".equals(nodeKind)) {
                     button.addClickListener(e -> {
-                        List<BindingSet> output;
+                        String query;
                         if (objType.equals("Undefined")) {
-                            output = graphExplorer.runSelectQuery(QueryUtil.buildQueryToExtractEntitiesHavingUndefinedShClass(nodeShape.getTargetClass().stringValue(), propertyShape.getPath()));
+                            query = QueryUtil.buildQueryToExtractEntitiesHavingUndefinedShClass(nodeShape.getTargetClass().stringValue(), propertyShape.getPath());
                         } else {
-                            output = graphExplorer.runSelectQuery(QueryUtil.buildQueryToExtractEntitiesHavingSpecificShClass(nodeShape.getTargetClass().stringValue(), propertyShape.getPath(), shaclOrListItem.getDataTypeOrClass()));
+                            query = QueryUtil.buildQueryToExtractEntitiesHavingSpecificShClass(nodeShape.getTargetClass().stringValue(), propertyShape.getPath(), shaclOrListItem.getDataTypeOrClass());
                         }
-                        createDialogueToShowEntitiesWithPropAndObject(output);
+                        createDialogueToShowEntitiesWithPropAndObject(query);
                     });
 
                     button.setIcon(new Icon(VaadinIcon.LIST));
@@ -269,8 +281,7 @@ public class PsView extends LitTemplate {
                     if ("IRI".equals(nodeKind)) {
                         button.addClickListener(e -> {
                             if (objType.equals("Undefined")) {
-                                List<BindingSet> output = graphExplorer.runSelectQuery(QueryUtil.buildQueryToExtractObjectsHavingUndefinedShClass(nodeShape.getTargetClass().stringValue(), propertyShape.getPath()));
-                                createDialogueToShowEntities(output);
+                                createDialogueToShowEntities(QueryUtil.buildQueryToExtractObjectsHavingUndefinedShClass(nodeShape.getTargetClass().stringValue(), propertyShape.getPath()));
                             }
                         });
                         button.setIcon(new Icon(VaadinIcon.LIST));
@@ -303,13 +314,13 @@ public class PsView extends LitTemplate {
                 psConstraintsGrid.addColumn(new ComponentRenderer<>(Button::new, (button, ps) -> {
                     button.addThemeVariants(ButtonVariant.LUMO_ICON, ButtonVariant.LUMO_CONTRAST, ButtonVariant.LUMO_TERTIARY);
                     button.addClickListener(e -> {
-                        List<BindingSet> output;
+                        String query;
                         if (ps.getDataTypeOrClass().equals("Undefined")) {
-                            output = graphExplorer.runSelectQuery(QueryUtil.buildQueryToExtractEntitiesHavingUndefinedShClass(nodeShape.getTargetClass().stringValue(), propertyShape.getPath()));
+                            query = QueryUtil.buildQueryToExtractEntitiesHavingUndefinedShClass(nodeShape.getTargetClass().stringValue(), propertyShape.getPath());
                         } else {
-                            output = graphExplorer.runSelectQuery(QueryUtil.buildQueryToExtractEntitiesHavingSpecificShClass(nodeShape.getTargetClass().stringValue(), propertyShape.getPath(), ps.getDataTypeOrClass()));
+                            query = QueryUtil.buildQueryToExtractEntitiesHavingSpecificShClass(nodeShape.getTargetClass().stringValue(), propertyShape.getPath(), ps.getDataTypeOrClass());
                         }
-                        createDialogueToShowEntitiesWithPropAndObject(output);
+                        createDialogueToShowEntitiesWithPropAndObject(query);
                     });
                     button.setIcon(new Icon(VaadinIcon.LIST));
                     button.setText("Inspect Entities");
@@ -324,8 +335,7 @@ public class PsView extends LitTemplate {
                         button.addThemeVariants(ButtonVariant.LUMO_ICON, ButtonVariant.LUMO_CONTRAST, ButtonVariant.LUMO_TERTIARY);
                         button.addClickListener(e -> {
                             if (ps.getDataTypeOrClass().equals("Undefined")) {
-                                List<BindingSet> output = graphExplorer.runSelectQuery(QueryUtil.buildQueryToExtractObjectsHavingUndefinedShClass(nodeShape.getTargetClass().stringValue(), propertyShape.getPath()));
-                                createDialogueToShowEntities(output);
+                                createDialogueToShowEntities(QueryUtil.buildQueryToExtractObjectsHavingUndefinedShClass(nodeShape.getTargetClass().stringValue(), propertyShape.getPath()));
                             }
                         });
                         button.setIcon(new Icon(VaadinIcon.LIST));
@@ -411,7 +421,7 @@ public class PsView extends LitTemplate {
     private VerticalLayout createDialogLayout(String psName, String sparqlQuery) {
         // Make the description format-aware based on user's selection
         String formatName = IndexView.selectedFormat != null ? IndexView.selectedFormat : "SHACL";
-        String constraintType = formatName.equals("ShEx") ? "ShExC constraint" : "SHACL constraint";
+        String constraintType = Utils.getSyntaxNameForFormat(formatName) + " constraint";
         
         Paragraph paragraph = new Paragraph("SHACTOR has generated the following SPARQL query to be executed on the provided Knowledge Graph. This query will fetch the triples responsible for extracting the following " + constraintType + ":");
         H6 nsTitle = new H6("NS: " + nodeShape.getLocalNameFromIri());
@@ -439,9 +449,7 @@ public class PsView extends LitTemplate {
         dialog.getFooter().add(executeQueryButton);
 
         executeQueryButton.addClickListener(buttonClickEvent -> {
-            List<Triple> tripleList = queryGraph(descriptionArea.getValue());
-            //simplifyOutput(tripleList);
-            createDialogueToShowTriples(tripleList);
+            createDialogueToShowTriples(graphExplorer.constructCursor(descriptionArea.getValue()));
         });
     }
 
@@ -529,7 +537,7 @@ public class PsView extends LitTemplate {
     }
 
 
-    private void createDialogueToShowTriples(List<Triple> tripleList) {
+    private void createDialogueToShowTriples(SparqlCursor<Triple> tripleList) {
         Dialog dialog = new Dialog();
         dialog.setHeaderTitle("Triples");
 
@@ -542,10 +550,10 @@ public class PsView extends LitTemplate {
         dialog.open();
     }
 
-    private void createDialogueToShowEntitiesWithPropAndObject(List<BindingSet> tripleList) {
+    private void createDialogueToShowEntitiesWithPropAndObject(String query) {
         Dialog dialog = new Dialog();
         dialog.setHeaderTitle("Entities Inspection");
-        VerticalLayout dialogLayout = createDialogContentForShowingEntitiesWithPropAndObject(tripleList);
+        VerticalLayout dialogLayout = createDialogContentForShowingEntitiesWithPropAndObject(query);
         dialog.add(dialogLayout);
         dialog.setDraggable(true);
         dialog.setResizable(true);
@@ -553,10 +561,10 @@ public class PsView extends LitTemplate {
         dialog.open();
     }
 
-    private void createDialogueToShowEntities(List<BindingSet> tripleList) {
+    private void createDialogueToShowEntities(String query) {
         Dialog dialog = new Dialog();
         dialog.setHeaderTitle("Entities Inspection");
-        VerticalLayout dialogLayout = createDialogContentForShowingEntities(tripleList);
+        VerticalLayout dialogLayout = createDialogContentForShowingEntities(query);
         dialog.add(dialogLayout);
         dialog.setDraggable(true);
         dialog.setResizable(true);
@@ -564,7 +572,7 @@ public class PsView extends LitTemplate {
         dialog.open();
     }
 
-    private void createDialogueToShowEntitiesHavingMissingProperty(List<BindingSet> tripleList) {
+    private void createDialogueToShowEntitiesHavingMissingProperty(SparqlCursor<Triple> tripleList) {
         Dialog dialog = new Dialog();
         dialog.setHeaderTitle("Entities Inspection");
         VerticalLayout dialogLayout = createDialogContentForShowingEntitiesHavingMissingProperty(tripleList);
@@ -575,20 +583,18 @@ public class PsView extends LitTemplate {
         dialog.open();
     }
 
-    private VerticalLayout createDialogContentForShowingEntitiesWithPropAndObject(List<BindingSet> result) {
-        List<Triple> tripleList = new ArrayList<>();
-        result.forEach(bindings -> {
-            tripleList.add(new Triple(bindings.getBinding("subject").getValue().stringValue(),
-                    bindings.getBinding("predicate").getValue().stringValue(),
-                    bindings.getBinding("object").getValue().stringValue()));
-        });
+    private VerticalLayout createDialogContentForShowingEntitiesWithPropAndObject(String query) {
+        SparqlCursor<Triple> tripleList = graphExplorer.selectCursor(query, "?subject ?object", bindings ->
+                new Triple(bindings.getBinding("subject").getValue().stringValue(),
+                        bindings.getBinding("predicate").getValue().stringValue(),
+                        bindings.getBinding("object").getValue().stringValue()));
 
         Grid<Triple> grid = new Grid<>(Triple.class, false);
 
         grid.setSelectionMode(Grid.SelectionMode.MULTI);
-        grid.addColumn(Triple::getSubject).setHeader("Subject (Entity IRI)").setResizable(true).setSortable(true);
-        grid.addColumn(Triple::getPredicate).setHeader("Property").setResizable(true).setSortable(true);
-        grid.addColumn(Triple::getObject).setHeader("Object").setResizable(true).setSortable(true);
+        grid.addColumn(Triple::getSubject).setHeader("Subject (Entity IRI)").setResizable(true);
+        grid.addColumn(Triple::getPredicate).setHeader("Property").setResizable(true);
+        grid.addColumn(Triple::getObject).setHeader("Object").setResizable(true);
 
         grid.addColumn(new ComponentRenderer<>(Button::new, (button, triple) -> {
             button.addThemeVariants(ButtonVariant.LUMO_ICON, ButtonVariant.LUMO_CONTRAST, ButtonVariant.LUMO_TERTIARY);
@@ -604,7 +610,7 @@ public class PsView extends LitTemplate {
         })).setHeader(setHeaderWithInfoLogo("Delete", "A SPARQL Query to remove this triple will be constructed."));
 
         grid.getStyle().set("width", "1500px").set("max-width", "100%");
-        grid.setItems(tripleList);
+        setLazyItems(grid, tripleList);
 
         Button generateDeleteQueryButton = Utils.getPrimaryButton("Generate Query to Delete the selected Triples");
         generateDeleteQueryButton.setAutofocus(true);
@@ -628,16 +634,14 @@ public class PsView extends LitTemplate {
         return dialogLayout;
     }
 
-    private VerticalLayout createDialogContentForShowingEntities(List<BindingSet> tripleList) {
-        List<Triple> subjectList = new ArrayList<>();
-        tripleList.forEach(bindings -> {
-            subjectList.add(new Triple(bindings.getBinding("val").getValue().stringValue(), "", ""));
-        });
+    private VerticalLayout createDialogContentForShowingEntities(String query) {
+        SparqlCursor<Triple> subjectList = graphExplorer.selectCursor(query, "?val", bindings ->
+                new Triple(bindings.getBinding("val").getValue().stringValue(), "", ""));
 
         Grid<Triple> grid = new Grid<>(Triple.class, false);
 
         grid.setSelectionMode(Grid.SelectionMode.MULTI);
-        grid.addColumn(Triple::getSubject).setHeader("IRI or Literal value").setResizable(true).setSortable(true);
+        grid.addColumn(Triple::getSubject).setHeader("IRI or Literal value").setResizable(true);
 
         grid.addColumn(new ComponentRenderer<>(Button::new, (button, triple) -> {
             button.addThemeVariants(ButtonVariant.LUMO_ICON, ButtonVariant.LUMO_CONTRAST, ButtonVariant.LUMO_TERTIARY);
@@ -647,7 +651,7 @@ public class PsView extends LitTemplate {
 
 
         grid.getStyle().set("width", "1500px").set("max-width", "100%");
-        grid.setItems(subjectList);
+        setLazyItems(grid, subjectList);
         String title = "IRIs having undefined type";
         if (!suggestionsWithSupport.isEmpty()) {
             title = "The table below shows the entities missing type information. SHACTOR suggests the following types/classes for these entities. Select entities using checkbox and select the one of the suggested type:";
@@ -692,16 +696,12 @@ public class PsView extends LitTemplate {
         return dialogLayout;
     }
 
-    private VerticalLayout createDialogContentForShowingEntitiesHavingMissingProperty(List<BindingSet> tripleList) {
-        List<Triple> subjectList = new ArrayList<>();
-        tripleList.forEach(bindings -> {
-            subjectList.add(new Triple(bindings.getBinding("entity").getValue().stringValue(), "", ""));
-        });
+    private VerticalLayout createDialogContentForShowingEntitiesHavingMissingProperty(SparqlCursor<Triple> subjectList) {
 
         Grid<Triple> grid = new Grid<>(Triple.class, false);
 
         grid.setSelectionMode(Grid.SelectionMode.MULTI);
-        grid.addColumn(Triple::getSubject).setHeader("Entity IRI").setResizable(true).setSortable(true);
+        grid.addColumn(Triple::getSubject).setHeader("Entity IRI").setResizable(true);
 
         grid.addColumn(new ComponentRenderer<>(Button::new, (button, triple) -> {
             button.addThemeVariants(ButtonVariant.LUMO_ICON, ButtonVariant.LUMO_CONTRAST, ButtonVariant.LUMO_TERTIARY);
@@ -711,7 +711,7 @@ public class PsView extends LitTemplate {
 
 
         grid.getStyle().set("width", "1500px").set("max-width", "100%");
-        grid.setItems(subjectList);
+        setLazyItems(grid, subjectList);
         Paragraph paragraph = new Paragraph("Entities not having property ' " + propertyShape.getPath() + "' are shown below. " +
                 "If you want to insert this property for a given entity, click on the + icon to generate the INSERT Query. ");
         VerticalLayout dialogLayout = new VerticalLayout(paragraph, grid);
@@ -722,19 +722,19 @@ public class PsView extends LitTemplate {
         return dialogLayout;
     }
 
-    private VerticalLayout createDialogContentForShowingTriples(List<Triple> tripleList) {
+    private VerticalLayout createDialogContentForShowingTriples(SparqlCursor<Triple> tripleList) {
         Grid<Triple> grid = new Grid<>(Triple.class, false);
         grid.setSelectionMode(Grid.SelectionMode.MULTI);
-        grid.addColumn(Triple::getSubject).setHeader("Subject").setResizable(true).setSortable(true);
-        grid.addColumn(Triple::getPredicate).setHeader("Predicate").setResizable(true).setSortable(true);
-        grid.addColumn(Triple::getObject).setHeader("Object").setResizable(true).setSortable(true);
+        grid.addColumn(Triple::getSubject).setHeader("Subject").setResizable(true);
+        grid.addColumn(Triple::getPredicate).setHeader("Predicate").setResizable(true);
+        grid.addColumn(Triple::getObject).setHeader("Object").setResizable(true);
         grid.addColumn(new ComponentRenderer<>(Button::new, (button, triple) -> {
             button.addThemeVariants(ButtonVariant.LUMO_ICON, ButtonVariant.LUMO_CONTRAST, ButtonVariant.LUMO_TERTIARY);
             button.addClickListener(e -> this.generateQueryToRemoveTriple(triple));
             button.setIcon(new Icon(VaadinIcon.TRASH));
         })).setHeader(setHeaderWithInfoLogo("Delete", "A SPARQL Query to remove this triple will be executed."));
         grid.getStyle().set("width", "2000px").set("max-width", "100%");
-        grid.setItems(tripleList);
+        setLazyItems(grid, tripleList);
 
         Button generateDeleteQueryButton = Utils.getPrimaryButton("Generate Query to Delete the selected Triples");
         generateDeleteQueryButton.setAutofocus(true);
@@ -760,6 +760,23 @@ public class PsView extends LitTemplate {
         return dialogLayout;
     }
 
+    /**
+     * Backs the grid with the cursor: only the rows the grid requests (visible rows plus its
+     * buffer) are fetched, from pages the cursor loads on demand. Columns are not sortable as
+     * the rows are never all in memory.
+     */
+    private static void setLazyItems(Grid<Triple> grid, SparqlCursor<Triple> cursor) {
+        grid.setPageSize(GRID_PAGE_SIZE);
+        if (cursor.count() >= 0) {
+            grid.setItems(DataProvider.fromCallbacks(
+                    query -> cursor.fetch(query.getOffset(), query.getLimit()).stream(),
+                    query -> (int) Math.min(Integer.MAX_VALUE, cursor.count())));
+        } else {
+            // Unknown size (CONSTRUCT): the grid grows while the user scrolls
+            grid.setItems(query -> cursor.fetch(query.getOffset(), query.getLimit()).stream());
+        }
+    }
+
     private void generateDeleteQueryForSelectedData(Set<Triple> triples) {
         StringBuilder deleteQuery = new StringBuilder();
         deleteQuery.append("DELETE \nWHERE { \n");
@@ -1,10 +1,10 @@
 package shactor.graphdb;
 
-
-import org.eclipse.rdf4j.common.app.AppConfiguration;
+import cs.utils.ConfigManager;
+import org.eclipse.rdf4j.model.Statement;
 import org.eclipse.rdf4j.model.ValueFactory;
 import org.eclipse.rdf4j.query.*;
-import org.eclipse.rdf4j.repository.Repository;
+import org.eclipse.rdf4j.query.impl.IteratingGraphQueryResult;
 import org.eclipse.rdf4j.repository.RepositoryConnection;
 import org.eclipse.rdf4j.repository.http.HTTPQueryEvaluationException;
 import org.eclipse.rdf4j.rio.RDFWriter;
@@ -15,161 +15,188 @@ import java.io.FileWriter;
 import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Function;
 
 /**
- * This class helps in querying GraphDB
+ * This class helps in querying GraphDB.
+ * Each query borrows a connection from the shared {@link RepositoryRegistry} and returns it
+ * when done, so instances are cheap and connections are shared across views.
  */
 public class GraphDBUtils {
-    KBManagement kbManager;
-    Repository repository;
-    RepositoryConnection repositoryConnection;
+    final RepositoryPool pool;
     
     public GraphDBUtils() {
-        this.kbManager = new KBManagement();
-        this.repository = kbManager.initGraphDBRepository();
-        this.repositoryConnection = repository.getConnection();
-        //AppConfiguration appConfiguration = new AppConfiguration();
+        this(ConfigManager.getProperty("graphDB_URL"), ConfigManager.getProperty("graphDB_REPOSITORY"));
     }
     
     public GraphDBUtils(String repositoryUrl, String repositoryName) {
-        this.kbManager = new KBManagement();
-        this.repository = kbManager.initGraphDBRepository(repositoryUrl, repositoryName);
-        this.repositoryConnection = repository.getConnection();
-        //AppConfiguration appConfiguration = new AppConfiguration();
+        this(RepositoryRegistry.shared().pool(repositoryUrl, repositoryName));
+    }
+    
+    public GraphDBUtils(RepositoryPool pool) {
+        this.pool = pool;
     }
     
     public ValueFactory getValueFactory() {
-        return repositoryConnection.getValueFactory();
+        return pool.getRepository().getValueFactory();
     }
     
     public List<BindingSet> runSelectQuery(String query) {
         List<BindingSet> result = new ArrayList<>();
-        try {
-            TupleQuery tupleQuery = repositoryConnection.prepareTupleQuery(QueryLanguage.SPARQL, query);
-            TupleQueryResult classesQueryResult = tupleQuery.evaluate();
-            classesQueryResult.forEach(result::add);
-            classesQueryResult.close();
+        try (RepositoryPool.Lease lease = pool.borrow()) {
+            TupleQuery tupleQuery = lease.getConnection().prepareTupleQuery(QueryLanguage.SPARQL, query);
+            try (TupleQueryResult classesQueryResult = tupleQuery.evaluate()) {
+                classesQueryResult.forEach(result::add);
+            }
         } catch (Exception e) {
             e.printStackTrace();
-            if (repositoryConnection.isActive())
-                repositoryConnection.rollback();
         }
         return result;
     }
     
+    /**
+     * Runs a SELECT query and maps each row while it is read, so no BindingSets are retained.
+     * Unlike {@link #runSelectQuery(String)}, failures are thrown to the caller.
+     */
+    public <T> List<T> runSelectQuery(String query, Function<BindingSet, T> mapper) {
+        List<T> result = new ArrayList<>();
+        try (RepositoryPool.Lease lease = pool.borrow()) {
+            TupleQuery tupleQuery = lease.getConnection().prepareTupleQuery(QueryLanguage.SPARQL, query);
+            try (TupleQueryResult queryResult = tupleQuery.evaluate()) {
+                queryResult.forEach(bindings -> result.add(mapper.apply(bindings)));
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Runs a query returning a single count, e.g. {@code SELECT (COUNT(*) AS ?count) ...}, and
+     * returns the value of its first binding. Failures are thrown to the caller.
+     */
+    public long runCountQuery(String query) {
+        List<Long> counts = runSelectQuery(query, bindings -> {
+            Iterator<Binding> values = bindings.iterator();
+            return values.hasNext() ? Long.parseLong(values.next().getValue().stringValue()) : 0L;
+        });
+        return counts.isEmpty() ? 0L : counts.get(0);
+    }
+    
     public int runSelectQueryCountOutputRows(String query) {
         int counter = 0;
-        try {
-            TupleQuery tupleQuery = repositoryConnection.prepareTupleQuery(QueryLanguage.SPARQL, query);
+        try (RepositoryPool.Lease lease = pool.borrow()) {
+            TupleQuery tupleQuery = lease.getConnection().prepareTupleQuery(QueryLanguage.SPARQL, query);
             tupleQuery.setMaxExecutionTime(600);
-            try {
-                TupleQueryResult classesQueryResult = tupleQuery.evaluate();
+            try (TupleQueryResult classesQueryResult = tupleQuery.evaluate()) {
                 counter = (int) classesQueryResult.stream().count();
-                classesQueryResult.close();
             } catch (HTTPQueryEvaluationException exception) {
                 System.out.println(exception.getLocalizedMessage());
                 counter = -1;
             }
         } catch (Exception e) {
             e.printStackTrace();
-            if (repositoryConnection.isActive())
-                repositoryConnection.rollback();
         }
         return counter;
     }
     
     public Boolean runAskQuery(String query) {
         Boolean result = null;
-        try {
-            BooleanQuery queryResult = repositoryConnection.prepareBooleanQuery(query);
+        try (RepositoryPool.Lease lease = pool.borrow()) {
+            BooleanQuery queryResult = lease.getConnection().prepareBooleanQuery(query);
             result = queryResult.evaluate();
         } catch (Exception e) {
             e.printStackTrace();
-            if (repositoryConnection.isActive())
-                repositoryConnection.rollback();
         }
         return result;
     }
     
-    
+    /**
+     * Runs a CONSTRUCT query. The result is read completely before the connection is returned
+     * to the pool, so it stays usable after this method returns.
+     */
     public GraphQueryResult runConstructQuery(String query) {
         GraphQueryResult resultantTriples = null;
-        try {
-            GraphQuery queryResult = repositoryConnection.prepareGraphQuery(query);
-            resultantTriples = queryResult.evaluate();
-            
+        try (RepositoryPool.Lease lease = pool.borrow()) {
+            GraphQuery queryResult = lease.getConnection().prepareGraphQuery(query);
+            try (GraphQueryResult evaluated = queryResult.evaluate()) {
+                List<Statement> statements = new ArrayList<>();
+                evaluated.forEach(statements::add);
+                resultantTriples = new IteratingGraphQueryResult(evaluated.getNamespaces(), statements);
+            }
         } catch (Exception e) {
             e.printStackTrace();
-            if (repositoryConnection.isActive())
-                repositoryConnection.rollback();
         }
         return resultantTriples;
     }
     
+    /**
+     * Runs a CONSTRUCT query and maps each statement while it is read. Failures are thrown to
+     * the caller.
+     */
+    public <T> List<T> runConstructQuery(String query, Function<Statement, T> mapper) {
+        List<T> result = new ArrayList<>();
+        try (RepositoryPool.Lease lease = pool.borrow()) {
+            GraphQuery graphQuery = lease.getConnection().prepareGraphQuery(query);
+            try (GraphQueryResult queryResult = graphQuery.evaluate()) {
+                queryResult.forEach(statement -> result.add(mapper.apply(statement)));
+            }
+        }
+        return result;
+    }
+    
     public void runConstructQuery(String query, String address) {
-        try {
-            GraphQuery queryResult = repositoryConnection.prepareGraphQuery(query);
-            GraphQueryResult resultantTriples = queryResult.evaluate();
+        try (RepositoryPool.Lease lease = pool.borrow()) {
+            GraphQuery queryResult = lease.getConnection().prepareGraphQuery(query);
             
-            FileWriter fileWriter = new FileWriter(address, true);
-            PrintWriter printWriter = new PrintWriter(fileWriter);
-            resultantTriples.forEach(statement -> {
-                printWriter.println("<" + statement.getSubject() + "> <" + statement.getPredicate() + "> <" + statement.getObject() + "> .");
-            });
-            
-            printWriter.close();
+            try (GraphQueryResult resultantTriples = queryResult.evaluate();
+                 PrintWriter printWriter = new PrintWriter(new FileWriter(address, true))) {
+                resultantTriples.forEach(statement -> {
+                    printWriter.println("<" + statement.getSubject() + "> <" + statement.getPredicate() + "> <" + statement.getObject() + "> .");
+                });
+            }
         } catch (Exception e) {
             e.printStackTrace();
-            if (repositoryConnection.isActive())
-                repositoryConnection.rollback();
         }
     }
     
     public void runGraphQuery(String query, String address) {
-        try {
-            GraphQuery graphQuery = repositoryConnection.prepareGraphQuery(QueryLanguage.SPARQL, query);
-            
-            GraphQueryResult graphQueryResult = graphQuery.evaluate();
+        try (RepositoryPool.Lease lease = pool.borrow()) {
+            GraphQuery graphQuery = lease.getConnection().prepareGraphQuery(QueryLanguage.SPARQL, query);
             
-            OutputStream out = new FileOutputStream(address, true);
-            RDFWriter writer = new NTriplesWriter(out);
-            graphQuery.evaluate(writer);
-            
-            graphQueryResult.close();
+            try (OutputStream out = new FileOutputStream(address, true)) {
+                RDFWriter writer = new NTriplesWriter(out);
+                graphQuery.evaluate(writer);
+            }
         } catch (Exception e) {
             e.printStackTrace();
-            if (repositoryConnection.isActive())
-                repositoryConnection.rollback();
         }
     }
     
     public List<BindingSet> runSelectQueryWithTimeOut(String query) {
         List<BindingSet> result = new ArrayList<>();
-        try {
-            TupleQuery tupleQuery = repositoryConnection.prepareTupleQuery(QueryLanguage.SPARQL, query);
+        try (RepositoryPool.Lease lease = pool.borrow()) {
+            TupleQuery tupleQuery = lease.getConnection().prepareTupleQuery(QueryLanguage.SPARQL, query);
             tupleQuery.setMaxExecutionTime(300);
-            TupleQueryResult classesQueryResult = tupleQuery.evaluate();
-            classesQueryResult.forEach(result::add);
-            classesQueryResult.close();
+            try (TupleQueryResult classesQueryResult = tupleQuery.evaluate()) {
+                classesQueryResult.forEach(result::add);
+            }
         } catch (Exception e) {
-            if (repositoryConnection.isActive())
-                repositoryConnection.rollback();
+            // timed out or failed; return what was read
         }
         return result;
     }
     
     public void updateQueryExecutor(String query) {
-        try {
+        // An uncommitted transaction is rolled back when the lease is closed
+        try (RepositoryPool.Lease lease = pool.borrow()) {
+            RepositoryConnection repositoryConnection = lease.getConnection();
             repositoryConnection.begin();
             Update updateOperation = repositoryConnection.prepareUpdate(QueryLanguage.SPARQL, query);
             updateOperation.execute();
             repositoryConnection.commit();
-            //repositoryConnection.close();
         } catch (Exception e) {
             e.printStackTrace();
-            if (repositoryConnection.isActive())
-                repositoryConnection.rollback();
         }
     }
-}
\ No newline at end of file
+}
@@ -1,48 +0,0 @@
-package shactor.graphdb;
-
-import cs.utils.ConfigManager;
-import org.eclipse.rdf4j.repository.Repository;
-import org.eclipse.rdf4j.repository.manager.RemoteRepositoryManager;
-import org.eclipse.rdf4j.repository.manager.RepositoryManager;
-
-/**
- * This class is used for the management of the Knowledge Base (GraphDB)
- */
-public class KBManagement {
-    
-    private Repository repository;
-    
-    /**
-     * Initialisation of the GraphDB repository
-     */
-    public Repository initGraphDBRepository() {
-        try {
-            RepositoryManager repositoryManager = new RemoteRepositoryManager(ConfigManager.getProperty("graphDB_URL"));
-            repository = repositoryManager.getRepository(ConfigManager.getProperty("graphDB_REPOSITORY"));
-            repository.init();
-            
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-        return repository;
-    }
-    
-    public Repository initGraphDBRepository(String repositoryUrl, String repositoryName) {
-        try {
-            RepositoryManager repositoryManager = new RemoteRepositoryManager(repositoryUrl);
-            repository = repositoryManager.getRepository(repositoryName);
-            repository.init();
-            
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-        return repository;
-    }
-    
-    /**
-     * Shutdown repository and manager
-     */
-    public void shutDownGraphDB() {
-        repository.shutDown();
-    }
-}
\ No newline at end of file
@@ -0,0 +1,358 @@
+package shactor.graphdb;
+
+import org.eclipse.rdf4j.repository.Repository;
+import org.eclipse.rdf4j.repository.RepositoryConnection;
+import org.eclipse.rdf4j.repository.RepositoryException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded pool of connections to one repository, obtained from {@link RepositoryRegistry}.
+ *
+ * At most {@code maxConnections} connections are borrowed at a time; further borrowers wait
+ * up to the borrow timeout. Returned connections are kept idle for reuse (most recently
+ * returned first) until they exceed the idle timeout.
+ *
+ * Usage:
+ *   try (RepositoryPool.Lease lease = pool.borrow()) {
+ *       RepositoryConnection connection = lease.getConnection();
+ *       ...
+ *   }
+ */
+public final class RepositoryPool {
+    private static final Logger LOG = LoggerFactory.getLogger(RepositoryPool.class);
+
+    private final String url;
+    private final String repositoryName;
+    private final Repository repository;
+    private final int maxConnections;
+    private final long idleTimeoutNanos;
+    private final long borrowTimeoutMs;
+
+    private final Semaphore permits;
+    private final ConcurrentLinkedDeque<IdleConnection> idle = new ConcurrentLinkedDeque<>();
+    private volatile boolean closed;
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong discarded = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+    private final AtomicLong borrows = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+
+    RepositoryPool(String url, String repositoryName, Repository repository,
+                   int maxConnections, long idleTimeoutMs, long borrowTimeoutMs) {
+        if (maxConnections < 1) {
+            throw new IllegalArgumentException("Pool needs at least one connection");
+        }
+        this.url = url;
+        this.repositoryName = repositoryName;
+        this.repository = Objects.requireNonNull(repository, "repository");
+        this.maxConnections = maxConnections;
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0L, idleTimeoutMs));
+        this.borrowTimeoutMs = Math.max(0L, borrowTimeoutMs);
+        this.permits = new Semaphore(maxConnections, true);
+    }
+
+    /**
+     * Borrows a connection, waiting up to the borrow timeout if all connections are in use.
+     * Close the lease to return the connection.
+     *
+     * @throws RepositoryException if no connection became available in time, the pool is
+     *                             shut down or a new connection could not be opened
+     */
+    public Lease borrow() {
+        if (closed) {
+            throw new RepositoryException("Connection pool for " + this + " is shut down");
+        }
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RepositoryException("Interrupted while waiting for a connection to " + this, e);
+        }
+        waitNanos.addAndGet(System.nanoTime() - start);
+        if (!acquired) {
+            timeouts.incrementAndGet();
+            throw new RepositoryException("Timed out after " + borrowTimeoutMs + " ms waiting for a connection to "
+                    + this + " (" + maxConnections + " in use)");
+        }
+        try {
+            RepositoryConnection connection = takeIdle();
+            if (connection == null) {
+                connection = repository.getConnection();
+                created.incrementAndGet();
+            }
+            active.incrementAndGet();
+            borrows.incrementAndGet();
+            return new Lease(connection);
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private RepositoryConnection takeIdle() {
+        IdleConnection candidate;
+        while ((candidate = idle.pollFirst()) != null) {
+            if (isUsable(candidate.connection)) return candidate.connection;
+            discarded.incrementAndGet();
+            closeQuietly(candidate.connection);
+        }
+        return null;
+    }
+
+    private void giveBack(RepositoryConnection connection) {
+        active.decrementAndGet();
+        try {
+            boolean reusable = !closed && isUsable(connection);
+            if (reusable && connection.isActive()) {
+                connection.rollback();
+            }
+            if (reusable) {
+                idle.offerFirst(new IdleConnection(connection, System.nanoTime()));
+                // shutdown() may have drained the idle connections meanwhile
+                if (closed) closeIdle();
+            } else {
+                discarded.incrementAndGet();
+                closeQuietly(connection);
+            }
+        } catch (RuntimeException e) {
+            discarded.incrementAndGet();
+            closeQuietly(connection);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private static boolean isUsable(RepositoryConnection connection) {
+        try {
+            return connection.isOpen();
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private static void closeQuietly(RepositoryConnection connection) {
+        try {
+            connection.close();
+        } catch (RuntimeException e) {
+            LOG.debug("[RepositoryPool] Failed to close connection: {}", e.toString());
+        }
+    }
+
+    /**
+     * Closes connections that have been idle longer than the idle timeout.
+     *
+     * @return The number of closed connections
+     */
+    int evictIdle() {
+        if (idleTimeoutNanos <= 0) return 0;
+        long now = System.nanoTime();
+        int count = 0;
+        // Oldest connections sit at the tail
+        Iterator<IdleConnection> it = idle.descendingIterator();
+        while (it.hasNext()) {
+            IdleConnection candidate = it.next();
+            if (now - candidate.since < idleTimeoutNanos) break;
+            if (idle.removeFirstOccurrence(candidate)) {
+                closeQuietly(candidate.connection);
+                evicted.incrementAndGet();
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void closeIdle() {
+        IdleConnection candidate;
+        while ((candidate = idle.pollFirst()) != null) {
+            closeQuietly(candidate.connection);
+        }
+    }
+
+    /**
+     * Closes idle connections and shuts the repository down. Connections still borrowed are
+     * closed when their lease is closed.
+     */
+    void shutdown() {
+        closed = true;
+        closeIdle();
+        try {
+            repository.shutDown();
+        } catch (RuntimeException e) {
+            LOG.warn("[RepositoryPool] Failed to shut down {}: {}", this, e.toString());
+        }
+    }
+
+    public boolean isShutdown() {
+        return closed;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getRepositoryName() {
+        return repositoryName;
+    }
+
+    public Repository getRepository() {
+        return repository;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    /**
+     * Point-in-time copy of the pool counters.
+     */
+    public Metrics getMetrics() {
+        return new Metrics(url, repositoryName, maxConnections, active.get(), idle.size(), created.get(),
+                discarded.get(), evicted.get(), borrows.get(), timeouts.get(),
+                TimeUnit.NANOSECONDS.toMillis(waitNanos.get()));
+    }
+
+    @Override
+    public String toString() {
+        return repositoryName + "@" + url;
+    }
+
+    /**
+     * A borrowed connection; closing the lease returns the connection to the pool, rolling back
+     * an open transaction first. Closing it more than once has no effect.
+     */
+    public final class Lease implements AutoCloseable {
+        private final RepositoryConnection connection;
+        private final AtomicBoolean returned = new AtomicBoolean();
+
+        private Lease(RepositoryConnection connection) {
+            this.connection = connection;
+        }
+
+        /**
+         * The borrowed connection. Do not close it; close the lease instead.
+         */
+        public RepositoryConnection getConnection() {
+            if (returned.get()) {
+                throw new IllegalStateException("Connection lease is already closed");
+            }
+            return connection;
+        }
+
+        @Override
+        public void close() {
+            if (returned.compareAndSet(false, true)) {
+                giveBack(connection);
+            }
+        }
+    }
+
+    private static final class IdleConnection {
+        final RepositoryConnection connection;
+        final long since;
+
+        IdleConnection(RepositoryConnection connection, long since) {
+            this.connection = connection;
+            this.since = since;
+        }
+    }
+
+    /**
+     * Pool counters: connections in use and idle, connections opened, discarded as broken,
+     * evicted as idle, total borrows, borrow timeouts and total time spent waiting to borrow.
+     */
+    public static final class Metrics {
+        private final String url;
+        private final String repositoryName;
+        private final int maxConnections;
+        private final int active;
+        private final int idle;
+        private final long created;
+        private final long discarded;
+        private final long evicted;
+        private final long borrows;
+        private final long timeouts;
+        private final long waitMillis;
+
+        Metrics(String url, String repositoryName, int maxConnections, int active, int idle, long created,
+                long discarded, long evicted, long borrows, long timeouts, long waitMillis) {
+            this.url = url;
+            this.repositoryName = repositoryName;
+            this.maxConnections = maxConnections;
+            this.active = active;
+            this.idle = idle;
+            this.created = created;
+            this.discarded = discarded;
+            this.evicted = evicted;
+            this.borrows = borrows;
+            this.timeouts = timeouts;
+            this.waitMillis = waitMillis;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public String getRepositoryName() {
+            return repositoryName;
+        }
+
+        public int getMaxConnections() {
+            return maxConnections;
+        }
+
+        public int getActive() {
+            return active;
+        }
+
+        public int getIdle() {
+            return idle;
+        }
+
+        public long getCreated() {
+            return created;
+        }
+
+        public long getDiscarded() {
+            return discarded;
+        }
+
+        public long getEvicted() {
+            return evicted;
+        }
+
+        public long getBorrows() {
+            return borrows;
+        }
+
+        public long getTimeouts() {
+            return timeouts;
+        }
+
+        public long getWaitMillis() {
+            return waitMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "RepositoryPool[%s@%s, active=%d/%d, idle=%d, created=%d, discarded=%d, evicted=%d, borrows=%d, timeouts=%d, waitMs=%d]",
+                    repositoryName, url, active, maxConnections, idle, created, discarded, evicted, borrows, timeouts, waitMillis);
+        }
+    }
+}
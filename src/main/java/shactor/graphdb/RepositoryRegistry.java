@@ -0,0 +1,266 @@
+package shactor.graphdb;
+
+import org.eclipse.rdf4j.repository.Repository;
+import org.eclipse.rdf4j.repository.RepositoryConnection;
+import org.eclipse.rdf4j.repository.RepositoryException;
+import org.eclipse.rdf4j.repository.http.HTTPRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import shactor.config.ConfigurationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process-wide registry of repositories, keyed by (server URL, repository name), each with a
+ * bounded connection pool.
+ *
+ * The first {@link #pool(String, String)} for a key opens the repository; later calls - from
+ * any view or session - share it. Idle connections are closed by a background evictor, and the
+ * shared registry shuts all repositories down when the JVM exits.
+ *
+ * Configuration (application.properties):
+ * - {@value #MAX_CONNECTIONS_PROPERTY}: connections per repository
+ * - {@value #IDLE_TIMEOUT_PROPERTY}: idle time in ms after which a connection is closed; 0 keeps them
+ * - {@value #BORROW_TIMEOUT_PROPERTY}: maximum wait in ms for a free connection
+ */
+public final class RepositoryRegistry {
+    private static final Logger LOG = LoggerFactory.getLogger(RepositoryRegistry.class);
+
+    public static final String MAX_CONNECTIONS_PROPERTY = "shactor.graphdb.pool.maxConnections";
+    public static final String IDLE_TIMEOUT_PROPERTY = "shactor.graphdb.pool.idleTimeoutMs";
+    public static final String BORROW_TIMEOUT_PROPERTY = "shactor.graphdb.pool.borrowTimeoutMs";
+
+    static final int DEFAULT_MAX_CONNECTIONS = 8;
+    static final long DEFAULT_IDLE_TIMEOUT_MS = 60_000L;
+    static final long DEFAULT_BORROW_TIMEOUT_MS = 30_000L;
+
+    private static volatile RepositoryRegistry shared;
+
+    /**
+     * Opens the repository of a key; the default connects to a remote (GraphDB/RDF4J) server.
+     */
+    @FunctionalInterface
+    public interface RepositoryFactory {
+        Repository open(String url, String repositoryName);
+    }
+
+    private final RepositoryFactory factory;
+    private final int maxConnections;
+    private final long idleTimeoutMs;
+    private final long borrowTimeoutMs;
+
+    private final ConcurrentHashMap<Key, RepositoryPool> pools = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService evictor;
+    private volatile boolean closed;
+
+    /**
+     * Creates a registry.
+     *
+     * @param factory Opens the repository of a key on first use
+     * @param maxConnections Connections per repository
+     * @param idleTimeoutMs Idle time after which a connection is closed; 0 disables eviction
+     * @param borrowTimeoutMs Maximum wait for a free connection
+     * @throws IllegalArgumentException if maxConnections is less than 1
+     */
+    public RepositoryRegistry(RepositoryFactory factory, int maxConnections, long idleTimeoutMs, long borrowTimeoutMs) {
+        if (maxConnections < 1) {
+            throw new IllegalArgumentException("Pool needs at least one connection");
+        }
+        this.factory = Objects.requireNonNull(factory, "factory");
+        this.maxConnections = maxConnections;
+        this.idleTimeoutMs = Math.max(0L, idleTimeoutMs);
+        this.borrowTimeoutMs = Math.max(0L, borrowTimeoutMs);
+        if (this.idleTimeoutMs > 0) {
+            long period = Math.max(1_000L, this.idleTimeoutMs / 2);
+            this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "repository-registry-evictor");
+                t.setDaemon(true);
+                return t;
+            });
+            this.evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+        } else {
+            this.evictor = null;
+        }
+    }
+
+    /**
+     * Returns the application-wide registry, configured from application.properties. Its
+     * repositories are shut down by a JVM shutdown hook.
+     */
+    public static RepositoryRegistry shared() {
+        RepositoryRegistry registry = shared;
+        if (registry == null) {
+            synchronized (RepositoryRegistry.class) {
+                registry = shared;
+                if (registry == null) {
+                    ConfigurationManager config = ConfigurationManager.getInstance();
+                    registry = new RepositoryRegistry(RepositoryRegistry::openRemote,
+                            (int) longProperty(config, MAX_CONNECTIONS_PROPERTY, DEFAULT_MAX_CONNECTIONS),
+                            longProperty(config, IDLE_TIMEOUT_PROPERTY, DEFAULT_IDLE_TIMEOUT_MS),
+                            longProperty(config, BORROW_TIMEOUT_PROPERTY, DEFAULT_BORROW_TIMEOUT_MS));
+                    Runtime.getRuntime().addShutdownHook(new Thread(registry::shutdown, "repository-registry-shutdown"));
+                    shared = registry;
+                }
+            }
+        }
+        return registry;
+    }
+
+    private static long longProperty(ConfigurationManager config, String key, long defaultValue) {
+        try {
+            long value = Long.parseLong(config.getProperty(key, String.valueOf(defaultValue)).trim());
+            return value < 0 ? defaultValue : value;
+        } catch (RuntimeException ignored) {
+            return defaultValue;
+        }
+    }
+
+    private static Repository openRemote(String url, String repositoryName) {
+        Repository repository = new HTTPRepository(url, repositoryName);
+        repository.init();
+        return verifyExists(repository, url, repositoryName);
+    }
+
+    /**
+     * Runs a trivial ASK query so that a misspelled repository name or an unreachable server
+     * fails when the repository is first opened, not on every later query.
+     *
+     * @throws RepositoryException if the query fails; the repository is shut down first
+     */
+    static Repository verifyExists(Repository repository, String url, String repositoryName) {
+        try (RepositoryConnection connection = repository.getConnection()) {
+            connection.prepareBooleanQuery("ASK {}").evaluate();
+        } catch (RuntimeException e) {
+            try {
+                repository.shutDown();
+            } catch (RuntimeException ignored) {
+                // already failing
+            }
+            throw new RepositoryException("Repository " + repositoryName + " not found or not reachable at " + url, e);
+        }
+        return repository;
+    }
+
+    /**
+     * Returns the pool of the repository, opening the repository on first use.
+     *
+     * @throws IllegalArgumentException if url or repositoryName is empty
+     * @throws RepositoryException if the registry is shut down or the repository cannot be opened
+     */
+    public RepositoryPool pool(String url, String repositoryName) {
+        Key key = new Key(url, repositoryName);
+        RepositoryPool pool = pools.get(key);
+        if (pool != null) return pool;
+        if (closed) {
+            throw new RepositoryException("Repository registry is shut down");
+        }
+        pool = pools.computeIfAbsent(key, k -> {
+            Repository repository = factory.open(k.url, k.repositoryName);
+            if (repository == null) {
+                throw new RepositoryException("Repository " + k.repositoryName + " not found at " + k.url);
+            }
+            LOG.info("[RepositoryRegistry] Opened repository {} at {} (max {} connections)",
+                    k.repositoryName, k.url, maxConnections);
+            return new RepositoryPool(k.url, k.repositoryName, repository, maxConnections, idleTimeoutMs, borrowTimeoutMs);
+        });
+        // Lost a race against shutdown(): do not leave an open repository behind
+        if (closed) {
+            pool.shutdown();
+            throw new RepositoryException("Repository registry is shut down");
+        }
+        return pool;
+    }
+
+    /**
+     * Borrows a connection of the repository; shorthand for {@code pool(url, repositoryName).borrow()}.
+     */
+    public RepositoryPool.Lease borrow(String url, String repositoryName) {
+        return pool(url, repositoryName).borrow();
+    }
+
+    /**
+     * Closes connections that exceeded the idle timeout in all pools.
+     *
+     * @return The number of closed connections
+     */
+    public int evictIdle() {
+        int count = 0;
+        for (RepositoryPool pool : pools.values()) {
+            try {
+                count += pool.evictIdle();
+            } catch (RuntimeException e) {
+                LOG.warn("[RepositoryRegistry] Idle eviction failed for {}: {}", pool, e.toString());
+            }
+        }
+        if (count > 0) {
+            LOG.debug("[RepositoryRegistry] Closed {} idle connections", count);
+        }
+        return count;
+    }
+
+    /**
+     * Metrics of all pools, one entry per repository.
+     */
+    public List<RepositoryPool.Metrics> getMetrics() {
+        List<RepositoryPool.Metrics> metrics = new ArrayList<>();
+        for (RepositoryPool pool : pools.values()) {
+            metrics.add(pool.getMetrics());
+        }
+        return metrics;
+    }
+
+    /**
+     * Stops idle eviction and shuts down all repositories. Further borrows fail.
+     */
+    public void shutdown() {
+        closed = true;
+        if (evictor != null) evictor.shutdownNow();
+        for (RepositoryPool pool : pools.values()) {
+            LOG.info("[RepositoryRegistry] Shutting down {}", pool.getMetrics());
+            pool.shutdown();
+        }
+        pools.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "RepositoryRegistry" + getMetrics();
+    }
+
+    private static final class Key {
+        final String url;
+        final String repositoryName;
+
+        Key(String url, String repositoryName) {
+            if (url == null || url.trim().isEmpty()) {
+                throw new IllegalArgumentException("Repository URL cannot be null or empty");
+            }
+            if (repositoryName == null || repositoryName.trim().isEmpty()) {
+                throw new IllegalArgumentException("Repository name cannot be null or empty");
+            }
+            // http://localhost:7200 and http://localhost:7200/ address the same server
+            String trimmed = url.trim();
+            this.url = trimmed.endsWith("/") ? trimmed.substring(0, trimmed.length() - 1) : trimmed;
+            this.repositoryName = repositoryName.trim();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return url.equals(other.url) && repositoryName.equals(other.repositoryName);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(url, repositoryName);
+        }
+    }
+}
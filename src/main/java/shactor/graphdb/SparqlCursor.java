@@ -0,0 +1,302 @@
+package shactor.graphdb;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import shactor.config.ConfigurationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Read-only cursor over the rows of a SPARQL query that loads them page by page on demand.
+ *
+ * Pages are fetched with ORDER BY and LIMIT/OFFSET appended to the query, so only the rows
+ * asked for (plus the rest of their page) are ever transferred. SPARQL leaves the order of
+ * solutions undefined without ORDER BY, so the cursor always orders by key variables that
+ * identify a solution; otherwise pages could overlap or skip rows between queries.
+ *
+ * SELECT rows are solutions, so row N is always on page N / pageSize and loaded directly. A
+ * CONSTRUCT solution can yield several triples; for those the cursor remembers how many rows
+ * each page had and reads pages in order. A small window of recently used pages is kept in
+ * memory.
+ *
+ * Queries that already end with LIMIT or OFFSET are fetched unpaged, as one page. Queries
+ * with their own ORDER BY keep it.
+ *
+ * Usage:
+ *   SparqlCursor<Triple> cursor = graphExplorer.selectCursor(query, "?entity", row -> new Triple(...));
+ *   grid.setItems(DataProvider.fromCallbacks(
+ *       q -> cursor.fetch(q.getOffset(), q.getLimit()).stream(), q -> (int) cursor.count()));
+ */
+public final class SparqlCursor<T> {
+    private static final Logger LOG = LoggerFactory.getLogger(SparqlCursor.class);
+
+    public static final String PAGE_SIZE_PROPERTY = "shactor.graphdb.pageSize";
+
+    static final int DEFAULT_PAGE_SIZE = 200;
+    static final int DEFAULT_CACHED_PAGES = 10;
+
+    private static final Pattern SOLUTION_LIMIT = Pattern.compile("(?is).*\\b(LIMIT|OFFSET)\\s+\\d+\\s*$");
+    private static final Pattern ORDER_BY = Pattern.compile("(?i)\\bORDER\\s+BY\\b");
+    private static final Pattern VARIABLE = Pattern.compile("[?$]([A-Za-z0-9_]+)");
+    private static final Pattern PROLOGUE = Pattern.compile(
+            "(?is)^\\s*((?:(?:PREFIX\\s+[^\\s:]*:\\s*<[^>]*>|BASE\\s+<[^>]*>)\\s*)*)(.*)$");
+
+    private final String query;
+    private final String orderBy;
+    private final Function<String, List<T>> pageLoader;
+    private final ToLongFunction<String> counter;
+    private final boolean rowsAreSolutions;
+    private final boolean paged;
+    private final int pageSize;
+
+    // First row of each page loaded so far, in page order (CONSTRUCT only)
+    private final List<Integer> pageStarts = new ArrayList<>();
+    private int knownRows;
+    private boolean exhausted;
+    private long count = -1;
+    private boolean countFailed;
+    private long pageQueries;
+
+    private final Map<Integer, List<T>> pages;
+
+    /**
+     * Creates a cursor.
+     *
+     * @param query The SELECT or CONSTRUCT query, without LIMIT/OFFSET to be paged
+     * @param orderBy Variables that identify a solution, e.g. "?entity", used as ORDER BY keys;
+     *                null orders by all variables of the query
+     * @param pageLoader Runs a (paged) query and returns its mapped rows; failures are thrown
+     * @param counter Runs a COUNT query and returns its value, or null if rows cannot be counted
+     *                that way (CONSTRUCT)
+     * @param rowsAreSolutions Whether each solution is exactly one row (SELECT)
+     * @param pageSize Solutions per page
+     * @param cachedPages Pages kept in memory
+     * @throws IllegalArgumentException if pageSize or cachedPages is less than 1
+     */
+    public SparqlCursor(String query, String orderBy, Function<String, List<T>> pageLoader, ToLongFunction<String> counter,
+                        boolean rowsAreSolutions, int pageSize, int cachedPages) {
+        if (pageSize < 1 || cachedPages < 1) {
+            throw new IllegalArgumentException("Page size and cached pages must be at least 1");
+        }
+        this.query = Objects.requireNonNull(query, "query").trim();
+        this.pageLoader = Objects.requireNonNull(pageLoader, "pageLoader");
+        this.counter = counter;
+        this.rowsAreSolutions = rowsAreSolutions;
+        this.paged = !SOLUTION_LIMIT.matcher(this.query).matches();
+        this.orderBy = ORDER_BY.matcher(this.query).find() ? ""
+                : (orderBy == null || orderBy.isBlank() ? variablesOf(this.query) : orderBy.trim());
+        this.pageSize = pageSize;
+        this.pages = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<T>> eldest) {
+                return size() > cachedPages;
+            }
+        };
+    }
+
+    /**
+     * Page size from application.properties ({@value #PAGE_SIZE_PROPERTY}).
+     */
+    public static int defaultPageSize() {
+        try {
+            int value = Integer.parseInt(ConfigurationManager.getInstance()
+                    .getProperty(PAGE_SIZE_PROPERTY, String.valueOf(DEFAULT_PAGE_SIZE)).trim());
+            return value > 0 ? value : DEFAULT_PAGE_SIZE;
+        } catch (RuntimeException ignored) {
+            return DEFAULT_PAGE_SIZE;
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} rows starting at row {@code offset}, loading the pages they
+     * fall into. Fewer rows are returned at the end of the result or if a page fails to load.
+     */
+    public synchronized List<T> fetch(int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Offset and limit cannot be negative");
+        }
+        List<T> rows = new ArrayList<>(Math.min(limit, pageSize));
+        if (rowsAreSolutions && paged) {
+            fetchSolutions(offset, limit, rows);
+            return rows;
+        }
+        int row = offset;
+        while (rows.size() < limit) {
+            while (row >= knownRows && !exhausted) {
+                if (loadNextPage() == null) return rows;
+            }
+            if (row >= knownRows) break;
+            int page = pageOf(row);
+            List<T> content = page(page);
+            if (content == null) break;
+            int from = row - pageStarts.get(page);
+            if (from >= content.size()) break; // the result changed since the page was counted
+            int to = Math.min(content.size(), from + limit - rows.size());
+            rows.addAll(content.subList(from, to));
+            row += to - from;
+        }
+        return rows;
+    }
+
+    private void fetchSolutions(int offset, int limit, List<T> rows) {
+        long row = offset;
+        while (rows.size() < limit && !(exhausted && row >= knownRows)) {
+            int page = (int) (row / pageSize);
+            long pageStart = (long) page * pageSize;
+            List<T> content = page(page);
+            if (content == null) return;
+            if (content.size() < pageSize) {
+                exhausted = true;
+                knownRows = (int) Math.min(Integer.MAX_VALUE, pageStart + content.size());
+            }
+            int from = (int) (row - pageStart);
+            if (from >= content.size()) return;
+            int to = Math.min(content.size(), from + limit - rows.size());
+            rows.addAll(content.subList(from, to));
+            row += to - from;
+        }
+    }
+
+    private int pageOf(int row) {
+        int index = Collections.binarySearch(pageStarts, row);
+        if (index >= 0) {
+            // Skip empty pages sharing the same start
+            while (index + 1 < pageStarts.size() && pageStarts.get(index + 1) == row) index++;
+            return index;
+        }
+        return -index - 2;
+    }
+
+    private List<T> loadNextPage() {
+        int page = pageStarts.size();
+        List<T> content = load(page);
+        if (content == null) return null;
+        pageStarts.add(knownRows);
+        knownRows += content.size();
+        pages.put(page, content);
+        if (!paged || content.isEmpty() || (rowsAreSolutions && content.size() < pageSize)) {
+            exhausted = true;
+        }
+        return content;
+    }
+
+    private List<T> page(int page) {
+        List<T> content = pages.get(page);
+        if (content == null) {
+            content = load(page);
+            if (content != null) pages.put(page, content);
+        }
+        return content;
+    }
+
+    private List<T> load(int page) {
+        String pageQuery = paged ? pageQuery(page) : query;
+        try {
+            pageQueries++;
+            List<T> content = pageLoader.apply(pageQuery);
+            return content == null ? List.of() : content;
+        } catch (RuntimeException e) {
+            LOG.warn("[SparqlCursor] Failed to load page {}: {}", page, e.toString());
+            return null;
+        }
+    }
+
+    String pageQuery(int page) {
+        String order = orderBy.isEmpty() ? "" : "\nORDER BY " + orderBy;
+        return query + order + "\nLIMIT " + pageSize + " OFFSET " + (long) page * pageSize;
+    }
+
+    /**
+     * All variables of the query body, in order of appearance, as ORDER BY keys.
+     */
+    static String variablesOf(String query) {
+        Matcher prologue = PROLOGUE.matcher(query);
+        Matcher matcher = VARIABLE.matcher(prologue.matches() ? prologue.group(2) : query);
+        Set<String> variables = new LinkedHashSet<>();
+        while (matcher.find()) variables.add("?" + matcher.group(1));
+        return String.join(" ", variables);
+    }
+
+    /**
+     * Total number of rows, from a COUNT query on first use, or from the pages when all of them
+     * have been loaded.
+     *
+     * @return The row count, or -1 if it is not known (CONSTRUCT queries not yet read to the end,
+     *         or a failed COUNT query)
+     */
+    public synchronized long count() {
+        if (exhausted) return knownRows;
+        if (count < 0 && counter != null && !countFailed) {
+            try {
+                count = counter.applyAsLong(countQuery());
+            } catch (RuntimeException e) {
+                // Not retried: a COUNT that timed out would time out again on every call
+                countFailed = true;
+                LOG.warn("[SparqlCursor] Failed to count rows: {}", e.toString());
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Whether the rows can be counted without reading them all.
+     */
+    public boolean isCountable() {
+        return counter != null;
+    }
+
+    /**
+     * The query wrapped as a subquery of {@code SELECT (COUNT(*) AS ?count)}, keeping PREFIX and
+     * BASE declarations in front.
+     */
+    String countQuery() {
+        Matcher matcher = PROLOGUE.matcher(query);
+        String prologue = "";
+        String body = query;
+        if (matcher.matches()) {
+            prologue = matcher.group(1);
+            body = matcher.group(2);
+        }
+        return prologue + "SELECT (COUNT(*) AS ?count) WHERE {\n" + body + "\n}";
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Whether all pages have been loaded at least once.
+     */
+    public synchronized boolean isExhausted() {
+        return exhausted;
+    }
+
+    /**
+     * Number of page queries run so far, including reloads of evicted pages.
+     */
+    public synchronized long getPageQueries() {
+        return pageQueries;
+    }
+
+    /**
+     * Number of pages currently held in memory.
+     */
+    public synchronized int getCachedPages() {
+        return pages.size();
+    }
+}
@@ -51,14 +51,14 @@ public class DialogUtil {
      * a download button with the correct file extension based on the selected format.
      * 
      * @param shapesSyntax The generated shapes syntax to display
-     * @param format The format of the shapes ("SHACL" or "ShEx")
+     * @param format The format of the shapes ("SHACL", "ShEx", "ShExJ" or "SHACL-NT")
      */
     public static void getDialogWithHeaderAndFooterForShowingShapeSyntax(String shapesSyntax, String format) {
         Dialog dialog = new Dialog();
         dialog.getElement().setAttribute("aria-label", "Dialog");
         
         // Dynamic header title based on format
-        String headerTitle = format.equals("ShEx") ? "ShExC Shapes" : "SHACL Shapes";
+        String headerTitle = Utils.getSyntaxNameForFormat(format) + " Shapes";
         dialog.getHeader().add(getHeaderTitle(headerTitle));
         
         Button cancelButton = new Button("Cancel", e -> dialog.close());
@@ -70,7 +70,7 @@ public class DialogUtil {
             ByteArrayInputStream stream = new ByteArrayInputStream(shapesSyntax.getBytes());
             
             // Dynamic filename and extension based on format
-            String filename = format.equals("ShEx") ? "selectedShapes.shex" : "selectedShapes.ttl";
+            String filename = "selectedShapes." + Utils.getFileExtensionForFormat(format);
             buttonWrapper = new FileDownloadWrapper(new StreamResource(filename, () -> stream));
         } catch (Exception e) {
             throw new RuntimeException(e);
@@ -0,0 +1,104 @@
+package shactor.utils;
+
+import com.vaadin.flow.server.StreamResource;
+import com.vaadin.flow.server.StreamResourceWriter;
+import shactor.config.ConfigurationManager;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Builds download resources that are optionally gzip-compressed on the fly.
+ *
+ * Content is produced by a {@link StreamResourceWriter} while the response is sent; with
+ * compression enabled the writer's output is deflated as it is written, so neither the
+ * plain nor the compressed document is ever held in memory as a whole. Compressed
+ * downloads are served as {@code application/gzip} with a {@code .gz} suffix appended to
+ * the file name (e.g. {@code shapes.ttl.gz}).
+ *
+ * Compression is chosen per download resource; {@value #GZIP_PROPERTY} in application.properties
+ * sets the default (e.g. of the "Compress downloads" checkbox in the extraction view).
+ */
+public final class DownloadUtil {
+
+    /**
+     * Configuration key enabling gzip-compressed downloads by default.
+     */
+    public static final String GZIP_PROPERTY = "shactor.download.gzip";
+
+    static final String GZIP_CONTENT_TYPE = "application/gzip";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private DownloadUtil() {
+    }
+
+    /**
+     * Returns whether downloads are compressed by default, as configured in application.properties.
+     */
+    public static boolean gzipEnabled() {
+        return Boolean.parseBoolean(ConfigurationManager.getInstance().getProperty(GZIP_PROPERTY, "false").trim());
+    }
+
+    /**
+     * Creates a download resource using the configured default compression setting.
+     *
+     * @param fileName File name of the uncompressed content (e.g. "shapes.ttl")
+     * @param writer Streams the uncompressed content; must not close the stream
+     * @return The resource to pass to a FileDownloadWrapper
+     */
+    public static StreamResource resource(String fileName, StreamResourceWriter writer) {
+        return resource(fileName, writer, gzipEnabled());
+    }
+
+    /**
+     * Creates a download resource, compressing the content on the fly if requested.
+     *
+     * @param fileName File name of the uncompressed content (e.g. "shapes.ttl")
+     * @param writer Streams the uncompressed content; must not close the stream
+     * @param gzip Whether the download is gzip-compressed
+     * @return The resource to pass to a FileDownloadWrapper
+     */
+    public static StreamResource resource(String fileName, StreamResourceWriter writer, boolean gzip) {
+        if (!gzip) {
+            return new StreamResource(fileName, writer);
+        }
+        StreamResource resource = new StreamResource(fileName + ".gz", (outputStream, session) -> {
+            GZIPOutputStream compressed = new GZIPOutputStream(outputStream, BUFFER_SIZE);
+            writer.accept(compressed, session);
+            // Writes the trailer; the response stream itself is closed by Vaadin
+            compressed.finish();
+        });
+        resource.setContentType(GZIP_CONTENT_TYPE);
+        return resource;
+    }
+
+    /**
+     * Creates a download resource for an existing file, streamed from disk at download time.
+     *
+     * @param file The file to download
+     * @return The resource to pass to a FileDownloadWrapper
+     * @throws RuntimeException if the file does not exist
+     */
+    public static StreamResource fileResource(File file) {
+        return resource(file.getName(), fileWriter(file));
+    }
+
+    /**
+     * Creates a writer that streams an existing file from disk at download time, for
+     * {@link #resource(String, StreamResourceWriter, boolean)}.
+     *
+     * @param file The file to download
+     * @return The writer copying the file into the response
+     * @throws RuntimeException if the file does not exist
+     */
+    public static StreamResourceWriter fileWriter(File file) {
+        if (!file.isFile()) {
+            throw new RuntimeException(new FileNotFoundException("File '" + file + "' does not exist"));
+        }
+        return (outputStream, session) -> Files.copy(file.toPath(), outputStream);
+    }
+}
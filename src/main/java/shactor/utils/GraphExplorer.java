@@ -3,12 +3,22 @@ package shactor.utils;
 import org.eclipse.rdf4j.model.Statement;
 import org.eclipse.rdf4j.model.Value;
 import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.GraphQueryResult;
 import shactor.graphdb.GraphDBUtils;
+import shactor.graphdb.SparqlCursor;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Function;
 
+/**
+ * Runs the queries of the shape views against a repository. Instances share the pooled
+ * connections of {@link shactor.graphdb.RepositoryRegistry}, so one per view is fine.
+ */
 public class GraphExplorer {
+    // Pages kept per cursor: the rows on screen plus a prefetch window around them
+    private static final int CACHED_PAGES = 10;
+
     private final GraphDBUtils graphDBUtils;
     
     public GraphExplorer(String url, String repo) {
@@ -17,8 +27,10 @@ public class GraphExplorer {
     
     public List<Triple> runQuery(String query) {
         List<Triple> tripleList = new ArrayList<>();
-        for (Statement row : graphDBUtils.runConstructQuery(query)) {
-            tripleList.add(new Triple(row.getSubject().stringValue(), row.getPredicate().stringValue(), row.getObject().stringValue()));
+        GraphQueryResult result = graphDBUtils.runConstructQuery(query);
+        if (result == null) return tripleList;
+        for (Statement row : result) {
+            tripleList.add(toTriple(row));
         }
         return tripleList;
     }
@@ -27,4 +39,29 @@ public class GraphExplorer {
     public List<BindingSet> runSelectQuery(String query) {
         return graphDBUtils.runSelectQuery(query);
     }
+
+    /**
+     * Cursor over the rows of a SELECT query, loaded page by page as they are read and
+     * counted with a COUNT query.
+     *
+     * @param orderBy Variables that identify a row, e.g. "?entity"; pages are ordered by them
+     */
+    public <T> SparqlCursor<T> selectCursor(String query, String orderBy, Function<BindingSet, T> mapper) {
+        return new SparqlCursor<>(query, orderBy, pageQuery -> graphDBUtils.runSelectQuery(pageQuery, mapper),
+                graphDBUtils::runCountQuery, true, SparqlCursor.defaultPageSize(), CACHED_PAGES);
+    }
+
+    /**
+     * Cursor over the triples of a CONSTRUCT query, loaded page by page as they are read.
+     * The number of triples is only known once all pages were read. Pages are ordered by all
+     * variables of the query.
+     */
+    public SparqlCursor<Triple> constructCursor(String query) {
+        return new SparqlCursor<>(query, null, pageQuery -> graphDBUtils.runConstructQuery(pageQuery, GraphExplorer::toTriple),
+                null, false, SparqlCursor.defaultPageSize(), CACHED_PAGES);
+    }
+
+    private static Triple toTriple(Statement row) {
+        return new Triple(row.getSubject().stringValue(), row.getPredicate().stringValue(), row.getObject().stringValue());
+    }
 }
@@ -4,6 +4,8 @@ import org.eclipse.rdf4j.model.IRI;
 import org.eclipse.rdf4j.model.Resource;
 import org.eclipse.rdf4j.model.Value;
 
+import java.util.Objects;
+
 public class Triple {
     String subject;
     String predicate;
@@ -25,6 +27,22 @@ public class Triple {
         this.objectIRI = object;
     }
 
+    // Rows of lazily loaded grids are re-created when a page is reloaded; equality keeps their selection
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Triple)) return false;
+        Triple other = (Triple) o;
+        return Objects.equals(subject, other.subject) && Objects.equals(predicate, other.predicate)
+                && Objects.equals(object, other.object) && Objects.equals(subjectIRI, other.subjectIRI)
+                && Objects.equals(predicateIRI, other.predicateIRI) && Objects.equals(objectIRI, other.objectIRI);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(subject, predicate, object, subjectIRI, predicateIRI, objectIRI);
+    }
+
     @Override
     public String toString() {
         return "Triple{" +
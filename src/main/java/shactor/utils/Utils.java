@@ -22,9 +22,12 @@ import cs.qse.common.structure.PS;
 import cs.qse.common.structure.ShaclOrListItem;
 import cs.utils.Tuple2;
 import shactor.config.ConfigurationManager;
+import shactor.utils.formatters.FormattedOutputCache;
 import shactor.utils.formatters.ShapeFormatterFactory;
 import shactor.utils.formatters.ShaclFormatter;
 import shactor.utils.formatters.ShExFormatter;
+import shactor.utils.formatters.ShExJFormatter;
+import shactor.utils.formatters.ShaclNTriplesFormatter;
 import de.atextor.turtle.formatter.FormattingStyle;
 import de.atextor.turtle.formatter.TurtleFormatter;
 import org.apache.jena.rdf.model.*;
@@ -276,6 +279,8 @@ public class Utils {
      * Supported formats:
      * - "SHACL" - Generates SHACL shapes in Turtle syntax (.ttl)
      * - "ShEx" - Generates ShEx shapes in ShEx syntax (.shex)
+     * - "ShExJ" - Generates ShEx shapes as ShExJ JSON (.json)
+     * - "SHACL-NT" - Generates SHACL shapes as N-Triples (.nt)
      * 
      * The method creates a factory instance with both SHACL and ShEx formatters and uses
      * the factory's convenience method to format the shapes. This approach ensures
@@ -284,7 +289,7 @@ public class Utils {
      * @param nodeShapes A set of NodeShape objects containing the shapes to format.
      *                   Each NodeShape includes its IRI, target class, and associated
      *                   PropertyShapes with their constraints.
-     * @param format The desired output format ("SHACL" or "ShEx", case-insensitive)
+     * @param format The desired output format ("SHACL", "ShEx", "ShExJ" or "SHACL-NT", case-insensitive)
      * @return A string representation of the shapes in the specified format
      * @throws IllegalArgumentException if nodeShapes is null or format is unsupported
      * @throws RuntimeException if formatting fails due to internal errors
@@ -301,22 +306,22 @@ public class Utils {
             throw new IllegalArgumentException("Format cannot be null or empty");
         }
         
-        // Persist latest node shapes snapshot to file for later access in tests/benchmarks
+        // Persist latest node shapes snapshot for later access in tests/benchmarks; written in the
+        // background (debounced, latest wins), so previews never wait for the JSON rewrite
         try {
-            shactor.utils.nodeshapes.NodeShapesSnapshotIO.saveDefault(nodeShapes);
+            shactor.utils.nodeshapes.AsyncSnapshotWriter.shared().submit(nodeShapes);
         } catch (Throwable t) {
-            // Logging via NodeShapesSnapshotIO already covers details; keep method resilient
+            // Snapshots are best-effort; keep method resilient
         }
 
         try {
-            // Create factory with both formatter implementations
+            // Formatters are stateless and reentrant, so one factory serves all calls
             // Note: In a full Spring application, this would be injected via @Autowired
-            ShaclFormatter shaclFormatter = new ShaclFormatter();
-            ShExFormatter shexFormatter = new ShExFormatter();
-            ShapeFormatterFactory factory = new ShapeFormatterFactory(shaclFormatter, shexFormatter);
+            ShapeFormatterFactory factory = FormatterHolder.FACTORY;
             
-            // Use factory to format shapes in the specified format
-            return factory.formatShapes(nodeShapes, format);
+            // Use factory to format shapes in the specified format; equal shapes are served from the cache
+            return FormattedOutputCache.shared().getOrFormat(nodeShapes, format,
+                    () -> factory.formatShapes(nodeShapes, format));
             
         } catch (IllegalArgumentException e) {
             // Re-throw validation errors with context
@@ -327,4 +332,92 @@ public class Utils {
         }
     }
 
+    /**
+     * Streams the formatted model for given NodeShapes and their PropertyShapes into a writer.
+     * 
+     * Behaves like {@link #constructModelForGivenNodeShapesAndTheirPropertyShapes(Set, String)}
+     * but writes the output incrementally, so large shape sets can be downloaded without
+     * materializing the whole document (and its byte encoding) in memory.
+     * 
+     * @param nodeShapes A set of NodeShape objects containing the shapes to format
+     * @param format The desired output format ("SHACL", "ShEx", "ShExJ" or "SHACL-NT", case-insensitive)
+     * @param writer The writer receiving the output; flushed but not closed
+     * @throws IllegalArgumentException if nodeShapes or writer is null or format is unsupported
+     * @throws IOException if writing to the writer fails
+     * @throws RuntimeException if formatting fails due to internal errors
+     */
+    public static void writeModelForGivenNodeShapesAndTheirPropertyShapes(Set<NS> nodeShapes, String format, java.io.Writer writer) throws IOException {
+        // Input validation
+        if (nodeShapes == null) {
+            throw new IllegalArgumentException("NodeShapes cannot be null");
+        }
+        
+        if (format == null || format.trim().isEmpty()) {
+            throw new IllegalArgumentException("Format cannot be null or empty");
+        }
+
+        if (writer == null) {
+            throw new IllegalArgumentException("Writer cannot be null");
+        }
+        
+        // Persist latest node shapes snapshot for later access in tests/benchmarks; written in the
+        // background (debounced, latest wins), so previews never wait for the JSON rewrite
+        try {
+            shactor.utils.nodeshapes.AsyncSnapshotWriter.shared().submit(nodeShapes);
+        } catch (Throwable t) {
+            // Snapshots are best-effort; keep method resilient
+        }
+
+        try {
+            ShapeFormatterFactory factory = FormatterHolder.FACTORY;
+            FormattedOutputCache.shared().writeOrFormat(nodeShapes, format, writer,
+                    out -> factory.formatShapes(nodeShapes, format, out));
+            writer.flush();
+        } catch (IOException e) {
+            // I/O failures (e.g. client aborted the download) are reported as-is
+            throw e;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Failed to format shapes: " + e.getMessage(), e);
+        } catch (Exception e) {
+            throw new RuntimeException("Unexpected error during shape formatting: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the file extension of downloads in the given format, e.g. "shex" for ShEx.
+     * 
+     * @param format The output format name (case-insensitive); null or unsupported formats yield "ttl"
+     * @return The file extension without the dot
+     */
+    public static String getFileExtensionForFormat(String format) {
+        ShapeFormatterFactory factory = FormatterHolder.FACTORY;
+        return factory.isFormatSupported(format) ? factory.getFormatter(format).getFileExtension() : "ttl";
+    }
+
+    /**
+     * Returns whether the given output format is a ShEx serialization (ShExC or ShExJ).
+     */
+    public static boolean isShExFormat(String format) {
+        return "ShEx".equalsIgnoreCase(format) || "ShExJ".equalsIgnoreCase(format);
+    }
+
+    /**
+     * Returns the syntax name shown in the UI for the given output format,
+     * e.g. "ShExC" for ShEx and "SHACL" for SHACL Turtle.
+     */
+    public static String getSyntaxNameForFormat(String format) {
+        if ("ShEx".equalsIgnoreCase(format)) return "ShExC";
+        if ("ShExJ".equalsIgnoreCase(format)) return "ShExJ";
+        if ("SHACL-NT".equalsIgnoreCase(format)) return "SHACL N-Triples";
+        return "SHACL";
+    }
+
+    /**
+     * Lazily created formatter factory shared by the formatting helpers above.
+     */
+    private static final class FormatterHolder {
+        static final ShapeFormatterFactory FACTORY = new ShapeFormatterFactory(java.util.List.of(
+                new ShaclFormatter(), new ShExFormatter(), new ShExJFormatter(), new ShaclNTriplesFormatter()));
+    }
+
 }
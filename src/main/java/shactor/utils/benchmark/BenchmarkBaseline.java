@@ -0,0 +1,210 @@
+package shactor.utils.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cs.qse.common.structure.NS;
+import cs.qse.common.structure.PS;
+import cs.qse.common.structure.ShaclOrListItem;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Stores {@link RuntimeStats} as versioned JSON baselines under evaluation/benchmarks/,
+ * one file per formatter, input fingerprint and JVM, so that later runs can be compared against them
+ * (see {@link RegressionDetector}).
+ *
+ * Usage example:
+ *   BenchmarkBaseline baselines = BenchmarkBaseline.inDefaultDirectory();
+ *   String input = BenchmarkBaseline.fingerprint(nodeShapes);
+ *   baselines.save("SHACL", input, stats);
+ *   Optional<RuntimeStats> previous = baselines.load("SHACL", input);
+ */
+public final class BenchmarkBaseline {
+
+    /**
+     * Baseline directory used by {@link #inDefaultDirectory()}.
+     */
+    public static final Path DEFAULT_DIRECTORY = Path.of("evaluation", "benchmarks");
+
+    /**
+     * Version of the baseline file layout; files with another version are not loaded.
+     */
+    static final int SCHEMA_VERSION = 1;
+
+    private static final JsonFactory JSON = new JsonFactory()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Path directory;
+    private final String jvm;
+
+    /**
+     * Creates a store for baselines of the running JVM.
+     *
+     * @param directory Directory holding the baseline files (created on first save)
+     */
+    public BenchmarkBaseline(Path directory) {
+        this(directory, currentJvm());
+    }
+
+    BenchmarkBaseline(Path directory, String jvm) {
+        this.directory = Objects.requireNonNull(directory, "directory");
+        this.jvm = Objects.requireNonNull(jvm, "jvm");
+    }
+
+    public static BenchmarkBaseline inDefaultDirectory() {
+        return new BenchmarkBaseline(DEFAULT_DIRECTORY);
+    }
+
+    /**
+     * Identifies the running JVM by version and vendor, e.g. "17.0.9-Eclipse_Adoptium".
+     */
+    public static String currentJvm() {
+        return System.getProperty("java.runtime.version", System.getProperty("java.version", "unknown"))
+                + "-" + System.getProperty("java.vendor", "unknown");
+    }
+
+    /**
+     * Fingerprint of a NodeShapes input, independent of set iteration order: the NodeShape and
+     * PropertyShape counts plus a 64-bit FNV-1a hash over shape IRIs, paths and constraints,
+     * including the class or datatype and node kind of every OR-list item.
+     */
+    public static String fingerprint(Set<NS> nodeShapes) {
+        long combined = 0;
+        long propertyShapes = 0;
+        if (nodeShapes != null) {
+            for (NS ns : nodeShapes) {
+                if (ns == null) continue;
+                long hash = fnv(0xcbf29ce484222325L, String.valueOf(ns.getIri()));
+                hash = fnv(hash, String.valueOf(ns.getTargetClass()));
+                if (ns.getPropertyShapes() != null) {
+                    for (PS ps : ns.getPropertyShapes()) {
+                        propertyShapes++;
+                        hash = fnv(hash, String.valueOf(ps.getIri()));
+                        hash = fnv(hash, ps.getPath());
+                        hash = fnv(hash, ps.getDataTypeOrClass());
+                        hash = fnv(hash, ps.getNodeKind());
+                        List<ShaclOrListItem> items = ps.getShaclOrListItems();
+                        hash = fnv(hash, String.valueOf(items == null ? 0 : items.size()));
+                        if (items != null) {
+                            for (ShaclOrListItem item : items) {
+                                hash = fnv(hash, item == null ? null : item.getDataTypeOrClass());
+                                hash = fnv(hash, item == null ? null : item.getNodeKind());
+                            }
+                        }
+                    }
+                }
+                // Summing per-shape hashes keeps the fingerprint independent of iteration order
+                combined += hash;
+            }
+        }
+        String hex = Long.toHexString(combined);
+        return "ns" + (nodeShapes == null ? 0 : nodeShapes.size()) + "-ps" + propertyShapes + "-"
+                + "0".repeat(16 - hex.length()) + hex;
+    }
+
+    private static long fnv(long hash, String value) {
+        if (value == null) value = "";
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+        }
+        return (hash ^ 0x1f) * 0x100000001b3L; // field separator
+    }
+
+    /**
+     * File holding the baseline for the given formatter and input on this JVM.
+     */
+    public Path fileFor(String formatter, String inputFingerprint) {
+        return directory.resolve(sanitize(formatter) + "__" + sanitize(inputFingerprint) + "__" + sanitize(jvm) + ".json");
+    }
+
+    private static String sanitize(String part) {
+        return part.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    /**
+     * Writes (or replaces) the baseline for the given formatter and input.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public Path save(String formatter, String inputFingerprint, RuntimeStats stats) throws IOException {
+        Objects.requireNonNull(formatter, "formatter");
+        Objects.requireNonNull(inputFingerprint, "inputFingerprint");
+        Objects.requireNonNull(stats, "stats");
+        Path target = fileFor(formatter, inputFingerprint);
+        Files.createDirectories(directory);
+        Path tmp = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8);
+                 JsonGenerator gen = JSON.createGenerator(writer)) {
+                gen.useDefaultPrettyPrinter();
+                gen.writeStartObject();
+                gen.writeNumberField("schemaVersion", SCHEMA_VERSION);
+                gen.writeStringField("formatter", formatter);
+                gen.writeStringField("input", inputFingerprint);
+                gen.writeStringField("jvm", jvm);
+                gen.writeStringField("createdAt", Instant.now().toString());
+                gen.writeFieldName("stats");
+                gen.writeRawValue(stats.toJson());
+                gen.writeEndObject();
+            }
+            try {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return target;
+    }
+
+    /**
+     * Saves both sides of a comparison under their names.
+     */
+    public void save(FormatterRuntime.CompareResult result, String inputFingerprint) throws IOException {
+        save(result.nameA, inputFingerprint, result.statsA);
+        save(result.nameB, inputFingerprint, result.statsB);
+    }
+
+    /**
+     * Loads the baseline for the given formatter and input on this JVM.
+     *
+     * @return The stored statistics, or empty if there is no baseline
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file has an unsupported schema version
+     */
+    public Optional<RuntimeStats> load(String formatter, String inputFingerprint) throws IOException {
+        Path file = fileFor(formatter, inputFingerprint);
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        JsonNode root = MAPPER.readTree(file.toFile());
+        int version = root.path("schemaVersion").asInt(-1);
+        if (version != SCHEMA_VERSION) {
+            throw new IllegalArgumentException("Unsupported baseline schema version " + version + " in " + file);
+        }
+        return Optional.of(RuntimeStats.fromJson(root.get("stats")));
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public String getJvm() {
+        return jvm;
+    }
+}
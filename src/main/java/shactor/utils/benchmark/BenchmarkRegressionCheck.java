@@ -0,0 +1,129 @@
+package shactor.utils.benchmark;
+
+import cs.qse.common.structure.NS;
+import shactor.utils.formatters.ShExFormatter;
+import shactor.utils.formatters.ShaclFormatter;
+import shactor.utils.formatters.ShapeFormatter;
+import shactor.utils.nodeshapes.SnapshotKey;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Command line runner that measures the formatters and compares them against stored baselines,
+ * without starting the UI.
+ *
+ * Usage:
+ *   java -cp ... shactor.utils.benchmark.BenchmarkRegressionCheck [options]
+ *
+ * Options:
+ *   --input=snapshot | --input=preset:DBpedia   input shapes (default: the app snapshot if present, else preset:DBpedia)
+ *   --input=store:LUBM-Mini/EXISTING_FILE_BASED/SHACL/10/0.25   shapes of one key of the app's snapshot store
+ *   --iterations=30 --warmup=5                   measured and warmup iterations per formatter
+ *   --threshold=5 --alpha=0.01                   regression threshold in percent and significance level
+ *   --baselines=evaluation/benchmarks            baseline directory
+ *   --update                                     store the results as new baselines
+ *
+ * Exits with status 1 if any formatter regressed, 0 otherwise.
+ */
+public final class BenchmarkRegressionCheck {
+
+    private BenchmarkRegressionCheck() {}
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = parseOptions(args);
+        int status = run(options, System.out);
+        System.exit(status);
+    }
+
+    /**
+     * Runs the check with parsed options, printing to {@code out}.
+     *
+     * @return 1 if a regression was found, 0 otherwise
+     * @throws IOException if baselines cannot be read or written
+     */
+    static int run(Map<String, String> options, PrintStream out) throws IOException {
+        int iterations = Integer.parseInt(options.getOrDefault("iterations", "30"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "5"));
+        RegressionDetector detector = new RegressionDetector(
+                Double.parseDouble(options.getOrDefault("threshold", String.valueOf(RegressionDetector.DEFAULT_THRESHOLD_PERCENT))),
+                Double.parseDouble(options.getOrDefault("alpha", String.valueOf(RegressionDetector.DEFAULT_ALPHA))));
+        BenchmarkBaseline baselines = new BenchmarkBaseline(
+                Path.of(options.getOrDefault("baselines", BenchmarkBaseline.DEFAULT_DIRECTORY.toString())));
+        boolean update = options.containsKey("update");
+
+        FormatterPipeline pipeline = FormatterPipeline.load(input(options.get("input")), 1);
+        String fingerprint = BenchmarkBaseline.fingerprint(pipeline.getInput());
+        out.println("[BenchmarkRegressionCheck] input=" + fingerprint + ", jvm=" + baselines.getJvm());
+
+        Map<String, ShapeFormatter> formatters = new LinkedHashMap<>();
+        formatters.put("SHACL-direct", new ShaclFormatter(ShaclFormatter.Mode.DIRECT));
+        formatters.put("SHACL-jena", new ShaclFormatter(ShaclFormatter.Mode.JENA));
+        formatters.put("ShEx", new ShExFormatter());
+        Map<String, FormatterPipeline.Result> results = pipeline.compare(formatters, iterations, warmup);
+
+        List<RegressionDetector.Verdict> regressions = new ArrayList<>();
+        for (FormatterPipeline.Result result : results.values()) {
+            RuntimeStats current = result.getStats(FormatterPipeline.Stage.FORMAT);
+            Optional<RuntimeStats> baseline = baselines.load(result.getName(), fingerprint);
+            if (baseline.isPresent()) {
+                RegressionDetector.Verdict verdict = detector.compare(result.getName(), baseline.get(), current);
+                out.println("  " + verdict);
+                if (verdict.regression) regressions.add(verdict);
+            } else {
+                out.println("  " + result.getName() + ": no baseline (" + current + ")");
+            }
+            if (update) {
+                out.println("  stored " + baselines.save(result.getName(), fingerprint, current));
+            }
+        }
+        if (!regressions.isEmpty()) {
+            out.println("[BenchmarkRegressionCheck] " + regressions.size() + " regression(s) beyond "
+                    + detector.getThresholdPercent() + "% at alpha=" + detector.getAlpha());
+            return 1;
+        }
+        return 0;
+    }
+
+    private static Supplier<Set<NS>> input(String spec) {
+        if (spec == null) {
+            return NodeShapesSource.appCacheAvailable()
+                    ? NodeShapesSource.fromAppCache()
+                    : SyntheticNodeShapes.supplier(SyntheticNodeShapes.preset("DBpedia"), 42L);
+        }
+        if (spec.equals("snapshot")) {
+            return NodeShapesSource.fromAppCache();
+        }
+        if (spec.startsWith("preset:")) {
+            return SyntheticNodeShapes.supplier(SyntheticNodeShapes.preset(spec.substring("preset:".length())), 42L);
+        }
+        if (spec.startsWith("store:")) {
+            return NodeShapesSource.fromStore(SnapshotKey.parse(spec.substring("store:".length())));
+        }
+        throw new IllegalArgumentException("Unknown input: " + spec + " (use snapshot, preset:<dataset> or store:<key>)");
+    }
+
+    static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                options.put(arg.substring(2), "true");
+            } else {
+                options.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+        }
+        return options;
+    }
+}
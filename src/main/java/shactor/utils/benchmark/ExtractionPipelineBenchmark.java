@@ -0,0 +1,304 @@
+package shactor.utils.benchmark;
+
+import cs.Main;
+import cs.qse.common.structure.NS;
+import cs.qse.filebased.Parser;
+import shactor.config.ConfigurationManager;
+import shactor.utils.PruningUtil;
+import shactor.utils.formatters.ShExFormatter;
+import shactor.utils.formatters.ShaclFormatter;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.OperatingSystemMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToLongFunction;
+
+/**
+ * Headless benchmark of the complete file-based extraction pipeline, running the same stages as
+ * SelectionView and ExtractionView on a local N-Triples file:
+ *
+ * 1. QSE entity extraction (Parser.entityExtraction)
+ * 2. entity constraints extraction
+ * 3. support and confidence computation
+ * 4. SHACL shapes extraction (without pruning)
+ * 5. SHACL shapes extraction with pruning
+ * 6. PruningUtil.applyPruningFlags
+ * 7. PruningUtil statistics passes (default, by support, by confidence, by both)
+ * 8. SHACL and ShEx formatting of the pruned shapes
+ *
+ * Each stage records wall time, process CPU time, peak heap usage and its output size.
+ *
+ * Usage:
+ *   java -cp ... shactor.utils.benchmark.ExtractionPipelineBenchmark [dataset.nt] [--support=10] [--confidence=25] [--runs=1] [--csv=file]
+ *
+ * Without a dataset argument the configured LUBM-Mini path (dataset.lubm.mini.path) is used. QSE
+ * resource, config and output directories are taken from QSE_RESOURCES_PATH, QSE_CONFIG_PATH and
+ * QSE_OUTPUT_PATH as in SelectionView, falling back to libs/resources, libs/config and
+ * evaluation/pipeline-output.
+ */
+public final class ExtractionPipelineBenchmark {
+
+    private static final String RDF_TYPE = "<http://www.w3.org/1999/02/22-rdf-syntax-ns#type>";
+    private static final Path DEFAULT_OUTPUT = Path.of("evaluation", "pipeline-output");
+
+    private final Path dataset;
+    private final int support;
+    private final double confidence;
+
+    /**
+     * @param dataset N-Triples file to extract shapes from
+     * @param support Support threshold for pruning
+     * @param confidence Confidence threshold for pruning, between 0 and 1
+     * @throws IllegalArgumentException if the dataset does not exist or a threshold is out of range
+     */
+    public ExtractionPipelineBenchmark(Path dataset, int support, double confidence) {
+        if (dataset == null || !Files.isRegularFile(dataset)) {
+            throw new IllegalArgumentException("Dataset file not found: " + dataset);
+        }
+        if (support < 0 || confidence < 0 || confidence > 1) {
+            throw new IllegalArgumentException("Support must be non-negative and confidence between 0 and 1");
+        }
+        this.dataset = dataset;
+        this.support = support;
+        this.confidence = confidence;
+    }
+
+    /**
+     * Runs all stages once.
+     *
+     * @return One result per stage, in pipeline order
+     * @throws RuntimeException if a stage fails
+     */
+    public List<StageResult> run() {
+        configureQsePaths(dataset);
+        List<StageResult> results = new ArrayList<>();
+        List<String> allClasses = new ArrayList<>();
+
+        Parser parser = stage("entityExtraction", results, () -> {
+            Parser p = new Parser(dataset.toString(), 50, 5000, RDF_TYPE);
+            p.entityExtraction();
+            return p;
+        }, p -> -1, p -> p.entityDataHashMap.size());
+
+        stage("entityConstraintsExtraction", results, () -> {
+            parser.entityConstraintsExtraction();
+            return parser;
+        }, p -> -1, p -> p.classEntityCount.size());
+
+        stage("computeSupportConfidence", results, () -> {
+            parser.computeSupportConfidence();
+            return parser;
+        }, p -> -1, p -> -1);
+
+        stage("extractSHACLShapes", results,
+                () -> parser.extractSHACLShapes(false, allClasses),
+                ExtractionPipelineBenchmark::fileSize, file -> parser.shapesExtractor.getNodeShapes().size());
+
+        List<NS> nodeShapes = stage("extractSHACLShapesWithPruning", results, () -> {
+            parser.extractSHACLShapesWithPruning(false, confidence, support, allClasses);
+            return parser.shapesExtractor.getNodeShapes();
+        }, shapes -> -1, List::size);
+
+        PruningUtil pruningUtil = new PruningUtil();
+        stage("applyPruningFlags", results, () -> {
+            pruningUtil.applyPruningFlags(nodeShapes, support, confidence);
+            return nodeShapes;
+        }, shapes -> -1, ExtractionPipelineBenchmark::countPropertyShapes);
+
+        stage("pruningStats", results, () -> {
+            pruningUtil.getDefaultStats(nodeShapes);
+            pruningUtil.getStatsBySupport(nodeShapes);
+            pruningUtil.getStatsByConfidence(nodeShapes);
+            pruningUtil.getStatsByBoth(nodeShapes);
+            return pruningUtil;
+        }, util -> -1, util -> util.getStatsDefault().size() + util.getStatsBySupport().size()
+                + util.getStatsByConfidence().size() + util.getStatsByBoth().size());
+
+        Set<NS> shapeSet = new HashSet<>(nodeShapes);
+        stage("formatSHACL", results, () -> new ShaclFormatter().formatShapes(shapeSet),
+                FormatterRuntime::utf8Length, String::length);
+        stage("formatShEx", results, () -> new ShExFormatter().formatShapes(shapeSet),
+                FormatterRuntime::utf8Length, String::length);
+        return results;
+    }
+
+    private static long countPropertyShapes(List<NS> nodeShapes) {
+        long count = 0;
+        for (NS ns : nodeShapes) {
+            if (ns.getPropertyShapes() != null) count += ns.getPropertyShapes().size();
+        }
+        return count;
+    }
+
+    private static long fileSize(String path) {
+        try {
+            return path == null ? -1 : Files.size(Path.of(path));
+        } catch (IOException | RuntimeException e) {
+            return -1;
+        }
+    }
+
+    private static <T> T stage(String name, List<StageResult> results, StageBody<T> body,
+                               ToLongFunction<T> outputBytes, ToLongFunction<T> outputItems) {
+        List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                pool.resetPeakUsage();
+                heapPools.add(pool);
+            }
+        }
+        long cpuBefore = processCpuNanos();
+        long start = System.nanoTime();
+        T value;
+        try {
+            value = body.run();
+        } catch (Exception e) {
+            throw new RuntimeException("Pipeline stage " + name + " failed: " + e.getMessage(), e);
+        }
+        long wallNanos = System.nanoTime() - start;
+        long cpuAfter = processCpuNanos();
+        // Sum of per-pool peaks: an upper bound, as pools may peak at different times
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            peakHeap += pool.getPeakUsage().getUsed();
+        }
+        results.add(new StageResult(name, wallNanos / 1_000_000.0,
+                cpuBefore < 0 || cpuAfter < 0 ? -1 : (cpuAfter - cpuBefore) / 1_000_000.0,
+                peakHeap, outputBytes.applyAsLong(value), outputItems.applyAsLong(value)));
+        return value;
+    }
+
+    private static long processCpuNanos() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime();
+        }
+        return -1;
+    }
+
+    /**
+     * Points QSE at its resources, config and output directories, as SelectionView does.
+     */
+    static void configureQsePaths(Path dataset) {
+        String resourcesPath = envOrDefault("QSE_RESOURCES_PATH", "libs/resources/");
+        String configPath = envOrDefault("QSE_CONFIG_PATH", "libs/config/");
+        String outputPath = envOrDefault("QSE_OUTPUT_PATH", DEFAULT_OUTPUT + "/");
+        try {
+            Files.createDirectories(Path.of(outputPath));
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot create QSE output directory " + outputPath, e);
+        }
+        String fileName = dataset.getFileName().toString();
+        int dot = fileName.lastIndexOf('.');
+        Main.setDataSetNameForJar(dot > 0 ? fileName.substring(0, dot) : fileName);
+        Main.setOutputFilePathForJar(outputPath);
+        Main.setConfigDirPathForJar(configPath);
+        Main.setResourcesPathForJar(resourcesPath);
+        Main.qseFromSpecificClasses = false;
+    }
+
+    private static String envOrDefault(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isBlank() ? defaultValue : value;
+    }
+
+    /**
+     * Formats one run as a table with one line per stage.
+     */
+    public static String report(List<StageResult> results) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "%-30s %12s %12s %14s %14s %12s%n",
+                "stage", "wall ms", "cpu ms", "peak heap MB", "output bytes", "items"));
+        for (StageResult r : results) {
+            sb.append(String.format(Locale.ROOT, "%-30s %12.1f %12.1f %14.1f %14d %12d%n",
+                    r.name, r.wallMs, r.cpuMs, r.peakHeapBytes / (1024.0 * 1024.0), r.outputBytes, r.outputItems));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Formats several runs as CSV, one line per run and stage.
+     */
+    public static String toCsv(List<List<StageResult>> runs) {
+        StringBuilder sb = new StringBuilder("run,stage,wall_ms,cpu_ms,peak_heap_bytes,output_bytes,output_items\n");
+        for (int run = 0; run < runs.size(); run++) {
+            for (StageResult r : runs.get(run)) {
+                sb.append(String.format(Locale.ROOT, "%d,%s,%.3f,%.3f,%d,%d,%d\n",
+                        run, r.name, r.wallMs, r.cpuMs, r.peakHeapBytes, r.outputBytes, r.outputItems));
+            }
+        }
+        return sb.toString();
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new LinkedHashMap<>();
+        String datasetArg = null;
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                int eq = arg.indexOf('=');
+                options.put(eq < 0 ? arg.substring(2) : arg.substring(2, eq), eq < 0 ? "true" : arg.substring(eq + 1));
+            } else {
+                datasetArg = arg;
+            }
+        }
+        Path dataset = Path.of(datasetArg != null ? datasetArg
+                : ConfigurationManager.getInstance().getDatasetPath("LUBM-Mini"));
+        int support = Integer.parseInt(options.getOrDefault("support", "10"));
+        double confidence = Double.parseDouble(options.getOrDefault("confidence", "25")) / 100;
+        int runs = Math.max(1, Integer.parseInt(options.getOrDefault("runs", "1")));
+
+        ExtractionPipelineBenchmark benchmark = new ExtractionPipelineBenchmark(dataset, support, confidence);
+        List<List<StageResult>> all = new ArrayList<>(runs);
+        for (int i = 0; i < runs; i++) {
+            List<StageResult> results = benchmark.run();
+            all.add(results);
+            System.out.println("[ExtractionPipelineBenchmark] run " + (i + 1) + "/" + runs + " on " + dataset);
+            System.out.print(report(results));
+        }
+        if (options.containsKey("csv")) {
+            Path csv = Path.of(options.get("csv"));
+            Path parent = csv.toAbsolutePath().getParent();
+            if (parent != null) Files.createDirectories(parent);
+            Files.writeString(csv, toCsv(all), StandardCharsets.UTF_8);
+            System.out.println("[ExtractionPipelineBenchmark] wrote " + csv.toAbsolutePath());
+        }
+    }
+
+    @FunctionalInterface
+    private interface StageBody<T> {
+        T run() throws Exception;
+    }
+
+    /**
+     * Measurements of one pipeline stage; values that could not be measured are -1.
+     */
+    public static final class StageResult {
+        public final String name;
+        public final double wallMs;
+        public final double cpuMs;
+        public final long peakHeapBytes;
+        public final long outputBytes;
+        public final long outputItems;
+
+        StageResult(String name, double wallMs, double cpuMs, long peakHeapBytes, long outputBytes, long outputItems) {
+            this.name = name;
+            this.wallMs = wallMs;
+            this.cpuMs = cpuMs;
+            this.peakHeapBytes = peakHeapBytes;
+            this.outputBytes = outputBytes;
+            this.outputItems = outputItems;
+        }
+    }
+}
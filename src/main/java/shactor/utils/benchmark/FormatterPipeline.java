@@ -0,0 +1,220 @@
+package shactor.utils.benchmark;
+
+import cs.qse.common.structure.NS;
+import shactor.utils.formatters.ShapeFormatter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Formatter benchmark that times loading, validation, formatting and encoding as separate stages.
+ *
+ * The input is loaded (and timed) once when the pipeline is created and then shared by all
+ * formatters, so comparisons between formatters reflect formatting cost only.
+ *
+ * Usage example:
+ *   FormatterPipeline pipeline = FormatterPipeline.load(NodeShapesSource.fromAppCache(), 3);
+ *   Map<String, FormatterPipeline.Result> results = pipeline.compare(20, 3, new ShaclFormatter(), new ShExFormatter());
+ *   System.out.println(FormatterPipeline.report(results));
+ */
+public final class FormatterPipeline {
+
+    public enum Stage {
+        /** Obtaining the input from its source (e.g. parsing the snapshot). */
+        LOAD,
+        /** ShapeFormatter.canFormat on the input. */
+        VALIDATE,
+        /** ShapeFormatter.formatShapes, with allocation and GC accounting. */
+        FORMAT,
+        /** Encoding the formatted document to UTF-8 bytes. */
+        ENCODE
+    }
+
+    private static volatile Object BLACKHOLE; // avoid dead-code elimination
+
+    private final Set<NS> input;
+    private final RuntimeStats loadStats;
+
+    private FormatterPipeline(Set<NS> input, RuntimeStats loadStats) {
+        this.input = input;
+        this.loadStats = loadStats;
+    }
+
+    /**
+     * Loads the input {@code loadIterations} times to measure the load stage and keeps the first result.
+     *
+     * @param source Input source, e.g. {@link NodeShapesSource#fromAppCache()}
+     * @param loadIterations How often loading is timed (at least once)
+     * @return A pipeline on the loaded input
+     * @throws IllegalArgumentException if the source returns null
+     */
+    public static FormatterPipeline load(Supplier<Set<NS>> source, int loadIterations) {
+        Objects.requireNonNull(source, "source");
+        int iterations = Math.max(1, loadIterations);
+        Set<NS> first = null;
+        List<Double> samplesMs = new ArrayList<>(iterations);
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            Set<NS> loaded = source.get();
+            samplesMs.add((System.nanoTime() - start) / 1_000_000.0);
+            if (loaded == null) {
+                throw new IllegalArgumentException("Input source returned null");
+            }
+            if (first == null) first = loaded;
+        }
+        return new FormatterPipeline(Collections.unmodifiableSet(first), new RuntimeStats(samplesMs));
+    }
+
+    /**
+     * Creates a pipeline on an input that is already in memory; the load stage stays empty.
+     */
+    public static FormatterPipeline of(Set<NS> input) {
+        if (input == null) {
+            throw new IllegalArgumentException("NodeShapes cannot be null");
+        }
+        return new FormatterPipeline(Collections.unmodifiableSet(input), new RuntimeStats(List.of()));
+    }
+
+    public Set<NS> getInput() {
+        return input;
+    }
+
+    public RuntimeStats getLoadStats() {
+        return loadStats;
+    }
+
+    /**
+     * Runs the validate, format and encode stages for one formatter.
+     *
+     * @param formatter The formatter to measure
+     * @param iterations Measured iterations per stage
+     * @param warmupIters Unmeasured iterations before each stage
+     * @return Per-stage statistics, including the shared load stage
+     * @throws IllegalArgumentException if the formatter cannot format the input
+     */
+    public Result run(ShapeFormatter formatter, int iterations, int warmupIters) {
+        return run(formatter.getFormatName(), formatter, iterations, warmupIters);
+    }
+
+    /**
+     * Same as {@link #run(ShapeFormatter, int, int)} with an explicit label, for variants of the
+     * same format (e.g. SHACL direct vs. Jena writer).
+     */
+    public Result run(String name, ShapeFormatter formatter, int iterations, int warmupIters) {
+        Objects.requireNonNull(formatter, "formatter");
+        if (iterations <= 0) iterations = 5;
+
+        for (int i = 0; i < warmupIters; i++) {
+            BLACKHOLE = formatter.canFormat(input);
+        }
+        List<Double> validateMs = new ArrayList<>(iterations);
+        boolean valid = true;
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            valid &= formatter.canFormat(input);
+            validateMs.add((System.nanoTime() - start) / 1_000_000.0);
+        }
+        if (!valid) {
+            throw new IllegalArgumentException("Formatter " + name + " cannot format the input");
+        }
+
+        RuntimeStats formatStats = FormatterRuntime.measureFormatter(formatter, () -> input, iterations, 1, warmupIters);
+
+        String document = formatter.formatShapes(input);
+        for (int i = 0; i < warmupIters; i++) {
+            BLACKHOLE = document.getBytes(StandardCharsets.UTF_8);
+        }
+        List<Double> encodeMs = new ArrayList<>(iterations);
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            BLACKHOLE = document.getBytes(StandardCharsets.UTF_8);
+            encodeMs.add((System.nanoTime() - start) / 1_000_000.0);
+        }
+
+        Map<Stage, RuntimeStats> stages = new EnumMap<>(Stage.class);
+        stages.put(Stage.LOAD, loadStats);
+        stages.put(Stage.VALIDATE, new RuntimeStats(validateMs));
+        stages.put(Stage.FORMAT, formatStats);
+        stages.put(Stage.ENCODE, new RuntimeStats(encodeMs));
+        return new Result(name, stages);
+    }
+
+    /**
+     * Runs all formatters on the same loaded input, keyed by format name in argument order.
+     */
+    public Map<String, Result> compare(int iterations, int warmupIters, ShapeFormatter... formatters) {
+        Map<String, ShapeFormatter> named = new LinkedHashMap<>();
+        for (ShapeFormatter formatter : formatters) {
+            named.put(formatter.getFormatName(), formatter);
+        }
+        return compare(named, iterations, warmupIters);
+    }
+
+    /**
+     * Runs all formatters on the same loaded input, keyed by the given labels in map order.
+     */
+    public Map<String, Result> compare(Map<String, ShapeFormatter> formatters, int iterations, int warmupIters) {
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (Map.Entry<String, ShapeFormatter> entry : formatters.entrySet()) {
+            results.put(entry.getKey(), run(entry.getKey(), entry.getValue(), iterations, warmupIters));
+        }
+        return results;
+    }
+
+    /**
+     * Formats results as one line per formatter and stage (median and p95 in milliseconds),
+     * followed by the formatter's allocation per PropertyShape when available.
+     */
+    public static String report(Map<String, Result> results) {
+        StringBuilder sb = new StringBuilder();
+        for (Result result : results.values()) {
+            sb.append(result.name).append('\n');
+            for (Map.Entry<Stage, RuntimeStats> stage : result.stages.entrySet()) {
+                RuntimeStats stats = stage.getValue();
+                if (stats.getSamplesMs().isEmpty()) continue;
+                sb.append(String.format(Locale.ROOT, "  %-8s median=%.3f ms, p95=%.3f ms (n=%d)%n",
+                        stage.getKey(), stats.getMedianMs(), stats.getP95Ms(), stats.getSamplesMs().size()));
+            }
+            RuntimeStats format = result.getStats(Stage.FORMAT);
+            if (format.getAllocatedBytesPerPropertyShape() >= 0) {
+                sb.append(String.format(Locale.ROOT, "  alloc=%.1f B/PS, output=%.0f B%n",
+                        format.getAllocatedBytesPerPropertyShape(), format.getMeanOutputBytes()));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Per-stage statistics of one formatter.
+     */
+    public static final class Result {
+        private final String name;
+        private final Map<Stage, RuntimeStats> stages;
+
+        Result(String name, Map<Stage, RuntimeStats> stages) {
+            this.name = name;
+            this.stages = Collections.unmodifiableMap(stages);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public RuntimeStats getStats(Stage stage) {
+            return stages.get(stage);
+        }
+
+        public Map<Stage, RuntimeStats> getStages() {
+            return stages;
+        }
+    }
+}
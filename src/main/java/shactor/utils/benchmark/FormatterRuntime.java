@@ -3,9 +3,14 @@ package shactor.utils.benchmark;
 import cs.qse.common.structure.NS;
 import shactor.utils.formatters.ShapeFormatter;
 
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.function.Supplier;
@@ -16,6 +21,7 @@ import java.util.function.Supplier;
  * Usage example:
  *   RuntimeStats stats = FormatterRuntime.measureFormatter(new ShaclFormatter(), () -> input, 10, 5, 3);
  *   CompareResult res = FormatterRuntime.compare(new ShaclFormatter(), new ShExFormatter(), () -> input, 10, 5, 3);
+ *   stats.export(Path.of("evaluation/shacl-runtime.csv"));
  */
 public final class FormatterRuntime {
     private FormatterRuntime() {}
@@ -29,6 +35,15 @@ public final class FormatterRuntime {
         }
     }
 
+    /**
+     * Measures the formatter over {@code iterations} iterations of {@code repsPerIteration} runs each.
+     * The input is obtained once per iteration before timing starts; use {@link FormatterPipeline}
+     * to also time loading, validation and encoding as separate stages.
+     *
+     * Besides wall-clock time, each iteration records CPU time and allocated bytes summed over all
+     * live threads (so parallel rendering in the common pool is included), GC count and collection
+     * time from the GC beans, and the UTF-8 size of the output. All values are per run.
+     */
     public static RuntimeStats measureFormatter(ShapeFormatter formatter,
                                                 Supplier<Set<NS>> inputSupplier,
                                                 int iterations,
@@ -40,17 +55,65 @@ public final class FormatterRuntime {
         if (repsPerIteration <= 0) repsPerIteration = 1;
         if (warmupIters > 0) warmup(formatter, inputSupplier, warmupIters);
 
-        List<Double> perRunMs = new ArrayList<>(iterations);
+        Set<NS> sample = inputSupplier.get();
+        long propertyShapes = countPropertyShapes(sample);
+
+        List<RuntimeStats.Sample> samples = new ArrayList<>(iterations);
         for (int i = 0; i < iterations; i++) {
+            // Obtain the input outside the timed region, so that loading is not measured
+            Set<NS> input = inputSupplier.get();
+            ResourceSnapshot before = ResourceSnapshot.take();
             long start = System.nanoTime();
+            String output = null;
             for (int r = 0; r < repsPerIteration; r++) {
-                BLACKHOLE = formatter.formatShapes(inputSupplier.get());
+                output = formatter.formatShapes(input);
             }
             long elapsed = System.nanoTime() - start;
-            double msPerRun = (elapsed / (double) repsPerIteration) / 1_000_000.0;
-            perRunMs.add(msPerRun);
+            ResourceSnapshot after = ResourceSnapshot.take();
+            BLACKHOLE = output;
+
+            double reps = repsPerIteration;
+            samples.add(new RuntimeStats.Sample(
+                    (elapsed / reps) / 1_000_000.0,
+                    after.threadCpuNanos == null ? -1 : (after.cpuSince(before) / reps) / 1_000_000.0,
+                    after.threadAllocatedBytes == null ? -1 : Math.round(after.allocatedSince(before) / reps),
+                    after.gcCount - before.gcCount,
+                    (after.gcMillis - before.gcMillis) / reps,
+                    utf8Length(output),
+                    propertyShapes));
+        }
+        return RuntimeStats.ofSamples(samples);
+    }
+
+    private static long countPropertyShapes(Set<NS> nodeShapes) {
+        long count = 0;
+        if (nodeShapes == null) return 0;
+        for (NS ns : nodeShapes) {
+            if (ns != null && ns.getPropertyShapes() != null) count += ns.getPropertyShapes().size();
+        }
+        return count;
+    }
+
+    /**
+     * UTF-8 length of the string without encoding it (which would allocate a copy).
+     */
+    static long utf8Length(String s) {
+        if (s == null) return 0;
+        long bytes = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                bytes += 1;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
         }
-        return new RuntimeStats(perRunMs);
+        return bytes;
     }
 
     public static CompareResult compare(ShapeFormatter a,
@@ -59,9 +122,24 @@ public final class FormatterRuntime {
                                         int iterations,
                                         int repsPerIteration,
                                         int warmupIters) {
+        return compare(a.getFormatName(), a, b.getFormatName(), b, inputSupplier, iterations, repsPerIteration, warmupIters);
+    }
+
+    /**
+     * Same as {@link #compare(ShapeFormatter, ShapeFormatter, Supplier, int, int, int)} but with explicit
+     * labels, for comparing two variants of the same format (e.g. SHACL direct vs. Jena writer).
+     */
+    public static CompareResult compare(String nameA,
+                                        ShapeFormatter a,
+                                        String nameB,
+                                        ShapeFormatter b,
+                                        Supplier<Set<NS>> inputSupplier,
+                                        int iterations,
+                                        int repsPerIteration,
+                                        int warmupIters) {
         RuntimeStats sa = measureFormatter(a, inputSupplier, iterations, repsPerIteration, warmupIters);
         RuntimeStats sb = measureFormatter(b, inputSupplier, iterations, repsPerIteration, warmupIters);
-        return new CompareResult(a.getFormatName(), sa, b.getFormatName(), sb);
+        return new CompareResult(nameA, sa, nameB, sb);
     }
 
     public static String report(CompareResult r) {
@@ -83,4 +161,83 @@ public final class FormatterRuntime {
             this.statsB = statsB;
         }
     }
+
+    /**
+     * Per-thread CPU time and allocation counters plus GC totals at one point in time.
+     * The per-thread arrays are null when the JVM does not support the counter.
+     */
+    private static final class ResourceSnapshot {
+        private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+        private static final com.sun.management.ThreadMXBean SUN_THREADS =
+                THREADS instanceof com.sun.management.ThreadMXBean ? (com.sun.management.ThreadMXBean) THREADS : null;
+
+        final long[] threadIds;
+        final long[] threadCpuNanos;
+        final long[] threadAllocatedBytes;
+        final long gcCount;
+        final long gcMillis;
+
+        private ResourceSnapshot(long[] threadIds, long[] threadCpuNanos, long[] threadAllocatedBytes,
+                                 long gcCount, long gcMillis) {
+            this.threadIds = threadIds;
+            this.threadCpuNanos = threadCpuNanos;
+            this.threadAllocatedBytes = threadAllocatedBytes;
+            this.gcCount = gcCount;
+            this.gcMillis = gcMillis;
+        }
+
+        static ResourceSnapshot take() {
+            long gcCount = 0;
+            long gcMillis = 0;
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                gcCount += Math.max(0, gc.getCollectionCount());
+                gcMillis += Math.max(0, gc.getCollectionTime());
+            }
+            long[] ids = THREADS.getAllThreadIds();
+            long[] cpu = null;
+            long[] allocated = null;
+            if (SUN_THREADS != null) {
+                try {
+                    if (SUN_THREADS.isThreadCpuTimeSupported() && SUN_THREADS.isThreadCpuTimeEnabled()) {
+                        cpu = SUN_THREADS.getThreadCpuTime(ids);
+                    }
+                    if (SUN_THREADS.isThreadAllocatedMemorySupported() && SUN_THREADS.isThreadAllocatedMemoryEnabled()) {
+                        allocated = SUN_THREADS.getThreadAllocatedBytes(ids);
+                    }
+                } catch (UnsupportedOperationException ignored) {
+                    // report as unavailable
+                }
+            }
+            return new ResourceSnapshot(ids, cpu, allocated, gcCount, gcMillis);
+        }
+
+        long cpuSince(ResourceSnapshot before) {
+            return delta(before.threadIds, before.threadCpuNanos, threadIds, threadCpuNanos);
+        }
+
+        long allocatedSince(ResourceSnapshot before) {
+            return delta(before.threadIds, before.threadAllocatedBytes, threadIds, threadAllocatedBytes);
+        }
+
+        /**
+         * Sums per-thread increases; threads started in between count from zero, threads that
+         * ended in between are lost (the common pool keeps its workers, so this is rare).
+         */
+        private static long delta(long[] idsBefore, long[] valuesBefore, long[] idsAfter, long[] valuesAfter) {
+            if (valuesAfter == null) return -1;
+            Map<Long, Long> previous = new HashMap<>(idsBefore.length * 2);
+            if (valuesBefore != null) {
+                for (int i = 0; i < idsBefore.length; i++) previous.put(idsBefore[i], valuesBefore[i]);
+            }
+            long total = 0;
+            for (int i = 0; i < idsAfter.length; i++) {
+                long now = valuesAfter[i];
+                if (now < 0) continue; // thread ended
+                long then = previous.getOrDefault(idsAfter[i], 0L);
+                if (then < 0) then = 0;
+                total += Math.max(0, now - then);
+            }
+            return total;
+        }
+    }
 }
@@ -4,7 +4,12 @@ import cs.qse.common.structure.NS;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import shactor.utils.nodeshapes.NodeShapesSnapshotIO;
+import shactor.utils.nodeshapes.NodeShapesSnapshotStore;
+import shactor.utils.nodeshapes.SnapshotKey;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Collections;
 import java.util.Set;
 import java.util.function.Supplier;
@@ -12,27 +17,47 @@ import java.util.function.Supplier;
 /**
  * Helper to obtain NodeShapes inputs for formatter benchmarks/tests.
  * Now file-based: loads the latest snapshot from evaluation/latest-node-shapes.json.
+ *
+ * The parsed snapshot is memoized and only re-read when the file changes (size or
+ * modification time), so suppliers can be called inside measurement loops.
  */
 public final class NodeShapesSource {
     private static final Logger LOG = LoggerFactory.getLogger(NodeShapesSource.class);
 
+    private static volatile Loaded loaded;
+
     private NodeShapesSource() {}
 
     // Backward-compatible names (used by existing test/doc): now delegate to file-based snapshot
 
     /**
-     * Returns a supplier that reads the latest Set<NS> from the snapshot file created by the app.
+     * Returns a supplier of the latest Set<NS> from the snapshot file created by the app.
+     * The snapshot is parsed on first use and whenever the file changed since.
      */
     public static Supplier<Set<NS>> fromAppCache() {
         return NodeShapesSource::loadOnce;
     }
 
+    /**
+     * Returns a supplier of the shapes stored under the key in the application's snapshot store,
+     * e.g. {@code fromStore(SnapshotKey.parse("LUBM-Mini/EXISTING_FILE_BASED/SHACL/10/0.25"))}.
+     *
+     * @throws IllegalArgumentException if nothing is stored under the key
+     */
+    public static Supplier<Set<NS>> fromStore(SnapshotKey key) {
+        NodeShapesSnapshotStore store = NodeShapesSnapshotStore.shared();
+        if (!store.contains(key)) {
+            throw new IllegalArgumentException("No snapshot stored for " + key + " in " + store.getDirectory());
+        }
+        return () -> store.get(key).orElse(Collections.emptySet());
+    }
+
     /**
      * @return true if the snapshot file exists and is non-empty.
      */
     public static boolean appCacheAvailable() {
         if (!NodeShapesSnapshotIO.defaultSnapshotExists()) return false;
-        Set<NS> s = NodeShapesSnapshotIO.loadDefault();
+        Set<NS> s = loadOnce();
         boolean ok = s != null && !s.isEmpty();
         if (!ok) {
             LOG.warn("[NodeShapesSource] Snapshot file exists but appears empty.");
@@ -43,10 +68,41 @@ public final class NodeShapesSource {
     }
 
     private static Set<NS> loadOnce() {
+        Path file = NodeShapesSnapshotIO.DEFAULT_SNAPSHOT;
         if (!NodeShapesSnapshotIO.defaultSnapshotExists()) {
-            LOG.warn("[NodeShapesSource] No snapshot file found at {}", NodeShapesSnapshotIO.DEFAULT_SNAPSHOT.toAbsolutePath());
+            LOG.warn("[NodeShapesSource] No snapshot file found at {}", file.toAbsolutePath());
             return Collections.emptySet();
         }
-        return NodeShapesSnapshotIO.loadDefault();
+        String version = fileVersion(file);
+        Loaded current = loaded;
+        if (current != null && current.version.equals(version)) {
+            return current.nodeShapes;
+        }
+        synchronized (NodeShapesSource.class) {
+            current = loaded;
+            if (current == null || !current.version.equals(version)) {
+                current = new Loaded(version, Collections.unmodifiableSet(NodeShapesSnapshotIO.loadDefault()));
+                loaded = current;
+            }
+            return current.nodeShapes;
+        }
+    }
+
+    private static String fileVersion(Path file) {
+        try {
+            return Files.size(file) + "@" + Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return "";
+        }
+    }
+
+    private static final class Loaded {
+        final String version;
+        final Set<NS> nodeShapes;
+
+        Loaded(String version, Set<NS> nodeShapes) {
+            this.version = version;
+            this.nodeShapes = nodeShapes;
+        }
     }
 }
@@ -0,0 +1,154 @@
+package shactor.utils.benchmark;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Compares a benchmark run against a baseline and flags statistically significant slowdowns.
+ *
+ * A run is a regression when the one-sided Mann-Whitney U test finds the current wall-clock
+ * samples stochastically larger than the baseline's (p below {@code alpha}) and the median
+ * grew by more than {@code thresholdPercent}. The test uses the normal approximation with tie
+ * and continuity correction, which is adequate from about 8 samples per side.
+ */
+public final class RegressionDetector {
+
+    public static final double DEFAULT_THRESHOLD_PERCENT = 5.0;
+    public static final double DEFAULT_ALPHA = 0.01;
+
+    private final double thresholdPercent;
+    private final double alpha;
+
+    public RegressionDetector() {
+        this(DEFAULT_THRESHOLD_PERCENT, DEFAULT_ALPHA);
+    }
+
+    /**
+     * @param thresholdPercent Minimum median increase, in percent, for a significant change to count as regression
+     * @param alpha Significance level of the one-sided test
+     * @throws IllegalArgumentException if the threshold is negative or alpha is not in (0, 1)
+     */
+    public RegressionDetector(double thresholdPercent, double alpha) {
+        if (thresholdPercent < 0) {
+            throw new IllegalArgumentException("Regression threshold cannot be negative");
+        }
+        if (alpha <= 0 || alpha >= 1) {
+            throw new IllegalArgumentException("Significance level must be between 0 and 1");
+        }
+        this.thresholdPercent = thresholdPercent;
+        this.alpha = alpha;
+    }
+
+    /**
+     * Compares the current statistics with the baseline.
+     */
+    public Verdict compare(String name, RuntimeStats baseline, RuntimeStats current) {
+        List<Double> before = baseline.getSamplesMs();
+        List<Double> after = current.getSamplesMs();
+        double changePercent = baseline.getMedianMs() > 0
+                ? (current.getMedianMs() - baseline.getMedianMs()) / baseline.getMedianMs() * 100.0
+                : 0.0;
+        double pSlower = mannWhitneyGreater(after, before);
+        double pFaster = mannWhitneyGreater(before, after);
+        boolean regression = pSlower < alpha && changePercent > thresholdPercent;
+        boolean improvement = pFaster < alpha && -changePercent > thresholdPercent;
+        return new Verdict(name, baseline.getMedianMs(), current.getMedianMs(), changePercent,
+                pSlower, regression, improvement);
+    }
+
+    /**
+     * One-sided p-value of the Mann-Whitney U test for "x tends to be larger than y".
+     * Returns 1 when either sample is empty.
+     */
+    static double mannWhitneyGreater(List<Double> x, List<Double> y) {
+        int n1 = x.size();
+        int n2 = y.size();
+        if (n1 == 0 || n2 == 0) return 1.0;
+        int n = n1 + n2;
+        double[] values = new double[n];
+        boolean[] fromX = new boolean[n];
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n1; i++) values[i] = x.get(i);
+        for (int i = 0; i < n2; i++) values[n1 + i] = y.get(i);
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+            fromX[i] = i < n1;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+
+        // Average ranks over ties, accumulating the tie correction term sum(t^3 - t)
+        double rankSumX = 0;
+        double tieTerm = 0;
+        int i = 0;
+        while (i < n) {
+            int j = i;
+            while (j + 1 < n && values[order[j + 1]] == values[order[i]]) j++;
+            double rank = (i + j) / 2.0 + 1.0;
+            int ties = j - i + 1;
+            for (int k = i; k <= j; k++) {
+                if (fromX[order[k]]) rankSumX += rank;
+            }
+            tieTerm += (double) ties * ties * ties - ties;
+            i = j + 1;
+        }
+
+        double u = rankSumX - n1 * (n1 + 1) / 2.0;
+        double mean = n1 * (double) n2 / 2.0;
+        double variance = n1 * (double) n2 / 12.0 * ((n + 1) - tieTerm / ((double) n * (n - 1)));
+        if (variance <= 0) return 1.0; // all values equal
+        double z = (u - mean - 0.5) / Math.sqrt(variance);
+        return 1.0 - normalCdf(z);
+    }
+
+    /**
+     * Standard normal CDF via the complementary error function (Numerical Recipes erfc, |error| < 1.2e-7).
+     */
+    static double normalCdf(double z) {
+        double x = -z / Math.sqrt(2.0);
+        double t = 1.0 / (1.0 + 0.5 * Math.abs(x));
+        double erfc = t * Math.exp(-x * x - 1.26551223 + t * (1.00002368 + t * (0.37409196 + t * (0.09678418
+                + t * (-0.18628806 + t * (0.27886807 + t * (-1.13520398 + t * (1.48851587
+                + t * (-0.82215223 + t * 0.17087277)))))))));
+        return 0.5 * (x >= 0 ? erfc : 2.0 - erfc);
+    }
+
+    public double getThresholdPercent() {
+        return thresholdPercent;
+    }
+
+    public double getAlpha() {
+        return alpha;
+    }
+
+    /**
+     * Outcome of comparing one benchmark against its baseline.
+     */
+    public static final class Verdict {
+        public final String name;
+        public final double baselineMedianMs;
+        public final double currentMedianMs;
+        public final double changePercent;
+        public final double pValue;
+        public final boolean regression;
+        public final boolean improvement;
+
+        Verdict(String name, double baselineMedianMs, double currentMedianMs, double changePercent,
+                double pValue, boolean regression, boolean improvement) {
+            this.name = name;
+            this.baselineMedianMs = baselineMedianMs;
+            this.currentMedianMs = currentMedianMs;
+            this.changePercent = changePercent;
+            this.pValue = pValue;
+            this.regression = regression;
+            this.improvement = improvement;
+        }
+
+        @Override
+        public String toString() {
+            String status = regression ? "REGRESSION" : improvement ? "improved" : "ok";
+            return String.format(Locale.ROOT, "%s: %s (median %.3f -> %.3f ms, %+.1f%%, p=%.4f)",
+                    name, status, baselineMedianMs, currentMedianMs, changePercent, pValue);
+        }
+    }
+}
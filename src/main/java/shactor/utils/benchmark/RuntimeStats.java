@@ -1,34 +1,115 @@
 package shactor.utils.benchmark;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
 
 /**
  * Simple container for runtime statistics based on multiple samples.
- * Provides median, p90, p95 in milliseconds.
+ * Provides percentiles (median, p90, p95, p99), max, mean, standard deviation, a 95%
+ * confidence interval of the mean and a log-bucketed histogram, in milliseconds.
+ *
+ * When built from {@link Sample}s (see {@link FormatterRuntime#measureFormatter}), it also
+ * reports allocation, CPU time, GC activity and output size per run. Samples can be exported
+ * as CSV or JSON.
  */
 public class RuntimeStats {
+    /**
+     * Two-sided 97.5% quantiles of Student's t distribution for 1..30 degrees of freedom.
+     */
+    private static final double[] T_975 = {
+            12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262, 2.228,
+            2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086,
+            2.080, 2.074, 2.069, 2.064, 2.060, 2.056, 2.052, 2.048, 2.045, 2.042
+    };
+
+    private static final JsonFactory JSON = new JsonFactory()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    private final List<Sample> samples; // iteration order
     private final List<Double> samplesMs; // sorted copy
     private final double medianMs;
     private final double p90Ms;
     private final double p95Ms;
+    private final double p99Ms;
+    private final double maxMs;
+    private final double meanMs;
+    private final double stdDevMs;
 
+    /**
+     * Creates statistics from wall-clock times only; resource metrics are reported as unavailable.
+     *
+     * @param samplesMs Wall-clock time per run in milliseconds
+     */
     public RuntimeStats(List<Double> samplesMs) {
-        if (samplesMs == null || samplesMs.isEmpty()) {
+        this(toSamples(samplesMs));
+    }
+
+    /**
+     * Creates statistics from full per-iteration samples.
+     *
+     * @param samples One sample per measured iteration, in iteration order
+     */
+    public static RuntimeStats ofSamples(List<Sample> samples) {
+        return new RuntimeStats(samples == null ? new Sample[0] : samples.toArray(new Sample[0]));
+    }
+
+    private RuntimeStats(Sample[] samples) {
+        this.samples = List.of(samples);
+        if (samples.length == 0) {
             this.samplesMs = List.of();
             this.medianMs = 0.0;
             this.p90Ms = 0.0;
             this.p95Ms = 0.0;
+            this.p99Ms = 0.0;
+            this.maxMs = 0.0;
+            this.meanMs = 0.0;
+            this.stdDevMs = 0.0;
             return;
         }
-        List<Double> copy = new ArrayList<>(samplesMs);
+        List<Double> copy = new ArrayList<>(samples.length);
+        double sum = 0.0;
+        for (Sample s : samples) {
+            copy.add(s.wallMs);
+            sum += s.wallMs;
+        }
         Collections.sort(copy);
         this.samplesMs = Collections.unmodifiableList(copy);
         this.medianMs = percentile(copy, 50);
         this.p90Ms = percentile(copy, 90);
         this.p95Ms = percentile(copy, 95);
+        this.p99Ms = percentile(copy, 99);
+        this.maxMs = copy.get(copy.size() - 1);
+        this.meanMs = sum / copy.size();
+        double squares = 0.0;
+        for (double v : copy) {
+            squares += (v - meanMs) * (v - meanMs);
+        }
+        this.stdDevMs = copy.size() > 1 ? Math.sqrt(squares / (copy.size() - 1)) : 0.0;
+    }
+
+    private static Sample[] toSamples(List<Double> samplesMs) {
+        if (samplesMs == null) return new Sample[0];
+        Sample[] result = new Sample[samplesMs.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = new Sample(samplesMs.get(i), -1, -1, -1, -1, -1, -1);
+        }
+        return result;
     }
 
     private static double percentile(List<Double> sorted, int p) {
@@ -42,6 +123,13 @@ public class RuntimeStats {
         return samplesMs;
     }
 
+    /**
+     * Returns the samples in iteration order.
+     */
+    public List<Sample> getSamples() {
+        return samples;
+    }
+
     public double getMedianMs() {
         return medianMs;
     }
@@ -54,10 +142,290 @@ public class RuntimeStats {
         return p95Ms;
     }
 
+    public double getP99Ms() {
+        return p99Ms;
+    }
+
+    public double getMaxMs() {
+        return maxMs;
+    }
+
+    public double getMeanMs() {
+        return meanMs;
+    }
+
+    /**
+     * Sample standard deviation (n-1 denominator); 0 for fewer than two samples.
+     */
+    public double getStdDevMs() {
+        return stdDevMs;
+    }
+
+    /**
+     * Half-width of the 95% confidence interval of the mean (Student's t for up to 30
+     * degrees of freedom, normal approximation above).
+     */
+    public double getConfidenceHalfWidthMs() {
+        int n = samplesMs.size();
+        if (n < 2) return 0.0;
+        double t = n - 1 <= T_975.length ? T_975[n - 2] : 1.96;
+        return t * stdDevMs / Math.sqrt(n);
+    }
+
+    /**
+     * Lower and upper bound of the 95% confidence interval of the mean.
+     */
+    public double[] getConfidenceIntervalMs() {
+        double half = getConfidenceHalfWidthMs();
+        return new double[]{meanMs - half, meanMs + half};
+    }
+
+    /**
+     * Histogram with power-of-two bucket bounds: each key is the inclusive upper bound in
+     * milliseconds of a bucket whose lower bound is half of it. Empty buckets between the
+     * smallest and largest sample are included, so the map can be printed as is.
+     */
+    public Map<Double, Integer> getHistogram() {
+        Map<Double, Integer> histogram = new LinkedHashMap<>();
+        if (samplesMs.isEmpty()) return histogram;
+        int lowest = bucketExponent(samplesMs.get(0));
+        int highest = bucketExponent(maxMs);
+        int[] counts = new int[highest - lowest + 1];
+        for (double v : samplesMs) {
+            counts[bucketExponent(v) - lowest]++;
+        }
+        for (int e = lowest; e <= highest; e++) {
+            histogram.put(Math.scalb(1.0, e), counts[e - lowest]);
+        }
+        return histogram;
+    }
+
+    private static int bucketExponent(double ms) {
+        // Smallest e with ms <= 2^e; sub-nanosecond values share the lowest bucket
+        double v = Math.max(ms, 1e-6);
+        int e = Math.getExponent(v);
+        return v > Math.scalb(1.0, e) ? e + 1 : e;
+    }
+
+    /**
+     * Whether the samples carry resource metrics (allocation, CPU time, GC, output size).
+     */
+    public boolean hasResourceMetrics() {
+        return !samples.isEmpty() && samples.get(0).outputBytes >= 0;
+    }
+
+    /**
+     * Mean bytes allocated per run, or -1 if not measured.
+     */
+    public double getMeanAllocatedBytes() {
+        return mean(s -> s.allocatedBytes);
+    }
+
+    /**
+     * Mean bytes allocated per formatted PropertyShape, or -1 if not measured.
+     */
+    public double getAllocatedBytesPerPropertyShape() {
+        double allocated = getMeanAllocatedBytes();
+        long shapes = samples.isEmpty() ? 0 : samples.get(0).propertyShapes;
+        return allocated >= 0 && shapes > 0 ? allocated / shapes : -1;
+    }
+
+    /**
+     * Mean CPU time per run in milliseconds (summed over all threads), or -1 if not measured.
+     */
+    public double getMeanCpuMs() {
+        return mean(s -> s.cpuMs);
+    }
+
+    /**
+     * Total number of garbage collections during the measured iterations, or -1 if not measured.
+     */
+    public long getTotalGcCount() {
+        if (!hasResourceMetrics()) return -1;
+        long total = 0;
+        for (Sample s : samples) total += s.gcCount;
+        return total;
+    }
+
+    /**
+     * Total collection time reported by the GC beans during the measured iterations, or -1 if not measured.
+     * For concurrent collectors this includes concurrent phases, so it is an upper bound of the pause time.
+     */
+    public double getTotalGcPauseMs() {
+        if (!hasResourceMetrics()) return -1;
+        double total = 0;
+        for (Sample s : samples) total += s.gcPauseMs;
+        return total;
+    }
+
+    /**
+     * Mean size of the formatted output in UTF-8 bytes, or -1 if not measured.
+     */
+    public double getMeanOutputBytes() {
+        return mean(s -> s.outputBytes);
+    }
+
+    private double mean(ToDoubleFunction<Sample> metric) {
+        if (!hasResourceMetrics() || metric.applyAsDouble(samples.get(0)) < 0) return -1;
+        double sum = 0;
+        for (Sample s : samples) sum += metric.applyAsDouble(s);
+        return sum / samples.size();
+    }
+
+    /**
+     * Returns the samples as CSV, one line per iteration in iteration order.
+     * Unavailable metrics are written as -1.
+     */
+    public String toCsv() {
+        StringBuilder sb = new StringBuilder(64 + samples.size() * 64);
+        sb.append("iteration,wall_ms,cpu_ms,allocated_bytes,gc_count,gc_pause_ms,output_bytes,property_shapes\n");
+        for (int i = 0; i < samples.size(); i++) {
+            Sample s = samples.get(i);
+            sb.append(String.format(Locale.ROOT, "%d,%.6f,%.6f,%d,%d,%.3f,%d,%d\n",
+                    i, s.wallMs, s.cpuMs, s.allocatedBytes, s.gcCount, s.gcPauseMs, s.outputBytes, s.propertyShapes));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns the summary statistics and the samples as a JSON object.
+     */
+    public String toJson() {
+        StringWriter writer = new StringWriter();
+        try {
+            writeJson(writer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Writes the summary statistics and the samples as a JSON object.
+     *
+     * @param writer Target writer (not closed)
+     * @throws IOException if writing fails
+     */
+    public void writeJson(Writer writer) throws IOException {
+        try (JsonGenerator gen = JSON.createGenerator(writer)) {
+            gen.useDefaultPrettyPrinter();
+            gen.writeStartObject();
+            gen.writeNumberField("n", samplesMs.size());
+            gen.writeNumberField("medianMs", medianMs);
+            gen.writeNumberField("p90Ms", p90Ms);
+            gen.writeNumberField("p95Ms", p95Ms);
+            gen.writeNumberField("p99Ms", p99Ms);
+            gen.writeNumberField("maxMs", maxMs);
+            gen.writeNumberField("meanMs", meanMs);
+            gen.writeNumberField("stdDevMs", stdDevMs);
+            double[] ci = getConfidenceIntervalMs();
+            gen.writeArrayFieldStart("ci95Ms");
+            gen.writeNumber(ci[0]);
+            gen.writeNumber(ci[1]);
+            gen.writeEndArray();
+            if (hasResourceMetrics()) {
+                gen.writeNumberField("meanCpuMs", getMeanCpuMs());
+                gen.writeNumberField("meanAllocatedBytes", getMeanAllocatedBytes());
+                gen.writeNumberField("allocatedBytesPerPropertyShape", getAllocatedBytesPerPropertyShape());
+                gen.writeNumberField("gcCount", getTotalGcCount());
+                gen.writeNumberField("gcPauseMs", getTotalGcPauseMs());
+                gen.writeNumberField("meanOutputBytes", getMeanOutputBytes());
+            }
+            gen.writeObjectFieldStart("histogramMs");
+            for (Map.Entry<Double, Integer> bucket : getHistogram().entrySet()) {
+                gen.writeNumberField(String.format(Locale.ROOT, "<=%s", bucket.getKey()), bucket.getValue());
+            }
+            gen.writeEndObject();
+            gen.writeArrayFieldStart("samples");
+            for (Sample s : samples) {
+                gen.writeStartObject();
+                gen.writeNumberField("wallMs", s.wallMs);
+                gen.writeNumberField("cpuMs", s.cpuMs);
+                gen.writeNumberField("allocatedBytes", s.allocatedBytes);
+                gen.writeNumberField("gcCount", s.gcCount);
+                gen.writeNumberField("gcPauseMs", s.gcPauseMs);
+                gen.writeNumberField("outputBytes", s.outputBytes);
+                gen.writeNumberField("propertyShapes", s.propertyShapes);
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+            gen.writeEndObject();
+        }
+    }
+
+    /**
+     * Reads statistics written by {@link #writeJson(Writer)}; summary values are recomputed from the samples.
+     *
+     * @param json A JSON object as produced by {@link #writeJson(Writer)}
+     * @return The statistics
+     * @throws IllegalArgumentException if the object has no samples array
+     */
+    public static RuntimeStats fromJson(JsonNode json) {
+        JsonNode array = json == null ? null : json.get("samples");
+        if (array == null || !array.isArray()) {
+            throw new IllegalArgumentException("Runtime statistics JSON has no samples");
+        }
+        List<Sample> samples = new ArrayList<>(array.size());
+        for (JsonNode s : array) {
+            samples.add(new Sample(
+                    s.path("wallMs").asDouble(),
+                    s.path("cpuMs").asDouble(-1),
+                    s.path("allocatedBytes").asLong(-1),
+                    s.path("gcCount").asLong(-1),
+                    s.path("gcPauseMs").asDouble(-1),
+                    s.path("outputBytes").asLong(-1),
+                    s.path("propertyShapes").asLong(-1)));
+        }
+        return ofSamples(samples);
+    }
+
+    /**
+     * Writes {@link #toCsv()} or {@link #toJson()} to a file, chosen by its extension (.json or CSV otherwise).
+     *
+     * @param file Target file (parent directories are created)
+     * @throws IOException if writing fails
+     */
+    public void export(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        String content = file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".json") ? toJson() : toCsv();
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+    }
+
     @Override
     public String toString() {
-        return String.format(Locale.ROOT,
-                "median=%.3f ms, p90=%.3f ms, p95=%.3f ms (n=%d)",
-                medianMs, p90Ms, p95Ms, samplesMs.size());
+        String base = String.format(Locale.ROOT,
+                "median=%.3f ms, p90=%.3f ms, p95=%.3f ms, p99=%.3f ms, max=%.3f ms, mean=%.3f +/- %.3f ms, sd=%.3f ms (n=%d)",
+                medianMs, p90Ms, p95Ms, p99Ms, maxMs, meanMs, getConfidenceHalfWidthMs(), stdDevMs, samplesMs.size());
+        if (!hasResourceMetrics()) return base;
+        return base + String.format(Locale.ROOT,
+                ", cpu=%.3f ms, alloc=%.0f B (%.1f B/PS), gc=%d (%.1f ms), output=%.0f B",
+                getMeanCpuMs(), getMeanAllocatedBytes(), getAllocatedBytesPerPropertyShape(),
+                getTotalGcCount(), getTotalGcPauseMs(), getMeanOutputBytes());
+    }
+
+    /**
+     * Measurements of one iteration, averaged per run when an iteration repeats the operation.
+     * Metrics that could not be measured are -1.
+     */
+    public static final class Sample {
+        public final double wallMs;
+        public final double cpuMs;
+        public final long allocatedBytes;
+        public final long gcCount;
+        public final double gcPauseMs;
+        public final long outputBytes;
+        public final long propertyShapes;
+
+        public Sample(double wallMs, double cpuMs, long allocatedBytes, long gcCount, double gcPauseMs,
+                      long outputBytes, long propertyShapes) {
+            this.wallMs = wallMs;
+            this.cpuMs = cpuMs;
+            this.allocatedBytes = allocatedBytes;
+            this.gcCount = gcCount;
+            this.gcPauseMs = gcPauseMs;
+            this.outputBytes = outputBytes;
+            this.propertyShapes = propertyShapes;
+        }
     }
 }
@@ -0,0 +1,361 @@
+package shactor.utils.benchmark;
+
+import cs.qse.common.structure.NS;
+import cs.qse.common.structure.PS;
+import cs.qse.common.structure.ShaclOrListItem;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+/**
+ * Seeded, deterministic generator of synthetic NodeShapes for benchmarks.
+ *
+ * Unlike {@link NodeShapesSource}, which needs a snapshot written by the app, this produces
+ * inputs of any size without running an extraction. The same {@link Profile} and seed always
+ * yield the same shapes, in the same iteration order.
+ *
+ * Usage example:
+ *   Set<NS> shapes = SyntheticNodeShapes.generate(SyntheticNodeShapes.preset("DBpedia").withNodeShapes(50_000), 42L);
+ *   RuntimeStats stats = FormatterRuntime.measureFormatter(new ShExFormatter(), SyntheticNodeShapes.supplier(profile, 42L), 10, 1, 3);
+ */
+public final class SyntheticNodeShapes {
+
+    private static final ValueFactory VF = SimpleValueFactory.getInstance();
+    private static final String SHAPES_NAMESPACE = "http://shaclshapes.org/";
+    private static final String XSD = "http://www.w3.org/2001/XMLSchema#";
+    private static final String[] DATATYPES = {
+            XSD + "string", XSD + "int", XSD + "double", XSD + "date", XSD + "boolean",
+            XSD + "dateTime", XSD + "gYear", XSD + "anyURI", "http://www.w3.org/1999/02/22-rdf-syntax-ns#langString"
+    };
+
+    private SyntheticNodeShapes() {}
+
+    /**
+     * Returns the preset that mimics one of the datasets listed in ChartsUtil.getDatasetsStats.
+     *
+     * @param datasetName "LUBM", "DBpedia" or "YAGO-4" (case-insensitive)
+     * @return The preset profile
+     * @throws IllegalArgumentException if there is no preset for the dataset
+     */
+    public static Profile preset(String datasetName) {
+        String name = datasetName == null ? "" : datasetName.trim().toUpperCase(Locale.ROOT);
+        switch (name) {
+            case "LUBM":
+                return Profile.LUBM;
+            case "DBPEDIA":
+                return Profile.DBPEDIA;
+            case "YAGO-4":
+            case "YAGO":
+                return Profile.YAGO_4;
+            default:
+                throw new IllegalArgumentException("No synthetic preset for dataset: " + datasetName);
+        }
+    }
+
+    /**
+     * Returns a supplier that generates the shapes on first use and then returns the same set,
+     * so that repeated benchmark iterations do not measure the generator.
+     */
+    public static Supplier<Set<NS>> supplier(Profile profile, long seed) {
+        Objects.requireNonNull(profile, "profile");
+        return new Supplier<>() {
+            private Set<NS> shapes;
+
+            @Override
+            public synchronized Set<NS> get() {
+                if (shapes == null) {
+                    shapes = Collections.unmodifiableSet(generate(profile, seed));
+                }
+                return shapes;
+            }
+        };
+    }
+
+    /**
+     * Generates the NodeShapes described by the profile.
+     *
+     * NodeShape support (the number of instances of the target class) follows a power law;
+     * each PropertyShape's confidence is the fraction of those instances having the property,
+     * and its support is derived from it. OR-list items split the support of their PropertyShape.
+     *
+     * @param profile Shape of the workload
+     * @param seed Random seed
+     * @return A new set with profile.getNodeShapes() NodeShapes in a stable iteration order
+     */
+    public static Set<NS> generate(Profile profile, long seed) {
+        Objects.requireNonNull(profile, "profile");
+        SplittableRandom random = new SplittableRandom(seed);
+        int nodeShapes = profile.nodeShapes;
+        Set<NS> shapes = new LinkedHashSet<>(nodeShapes * 4 / 3 + 1);
+        for (int i = 0; i < nodeShapes; i++) {
+            String classIri = classIri(profile, i);
+            int instances = powerLaw(random, profile.maxSupport, profile.supportExponent);
+
+            int propertyCount = 1 + random.nextInt(Math.max(1, 2 * profile.propertiesPerShape - 1));
+            List<PS> props = new ArrayList<>(propertyCount);
+            for (int p = 0; p < propertyCount; p++) {
+                props.add(propertyShape(profile, random, i, p, instances));
+            }
+
+            NS ns = new NS();
+            ns.setIri(VF.createIRI(SHAPES_NAMESPACE + localName(classIri) + "Shape"));
+            ns.setTargetClass(VF.createIRI(classIri));
+            ns.setSupport(instances);
+            ns.setPropertyShapes(props);
+            shapes.add(ns);
+        }
+        return shapes;
+    }
+
+    private static PS propertyShape(Profile profile, SplittableRandom random, int shapeIndex, int propertyIndex, int instances) {
+        String path = profile.namespace(random.nextInt(profile.namespaces.size()))
+                + "property" + skewedIndex(random, profile.properties);
+        double confidence = Math.pow(random.nextDouble(), profile.confidenceSkew);
+        int support = Math.max(1, (int) Math.round(confidence * instances));
+
+        PS ps = new PS();
+        ps.setIri(VF.createIRI(SHAPES_NAMESPACE + "Class" + shapeIndex + "_p" + propertyIndex));
+        ps.setPath(path);
+        ps.setSupport(support);
+        ps.setConfidence(support / (double) instances);
+        ps.setHasOrList(false);
+
+        if (profile.orListFanOut >= 2 && random.nextDouble() < profile.orListRatio) {
+            int size = 2 + random.nextInt(profile.orListFanOut - 1);
+            List<ShaclOrListItem> items = new ArrayList<>(size);
+            int remaining = support;
+            for (int k = 0; k < size; k++) {
+                int itemSupport = k == size - 1 ? Math.max(1, remaining) : Math.max(1, remaining / 2);
+                remaining = Math.max(0, remaining - itemSupport);
+                ShaclOrListItem item = new ShaclOrListItem();
+                if (random.nextDouble() < profile.literalRatio) {
+                    item.setNodeKind("Literal");
+                    item.setDataTypeOrClass(DATATYPES[random.nextInt(DATATYPES.length)]);
+                } else {
+                    item.setNodeKind("IRI");
+                    item.setDataTypeOrClass(classIri(profile, skewedIndex(random, profile.nodeShapes)));
+                }
+                item.setSupport(itemSupport);
+                item.setConfidence(itemSupport / (double) instances);
+                items.add(item);
+            }
+            ps.setHasOrList(true);
+            ps.setShaclOrListItems(items);
+        } else if (random.nextDouble() < profile.literalRatio) {
+            ps.setNodeKind("Literal");
+            ps.setDataTypeOrClass(DATATYPES[random.nextInt(DATATYPES.length)]);
+        } else {
+            ps.setNodeKind("IRI");
+            ps.setDataTypeOrClass(classIri(profile, skewedIndex(random, profile.nodeShapes)));
+        }
+        return ps;
+    }
+
+    private static String classIri(Profile profile, int index) {
+        return profile.namespace(index % profile.namespaces.size()) + "Class" + index;
+    }
+
+    private static String localName(String iri) {
+        int cut = Math.max(iri.lastIndexOf('#'), iri.lastIndexOf('/'));
+        return iri.substring(cut + 1);
+    }
+
+    /**
+     * Index in [0, bound) biased towards small values, so that a few classes and properties
+     * are referenced much more often than the rest (as in real schemas).
+     */
+    private static int skewedIndex(SplittableRandom random, int bound) {
+        double u = random.nextDouble();
+        return Math.min(bound - 1, (int) (bound * u * u));
+    }
+
+    /**
+     * Pareto-distributed value in [1, max]; larger exponents give fewer large values.
+     */
+    private static int powerLaw(SplittableRandom random, int max, double exponent) {
+        double u = 1.0 - random.nextDouble(); // (0, 1]
+        double value = Math.pow(u, -1.0 / exponent);
+        return (int) Math.max(1, Math.min(max, Math.round(value)));
+    }
+
+    /**
+     * Immutable description of a synthetic workload. Start from a preset (or {@link #DEFAULT})
+     * and adjust it with the with-methods.
+     */
+    public static final class Profile {
+
+        /**
+         * 22 classes, 20 properties in a single namespace (univ-bench), mostly simple constraints.
+         */
+        public static final Profile LUBM = new Profile(22, 8, 20, 0.10, 3, 0.45,
+                List.of("http://swat.cse.lehigh.edu/onto/univ-bench.owl#"), 1_000_000, 1.1, 0.6);
+
+        /**
+         * 427 classes, 1323 properties over DBpedia ontology/property and FOAF namespaces.
+         */
+        public static final Profile DBPEDIA = new Profile(427, 25, 1323, 0.30, 5, 0.55,
+                List.of("http://dbpedia.org/ontology/", "http://dbpedia.org/property/",
+                        "http://xmlns.com/foaf/0.1/", "http://www.w3.org/2000/01/rdf-schema#"),
+                5_823_566, 0.8, 2.5);
+
+        /**
+         * 153 classes, 8902 properties mostly from schema.org, with wide OR-lists.
+         */
+        public static final Profile YAGO_4 = new Profile(153, 60, 8902, 0.35, 6, 0.40,
+                List.of("http://schema.org/", "http://yago-knowledge.org/resource/",
+                        "http://www.w3.org/2000/01/rdf-schema#"),
+                17_000_000, 0.7, 3.0);
+
+        /**
+         * Generic mid-sized profile with example.org namespaces.
+         */
+        public static final Profile DEFAULT = new Profile(100, 10, 200, 0.20, 4, 0.50,
+                List.of("http://example.org/ns0/"), 100_000, 1.0, 1.5);
+
+        private final int nodeShapes;
+        private final int propertiesPerShape;
+        private final int properties;
+        private final double orListRatio;
+        private final int orListFanOut;
+        private final double literalRatio;
+        private final List<String> namespaces;
+        private final int maxSupport;
+        private final double supportExponent;
+        private final double confidenceSkew;
+
+        /**
+         * @param nodeShapes Number of NodeShapes
+         * @param propertiesPerShape Mean number of PropertyShapes per NodeShape (uniform in [1, 2*mean-1])
+         * @param properties Size of the property vocabulary paths are drawn from
+         * @param orListRatio Fraction of PropertyShapes with an sh:or list
+         * @param orListFanOut Maximum number of items in an sh:or list (at least 2 when lists are used)
+         * @param literalRatio Fraction of constraints (and OR-list items) on literals rather than IRIs
+         * @param namespaces Namespaces classes and properties are spread over
+         * @param maxSupport Largest number of instances of a target class
+         * @param supportExponent Power-law exponent of NodeShape support; smaller means heavier tail
+         * @param confidenceSkew Exponent applied to uniform confidences; above 1 favours low confidence
+         * @throws IllegalArgumentException if a count is not positive or a ratio is outside [0, 1]
+         */
+        public Profile(int nodeShapes, int propertiesPerShape, int properties, double orListRatio, int orListFanOut,
+                       double literalRatio, List<String> namespaces, int maxSupport, double supportExponent,
+                       double confidenceSkew) {
+            if (nodeShapes <= 0 || propertiesPerShape <= 0 || properties <= 0 || maxSupport <= 0) {
+                throw new IllegalArgumentException("Node shape, property and support counts must be positive");
+            }
+            if (orListRatio < 0 || orListRatio > 1 || literalRatio < 0 || literalRatio > 1) {
+                throw new IllegalArgumentException("Ratios must be between 0 and 1");
+            }
+            if (orListFanOut < 0) {
+                throw new IllegalArgumentException("OR-list fan-out cannot be negative");
+            }
+            if (namespaces == null || namespaces.isEmpty()) {
+                throw new IllegalArgumentException("At least one namespace is required");
+            }
+            if (supportExponent <= 0 || confidenceSkew <= 0) {
+                throw new IllegalArgumentException("Distribution parameters must be positive");
+            }
+            this.nodeShapes = nodeShapes;
+            this.propertiesPerShape = propertiesPerShape;
+            this.properties = properties;
+            this.orListRatio = orListRatio;
+            this.orListFanOut = orListFanOut;
+            this.literalRatio = literalRatio;
+            this.namespaces = List.copyOf(namespaces);
+            this.maxSupport = maxSupport;
+            this.supportExponent = supportExponent;
+            this.confidenceSkew = confidenceSkew;
+        }
+
+        private String namespace(int index) {
+            return namespaces.get(index);
+        }
+
+        public Profile withNodeShapes(int nodeShapes) {
+            return new Profile(nodeShapes, propertiesPerShape, properties, orListRatio, orListFanOut, literalRatio,
+                    namespaces, maxSupport, supportExponent, confidenceSkew);
+        }
+
+        public Profile withPropertiesPerShape(int propertiesPerShape) {
+            return new Profile(nodeShapes, propertiesPerShape, properties, orListRatio, orListFanOut, literalRatio,
+                    namespaces, maxSupport, supportExponent, confidenceSkew);
+        }
+
+        /**
+         * Scales the number of NodeShapes so that the schema has about {@code propertyShapes} PropertyShapes.
+         */
+        public Profile withPropertyShapes(int propertyShapes) {
+            return withNodeShapes(Math.max(1, propertyShapes / propertiesPerShape));
+        }
+
+        public Profile withOrLists(double orListRatio, int orListFanOut) {
+            return new Profile(nodeShapes, propertiesPerShape, properties, orListRatio, orListFanOut, literalRatio,
+                    namespaces, maxSupport, supportExponent, confidenceSkew);
+        }
+
+        public Profile withLiteralRatio(double literalRatio) {
+            return new Profile(nodeShapes, propertiesPerShape, properties, orListRatio, orListFanOut, literalRatio,
+                    namespaces, maxSupport, supportExponent, confidenceSkew);
+        }
+
+        /**
+         * Spreads classes and properties over {@code count} generated namespaces
+         * (http://example.org/ns0/, http://example.org/ns1/, ...).
+         */
+        public Profile withNamespaces(int count) {
+            if (count <= 0) {
+                throw new IllegalArgumentException("At least one namespace is required");
+            }
+            List<String> generated = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                generated.add("http://example.org/ns" + i + "/");
+            }
+            return new Profile(nodeShapes, propertiesPerShape, properties, orListRatio, orListFanOut, literalRatio,
+                    generated, maxSupport, supportExponent, confidenceSkew);
+        }
+
+        public Profile withSupport(int maxSupport, double supportExponent, double confidenceSkew) {
+            return new Profile(nodeShapes, propertiesPerShape, properties, orListRatio, orListFanOut, literalRatio,
+                    namespaces, maxSupport, supportExponent, confidenceSkew);
+        }
+
+        public int getNodeShapes() {
+            return nodeShapes;
+        }
+
+        public int getPropertiesPerShape() {
+            return propertiesPerShape;
+        }
+
+        public double getOrListRatio() {
+            return orListRatio;
+        }
+
+        public int getOrListFanOut() {
+            return orListFanOut;
+        }
+
+        public double getLiteralRatio() {
+            return literalRatio;
+        }
+
+        public List<String> getNamespaces() {
+            return namespaces;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "nodeShapes=%d, psPerShape=%d, properties=%d, orLists=%.2f (fan-out %d), literals=%.2f, namespaces=%d",
+                    nodeShapes, propertiesPerShape, properties, orListRatio, orListFanOut, literalRatio, namespaces.size());
+        }
+    }
+}
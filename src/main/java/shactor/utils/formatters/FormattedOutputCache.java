@@ -0,0 +1,446 @@
+package shactor.utils.formatters;
+
+import cs.qse.common.structure.NS;
+import cs.qse.common.structure.PS;
+import cs.qse.common.structure.ShaclOrListItem;
+import shactor.config.ConfigurationManager;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded LRU cache of formatted shape documents.
+ *
+ * Entries are keyed by a structural fingerprint of the NodeShapes (IRIs, target classes,
+ * paths, constraints, OR-list items, support and confidence, in iteration order) plus the
+ * format name, so re-formatting equal shapes - e.g. repeated downloads or navigating back
+ * to the same PsView - is served from memory even if the NS/PS objects were rebuilt.
+ *
+ * The cache is bounded by the estimated retained size of the cached documents
+ * (2 bytes per char); least recently used entries are evicted first. Documents larger
+ * than a quarter of the budget are never cached. A budget of 0 disables caching.
+ *
+ * Thread-safe; concurrent misses for the same key may format twice, the last result wins.
+ */
+public final class FormattedOutputCache {
+
+    /**
+     * Configuration key for the cache budget in bytes (0 disables the cache).
+     */
+    public static final String MAX_BYTES_PROPERTY = "shactor.formatter.cache.maxBytes";
+
+    static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    /**
+     * Largest streamed document (in chars, 256 KB estimated) copied for caching. Streaming
+     * exists to keep large documents out of memory, so only small ones are captured.
+     */
+    static final int MAX_CAPTURE_CHARS = 128 * 1024;
+
+    private static volatile FormattedOutputCache shared;
+
+    private final long maxBytes;
+    private final long maxEntryBytes;
+    private final LinkedHashMap<Key, String> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long currentBytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Formats a document on a cache miss.
+     */
+    @FunctionalInterface
+    public interface DocumentFormatter {
+        String format();
+    }
+
+    /**
+     * Streams a document into a writer on a cache miss.
+     */
+    @FunctionalInterface
+    public interface StreamingDocumentFormatter {
+        void format(Writer writer) throws IOException;
+    }
+
+    /**
+     * Creates a cache with the given budget.
+     *
+     * @param maxBytes Maximum estimated size of all cached documents in bytes (0 disables caching)
+     * @throws IllegalArgumentException if maxBytes is negative
+     */
+    public FormattedOutputCache(long maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("Cache size cannot be negative");
+        }
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = maxBytes / 4;
+    }
+
+    /**
+     * Returns the application-wide cache, sized from {@value #MAX_BYTES_PROPERTY}.
+     */
+    public static FormattedOutputCache shared() {
+        FormattedOutputCache cache = shared;
+        if (cache == null) {
+            synchronized (FormattedOutputCache.class) {
+                cache = shared;
+                if (cache == null) {
+                    cache = new FormattedOutputCache(configuredMaxBytes());
+                    shared = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+    private static long configuredMaxBytes() {
+        String value = ConfigurationManager.getInstance()
+                .getProperty(MAX_BYTES_PROPERTY, String.valueOf(DEFAULT_MAX_BYTES));
+        try {
+            return Math.max(0L, Long.parseLong(value.trim()));
+        } catch (RuntimeException e) {
+            return DEFAULT_MAX_BYTES;
+        }
+    }
+
+    /**
+     * Returns the cached document for the shapes and format, or formats and caches it.
+     *
+     * @param nodeShapes The shapes to format
+     * @param format The format name (case-insensitive)
+     * @param formatter Produces the document on a miss
+     * @return The formatted document
+     */
+    public String getOrFormat(Set<NS> nodeShapes, String format, DocumentFormatter formatter) {
+        if (maxBytes == 0) {
+            return formatter.format();
+        }
+        Key key = Key.of(nodeShapes, format);
+        String cached = lookup(key);
+        if (cached != null) {
+            return cached;
+        }
+        String document = formatter.format();
+        store(key, document);
+        return document;
+    }
+
+    /**
+     * Writes the cached document for the shapes and format, or streams it through the formatter.
+     *
+     * On a miss the streamed characters are captured and cached once the formatter
+     * completed, so the next request is served from memory. Only documents of up to
+     * {@link #MAX_CAPTURE_CHARS} are captured; the copy of a larger one is dropped as
+     * soon as it passes the cap, and the document is streamed again on the next request.
+     *
+     * @param nodeShapes The shapes to format
+     * @param format The format name (case-insensitive)
+     * @param writer The writer receiving the document (not flushed or closed)
+     * @param formatter Streams the document on a miss
+     * @throws IOException if writing fails
+     */
+    public void writeOrFormat(Set<NS> nodeShapes, String format, Writer writer,
+                              StreamingDocumentFormatter formatter) throws IOException {
+        if (maxBytes == 0) {
+            formatter.format(writer);
+            return;
+        }
+        Key key = Key.of(nodeShapes, format);
+        String cached = lookup(key);
+        if (cached != null) {
+            writer.write(cached);
+            return;
+        }
+        CapturingWriter capturing = new CapturingWriter(writer, Math.min(MAX_CAPTURE_CHARS, maxEntryBytes / 2));
+        formatter.format(capturing);
+        if (!capturing.overflowed()) {
+            store(key, capturing.captured());
+        }
+    }
+
+    private String lookup(Key key) {
+        String cached;
+        synchronized (entries) {
+            cached = entries.get(key);
+        }
+        if (cached != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return cached;
+    }
+
+    private void store(Key key, String document) {
+        long size = sizeOf(document);
+        if (document == null || size > maxEntryBytes) {
+            return;
+        }
+        synchronized (entries) {
+            String previous = entries.put(key, document);
+            if (previous != null) {
+                currentBytes -= sizeOf(previous);
+            }
+            currentBytes += size;
+            Iterator<Map.Entry<Key, String>> it = entries.entrySet().iterator();
+            while (currentBytes > maxBytes && it.hasNext()) {
+                Map.Entry<Key, String> eldest = it.next();
+                currentBytes -= sizeOf(eldest.getValue());
+                it.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    private static long sizeOf(String document) {
+        return document == null ? 0L : 2L * document.length();
+    }
+
+    /**
+     * Removes all entries; counters are kept.
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+            currentBytes = 0;
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getSizeBytes() {
+        synchronized (entries) {
+            return currentBytes;
+        }
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "FormattedOutputCache[entries=%d, bytes=%d/%d, hits=%d, misses=%d, evictions=%d]",
+                size(), getSizeBytes(), maxBytes, getHits(), getMisses(), getEvictions());
+    }
+
+    /**
+     * Cache key: format name plus two independent 64-bit structural hashes of the shapes.
+     */
+    static final class Key {
+        private final String format;
+        private final int count;
+        private final long h1;
+        private final long h2;
+
+        private Key(String format, int count, long h1, long h2) {
+            this.format = format;
+            this.count = count;
+            this.h1 = h1;
+            this.h2 = h2;
+        }
+
+        static Key of(Set<NS> nodeShapes, String format) {
+            Fingerprint fp = new Fingerprint();
+            for (NS ns : nodeShapes) {
+                fp.add(ns);
+            }
+            return new Key(format == null ? "" : format.trim().toLowerCase(Locale.ROOT),
+                    nodeShapes.size(), fp.h1, fp.h2);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return h1 == other.h1 && h2 == other.h2 && count == other.count && format.equals(other.format);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(h1) * 31 + format.hashCode();
+        }
+    }
+
+    /**
+     * Order-sensitive structural hash (FNV-1a and a multiplicative hash in one pass).
+     * The iteration order matters because it determines the order of the output.
+     */
+    static final class Fingerprint {
+        private static final long FNV_PRIME = 0x100000001b3L;
+        private static final long MIX = 0x9E3779B97F4A7C15L;
+
+        long h1 = 0xcbf29ce484222325L;
+        long h2 = 0x84222325cbf29ce4L;
+
+        void add(NS ns) {
+            if (ns == null) {
+                mark(0);
+                return;
+            }
+            mark(1);
+            add(ns.getIri() != null ? ns.getIri().toString() : null);
+            add(ns.getTargetClass() != null ? ns.getTargetClass().toString() : null);
+            List<PS> propertyShapes = ns.getPropertyShapes();
+            if (propertyShapes == null) {
+                mark(2);
+                return;
+            }
+            mark(propertyShapes.size());
+            for (PS ps : propertyShapes) {
+                add(ps);
+            }
+        }
+
+        private void add(PS ps) {
+            if (ps == null) {
+                mark(3);
+                return;
+            }
+            add(ps.getIri() != null ? ps.getIri().toString() : null);
+            add(ps.getPath());
+            add(ps.getNodeKind());
+            add(ps.getDataTypeOrClass());
+            Integer support = null;
+            Double confidence = null;
+            try { support = ps.getSupport(); } catch (Throwable ignored) { /* ignore missing API methods gracefully */ }
+            try { confidence = ps.getConfidence(); } catch (Throwable ignored) { /* ignore missing API methods gracefully */ }
+            add(support);
+            add(confidence);
+            mark(Boolean.TRUE.equals(ps.getHasOrList()) ? 5 : 4);
+            List<ShaclOrListItem> items = null;
+            try { items = ps.getShaclOrListItems(); } catch (Throwable ignored) { /* ignore missing API methods gracefully */ }
+            if (items == null) {
+                mark(6);
+                return;
+            }
+            mark(items.size());
+            for (ShaclOrListItem item : items) {
+                if (item == null) {
+                    mark(7);
+                    continue;
+                }
+                add(item.getDataTypeOrClass());
+                add(item.getNodeKind());
+                Integer itemSupport = null;
+                Double itemConfidence = null;
+                try { itemSupport = item.getSupport(); } catch (Throwable ignored) { /* ignore missing API methods gracefully */ }
+                try { itemConfidence = item.getConfidence(); } catch (Throwable ignored) { /* ignore missing API methods gracefully */ }
+                add(itemSupport);
+                add(itemConfidence);
+            }
+        }
+
+        private void add(String s) {
+            if (s == null) {
+                mark(-1);
+                return;
+            }
+            mark(s.length());
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                h1 = (h1 ^ c) * FNV_PRIME;
+                h2 = (h2 + c) * MIX;
+                h2 ^= h2 >>> 29;
+            }
+        }
+
+        private void add(Integer value) {
+            mark(value == null ? Long.MIN_VALUE : value);
+        }
+
+        private void add(Double value) {
+            mark(value == null ? Long.MIN_VALUE + 1 : Double.doubleToLongBits(value));
+        }
+
+        private void mark(long value) {
+            h1 = (h1 ^ value) * FNV_PRIME;
+            h1 = (h1 ^ (value >>> 32)) * FNV_PRIME;
+            h2 = (h2 + value) * MIX;
+            h2 ^= h2 >>> 29;
+        }
+    }
+
+    /**
+     * Forwards everything to the target writer and keeps a copy until a size limit is hit.
+     */
+    private static final class CapturingWriter extends Writer {
+        private final Writer target;
+        private final long maxChars;
+        private StringBuilder copy = new StringBuilder();
+
+        CapturingWriter(Writer target, long maxChars) {
+            this.target = target;
+            this.maxChars = maxChars;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            target.write(cbuf, off, len);
+            if (copy != null) {
+                if (copy.length() + len > maxChars) {
+                    copy = null;
+                } else {
+                    copy.append(cbuf, off, len);
+                }
+            }
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            target.write(str, off, len);
+            if (copy != null) {
+                if (copy.length() + len > maxChars) {
+                    copy = null;
+                } else {
+                    copy.append(str, off, off + len);
+                }
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            target.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            // The caller owns the target writer
+            flush();
+        }
+
+        boolean overflowed() {
+            return copy == null;
+        }
+
+        String captured() {
+            return copy.toString();
+        }
+    }
+}
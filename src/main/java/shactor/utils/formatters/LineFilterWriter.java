@@ -0,0 +1,123 @@
+package shactor.utils.formatters;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Writer decorator that applies a text transformation to every complete line.
+ *
+ * Characters are buffered until a line terminator ('\n') is seen; the complete line
+ * (including its terminator) is then passed through the filter and forwarded to the
+ * underlying writer. This allows line-local post-processing (such as the Turtle
+ * confidence fix-ups) to be applied while streaming, without materializing the whole
+ * document as a String.
+ *
+ * {@link #flush()} only forwards complete lines, so a flush in the middle of a line
+ * never splits a filter match. The trailing partial line is emitted by {@link #finish()}
+ * (which leaves the underlying writer open) or by {@link #close()}.
+ */
+public class LineFilterWriter extends FilterWriter {
+
+    private final UnaryOperator<String> lineFilter;
+    private final StringBuilder pending = new StringBuilder(256);
+
+    /**
+     * Creates a new line filtering writer.
+     *
+     * @param out The writer that receives the filtered lines
+     * @param lineFilter The transformation applied to each line (including its terminator)
+     * @throws IllegalArgumentException if out or lineFilter is null
+     */
+    public LineFilterWriter(Writer out, UnaryOperator<String> lineFilter) {
+        super(requireWriter(out));
+        if (lineFilter == null) {
+            throw new IllegalArgumentException("Line filter cannot be null");
+        }
+        this.lineFilter = lineFilter;
+    }
+
+    private static Writer requireWriter(Writer out) {
+        if (out == null) {
+            throw new IllegalArgumentException("Writer cannot be null");
+        }
+        return out;
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        pending.append((char) c);
+        if (c == '\n') {
+            emitPending();
+        }
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        int start = off;
+        int end = off + len;
+        for (int i = off; i < end; i++) {
+            if (cbuf[i] == '\n') {
+                pending.append(cbuf, start, i + 1 - start);
+                emitPending();
+                start = i + 1;
+            }
+        }
+        if (start < end) {
+            pending.append(cbuf, start, end - start);
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        int start = off;
+        int end = off + len;
+        for (int i = off; i < end; i++) {
+            if (str.charAt(i) == '\n') {
+                pending.append(str, start, i + 1);
+                emitPending();
+                start = i + 1;
+            }
+        }
+        if (start < end) {
+            pending.append(str, start, end);
+        }
+    }
+
+    /**
+     * Flushes the underlying writer. A pending partial line is kept back so that the
+     * filter always sees complete lines.
+     */
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Filters and writes any pending partial line and flushes the underlying writer
+     * without closing it.
+     *
+     * @throws IOException if writing to the underlying writer fails
+     */
+    public void finish() throws IOException {
+        if (pending.length() > 0) {
+            emitPending();
+        }
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        finish();
+        out.close();
+    }
+
+    private void emitPending() throws IOException {
+        String line = lineFilter.apply(pending.toString());
+        pending.setLength(0);
+        if (line != null) {
+            out.write(line);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package shactor.utils.formatters;
+
+import cs.qse.common.structure.NS;
+import shactor.config.ConfigurationManager;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Renders NodeShapes into independent fragments, in parallel for large inputs.
+ *
+ * Fragments are produced on the common ForkJoin pool and handed to the sink strictly
+ * in input order, so the concatenated output is identical to a sequential run. Inputs
+ * smaller than the threshold (or machines with a single worker) are rendered
+ * sequentially on the calling thread. Large inputs are processed in windows so only a
+ * bounded number of rendered fragments is held in memory at any time.
+ *
+ * The renderer function must be thread-safe: it may only touch the NodeShape it is
+ * given and fragment-local state.
+ */
+final class ParallelShapeRenderer {
+
+    /**
+     * Configuration key enabling/disabling parallel rendering.
+     */
+    static final String ENABLED_PROPERTY = "shactor.formatter.parallel.enabled";
+
+    /**
+     * Configuration key for the minimum number of NodeShapes rendered in parallel.
+     */
+    static final String THRESHOLD_PROPERTY = "shactor.formatter.parallel.threshold";
+
+    /**
+     * Default minimum number of NodeShapes before rendering is parallelized.
+     */
+    static final int DEFAULT_THRESHOLD = 256;
+
+    /**
+     * Threshold value that keeps rendering sequential regardless of input size.
+     */
+    static final int SEQUENTIAL = Integer.MAX_VALUE;
+
+    // Fragments rendered per worker and window; bounds the number of buffered fragments
+    private static final int FRAGMENTS_PER_WORKER = 64;
+
+    private ParallelShapeRenderer() {}
+
+    /**
+     * Consumer of rendered fragments that may write to an output.
+     */
+    @FunctionalInterface
+    interface FragmentSink<F> {
+        void accept(F fragment) throws IOException;
+    }
+
+    /**
+     * Returns the threshold configured in application.properties, or {@link #SEQUENTIAL}
+     * when parallel rendering is disabled.
+     */
+    static int configuredThreshold() {
+        ConfigurationManager config = ConfigurationManager.getInstance();
+        if (!Boolean.parseBoolean(config.getProperty(ENABLED_PROPERTY, "true").trim())) {
+            return SEQUENTIAL;
+        }
+        try {
+            int threshold = Integer.parseInt(config.getProperty(THRESHOLD_PROPERTY, String.valueOf(DEFAULT_THRESHOLD)).trim());
+            return threshold > 0 ? threshold : SEQUENTIAL;
+        } catch (NumberFormatException e) {
+            return DEFAULT_THRESHOLD;
+        }
+    }
+
+    /**
+     * Renders every NodeShape and passes the fragments to the sink in input order.
+     *
+     * @param nodeShapes The NodeShapes to render, in output order
+     * @param threshold Minimum input size for parallel rendering
+     * @param renderer Thread-safe function rendering one NodeShape into a fragment
+     * @param sink Receives the fragments in input order, always on the calling thread
+     * @throws IOException if the sink fails
+     */
+    static <F> void render(List<NS> nodeShapes, int threshold, Function<NS, F> renderer, FragmentSink<F> sink) throws IOException {
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        if (nodeShapes.size() < threshold || parallelism <= 1) {
+            for (NS nodeShape : nodeShapes) {
+                sink.accept(renderer.apply(nodeShape));
+            }
+            return;
+        }
+
+        int window = Math.max(threshold, parallelism * FRAGMENTS_PER_WORKER);
+        for (int from = 0; from < nodeShapes.size(); from += window) {
+            List<NS> slice = nodeShapes.subList(from, Math.min(from + window, nodeShapes.size()));
+            // Ordered collection of a parallel stream keeps the encounter order of the slice
+            List<F> fragments = slice.parallelStream().map(renderer).collect(Collectors.toList());
+            for (F fragment : fragments) {
+                sink.accept(fragment);
+            }
+        }
+    }
+}
@@ -0,0 +1,414 @@
+package shactor.utils.formatters;
+
+import cs.qse.common.structure.NS;
+import cs.qse.common.structure.PS;
+import cs.qse.common.structure.ShaclOrListItem;
+import shactor.config.ConfigurationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Namespace prefix map used to compact IRIs into CURIEs (prefix:local).
+ *
+ * Namespaces are stored in a character trie, so finding the longest namespace that
+ * matches an IRI costs one pass over the IRI regardless of how many namespaces are
+ * bound. Results (including misses) are memoized per map instance in a bounded LRU map,
+ * which makes repeated compaction of the same class/property IRIs a single hash lookup
+ * while a stream of one-off IRIs only evicts the least recently used entries.
+ *
+ * Instances are immutable and thread-safe. Namespaces come from three sources:
+ * - built-in defaults of the formatter (e.g. rdf, xsd, sh, qse)
+ * - the {@value #PREFIXES_PROPERTY} configuration entry ("prefix=namespace,...")
+ * - optionally, namespaces auto-detected from the NodeShapes being formatted
+ *   (see {@link #withAutoDetected(Set)})
+ */
+public final class PrefixMap {
+
+    /**
+     * Configuration key for additional namespaces, e.g.
+     * {@code wd=http://www.wikidata.org/entity/,schema=http://schema.org/}.
+     */
+    public static final String PREFIXES_PROPERTY = "shactor.prefixes";
+
+    /**
+     * Configuration key enabling namespace auto-detection from the formatted shapes.
+     */
+    public static final String AUTODETECT_PROPERTY = "shactor.prefixes.autodetect";
+
+    public static final String RDF_NAMESPACE = "http://www.w3.org/1999/02/22-rdf-syntax-ns#";
+    public static final String XSD_NAMESPACE = "http://www.w3.org/2001/XMLSchema#";
+    public static final String SHACL_NAMESPACE = "http://www.w3.org/ns/shacl#";
+    public static final String QSE_NAMESPACE = "http://shaclshapes.org/";
+    public static final String EX_NAMESPACE = "http://example.org/shapes/";
+    public static final String UB_NAMESPACE = "http://swat.cse.lehigh.edu/onto/univ-bench.owl#";
+
+    // Least recently used memoized results are evicted beyond this many distinct IRIs
+    static final int MAX_MEMO_ENTRIES = 1 << 16;
+    private static final int MAX_GENERATED_PREFIX_LENGTH = 12;
+    private static final String NO_MATCH = "";
+
+    private final LinkedHashMap<String, String> bindings;
+    private final TrieNode root = new TrieNode();
+    private final LinkedHashMap<String, String> memo = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MAX_MEMO_ENTRIES;
+        }
+    };
+
+    private PrefixMap(LinkedHashMap<String, String> bindings) {
+        this.bindings = bindings;
+        for (Map.Entry<String, String> e : bindings.entrySet()) {
+            root.insert(e.getValue(), e.getKey());
+        }
+    }
+
+    /**
+     * Creates a prefix map from prefix to namespace bindings, keeping their order.
+     *
+     * @param bindings Prefix to namespace bindings
+     * @return A new prefix map
+     * @throws IllegalArgumentException if bindings is null or contains an invalid prefix or empty namespace
+     */
+    public static PrefixMap of(Map<String, String> bindings) {
+        if (bindings == null) {
+            throw new IllegalArgumentException("Bindings cannot be null");
+        }
+        LinkedHashMap<String, String> copy = new LinkedHashMap<>();
+        for (Map.Entry<String, String> e : bindings.entrySet()) {
+            if (!isValidPrefix(e.getKey())) {
+                throw new IllegalArgumentException("Invalid prefix: " + e.getKey());
+            }
+            if (e.getValue() == null || e.getValue().isEmpty()) {
+                throw new IllegalArgumentException("Namespace cannot be empty for prefix: " + e.getKey());
+            }
+            copy.put(e.getKey(), e.getValue());
+        }
+        return new PrefixMap(copy);
+    }
+
+    /**
+     * Default prefixes of the ShEx output (ex, qse, ub, xsd, rdf) plus configured namespaces.
+     */
+    public static PrefixMap shexDefaults() {
+        LinkedHashMap<String, String> defaults = new LinkedHashMap<>();
+        defaults.put("ex", EX_NAMESPACE);
+        defaults.put("qse", QSE_NAMESPACE);
+        defaults.put("ub", UB_NAMESPACE);
+        defaults.put("xsd", XSD_NAMESPACE);
+        defaults.put("rdf", RDF_NAMESPACE);
+        return of(defaults).withConfigured();
+    }
+
+    /**
+     * Default prefixes of the SHACL output (qse, sh, xsd) plus configured namespaces.
+     */
+    public static PrefixMap shaclDefaults() {
+        LinkedHashMap<String, String> defaults = new LinkedHashMap<>();
+        defaults.put("qse", QSE_NAMESPACE);
+        defaults.put("sh", SHACL_NAMESPACE);
+        defaults.put("xsd", XSD_NAMESPACE);
+        return of(defaults).withConfigured();
+    }
+
+    /**
+     * Returns whether namespace auto-detection is enabled in the configuration (default: true).
+     */
+    public static boolean autoDetectEnabled() {
+        String value = ConfigurationManager.getInstance().getProperty(AUTODETECT_PROPERTY, "true");
+        return value == null || Boolean.parseBoolean(value.trim());
+    }
+
+    /**
+     * Returns a copy extended with the namespaces from {@value #PREFIXES_PROPERTY}.
+     * Malformed entries and entries whose prefix is already bound are ignored.
+     */
+    public PrefixMap withConfigured() {
+        String configured = ConfigurationManager.getInstance().getProperty(PREFIXES_PROPERTY, "");
+        if (configured == null || configured.isBlank()) {
+            return this;
+        }
+        LinkedHashMap<String, String> extended = new LinkedHashMap<>(bindings);
+        for (String entry : configured.split(",")) {
+            int eq = entry.indexOf('=');
+            if (eq <= 0) continue;
+            String prefix = entry.substring(0, eq).trim();
+            String namespace = entry.substring(eq + 1).trim();
+            if (isValidPrefix(prefix) && !namespace.isEmpty() && !extended.containsKey(prefix)
+                    && !extended.containsValue(namespace)) {
+                extended.put(prefix, namespace);
+            }
+        }
+        return extended.size() == bindings.size() ? this : new PrefixMap(extended);
+    }
+
+    /**
+     * Returns a copy extended with prefixes for every namespace used by the given shapes
+     * (target classes, paths, classes/datatypes and OR-list items) that is not bound yet.
+     *
+     * Namespaces are cut at the last '#' or '/' of each IRI. Generated prefixes are
+     * derived from the last path segment (or host) of the namespace and made unique;
+     * they are assigned in namespace order, so the result is deterministic.
+     *
+     * @param nodeShapes The shapes to scan
+     * @return This map if nothing new was found, otherwise an extended copy
+     */
+    public PrefixMap withAutoDetected(Set<NS> nodeShapes) {
+        if (nodeShapes == null || nodeShapes.isEmpty()) {
+            return this;
+        }
+        TreeSet<String> namespaces = new TreeSet<>();
+        for (NS ns : nodeShapes) {
+            if (ns == null) continue;
+            if (ns.getTargetClass() != null) collectNamespace(ns.getTargetClass().toString(), namespaces);
+            if (ns.getPropertyShapes() == null) continue;
+            for (PS ps : ns.getPropertyShapes()) {
+                if (ps == null) continue;
+                String path = ps.getPath();
+                if (path != null && path.startsWith("^")) path = path.substring(1);
+                collectNamespace(path, namespaces);
+                collectNamespace(ps.getDataTypeOrClass(), namespaces);
+                List<ShaclOrListItem> items = null;
+                try { items = ps.getShaclOrListItems(); } catch (Throwable ignored) { /* ignore missing API methods gracefully */ }
+                if (items != null) {
+                    for (ShaclOrListItem item : items) {
+                        if (item != null) collectNamespace(item.getDataTypeOrClass(), namespaces);
+                    }
+                }
+            }
+        }
+        if (namespaces.isEmpty()) {
+            return this;
+        }
+        LinkedHashMap<String, String> extended = new LinkedHashMap<>(bindings);
+        for (String namespace : namespaces) {
+            if (!extended.containsValue(namespace)) {
+                extended.put(generatePrefix(namespace, extended), namespace);
+            }
+        }
+        return extended.size() == bindings.size() ? this : new PrefixMap(extended);
+    }
+
+    private void collectNamespace(String iri, Set<String> namespaces) {
+        if (iri == null || !(iri.startsWith("http://") || iri.startsWith("https://"))) {
+            return;
+        }
+        // Already covered by a bound namespace with a valid local name
+        if (compact(iri) != null) {
+            return;
+        }
+        int cut = Math.max(iri.lastIndexOf('#'), iri.lastIndexOf('/'));
+        if (cut < "https://".length() || cut == iri.length() - 1) {
+            return;
+        }
+        if (isValidLocalName(iri, cut + 1)) {
+            namespaces.add(iri.substring(0, cut + 1));
+        }
+    }
+
+    private static String generatePrefix(String namespace, Map<String, String> taken) {
+        String body = namespace.substring(namespace.indexOf("//") + 2, namespace.length() - 1);
+        String[] segments = body.split("[/#]");
+        String candidate = "";
+        for (int i = segments.length - 1; i >= 0 && candidate.isEmpty(); i--) {
+            candidate = sanitizePrefix(i == 0 ? firstHostLabel(segments[0]) : stripExtension(segments[i]));
+        }
+        if (candidate.isEmpty()) {
+            candidate = "ns";
+        }
+        String prefix = candidate;
+        for (int n = 2; taken.containsKey(prefix); n++) {
+            prefix = candidate + n;
+        }
+        return prefix;
+    }
+
+    private static String stripExtension(String segment) {
+        // "univ-bench.owl" -> "univ-bench"
+        int dot = segment.indexOf('.');
+        return dot > 0 ? segment.substring(0, dot) : segment;
+    }
+
+    private static String firstHostLabel(String host) {
+        String h = host.startsWith("www.") ? host.substring(4) : host;
+        int dot = h.indexOf('.');
+        return dot > 0 ? h.substring(0, dot) : h;
+    }
+
+    private static String sanitizePrefix(String raw) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < raw.length() && sb.length() < MAX_GENERATED_PREFIX_LENGTH; i++) {
+            char c = Character.toLowerCase(raw.charAt(i));
+            if ((c >= 'a' && c <= 'z') || (sb.length() > 0 && c >= '0' && c <= '9')) {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Compacts an IRI into a CURIE using the longest bound namespace.
+     *
+     * @param iri The absolute IRI
+     * @return The CURIE, or null if no namespace matches or the remainder is not a valid local name
+     */
+    public String compact(String iri) {
+        if (iri == null) {
+            return null;
+        }
+        String cached;
+        synchronized (memo) {
+            cached = memo.get(iri);
+        }
+        if (cached == null) {
+            cached = lookup(iri);
+            synchronized (memo) {
+                memo.put(iri, cached);
+            }
+        }
+        return cached == NO_MATCH ? null : cached;
+    }
+
+    int memoSize() {
+        synchronized (memo) {
+            return memo.size();
+        }
+    }
+
+    private String lookup(String iri) {
+        // Walk the trie and remember every namespace that ends on the way; try the longest first
+        List<TrieNode> matches = null;
+        TrieNode node = root;
+        for (int i = 0; i < iri.length() && node != null; i++) {
+            node = node.child(iri.charAt(i));
+            if (node != null && node.prefix != null) {
+                if (matches == null) matches = new ArrayList<>(2);
+                matches.add(node);
+            }
+        }
+        if (matches == null) {
+            return NO_MATCH;
+        }
+        for (int m = matches.size() - 1; m >= 0; m--) {
+            TrieNode match = matches.get(m);
+            if (isValidLocalName(iri, match.depth)) {
+                return match.prefix + ":" + iri.substring(match.depth);
+            }
+        }
+        return NO_MATCH;
+    }
+
+    /**
+     * Returns the namespace bound to a prefix, or null.
+     */
+    public String namespace(String prefix) {
+        return bindings.get(prefix);
+    }
+
+    /**
+     * Returns the prefix to namespace bindings in declaration order (read-only).
+     */
+    public Map<String, String> bindings() {
+        return Collections.unmodifiableMap(bindings);
+    }
+
+    /**
+     * Returns the number of bound namespaces.
+     */
+    public int size() {
+        return bindings.size();
+    }
+
+    /**
+     * Cheap check whether a value looks like a prefixed name ({@code prefix:local}),
+     * excluding absolute http(s) IRIs. Equivalent to the former
+     * {@code [A-Za-z_][A-Za-z0-9_-]*:.*} pattern without compiling a regex.
+     */
+    public static boolean isPrefixedName(String value) {
+        if (value == null) return false;
+        String v = value.trim();
+        if (v.startsWith("http://") || v.startsWith("https://")) return false;
+        if (v.isEmpty()) return false;
+        char first = v.charAt(0);
+        if (!(isAsciiLetter(first) || first == '_')) return false;
+        for (int i = 1; i < v.length(); i++) {
+            char c = v.charAt(i);
+            if (c == ':') return true;
+            if (!(isAsciiLetter(c) || (c >= '0' && c <= '9') || c == '_' || c == '-')) return false;
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether the IRI suffix starting at {@code start} is a safe local name for
+     * both Turtle and ShExC ({@code [A-Za-z_][A-Za-z0-9_-]*}, ASCII only).
+     */
+    static boolean isValidLocalName(String iri, int start) {
+        if (start >= iri.length()) return false;
+        char first = iri.charAt(start);
+        if (!(isAsciiLetter(first) || first == '_')) return false;
+        for (int i = start + 1; i < iri.length(); i++) {
+            char c = iri.charAt(i);
+            if (!(isAsciiLetter(c) || (c >= '0' && c <= '9') || c == '_' || c == '-')) return false;
+        }
+        return true;
+    }
+
+    static boolean isValidPrefix(String prefix) {
+        if (prefix == null || prefix.isEmpty() || !isAsciiLetter(prefix.charAt(0))) return false;
+        for (int i = 1; i < prefix.length(); i++) {
+            char c = prefix.charAt(i);
+            if (!(isAsciiLetter(c) || (c >= '0' && c <= '9') || c == '_' || c == '-')) return false;
+        }
+        return true;
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    /**
+     * Trie node keyed by character; children are kept in small parallel arrays since
+     * namespace IRIs share long common prefixes and branch rarely.
+     */
+    private static final class TrieNode {
+        private char[] keys = new char[0];
+        private TrieNode[] children = new TrieNode[0];
+        private String prefix;
+        private int depth;
+
+        TrieNode child(char c) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == c) return children[i];
+            }
+            return null;
+        }
+
+        void insert(String namespace, String boundPrefix) {
+            TrieNode node = this;
+            for (int i = 0; i < namespace.length(); i++) {
+                char c = namespace.charAt(i);
+                TrieNode next = node.child(c);
+                if (next == null) {
+                    next = new TrieNode();
+                    next.depth = i + 1;
+                    int n = node.keys.length;
+                    node.keys = java.util.Arrays.copyOf(node.keys, n + 1);
+                    node.children = java.util.Arrays.copyOf(node.children, n + 1);
+                    node.keys[n] = c;
+                    node.children[n] = next;
+                }
+                node = next;
+            }
+            if (node.prefix == null) {
+                node.prefix = boundPrefix;
+            }
+        }
+    }
+}
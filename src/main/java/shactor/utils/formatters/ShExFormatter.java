@@ -4,7 +4,13 @@ import cs.qse.common.structure.NS;
 import cs.qse.common.structure.PS;
 import cs.qse.common.structure.ShaclOrListItem;
 import org.springframework.stereotype.Component;
+import shactor.config.ConfigurationManager;
+import shactor.utils.qse.QseAccessors;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.util.List;
 import java.util.Set;
 
@@ -21,6 +27,8 @@ import java.util.Set;
  * - PropertyShape constraints including datatypes and node kinds
  * - Complex OR-list constraints using ShEx OR-expressions (|)
  * - IRI and Literal node kind specifications
+ * - Helper shapes for referenced classes, labelled {@code ex:<prefix>_<Local>Shape}
+ *   (e.g. {@code ex:ub_CourseShape} for {@code ub:Course})
  * - Proper ShEx namespace declarations and prefixes
  * 
  * ShEx syntax differs from SHACL in several key ways:
@@ -52,13 +60,17 @@ public class ShExFormatter implements ShapeFormatter {
     }
 
     public static String emitValueSet(List<String> values) {
+        return emitValueSet(values, DEFAULT_PREFIXES);
+    }
+
+    private static String emitValueSet(List<String> values, PrefixMap prefixes) {
         StringBuilder sb = new StringBuilder();
         sb.append("[");
         boolean first = true;
         for (String v : values) {
             if (!first) sb.append(' ');
             first = false;
-            sb.append(formatValue(v));
+            sb.append(formatValue(v, prefixes));
         }
         sb.append("]");
         return sb.toString();
@@ -70,34 +82,26 @@ public class ShExFormatter implements ShapeFormatter {
 
     public static String formatPath(String path) {
         // helper to expose path normalization for tests
-        return extractPropertyPathStatic(path);
+        return extractPropertyPathStatic(path, DEFAULT_PREFIXES);
     }
 
-    private static String extractPropertyPathStatic(String path) {
+    private static String extractPropertyPathStatic(String path, PrefixMap prefixes) {
         if (path == null) return "";
         // Inverse path
         if (path.startsWith("^")) {
             String base = path.substring(1);
-            return "^" + toPrefixed(base);
+            return "^" + toPrefixed(base, prefixes);
         }
-        return toPrefixed(path);
+        return toPrefixed(path, prefixes);
     }
 
-    private static String toPrefixed(String iri) {
+    private static String toPrefixed(String iri, PrefixMap prefixes) {
         if (iri == null) return "";
         String s = iri;
-        // Direct namespace mapping by prefix
-        if (s.startsWith(RDF_NAMESPACE)) {
-            return "rdf:" + s.substring(RDF_NAMESPACE.length());
-        }
-        if (s.startsWith(XSD_NAMESPACE)) {
-            return "xsd:" + s.substring(XSD_NAMESPACE.length());
-        }
-        if (s.startsWith(UB_NAMESPACE)) {
-            return UB_PREFIX + ":" + s.substring(UB_NAMESPACE.length());
-        }
-        if (s.startsWith(SHEX_NAMESPACE)) {
-            return SHEX_PREFIX + ":" + s.substring(SHEX_NAMESPACE.length());
+        // Longest bound namespace via the (memoized) prefix trie
+        String curie = prefixes.compact(s);
+        if (curie != null) {
+            return curie;
         }
         // Hash or slash fallback
         if (s.contains("#")) {
@@ -105,7 +109,19 @@ public class ShExFormatter implements ShapeFormatter {
         } else if (s.contains("/")) {
             return SHEX_PREFIX + ":" + s.substring(s.lastIndexOf('/') + 1);
         }
-        return SHEX_PREFIX + ":" + s.replaceAll("[^a-zA-Z0-9]", "_");
+        return SHEX_PREFIX + ":" + sanitizeLocal(s);
+    }
+
+    private static String sanitizeLocal(String s) {
+        // Equivalent to replaceAll("[^a-zA-Z0-9]", "_") without compiling a pattern per call
+        char[] chars = s.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            char c = chars[i];
+            if (!((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9'))) {
+                chars[i] = '_';
+            }
+        }
+        return new String(chars);
     }
 
     public static String emitClassShape(String classCurie, String shapeLabel) {
@@ -115,33 +131,30 @@ public class ShExFormatter implements ShapeFormatter {
 
     // ===== Internal helpers =====
 
-    @SuppressWarnings("unchecked")
-    private static java.util.List<String> reflectStringList(Object target, String... methodNames) {
-        for (String m : methodNames) {
-            try {
-                java.lang.reflect.Method method = target.getClass().getMethod(m);
-                Object val = method.invoke(target);
-                if (val == null) continue;
-                if (val instanceof java.util.List) {
-                    java.util.List<?> l = (java.util.List<?>) val;
-                    java.util.List<String> out = new java.util.ArrayList<>();
-                    for (Object o : l) if (o != null) out.add(o.toString());
-                    return out;
-                } else if (val instanceof java.util.Collection) {
-                    java.util.Collection<?> c = (java.util.Collection<?>) val;
-                    java.util.List<String> out = new java.util.ArrayList<>();
-                    for (Object o : c) if (o != null) out.add(o.toString());
-                    return out;
-                } else if (val.getClass().isArray()) {
-                    int len = java.lang.reflect.Array.getLength(val);
-                    java.util.List<String> out = new java.util.ArrayList<>(len);
-                    for (int i = 0; i < len; i++) {
-                        Object o = java.lang.reflect.Array.get(val, i);
-                        if (o != null) out.add(o.toString());
-                    }
-                    return out;
-                }
-            } catch (Throwable ignored) { }
+    /**
+     * Candidate getters for enumerations (sh:in) across QSE library versions, in priority order.
+     */
+    static final String[] ENUMERATION_ACCESSORS = {
+            "getIn", "getInList", "getShIn", "getShInList", "getValuesInSet", "getEnumeration", "getAllowedValues"
+    };
+
+    static java.util.List<String> reflectStringList(Object target, String... methodNames) {
+        // Accessors are resolved once per class (absent ones included), see QseAccessors
+        Object val = QseAccessors.of(target.getClass()).firstMatching(target,
+                v -> v instanceof java.util.Collection || v.getClass().isArray(), methodNames);
+        if (val instanceof java.util.Collection) {
+            java.util.Collection<?> c = (java.util.Collection<?>) val;
+            java.util.List<String> out = new java.util.ArrayList<>(c.size());
+            for (Object o : c) if (o != null) out.add(o.toString());
+            return out;
+        } else if (val != null && val.getClass().isArray()) {
+            int len = java.lang.reflect.Array.getLength(val);
+            java.util.List<String> out = new java.util.ArrayList<>(len);
+            for (int i = 0; i < len; i++) {
+                Object o = java.lang.reflect.Array.get(val, i);
+                if (o != null) out.add(o.toString());
+            }
+            return out;
         }
         return null;
     }
@@ -159,7 +172,7 @@ public class ShExFormatter implements ShapeFormatter {
         return;
     }
 
-    private static String formatValue(String v) {
+    private static String formatValue(String v, PrefixMap prefixes) {
         if (v == null) return "";
         String trimmed = v.trim();
         // Already quoted literal
@@ -168,7 +181,7 @@ public class ShExFormatter implements ShapeFormatter {
         }
         // Full IRI -> CURIE via known namespaces, fallback to ex:
         if (trimmed.startsWith("http://") || trimmed.startsWith("https://")) {
-            return curieFromIriOrPrefixed(trimmed);
+            return curieFromIriOrPrefixed(trimmed, prefixes);
         }
         // Prefixed name
         if (isPrefixed(trimmed)) {
@@ -184,11 +197,6 @@ public class ShExFormatter implements ShapeFormatter {
      */
     private static final String SHEX_PREFIX = "ex";
     
-    /**
-     * ShEx namespace URI for shape definitions.
-     */
-    private static final String SHEX_NAMESPACE = "http://example.org/shapes/";
-    
     /**
      * QSE (Quality Shape Extractor) namespace prefix for generated shapes.
      */
@@ -197,19 +205,118 @@ public class ShExFormatter implements ShapeFormatter {
     /**
      * QSE namespace URI for shape definitions.
      */
-    private static final String QSE_NAMESPACE = "http://shaclshapes.org/";
+    private static final String QSE_NAMESPACE = PrefixMap.QSE_NAMESPACE;
+
+    /**
+     * Built-in ShEx prefixes (ex, qse, ub, xsd, rdf) plus those from application.properties.
+     * Used by the static helpers and as the base of every document's prefix map.
+     */
+    private static final PrefixMap DEFAULT_PREFIXES = PrefixMap.shexDefaults();
+
+    /**
+     * Configuration key enabling shared OR-list value expressions (see {@link #ShExFormatter(int, boolean)}).
+     */
+    public static final String DEDUPLICATE_PROPERTY = "shactor.shex.dedup";
+
+    /**
+     * Label prefix of shared value expressions, followed by a hash of the expression.
+     */
+    static final String SHARED_EXPRESSION_PREFIX = SHEX_PREFIX + ":SharedOr_";
+
+    /**
+     * Minimum number of NodeShapes rendered in parallel (see {@link ParallelShapeRenderer}).
+     */
+    private final int parallelThreshold;
+
+    /**
+     * Whether OR-list value expressions are emitted once and referenced by label.
+     */
+    private final boolean deduplicate;
+
+    /**
+     * Creates a formatter using the parallel rendering threshold and the
+     * deduplication setting from application.properties.
+     */
+    public ShExFormatter() {
+        this(ParallelShapeRenderer.configuredThreshold(), configuredDeduplicate());
+    }
 
     /**
-     * University Benchmark prefix and namespace.
+     * Returns whether deduplication is enabled in the configuration ({@value #DEDUPLICATE_PROPERTY}, default: false).
      */
-    private static final String UB_PREFIX = "ub";
-    private static final String UB_NAMESPACE = "http://swat.cse.lehigh.edu/onto/univ-bench.owl#";
+    static boolean configuredDeduplicate() {
+        return Boolean.parseBoolean(ConfigurationManager.getInstance().getProperty(DEDUPLICATE_PROPERTY, "false").trim());
+    }
+
+    /**
+     * Creates a formatter with an explicit parallel rendering threshold.
+     * 
+     * NodeShapes are rendered in parallel on the ForkJoin pool once the input contains
+     * at least {@code parallelThreshold} shapes; output order is unaffected.
+     * 
+     * @param parallelThreshold Minimum input size for parallel rendering
+     *                          ({@link Integer#MAX_VALUE} keeps rendering sequential)
+     * @throws IllegalArgumentException if the threshold is not positive
+     */
+    public ShExFormatter(int parallelThreshold) {
+        this(parallelThreshold, false);
+    }
 
     /**
-     * Common namespaces used for CURIE mapping.
+     * Creates a formatter with an explicit parallel rendering threshold and deduplication mode.
+     * 
+     * With deduplication enabled, identical OR-list value expressions are hash-consed:
+     * each distinct disjunction is emitted once as a named shape expression at the end of
+     * the document, and triple constraints reference it with {@code @label}:
+     * ```
+     * ex:PersonShape {
+     *   ub:takesCourse @ex:SharedOr_3f2a... *
+     * }
+     * 
+     * ex:SharedOr_3f2a... ( IRI AND @ex:ub_CourseShape OR xsd:string )
+     * ```
+     * Labels are derived from the expression text, so they do not depend on input order
+     * or parallel rendering. Simple constraints are never shared, since a reference would
+     * not be shorter.
+     * 
+     * @param parallelThreshold Minimum input size for parallel rendering
+     *                          ({@link Integer#MAX_VALUE} keeps rendering sequential)
+     * @param deduplicate Whether identical OR-list value expressions are shared by reference
+     * @throws IllegalArgumentException if the threshold is not positive
      */
-    private static final String RDF_NAMESPACE = "http://www.w3.org/1999/02/22-rdf-syntax-ns#";
-    private static final String XSD_NAMESPACE = "http://www.w3.org/2001/XMLSchema#";
+    public ShExFormatter(int parallelThreshold, boolean deduplicate) {
+        if (parallelThreshold <= 0) {
+            throw new IllegalArgumentException("Parallel threshold must be positive");
+        }
+        this.parallelThreshold = parallelThreshold;
+        this.deduplicate = deduplicate;
+    }
+
+    /**
+     * Returns whether OR-list value expressions are shared by reference.
+     */
+    public boolean isDeduplicating() {
+        return deduplicate;
+    }
+
+    /**
+     * Per-invocation formatting state.
+     * 
+     * The formatter itself is a stateless singleton; everything that accumulates while
+     * rendering one document lives here, so concurrent exports never share state.
+     */
+    private static final class FormattingContext {
+        // Map of class CURIE -> helper shape label (CURIE)
+        final java.util.LinkedHashMap<String, String> requiredClassShapes = new java.util.LinkedHashMap<>();
+        // Map of shared value expression -> label (deduplication mode only)
+        final java.util.HashMap<String, String> sharedExpressions = new java.util.HashMap<>();
+        // Namespaces of this document (defaults plus those detected in the input); read-only
+        final PrefixMap prefixes;
+
+        FormattingContext(PrefixMap prefixes) {
+            this.prefixes = prefixes;
+        }
+    }
 
     /**
      * Formats a set of NodeShapes and their PropertyShapes into ShEx syntax.
@@ -243,9 +350,6 @@ public class ShExFormatter implements ShapeFormatter {
      * @throws IllegalArgumentException if nodeShapes is null
      * @throws RuntimeException if ShEx generation fails due to internal errors
      */
-    // Map of class CURIE -> helper shape label (CURIE)
-    private java.util.LinkedHashMap<String, String> requiredClassShapes = new java.util.LinkedHashMap<>();
-
     @Override
     public String formatShapes(Set<NS> nodeShapes) {
         // Input validation - ensure nodeShapes is not null
@@ -253,51 +357,189 @@ public class ShExFormatter implements ShapeFormatter {
             throw new IllegalArgumentException("NodeShapes cannot be null");
         }
 
-        // Create StringBuilder for efficient string construction
-        StringBuilder shexOutput = new StringBuilder();
-        
+        // Render through the streaming path so both entry points share one code path
+        StringWriter shexOutput = new StringWriter();
+        try {
+            formatShapes(nodeShapes, shexOutput);
+        } catch (IOException e) {
+            // StringWriter never throws; keep the compiler satisfied
+            throw new UncheckedIOException(e);
+        }
+        return shexOutput.toString();
+    }
+
+    /**
+     * Streams the ShEx representation of the given NodeShapes into a writer.
+     * 
+     * Each NodeShape is rendered into a small reusable buffer which is flushed to the
+     * writer as soon as the shape is complete, so the full document is never held in
+     * memory. Helper class shapes referenced via @label are appended at the end in
+     * deterministic (label) order, exactly as in {@link #formatShapes(Set)}.
+     * 
+     * @param nodeShapes A set of NodeShape objects containing the shapes to format
+     * @param writer The writer that receives the ShEx output (not flushed or closed)
+     * @throws IllegalArgumentException if nodeShapes or writer is null
+     * @throws IOException if writing to the underlying writer fails
+     */
+    @Override
+    public void formatShapes(Set<NS> nodeShapes, Writer writer) throws IOException {
+        if (nodeShapes == null) {
+            throw new IllegalArgumentException("NodeShapes cannot be null");
+        }
+        if (writer == null) {
+            throw new IllegalArgumentException("Writer cannot be null");
+        }
+
+        // Per-shape buffer, reset after every flush to the writer
+        StringBuilder chunk = new StringBuilder();
+        PrefixMap prefixes = documentPrefixes(nodeShapes);
+        FormattingContext context = new FormattingContext(prefixes);
+
         // Add namespace prefix declarations
-        addNamespacePrefixes(shexOutput);
-        
-        
+        addNamespacePrefixes(chunk, prefixes);
+        flushChunk(chunk, writer);
+
         // Process each NodeShape in the input set
-        for (NS nodeShape : nodeShapes) {
-            processNodeShape(shexOutput, nodeShape);
+        if (nodeShapes.size() >= parallelThreshold) {
+            // Render fragments on the ForkJoin pool; merge helper shapes in input order afterwards
+            ParallelShapeRenderer.render(new java.util.ArrayList<>(nodeShapes), parallelThreshold,
+                    ns -> renderFragment(ns, prefixes), fragment -> {
+                        writer.write(fragment.text);
+                        context.requiredClassShapes.putAll(fragment.classShapes);
+                        context.sharedExpressions.putAll(fragment.sharedExpressions);
+                    });
+        } else {
+            for (NS nodeShape : nodeShapes) {
+                processNodeShape(chunk, nodeShape, context);
+                flushChunk(chunk, writer);
+            }
         }
 
-        // Emit required helper class shapes deterministically
-        if (!requiredClassShapes.isEmpty()) {
-            java.util.List<java.util.Map.Entry<String, String>> entries = new java.util.ArrayList<>(requiredClassShapes.entrySet());
-            entries.sort(java.util.Comparator.comparing(java.util.Map.Entry::getValue));
-            for (java.util.Map.Entry<String, String> e : entries) {
-                shexOutput.append(emitClassShape(e.getKey(), e.getValue()));
-            }
+        // Emit required helper class shapes and shared value expressions deterministically
+        appendHelperShapes(chunk, context.requiredClassShapes);
+        appendSharedExpressions(chunk, context.sharedExpressions);
+        flushChunk(chunk, writer);
+    }
+
+    /**
+     * Returns the prefix map of one document: the defaults plus, if enabled, the
+     * namespaces detected in the given NodeShapes.
+     */
+    static PrefixMap documentPrefixes(Set<NS> nodeShapes) {
+        return PrefixMap.autoDetectEnabled()
+                ? DEFAULT_PREFIXES.withAutoDetected(nodeShapes)
+                : DEFAULT_PREFIXES;
+    }
+
+    /**
+     * Writes a document assembled from previously rendered fragments (see
+     * {@link ShapeFragmentStore}). The output equals {@link #formatShapes(Set, Writer)}
+     * for the same NodeShapes in the same order, rendered with the same prefix map.
+     * 
+     * @param fragments Rendered NodeShapes in document order
+     * @param prefixes The prefix map the fragments were rendered with
+     * @param writer The writer that receives the ShEx output (not flushed or closed)
+     * @throws IOException if writing to the underlying writer fails
+     */
+    void writeFragments(List<Fragment> fragments, PrefixMap prefixes, Writer writer) throws IOException {
+        StringBuilder chunk = new StringBuilder();
+        addNamespacePrefixes(chunk, prefixes);
+        flushChunk(chunk, writer);
+        java.util.LinkedHashMap<String, String> classShapes = new java.util.LinkedHashMap<>();
+        java.util.HashMap<String, String> sharedExpressions = new java.util.HashMap<>();
+        for (Fragment fragment : fragments) {
+            writer.write(fragment.text);
+            classShapes.putAll(fragment.classShapes);
+            sharedExpressions.putAll(fragment.sharedExpressions);
+        }
+        appendHelperShapes(chunk, classShapes);
+        appendSharedExpressions(chunk, sharedExpressions);
+        flushChunk(chunk, writer);
+    }
+
+    private static void appendHelperShapes(StringBuilder output, java.util.Map<String, String> requiredClassShapes) {
+        if (requiredClassShapes.isEmpty()) {
+            return;
+        }
+        java.util.List<java.util.Map.Entry<String, String>> entries = new java.util.ArrayList<>(requiredClassShapes.entrySet());
+        entries.sort(java.util.Comparator.comparing(java.util.Map.Entry::getValue));
+        for (java.util.Map.Entry<String, String> e : entries) {
+            output.append(emitClassShape(e.getKey(), e.getValue()));
+        }
+    }
+
+    private static void appendSharedExpressions(StringBuilder output, java.util.Map<String, String> sharedExpressions) {
+        if (sharedExpressions.isEmpty()) {
+            return;
+        }
+        java.util.List<java.util.Map.Entry<String, String>> entries = new java.util.ArrayList<>(sharedExpressions.entrySet());
+        entries.sort(java.util.Map.Entry.comparingByValue());
+        for (java.util.Map.Entry<String, String> e : entries) {
+            output.append(e.getValue()).append(' ').append(e.getKey()).append("\n\n");
+        }
+    }
+
+    /**
+     * Label of a shared value expression: a 64-bit FNV-1a hash of its text, so equal
+     * expressions get equal labels in every fragment.
+     */
+    static String sharedExpressionLabel(String expression) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < expression.length(); i++) {
+            hash = (hash ^ expression.charAt(i)) * 0x100000001b3L;
+        }
+        String hex = Long.toHexString(hash);
+        return SHARED_EXPRESSION_PREFIX + "0".repeat(16 - hex.length()) + hex;
+    }
+
+    /**
+     * ShEx text of one NodeShape together with the helper class shapes and shared
+     * value expressions it references.
+     */
+    static final class Fragment {
+        final String text;
+        final java.util.Map<String, String> classShapes;
+        final java.util.Map<String, String> sharedExpressions;
+
+        Fragment(String text, java.util.Map<String, String> classShapes, java.util.Map<String, String> sharedExpressions) {
+            this.text = text;
+            this.classShapes = classShapes;
+            this.sharedExpressions = sharedExpressions;
+        }
+    }
+
+    /**
+     * Renders one NodeShape with its own formatting context, so concurrently rendered
+     * fragments never share the helper shape registry.
+     */
+    Fragment renderFragment(NS nodeShape, PrefixMap prefixes) {
+        FormattingContext context = new FormattingContext(prefixes);
+        StringBuilder output = new StringBuilder(256);
+        processNodeShape(output, nodeShape, context);
+        return new Fragment(output.toString(), context.requiredClassShapes, context.sharedExpressions);
+    }
+
+    private static void flushChunk(StringBuilder chunk, Writer writer) throws IOException {
+        if (chunk.length() > 0) {
+            writer.append(chunk);
+            chunk.setLength(0);
         }
-        
-        return shexOutput.toString();
     }
 
     /**
      * Adds the required namespace prefix declarations to the ShEx output.
      * 
-     * This method adds standard namespace prefixes used in ShEx generation
-     * to ensure clean and readable output with proper URI abbreviations.
+     * This method adds the namespace prefixes of the document (ex, qse, ub, xsd, rdf,
+     * configured and auto-detected ones, in that order) to ensure clean and readable
+     * output with proper URI abbreviations.
      * 
      * @param output The StringBuilder to append namespace declarations to
+     * @param prefixes The prefix map of the current document
      */
-    private void addNamespacePrefixes(StringBuilder output) {
-        // Add ShEx namespace prefix for shape declarations
-        output.append("PREFIX ").append(SHEX_PREFIX).append(": <").append(SHEX_NAMESPACE).append(">\n");
-
-        // Add QSE namespace prefix for shape IRI declarations
-        output.append("PREFIX ").append(QSE_PREFIX).append(": <").append(QSE_NAMESPACE).append(">\n");
-
-        // Add University Benchmark prefix
-        output.append("PREFIX ").append(UB_PREFIX).append(": <").append(UB_NAMESPACE).append(">\n");
-
-        // Add common RDF/XML Schema namespaces
-        output.append("PREFIX xsd: <http://www.w3.org/2001/XMLSchema#>\n");
-        output.append("PREFIX rdf: <http://www.w3.org/1999/02/22-rdf-syntax-ns#>\n");
+    private void addNamespacePrefixes(StringBuilder output, PrefixMap prefixes) {
+        for (java.util.Map.Entry<String, String> binding : prefixes.bindings().entrySet()) {
+            output.append("PREFIX ").append(binding.getKey()).append(": <").append(binding.getValue()).append(">\n");
+        }
 
         // Add blank line for readability
         output.append("\n");
@@ -307,10 +549,8 @@ public class ShExFormatter implements ShapeFormatter {
     private static boolean isPrefixed(String value) {
         if (value == null) return false;
         String trimmed = value.trim();
-        // Guard against absolute IRIs like http:// or https:// which are not prefixed names
-        if (trimmed.startsWith("http://") || trimmed.startsWith("https://")) return false;
-        // Basic prefixed name pattern
-        return trimmed.matches("[A-Za-z_][A-Za-z0-9_-]*:.*");
+        // Absolute IRIs like http:// or https:// are not prefixed names; no regex per call
+        return PrefixMap.isPrefixedName(trimmed);
     }
 
     private static boolean isXsd(String value) {
@@ -319,26 +559,35 @@ public class ShExFormatter implements ShapeFormatter {
         return v.startsWith("xsd:") || v.contains("XMLSchema#");
     }
 
-    private static String curieFromIriOrPrefixed(String value) {
+    private static String curieFromIriOrPrefixed(String value, PrefixMap prefixes) {
         if (value == null) return null;
         String v = value.trim();
         if (isPrefixed(v)) return v;
-        if (v.startsWith("http://") || v.startsWith("https://")) return toPrefixed(v);
+        if (v.startsWith("http://") || v.startsWith("https://")) return toPrefixed(v, prefixes);
         return v;
     }
 
-    private static String buildShapeLabelFromCurie(String curie) {
+    /**
+     * Label of the helper shape of a class: {@code ex:<prefix>_<Local>Shape}, or
+     * {@code ex:<Local>Shape} for classes in the ex: namespace. The label depends on the class
+     * CURIE alone, so classes sharing a local name in different namespaces never share a helper
+     * shape, and separately rendered fragments (parallel rendering, fragment store, shared
+     * expression hashes) agree on it without knowing the rest of the document.
+     */
+    private static String buildShapeLabelFromCurie(String curie, PrefixMap prefixes) {
         if (curie == null) {
             return SHEX_PREFIX + ":Shape";
         }
         String v = curie.trim();
         // If given a full IRI, normalize to a prefixed form first
         if (v.startsWith("http://") || v.startsWith("https://")) {
-            v = toPrefixed(v);
+            v = toPrefixed(v, prefixes);
         }
         // Extract local from prefixed name if possible
         int idx = v.indexOf(':');
         String local = idx > 0 ? v.substring(idx + 1) : v;
+        // Keep the namespace in the label: foaf:Person and schema:Person need distinct helper shapes
+        String namespace = idx > 0 ? v.substring(0, idx) : "";
         // If local still looks like an IRI (e.g., contains "://"), fall back to fragment or last path segment
         if (local.contains("://")) {
             if (local.contains("#")) {
@@ -346,17 +595,29 @@ public class ShExFormatter implements ShapeFormatter {
             } else if (local.contains("/")) {
                 local = local.substring(local.lastIndexOf('/') + 1);
             } else {
-                local = local.replaceAll("[^a-zA-Z0-9]", "_");
+                local = sanitizeLocal(local);
             }
         }
         if (!local.endsWith("Shape")) local = local + "Shape";
+        if (!namespace.isEmpty() && !namespace.equals(SHEX_PREFIX)) {
+            local = namespace + "_" + local;
+        }
         return SHEX_PREFIX + ":" + local;
     }
 
-    private String ensureClassShapeRef(String iriOrCurie) {
-        String curie = curieFromIriOrPrefixed(iriOrCurie);
+    /**
+     * Helper shape label of a class IRI or CURIE in a document with the given prefixes, as used
+     * by {@code IRI AND @<label>} references; shared with {@link ShExJFormatter}.
+     */
+    static String classShapeLabel(String iriOrCurie, PrefixMap prefixes) {
+        String curie = curieFromIriOrPrefixed(iriOrCurie, prefixes);
+        return curie == null ? null : buildShapeLabelFromCurie(curie, prefixes);
+    }
+
+    private String ensureClassShapeRef(String iriOrCurie, FormattingContext context) {
+        String curie = curieFromIriOrPrefixed(iriOrCurie, context.prefixes);
         if (curie == null) return "";
-        String label = requiredClassShapes.computeIfAbsent(curie, c -> buildShapeLabelFromCurie(c));
+        String label = context.requiredClassShapes.computeIfAbsent(curie, c -> buildShapeLabelFromCurie(c, context.prefixes));
         return "@" + label;
     }
 
@@ -370,14 +631,14 @@ public class ShExFormatter implements ShapeFormatter {
         return nk; // fallback
     }
 
-    private String constraintToString(String dataTypeOrClass, String nodeKind) {
+    private String constraintToString(String dataTypeOrClass, String nodeKind, FormattingContext context) {
         String nk = nodeKindToken(nodeKind);
         if (nk != null) {
             switch (nk) {
                 case "IRI":
                     if (dataTypeOrClass != null && !isXsd(dataTypeOrClass)) {
                         // Phase 3 — Enforce object node kind: require IRI AND target shape
-                        return "IRI AND " + ensureClassShapeRef(dataTypeOrClass);
+                        return "IRI AND " + ensureClassShapeRef(dataTypeOrClass, context);
                     }
                     return "IRI";
                 case "Literal":
@@ -386,7 +647,7 @@ public class ShExFormatter implements ShapeFormatter {
                         String v = dataTypeOrClass.contains("#")
                                 ? ("xsd:" + dataTypeOrClass.substring(dataTypeOrClass.lastIndexOf('#') + 1))
                                 : dataTypeOrClass;
-                        return v.startsWith("xsd:") ? v : curieFromIriOrPrefixed(v);
+                        return v.startsWith("xsd:") ? v : curieFromIriOrPrefixed(v, context.prefixes);
                     }
                     return "Literal";
                 case "BNode":
@@ -404,7 +665,7 @@ public class ShExFormatter implements ShapeFormatter {
                     : dataTypeOrClass;
         }
         // Phase 3 — Even without explicit nodeKind, object class implies IRI-only
-        return "IRI AND " + ensureClassShapeRef(dataTypeOrClass);
+        return "IRI AND " + ensureClassShapeRef(dataTypeOrClass, context);
     }
 
     /**
@@ -427,34 +688,38 @@ public class ShExFormatter implements ShapeFormatter {
      * 
      * @param output The StringBuilder to append the shape definition to
      * @param nodeShape The NodeShape object to process
+     * @param context The formatting context of the current invocation
      */
-    private void processNodeShape(StringBuilder output, NS nodeShape) {
+    private void processNodeShape(StringBuilder output, NS nodeShape, FormattingContext context) {
         // Extract shape name from targetClass and append "Shape" suffix
         String shapeName = extractShapeName(nodeShape.getTargetClass().toString());
         
         // Start shape definition
         output.append(shapeName).append(" {\n");
         
-        // Process all PropertyShapes associated with this NodeShape
-        List<PS> propertyShapes = nodeShape.getPropertyShapes();
+        // Process all PropertyShapes associated with this NodeShape. Work on a copy: the
+        // list belongs to the parser output and may be shared with other sessions or grids.
+        List<PS> propertyShapes = nodeShape.getPropertyShapes() != null
+                ? new java.util.ArrayList<>(nodeShape.getPropertyShapes())
+                : new java.util.ArrayList<>();
         // Deterministic property order by path
-        propertyShapes.sort(java.util.Comparator.comparing(ps -> extractPropertyPath(ps.getPath())));
+        propertyShapes.sort(java.util.Comparator.comparing(ps -> extractPropertyPath(ps.getPath(), context)));
         // Filter out constraints that would produce invalid ShExC (e.g., rdf:type .)
         java.util.List<PS> filtered = new java.util.ArrayList<>();
         for (PS ps : propertyShapes) {
-            if (!shouldSkipPropertyShape(ps)) filtered.add(ps);
+            if (!shouldSkipPropertyShape(ps, context)) filtered.add(ps);
         }
         
         // Phase 2 — Explicit class typing: ensure an rdf:type value set for the target class exists
         boolean hasRdfType = false;
         for (PS ps : filtered) {
-            String p = extractPropertyPath(ps.getPath());
+            String p = extractPropertyPath(ps.getPath(), context);
             if ("ex:type".equals(p)) p = "rdf:type";
             if ("rdf:type".equals(p)) { hasRdfType = true; break; }
         }
         if (!hasRdfType) {
-            String classCurie = curieFromIriOrPrefixed(nodeShape.getTargetClass().toString());
-            output.append("  rdf:type ").append(emitValueSet(java.util.List.of(classCurie)));
+            String classCurie = curieFromIriOrPrefixed(nodeShape.getTargetClass().toString(), context.prefixes);
+            output.append("  rdf:type ").append(emitValueSet(java.util.List.of(classCurie), context.prefixes));
             output.append(" +");
             if (!filtered.isEmpty()) {
                 output.append(" ;\n");
@@ -465,7 +730,7 @@ public class ShExFormatter implements ShapeFormatter {
         
         for (int i = 0; i < filtered.size(); i++) {
             PS propertyShape = filtered.get(i);
-            processPropertyShape(output, propertyShape);
+            processPropertyShape(output, propertyShape, context);
             
             // Add semicolon separator except for last property
             if (i < filtered.size() - 1) {
@@ -487,7 +752,7 @@ public class ShExFormatter implements ShapeFormatter {
      * @param iri The full IRI string
      * @return A clean shape name with appropriate prefix
      */
-    private String extractShapeName(String iri) {
+    static String extractShapeName(String iri) {
         String local;
         String prefix;
         // Handle QSE namespace IRIs
@@ -502,7 +767,7 @@ public class ShExFormatter implements ShapeFormatter {
             local = iri.substring(iri.lastIndexOf("/") + 1);
         } else {
             prefix = SHEX_PREFIX;
-            local = iri.replaceAll("[^a-zA-Z0-9]", "_");
+            local = sanitizeLocal(iri);
         }
         // Append "Shape" suffix for ShEx shape labels derived from targetClass
         if (!local.endsWith("Shape")) {
@@ -528,21 +793,21 @@ public class ShExFormatter implements ShapeFormatter {
      * 
      * @param output The StringBuilder to append the property constraint to
      * @param propertyShape The PropertyShape object to process
+     * @param context The formatting context of the current invocation
      */
-    private void processPropertyShape(StringBuilder output, PS propertyShape) {
+    private void processPropertyShape(StringBuilder output, PS propertyShape, FormattingContext context) {
         // Extract and format property path
-        String propertyPath = extractPropertyPath(propertyShape.getPath());
+        String propertyPath = extractPropertyPath(propertyShape.getPath(), context);
         // Fix wrong ex:type usage -> rdf:type
         if ("ex:type".equals(propertyPath)) {
             propertyPath = "rdf:type";
         }
         output.append("  ").append(propertyPath).append(" ");
 
-        // Try enumeration (sh:in) first via reflection
-        java.util.List<String> inValues = reflectStringList(propertyShape,
-                "getIn", "getInList", "getShIn", "getShInList", "getValuesInSet", "getEnumeration", "getAllowedValues");
+        // Try enumeration (sh:in) first via the cached accessors
+        java.util.List<String> inValues = reflectStringList(propertyShape, ENUMERATION_ACCESSORS);
         if (inValues != null && !inValues.isEmpty()) {
-            output.append(emitValueSet(inValues));
+            output.append(emitValueSet(inValues, context.prefixes));
             if ("rdf:type".equals(propertyPath)) {
                 output.append(" +");
             } else {
@@ -561,33 +826,33 @@ public class ShExFormatter implements ShapeFormatter {
                 for (ShaclOrListItem item : cleanItems) {
                     String c = item.getDataTypeOrClass();
                     if (c != null && !isXsd(c)) {
-                        classCuries.add(curieFromIriOrPrefixed(c));
+                        classCuries.add(curieFromIriOrPrefixed(c, context.prefixes));
                     }
                 }
                 if (!classCuries.isEmpty()) {
-                    output.append(emitValueSet(classCuries));
+                    output.append(emitValueSet(classCuries, context.prefixes));
                 } else {
                     // fallback to generic disjunction
-                    processOrListConstraints(output, propertyShape);
+                    processOrListConstraints(output, propertyShape, context);
                 }
                 output.append(" +");
                 appendPsAnnotations(output, propertyShape);
                 return;
             }
-            processOrListConstraints(output, propertyShape);
+            processOrListConstraints(output, propertyShape, context);
             appendCardinality(output, propertyShape);
             appendPsAnnotations(output, propertyShape);
         } else {
             if ("rdf:type".equals(propertyPath)) {
                 String c = propertyShape.getDataTypeOrClass();
                 if (c != null && !"Undefined".equals(c) && !isXsd(c)) {
-                    output.append(emitValueSet(java.util.List.of(curieFromIriOrPrefixed(c))));
+                    output.append(emitValueSet(java.util.List.of(curieFromIriOrPrefixed(c, context.prefixes)), context.prefixes));
                     output.append(" +");
                     appendPsAnnotations(output, propertyShape);
                     return;
                 }
             }
-            processSimpleConstraints(output, propertyShape);
+            processSimpleConstraints(output, propertyShape, context);
             appendCardinality(output, propertyShape);
             appendPsAnnotations(output, propertyShape);
         }
@@ -600,22 +865,22 @@ public class ShExFormatter implements ShapeFormatter {
      * suitable for ShEx syntax, handling common namespace patterns.
      * 
      * @param path The full property IRI string
+     * @param context The formatting context of the current invocation
      * @return A clean property path with appropriate prefix
      */
-    private String extractPropertyPath(String path) {
-        return extractPropertyPathStatic(path);
+    private String extractPropertyPath(String path, FormattingContext context) {
+        return extractPropertyPathStatic(path, context.prefixes);
     }
 
     // Decide if a property shape should be skipped to avoid invalid ShExC (e.g., rdf:type .)
-    private boolean shouldSkipPropertyShape(PS ps) {
-        String propertyPath = extractPropertyPath(ps.getPath());
+    private boolean shouldSkipPropertyShape(PS ps, FormattingContext context) {
+        String propertyPath = extractPropertyPath(ps.getPath(), context);
         if ("ex:type".equals(propertyPath)) propertyPath = "rdf:type";
         // Only skip logic applies to rdf:type
         if (!"rdf:type".equals(propertyPath)) return false;
 
         // If enumeration (sh:in) exists, don't skip
-        java.util.List<String> inValues = reflectStringList(ps,
-                "getIn", "getInList", "getShIn", "getShInList", "getValuesInSet", "getEnumeration", "getAllowedValues");
+        java.util.List<String> inValues = reflectStringList(ps, ENUMERATION_ACCESSORS);
         if (inValues != null && !inValues.isEmpty()) return false;
 
         if (ps.getHasOrList()) {
@@ -647,8 +912,9 @@ public class ShExFormatter implements ShapeFormatter {
      * 
      * @param output The StringBuilder to append the OR-expression to
      * @param propertyShape The PropertyShape containing OR-list constraints
+     * @param context The formatting context of the current invocation
      */
-    private void processOrListConstraints(StringBuilder output, PS propertyShape) {
+    private void processOrListConstraints(StringBuilder output, PS propertyShape, FormattingContext context) {
         // Filter out undefined or null ShaclOrListItems to get clean constraint list
         List<ShaclOrListItem> cleanItems = filterValidOrListItems(propertyShape.getShaclOrListItems());
 
@@ -661,10 +927,16 @@ public class ShExFormatter implements ShapeFormatter {
         // Build disjunction items deterministically (sorted for stability)
         java.util.List<String> parts = new java.util.ArrayList<>();
         for (ShaclOrListItem item : cleanItems) {
-            parts.add(constraintToString(item.getDataTypeOrClass(), item.getNodeKind()));
+            parts.add(constraintToString(item.getDataTypeOrClass(), item.getNodeKind(), context));
         }
         java.util.Collections.sort(parts);
-        output.append(disjunction(parts));
+        String expression = disjunction(parts);
+        if (deduplicate) {
+            // Hash-cons the disjunction: emit it once at the end, reference it here
+            output.append('@').append(context.sharedExpressions.computeIfAbsent(expression, ShExFormatter::sharedExpressionLabel));
+        } else {
+            output.append(expression);
+        }
     }
 
     /**
@@ -692,12 +964,13 @@ public class ShExFormatter implements ShapeFormatter {
      * 
      * @param output The StringBuilder to append the constraint to
      * @param propertyShape The PropertyShape containing simple constraints
+     * @param context The formatting context of the current invocation
      */
-    private void processSimpleConstraints(StringBuilder output, PS propertyShape) {
+    private void processSimpleConstraints(StringBuilder output, PS propertyShape, FormattingContext context) {
         // Check if we have a valid datatype/class constraint
         if (propertyShape.getDataTypeOrClass() != null &&
                 !propertyShape.getDataTypeOrClass().equals("Undefined")) {
-            output.append(constraintToString(propertyShape.getDataTypeOrClass(), propertyShape.getNodeKind()));
+            output.append(constraintToString(propertyShape.getDataTypeOrClass(), propertyShape.getNodeKind(), context));
         } else if (propertyShape.getNodeKind() != null) {
             // Only node kind specified
             formatNodeKindConstraint(output, propertyShape.getNodeKind());
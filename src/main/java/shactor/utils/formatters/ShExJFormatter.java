@@ -0,0 +1,476 @@
+package shactor.utils.formatters;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import cs.qse.common.structure.NS;
+import cs.qse.common.structure.PS;
+import cs.qse.common.structure.ShaclOrListItem;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * ShExJ (JSON serialization of ShEx 2) formatter implementation.
+ *
+ * Produces the schema of {@link ShExFormatter} in the JSON form consumed by ShEx
+ * validators, so downstream tools do not need to parse ShExC first. The document is
+ * written in a single pass through a streaming Jackson generator; no intermediate tree
+ * or string of the whole schema is built.
+ *
+ * Mapping of the ShExC constructs:
+ * - every NodeShape becomes a {@code Shape} with an {@code EachOf} of {@code TripleConstraint}s
+ * - datatypes and node kinds become {@code NodeConstraint}s, OR-lists a {@code ShapeOr}
+ * - class constraints become {@code IRI AND @<ClassShape>} ({@code ShapeAnd} with a reference
+ *   to a type-only helper shape, as in ShExC)
+ * - rdf:type constraints become value sets with cardinality {@code +}, all others {@code *}
+ *
+ * All IRIs are written in full. Shape ids are the ShExC labels expanded with the document
+ * prefixes (e.g. {@code ex:foaf_PersonShape} for the helper shape of foaf:Person); helper
+ * shapes are appended in label order. Where ShExC would declare one label twice - NodeShapes
+ * whose target classes share a local name, or classes that map to one CURIE because their
+ * namespace is not bound - later shapes get a numeric suffix, so every id is unique.
+ */
+@Component
+public class ShExJFormatter implements ShapeFormatter {
+
+    /**
+     * JSON-LD context of ShExJ schemas.
+     */
+    static final String SHEX_CONTEXT = "http://www.w3.org/ns/shex.jsonld";
+
+    private static final String RDF_TYPE = PrefixMap.RDF_NAMESPACE + "type";
+
+    /**
+     * Used to expand prefixed names (e.g. {@code xsd:string}) found in the QSE output.
+     */
+    private static final PrefixMap DEFAULT_PREFIXES = PrefixMap.shexDefaults();
+
+    // Generators must neither close nor flush the caller's writer
+    private static final JsonFactory JSON = JsonFactory.builder()
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .disable(StreamWriteFeature.FLUSH_PASSED_TO_STREAM)
+            .build();
+
+    /**
+     * Formats a set of NodeShapes and their PropertyShapes as a ShExJ schema.
+     *
+     * @param nodeShapes The NodeShapes to format
+     * @return The ShExJ document
+     * @throws IllegalArgumentException if nodeShapes is null
+     */
+    @Override
+    public String formatShapes(Set<NS> nodeShapes) {
+        if (nodeShapes == null) {
+            throw new IllegalArgumentException("NodeShapes cannot be null");
+        }
+        StringWriter out = new StringWriter();
+        try {
+            formatShapes(nodeShapes, out);
+        } catch (IOException e) {
+            // StringWriter never throws; keep the compiler satisfied
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Streams the ShExJ schema of the given NodeShapes into a writer.
+     *
+     * @param nodeShapes The NodeShapes to format
+     * @param writer The writer receiving the document (not flushed or closed)
+     * @throws IllegalArgumentException if nodeShapes or writer is null
+     * @throws IOException if writing fails
+     */
+    @Override
+    public void formatShapes(Set<NS> nodeShapes, Writer writer) throws IOException {
+        if (nodeShapes == null) {
+            throw new IllegalArgumentException("NodeShapes cannot be null");
+        }
+        if (writer == null) {
+            throw new IllegalArgumentException("Writer cannot be null");
+        }
+
+        try (JsonGenerator gen = JSON.createGenerator(writer)) {
+            gen.writeStartObject();
+            gen.writeStringField("@context", SHEX_CONTEXT);
+            gen.writeStringField("type", "Schema");
+            if (!nodeShapes.isEmpty()) {
+                gen.writeArrayFieldStart("shapes");
+                Labels labels = new Labels(ShExFormatter.documentPrefixes(nodeShapes));
+                // Reserve all NodeShape ids first, so helper shapes never take one of them
+                List<String> ids = new ArrayList<>(nodeShapes.size());
+                for (NS nodeShape : nodeShapes) {
+                    ids.add(labels.nodeShape(nodeShape.getTargetClass().toString()));
+                }
+                int index = 0;
+                for (NS nodeShape : nodeShapes) {
+                    writeNodeShape(gen, nodeShape, ids.get(index++), labels);
+                }
+                Map<String, String> classShapes = new TreeMap<>();
+                for (Map.Entry<String, String> classShape : labels.classShapes.entrySet()) {
+                    classShapes.put(classShape.getValue(), classShape.getKey());
+                }
+                for (Map.Entry<String, String> classShape : classShapes.entrySet()) {
+                    writeClassShape(gen, classShape.getKey(), classShape.getValue());
+                }
+                gen.writeEndArray();
+            }
+            gen.writeEndObject();
+        }
+        writer.write('\n');
+    }
+
+    private void writeNodeShape(JsonGenerator gen, NS nodeShape, String id, Labels classShapes) throws IOException {
+        String targetClass = nodeShape.getTargetClass().toString();
+
+        // Work on a copy: the list belongs to the parser output
+        List<PS> propertyShapes = new ArrayList<>();
+        if (nodeShape.getPropertyShapes() != null) {
+            for (PS ps : nodeShape.getPropertyShapes()) {
+                if (!shouldSkip(ps)) propertyShapes.add(ps);
+            }
+        }
+        // Deterministic property order by path
+        propertyShapes.sort(Comparator.comparing(ps -> ps.getPath() != null ? ps.getPath() : ""));
+        boolean hasRdfType = false;
+        for (PS ps : propertyShapes) {
+            if (isRdfType(ps.getPath())) { hasRdfType = true; break; }
+        }
+
+        gen.writeStartObject();
+        gen.writeStringField("type", "Shape");
+        gen.writeStringField("id", id);
+        gen.writeFieldName("expression");
+        boolean eachOf = propertyShapes.size() + (hasRdfType ? 0 : 1) > 1;
+        if (eachOf) {
+            gen.writeStartObject();
+            gen.writeStringField("type", "EachOf");
+            gen.writeArrayFieldStart("expressions");
+        }
+        if (!hasRdfType) {
+            // Explicit class typing, as in ShExC: rdf:type [ <targetClass> ] +
+            writeTypeConstraint(gen, targetClass);
+        }
+        for (PS ps : propertyShapes) {
+            writePropertyShape(gen, ps, classShapes);
+        }
+        if (eachOf) {
+            gen.writeEndArray();
+            gen.writeEndObject();
+        }
+        gen.writeEndObject();
+    }
+
+    private static void writeClassShape(JsonGenerator gen, String id, String classIri) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("type", "Shape");
+        gen.writeStringField("id", id);
+        gen.writeFieldName("expression");
+        writeTypeConstraint(gen, classIri);
+        gen.writeEndObject();
+    }
+
+    private static void writeTypeConstraint(JsonGenerator gen, String classIri) throws IOException {
+        startTripleConstraint(gen, RDF_TYPE);
+        gen.writeFieldName("valueExpr");
+        gen.writeStartObject();
+        gen.writeStringField("type", "NodeConstraint");
+        gen.writeArrayFieldStart("values");
+        gen.writeString(expand(classIri));
+        gen.writeEndArray();
+        gen.writeEndObject();
+        endTripleConstraint(gen, 1);
+    }
+
+    private void writePropertyShape(JsonGenerator gen, PS ps, Labels classShapes) throws IOException {
+        String path = ps.getPath();
+        boolean rdfType = isRdfType(path);
+        startTripleConstraint(gen, path);
+
+        // Enumerations (sh:in) first, via the cached accessors
+        List<String> inValues = ShExFormatter.reflectStringList(ps, ShExFormatter.ENUMERATION_ACCESSORS);
+        if (inValues != null && !inValues.isEmpty()) {
+            gen.writeFieldName("valueExpr");
+            writeValueSet(gen, inValues);
+        } else if (Boolean.TRUE.equals(ps.getHasOrList())) {
+            List<ShaclOrListItem> items = validItems(ps.getShaclOrListItems());
+            List<String> classes = rdfType ? classesOf(items) : List.of();
+            if (!classes.isEmpty()) {
+                gen.writeFieldName("valueExpr");
+                writeValueSet(gen, classes);
+            } else if (items.size() == 1) {
+                gen.writeFieldName("valueExpr");
+                writeConstraint(gen, items.get(0).getDataTypeOrClass(), items.get(0).getNodeKind(), classShapes);
+            } else if (items.size() > 1) {
+                gen.writeFieldName("valueExpr");
+                gen.writeStartObject();
+                gen.writeStringField("type", "ShapeOr");
+                gen.writeArrayFieldStart("shapeExprs");
+                for (ShaclOrListItem item : items) {
+                    writeConstraint(gen, item.getDataTypeOrClass(), item.getNodeKind(), classShapes);
+                }
+                gen.writeEndArray();
+                gen.writeEndObject();
+            }
+            // No valid items: no value constraint (ShExC ".")
+        } else {
+            String dataTypeOrClass = ps.getDataTypeOrClass();
+            if (rdfType && isDefined(dataTypeOrClass) && !isXsd(dataTypeOrClass)) {
+                gen.writeFieldName("valueExpr");
+                writeValueSet(gen, List.of(dataTypeOrClass));
+            } else if (isDefined(dataTypeOrClass) || nodeKind(ps.getNodeKind()) != null) {
+                gen.writeFieldName("valueExpr");
+                writeConstraint(gen, dataTypeOrClass, ps.getNodeKind(), classShapes);
+            }
+        }
+        endTripleConstraint(gen, rdfType ? 1 : 0);
+    }
+
+    private static void startTripleConstraint(JsonGenerator gen, String path) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("type", "TripleConstraint");
+        if (path.startsWith("^")) {
+            gen.writeStringField("predicate", expand(path.substring(1)));
+            gen.writeBooleanField("inverse", true);
+        } else {
+            gen.writeStringField("predicate", expand(path));
+        }
+    }
+
+    private static void endTripleConstraint(JsonGenerator gen, int min) throws IOException {
+        gen.writeNumberField("min", min);
+        gen.writeNumberField("max", -1);
+        gen.writeEndObject();
+    }
+
+    /**
+     * Writes the value expression of one datatype/class and node kind pair; mirrors the
+     * ShExC constraint rules. Callers make sure that at least one of both is defined.
+     */
+    private static void writeConstraint(JsonGenerator gen, String dataTypeOrClass, String nodeKind,
+                                        Labels classShapes) throws IOException {
+        String kind = nodeKind(nodeKind);
+        boolean defined = isDefined(dataTypeOrClass);
+        if ("iri".equals(kind) || (kind == null && defined && !isXsd(dataTypeOrClass))) {
+            if (defined && !isXsd(dataTypeOrClass)) {
+                // IRI AND @<ClassShape>
+                String label = classShapes.classShape(expand(dataTypeOrClass));
+                gen.writeStartObject();
+                gen.writeStringField("type", "ShapeAnd");
+                gen.writeArrayFieldStart("shapeExprs");
+                writeNodeKind(gen, "iri");
+                gen.writeString(label);
+                gen.writeEndArray();
+                gen.writeEndObject();
+            } else {
+                writeNodeKind(gen, "iri");
+            }
+        } else if (("literal".equals(kind) || kind == null) && defined && isXsd(dataTypeOrClass)) {
+            gen.writeStartObject();
+            gen.writeStringField("type", "NodeConstraint");
+            gen.writeStringField("datatype", expand(dataTypeOrClass));
+            gen.writeEndObject();
+        } else {
+            writeNodeKind(gen, kind);
+        }
+    }
+
+    private static void writeNodeKind(JsonGenerator gen, String kind) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("type", "NodeConstraint");
+        gen.writeStringField("nodeKind", kind);
+        gen.writeEndObject();
+    }
+
+    private static void writeValueSet(JsonGenerator gen, List<String> values) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("type", "NodeConstraint");
+        gen.writeArrayFieldStart("values");
+        for (String value : values) {
+            String v = value.trim();
+            if (v.length() >= 2 && ((v.startsWith("\"") && v.endsWith("\"")) || (v.startsWith("'") && v.endsWith("'")))) {
+                writeLiteral(gen, v.substring(1, v.length() - 1));
+            } else if (v.startsWith("http://") || v.startsWith("https://") || PrefixMap.isPrefixedName(v)) {
+                gen.writeString(expand(v));
+            } else {
+                writeLiteral(gen, v);
+            }
+        }
+        gen.writeEndArray();
+        gen.writeEndObject();
+    }
+
+    private static void writeLiteral(JsonGenerator gen, String value) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("value", value);
+        gen.writeEndObject();
+    }
+
+    // Skip rdf:type constraints without any usable class, as ShExC does (rdf:type . is invalid there)
+    private static boolean shouldSkip(PS ps) {
+        if (!isRdfType(ps.getPath())) return false;
+        List<String> inValues = ShExFormatter.reflectStringList(ps, ShExFormatter.ENUMERATION_ACCESSORS);
+        if (inValues != null && !inValues.isEmpty()) return false;
+        if (Boolean.TRUE.equals(ps.getHasOrList())) {
+            return classesOf(validItems(ps.getShaclOrListItems())).isEmpty();
+        }
+        String c = ps.getDataTypeOrClass();
+        return !isDefined(c) || isXsd(c);
+    }
+
+    private static List<ShaclOrListItem> validItems(List<ShaclOrListItem> items) {
+        List<ShaclOrListItem> valid = new ArrayList<>();
+        if (items != null) {
+            for (ShaclOrListItem item : items) {
+                if (item != null && isDefined(item.getDataTypeOrClass())) valid.add(item);
+            }
+        }
+        return valid;
+    }
+
+    private static List<String> classesOf(List<ShaclOrListItem> items) {
+        List<String> classes = new ArrayList<>();
+        for (ShaclOrListItem item : items) {
+            if (!isXsd(item.getDataTypeOrClass())) classes.add(item.getDataTypeOrClass());
+        }
+        return classes;
+    }
+
+    private static boolean isRdfType(String path) {
+        return RDF_TYPE.equals(path) || "rdf:type".equals(path);
+    }
+
+    private static boolean isDefined(String dataTypeOrClass) {
+        return dataTypeOrClass != null && !dataTypeOrClass.equals("Undefined");
+    }
+
+    private static boolean isXsd(String value) {
+        String v = value.trim();
+        return v.startsWith("xsd:") || v.contains("XMLSchema#");
+    }
+
+    /**
+     * Maps QSE node kinds to ShExJ node kind names; null for unknown or missing values.
+     */
+    private static String nodeKind(String nodeKind) {
+        if (nodeKind == null) return null;
+        String nk = nodeKind.trim();
+        if (nk.equalsIgnoreCase("IRI") || nk.equals("NodeKind")) return "iri";
+        if (nk.equalsIgnoreCase("Literal")) return "literal";
+        if (nk.equalsIgnoreCase("BNode") || nk.equalsIgnoreCase("BlankNode") || nk.equalsIgnoreCase("Blank Node")) return "bnode";
+        if (nk.equalsIgnoreCase("NonLiteral") || nk.equalsIgnoreCase("Non-literal") || nk.equalsIgnoreCase("Non Literal")) return "nonliteral";
+        return null;
+    }
+
+    /**
+     * Expands a prefixed name with the default ShEx prefixes; other values are returned as-is.
+     */
+    private static String expand(String value) {
+        String v = value.trim();
+        if (!v.startsWith("http://") && !v.startsWith("https://") && PrefixMap.isPrefixedName(v)) {
+            int colon = v.indexOf(':');
+            String namespace = DEFAULT_PREFIXES.namespace(v.substring(0, colon));
+            if (namespace != null) {
+                return namespace + v.substring(colon + 1);
+            }
+        }
+        return v;
+    }
+
+    /**
+     * Shape ids of one document: the ShExC labels of {@link ShExFormatter} in full IRI form,
+     * made unique where ShExC would reuse a label.
+     */
+    private static final class Labels {
+        private final PrefixMap prefixes;
+        private final Set<String> used = new HashSet<>();
+        // Class IRI -> helper shape id
+        final Map<String, String> classShapes = new HashMap<>();
+
+        Labels(PrefixMap prefixes) {
+            this.prefixes = prefixes;
+        }
+
+        String nodeShape(String targetClass) {
+            return reserve(toIri(ShExFormatter.extractShapeName(targetClass)));
+        }
+
+        String classShape(String classIri) {
+            return classShapes.computeIfAbsent(classIri,
+                    iri -> reserve(toIri(ShExFormatter.classShapeLabel(iri, prefixes))));
+        }
+
+        private String reserve(String id) {
+            String unique = id;
+            for (int n = 2; !used.add(unique); n++) {
+                unique = id + "_" + n;
+            }
+            return unique;
+        }
+
+        private String toIri(String label) {
+            int colon = label.indexOf(':');
+            String namespace = colon > 0 ? prefixes.namespace(label.substring(0, colon)) : null;
+            return namespace != null ? namespace + label.substring(colon + 1) : label;
+        }
+    }
+
+    /**
+     * Returns the format name for this formatter.
+     *
+     * @return "ShExJ" as the format identifier
+     */
+    @Override
+    public String getFormatName() {
+        return "ShExJ";
+    }
+
+    /**
+     * Returns the file extension for ShExJ files.
+     *
+     * @return "json" as the file extension
+     */
+    @Override
+    public String getFileExtension() {
+        return "json";
+    }
+
+    /**
+     * Validates that the provided NodeShapes can be formatted as ShExJ.
+     *
+     * @param nodeShapes The set of NodeShapes to validate
+     * @return true if every NodeShape has an IRI and target class and every PropertyShape an IRI and path
+     * @throws IllegalArgumentException if nodeShapes is null
+     */
+    @Override
+    public boolean canFormat(Set<NS> nodeShapes) {
+        if (nodeShapes == null) {
+            throw new IllegalArgumentException("NodeShapes cannot be null");
+        }
+        for (NS nodeShape : nodeShapes) {
+            if (nodeShape.getIri() == null || nodeShape.getTargetClass() == null) {
+                return false;
+            }
+            if (nodeShape.getPropertyShapes() != null) {
+                for (PS propertyShape : nodeShape.getPropertyShapes()) {
+                    if (propertyShape.getIri() == null || propertyShape.getPath() == null) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -11,9 +11,14 @@ import org.eclipse.rdf4j.model.vocabulary.SHACL;
 import org.springframework.stereotype.Component;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import shactor.config.ConfigurationManager;
 
 import java.io.ByteArrayOutputStream;
-import java.io.OutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
@@ -45,30 +50,90 @@ public class ShaclFormatter implements ShapeFormatter {
     private static final Logger LOG = LoggerFactory.getLogger(ShaclFormatter.class);
 
     /**
-     * SHACL namespace prefix used in generated Turtle output.
+     * QSE namespace URI for shape definitions.
      */
-    private static final String SHACL_PREFIX = "sh";
-    
+    private static final String QSE_NAMESPACE = "http://shaclshapes.org/";
+
     /**
-     * SHACL namespace URI.
+     * Configuration key selecting the Turtle writer ("direct" or "jena").
      */
-    private static final String SHACL_NAMESPACE = "http://www.w3.org/ns/shacl#";
-    
+    public static final String WRITER_MODE_PROPERTY = "shactor.shacl.writer";
+
     /**
-     * QSE (Quality Shape Extractor) namespace prefix for generated shapes.
+     * Available SHACL Turtle writers.
+     * 
+     * DIRECT renders Turtle in a single pass over the NS/PS structures (default).
+     * JENA builds an Apache Jena model, serializes it with TurtleFormatter and repairs
+     * qse:confidence literals afterwards; it is kept as a fallback.
      */
-    private static final String QSE_PREFIX = "qse";
-    
+    public enum Mode {
+        DIRECT,
+        JENA;
+
+        /**
+         * Parses a mode name case-insensitively, defaulting to DIRECT for unknown values.
+         */
+        public static Mode fromName(String name) {
+            if (name != null && "jena".equalsIgnoreCase(name.trim())) {
+                return JENA;
+            }
+            return DIRECT;
+        }
+    }
+
+    private final Mode mode;
+
     /**
-     * QSE namespace URI for shape definitions.
+     * Minimum number of NodeShapes rendered in parallel (see {@link ParallelShapeRenderer}).
      */
-    private static final String QSE_NAMESPACE = "http://shaclshapes.org/";
+    private final int parallelThreshold;
+
+    /**
+     * Creates a formatter using the writer mode configured via
+     * {@value #WRITER_MODE_PROPERTY} (defaults to {@link Mode#DIRECT}).
+     */
+    public ShaclFormatter() {
+        this(Mode.fromName(ConfigurationManager.getInstance().getProperty(WRITER_MODE_PROPERTY, "direct")));
+    }
+
+    /**
+     * Creates a formatter using the given writer mode and the configured parallel threshold.
+     * 
+     * @param mode The Turtle writer to use
+     * @throws IllegalArgumentException if mode is null
+     */
+    public ShaclFormatter(Mode mode) {
+        this(mode, ParallelShapeRenderer.configuredThreshold());
+    }
 
     /**
-     * XSD namespace prefix and URI for typed literals.
+     * Creates a formatter using the given writer mode and parallel rendering threshold.
+     * 
+     * NodeShapes are rendered in parallel on the ForkJoin pool once the input contains
+     * at least {@code parallelThreshold} shapes; output order is unaffected.
+     * 
+     * @param mode The Turtle writer to use
+     * @param parallelThreshold Minimum input size for parallel rendering
+     *                          ({@link Integer#MAX_VALUE} keeps rendering sequential)
+     * @throws IllegalArgumentException if mode is null or the threshold is not positive
      */
-    private static final String XSD_PREFIX = "xsd";
-    private static final String XSD_NAMESPACE = "http://www.w3.org/2001/XMLSchema#";
+    public ShaclFormatter(Mode mode, int parallelThreshold) {
+        if (mode == null) {
+            throw new IllegalArgumentException("Mode cannot be null");
+        }
+        if (parallelThreshold <= 0) {
+            throw new IllegalArgumentException("Parallel threshold must be positive");
+        }
+        this.mode = mode;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Returns the Turtle writer mode used by this formatter.
+     */
+    public Mode getMode() {
+        return mode;
+    }
 
     /**
      * Formats a set of NodeShapes and their PropertyShapes into SHACL Turtle syntax.
@@ -84,6 +149,9 @@ public class ShaclFormatter implements ShapeFormatter {
      * 5. Handling complex OR-list constraints for multiple datatypes/classes
      * 6. Formatting the final model as Turtle syntax
      * 
+     * In {@link Mode#DIRECT} the same triples are written by {@link ShaclTurtleWriter}
+     * in a single pass without building a model or post-processing the output.
+     * 
      * @param nodeShapes A set of NodeShape objects containing the shapes to format.
      *                   Each NodeShape includes its IRI, target class, and associated
      *                   PropertyShapes with their constraints.
@@ -98,38 +166,110 @@ public class ShaclFormatter implements ShapeFormatter {
             throw new IllegalArgumentException("NodeShapes cannot be null");
         }
 
+        if (mode == Mode.DIRECT) {
+            StringWriter out = new StringWriter();
+            try {
+                new ShaclTurtleWriter(parallelThreshold, prefixesFor(nodeShapes)).write(nodeShapes, out);
+            } catch (IOException e) {
+                // StringWriter never throws; keep the compiler satisfied
+                throw new UncheckedIOException(e);
+            }
+            return out.toString();
+        }
+
+        // Convert the RDF model to Turtle format and return as string
+        return formatModelAsTurtle(buildModel(nodeShapes));
+    }
+
+    /**
+     * Streams the SHACL Turtle representation of the given NodeShapes into a writer.
+     * 
+     * In direct mode the shapes are rendered NodeShape by NodeShape into the writer.
+     * In Jena mode the model is serialized with TurtleFormatter first and then written to
+     * the writer, applying the qse:confidence post-processing line by line, which yields
+     * the same output as {@link #formatShapes(Set)}.
+     * 
+     * @param nodeShapes A set of NodeShape objects containing the shapes to format
+     * @param writer The writer that receives the Turtle output (not closed)
+     * @throws IllegalArgumentException if nodeShapes or writer is null
+     * @throws IOException if writing to the underlying writer fails
+     */
+    @Override
+    public void formatShapes(Set<NS> nodeShapes, Writer writer) throws IOException {
+        if (nodeShapes == null) {
+            throw new IllegalArgumentException("NodeShapes cannot be null");
+        }
+        if (writer == null) {
+            throw new IllegalArgumentException("Writer cannot be null");
+        }
+
+        if (mode == Mode.DIRECT) {
+            new ShaclTurtleWriter(parallelThreshold, prefixesFor(nodeShapes)).write(nodeShapes, writer);
+            return;
+        }
+
+        Model model = buildModel(nodeShapes);
+        String turtle;
+        try {
+            turtle = serializeTurtle(model);
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Failed to format SHACL model as Turtle", e);
+        }
+        LineFilterWriter filtered = new LineFilterWriter(writer, this::postProcessConfidence);
+        filtered.write(turtle);
+        // Write the trailing partial line without closing the caller's writer
+        filtered.finish();
+    }
+
+    /**
+     * Builds the Apache Jena RDF model holding the SHACL triples for the given NodeShapes.
+     * 
+     * @param nodeShapes The NodeShapes to convert
+     * @return A model with SHACL prefixes and one sh:NodeShape per input NodeShape
+     */
+    private Model buildModel(Set<NS> nodeShapes) {
         // Create Apache Jena RDF model for SHACL generation
         Model model = ModelFactory.createDefaultModel();
         
-        // Set up namespace prefixes for clean Turtle output
-        setupNamespacePrefixes(model);
-        
-        // Process each NodeShape in the input set
-        for (NS nodeShape : nodeShapes) {
-            processNodeShape(model, nodeShape);
+        // Process each NodeShape in the input set; large inputs are built as per-NS
+        // sub-models in parallel and merged in input order
+        try {
+            ParallelShapeRenderer.render(new ArrayList<>(nodeShapes), parallelThreshold, nodeShape -> {
+                Model fragment = ModelFactory.createDefaultModel();
+                processNodeShape(fragment, nodeShape);
+                return fragment;
+            }, model::add);
+        } catch (IOException e) {
+            // Model merging performs no I/O
+            throw new UncheckedIOException(e);
         }
-        
-        // Convert the RDF model to Turtle format and return as string
-        return formatModelAsTurtle(model);
+
+        // Set up namespace prefixes for clean Turtle output
+        setupNamespacePrefixes(model, prefixesFor(nodeShapes));
+        return model;
+    }
+
+    /**
+     * Returns the prefix map of one document: the SHACL defaults plus, if enabled,
+     * the namespaces detected in the given NodeShapes.
+     */
+    private PrefixMap prefixesFor(Set<NS> nodeShapes) {
+        return ShaclTurtleWriter.documentPrefixes(nodeShapes);
     }
 
     /**
      * Sets up the required namespace prefixes for SHACL generation.
      * 
-     * This method configures the RDF model with standard SHACL and QSE
-     * namespace prefixes to ensure clean and readable Turtle output.
+     * This method configures the RDF model with the standard SHACL, QSE and XSD
+     * namespace prefixes, plus configured and auto-detected ones, to ensure clean
+     * and readable Turtle output.
      * 
      * @param model The Apache Jena RDF model to configure
+     * @param prefixes The prefix map of the document
      */
-    private void setupNamespacePrefixes(Model model) {
-        // Add SHACL namespace prefix for sh: declarations
-        model.setNsPrefix(SHACL_PREFIX, SHACL_NAMESPACE);
-        
-        // Add QSE namespace prefix for shape IRI declarations
-        model.setNsPrefix(QSE_PREFIX, QSE_NAMESPACE);
-        
-        // Add XSD namespace prefix for typed literals (e.g., ^^xsd:double)
-        model.setNsPrefix(XSD_PREFIX, XSD_NAMESPACE);
+    private void setupNamespacePrefixes(Model model, PrefixMap prefixes) {
+        // sh:, qse: and xsd: always come first (see PrefixMap#shaclDefaults)
+        model.setNsPrefixes(prefixes.bindings());
     }
 
     /**
@@ -570,10 +710,7 @@ public class ShaclFormatter implements ShapeFormatter {
      */
     private String formatModelAsTurtle(Model model) {
         try {
-            OutputStream outputStream = new ByteArrayOutputStream();
-            TurtleFormatter formatter = new TurtleFormatter(FormattingStyle.DEFAULT);
-            formatter.accept(model, outputStream);
-            String content = outputStream.toString();
+            String content = serializeTurtle(model);
             // Ensure qse:confidence is always represented as a typed xsd:double literal with dot decimal
             content = postProcessConfidence(content);
             return content;
@@ -582,6 +719,15 @@ public class ShaclFormatter implements ShapeFormatter {
         }
     }
 
+    /**
+     * Serializes the model with TurtleFormatter, decoding its UTF-8 output.
+     */
+    private static String serializeTurtle(Model model) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        new TurtleFormatter(FormattingStyle.DEFAULT).accept(model, outputStream);
+        return new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+    }
+
     /**
      * Post-processes Turtle content to ensure qse:confidence values are explicitly typed as xsd:double
      * and use dot as decimal separator.
@@ -592,7 +738,7 @@ public class ShaclFormatter implements ShapeFormatter {
      * - Scientific notation without decimal point (e.g., 1E0)
      * - Plain numbers already using dot (e.g., 0.85)
      */
-    private String postProcessConfidence(String content) {
+    String postProcessConfidence(String content) {
         if (content == null || content.isBlank()) return content;
 
         // Match both prefixed and full-IRI forms of the confidence predicate
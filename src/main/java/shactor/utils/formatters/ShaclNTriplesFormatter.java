@@ -0,0 +1,303 @@
+package shactor.utils.formatters;
+
+import cs.qse.common.structure.NS;
+import cs.qse.common.structure.PS;
+import cs.qse.common.structure.ShaclOrListItem;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * SHACL formatter writing N-Triples (one statement per line).
+ *
+ * Emits the same triples as {@link ShaclFormatter} - NodeShapes with sh:targetClass and
+ * sh:property, PropertyShapes with sh:path and their constraints, sh:or lists, and the
+ * qse:support/qse:confidence metrics - without building a Jena model. The shapes are
+ * walked once and every NodeShape is written as soon as it is complete; only the IRIs of
+ * already written PropertyShapes are kept, so shared PropertyShapes are written once.
+ *
+ * sh:or lists use document-scoped blank node labels ({@code _:b0}, {@code _:b1}, ...).
+ * An empty input yields empty output.
+ */
+@Component
+public class ShaclNTriplesFormatter implements ShapeFormatter {
+
+    private static final String RDF = PrefixMap.RDF_NAMESPACE;
+    private static final String SH = PrefixMap.SHACL_NAMESPACE;
+
+    private static final String RDF_TYPE = "<" + RDF + "type>";
+    private static final String RDF_FIRST = "<" + RDF + "first>";
+    private static final String RDF_REST = "<" + RDF + "rest>";
+    private static final String RDF_NIL = "<" + RDF + "nil>";
+    private static final String SH_NODE_SHAPE = "<" + SH + "NodeShape>";
+    private static final String SH_PROPERTY_SHAPE = "<" + SH + "PropertyShape>";
+    private static final String SH_TARGET_CLASS = "<" + SH + "targetClass>";
+    private static final String SH_PROPERTY = "<" + SH + "property>";
+    private static final String SH_PATH = "<" + SH + "path>";
+    private static final String SH_CLASS = "<" + SH + "class>";
+    private static final String SH_DATATYPE = "<" + SH + "datatype>";
+    private static final String SH_NODE_KIND = "<" + SH + "nodeKind>";
+    private static final String SH_IRI = "<" + SH + "IRI>";
+    private static final String SH_LITERAL = "<" + SH + "Literal>";
+    private static final String SH_OR = "<" + SH + "or>";
+    private static final String QSE_SUPPORT = "<" + PrefixMap.QSE_NAMESPACE + "support>";
+    private static final String QSE_CONFIDENCE = "<" + PrefixMap.QSE_NAMESPACE + "confidence>";
+    private static final String XSD_INT = "\"^^<" + PrefixMap.XSD_NAMESPACE + "int>";
+    private static final String XSD_DOUBLE = "\"^^<" + PrefixMap.XSD_NAMESPACE + "double>";
+
+    /**
+     * Per-document state: the line buffer, written PropertyShapes and the blank node counter.
+     */
+    private static final class Document {
+        final StringBuilder out = new StringBuilder(512);
+        final Set<String> writtenPropertyShapes = new HashSet<>();
+        int blankNodes;
+
+        String newBlankNode() {
+            return "_:b" + blankNodes++;
+        }
+    }
+
+    /**
+     * Formats a set of NodeShapes and their PropertyShapes as SHACL N-Triples.
+     *
+     * @param nodeShapes The NodeShapes to format
+     * @return The N-Triples document
+     * @throws IllegalArgumentException if nodeShapes is null
+     */
+    @Override
+    public String formatShapes(Set<NS> nodeShapes) {
+        if (nodeShapes == null) {
+            throw new IllegalArgumentException("NodeShapes cannot be null");
+        }
+        StringWriter out = new StringWriter();
+        try {
+            formatShapes(nodeShapes, out);
+        } catch (IOException e) {
+            // StringWriter never throws; keep the compiler satisfied
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Streams the SHACL N-Triples of the given NodeShapes into a writer.
+     *
+     * @param nodeShapes The NodeShapes to format
+     * @param writer The writer receiving the document (not flushed or closed)
+     * @throws IllegalArgumentException if nodeShapes or writer is null
+     * @throws IOException if writing fails
+     */
+    @Override
+    public void formatShapes(Set<NS> nodeShapes, Writer writer) throws IOException {
+        if (nodeShapes == null) {
+            throw new IllegalArgumentException("NodeShapes cannot be null");
+        }
+        if (writer == null) {
+            throw new IllegalArgumentException("Writer cannot be null");
+        }
+        Document document = new Document();
+        for (NS nodeShape : nodeShapes) {
+            writeNodeShape(document, nodeShape, writer);
+        }
+    }
+
+    private void writeNodeShape(Document document, NS nodeShape, Writer writer) throws IOException {
+        StringBuilder out = document.out;
+        String subject = nodeShape.getIri().toString();
+        List<PS> propertyShapes = nodeShape.getPropertyShapes() != null
+                ? nodeShape.getPropertyShapes() : new ArrayList<>();
+
+        triple(out, subject, RDF_TYPE).append(SH_NODE_SHAPE).append(" .\n");
+        triple(out, subject, SH_TARGET_CLASS);
+        iri(out, nodeShape.getTargetClass().toString()).append(" .\n");
+        for (PS propertyShape : propertyShapes) {
+            triple(out, subject, SH_PROPERTY);
+            iri(out, propertyShape.getIri().toString()).append(" .\n");
+        }
+        flush(out, writer);
+
+        for (PS propertyShape : propertyShapes) {
+            if (document.writtenPropertyShapes.add(propertyShape.getIri().toString())) {
+                writePropertyShape(document, propertyShape);
+                flush(out, writer);
+            }
+        }
+    }
+
+    private void writePropertyShape(Document document, PS propertyShape) {
+        StringBuilder out = document.out;
+        String subject = propertyShape.getIri().toString();
+        triple(out, subject, RDF_TYPE).append(SH_PROPERTY_SHAPE).append(" .\n");
+        triple(out, subject, SH_PATH);
+        iri(out, propertyShape.getPath()).append(" .\n");
+
+        if (Boolean.TRUE.equals(propertyShape.getHasOrList())) {
+            writeOrListConstraints(document, subject, propertyShape);
+        } else {
+            String dataTypeOrClass = propertyShape.getDataTypeOrClass();
+            String nodeKind = propertyShape.getNodeKind();
+            if (isDefined(dataTypeOrClass)) {
+                // For IRI node kind use sh:class, for literals or unspecified node kind sh:datatype
+                triple(out, subject, "IRI".equals(nodeKind) ? SH_CLASS : SH_DATATYPE);
+                iri(out, dataTypeOrClass).append(" .\n");
+            }
+            writeNodeKind(out, subject, nodeKind);
+
+            Integer support = null;
+            Double confidence = null;
+            try { support = propertyShape.getSupport(); } catch (Throwable ignored) { /* ignore missing API methods gracefully */ }
+            try { confidence = propertyShape.getConfidence(); } catch (Throwable ignored) { /* ignore missing API methods gracefully */ }
+            writeMetrics(out, subject, support, confidence);
+        }
+    }
+
+    private void writeOrListConstraints(Document document, String subject, PS propertyShape) {
+        StringBuilder out = document.out;
+        List<ShaclOrListItem> cleanItems = new ArrayList<>();
+        if (propertyShape.getShaclOrListItems() != null) {
+            for (ShaclOrListItem item : propertyShape.getShaclOrListItems()) {
+                if (item != null && isDefined(item.getDataTypeOrClass())) {
+                    cleanItems.add(item);
+                }
+            }
+        }
+
+        if (cleanItems.size() == 1) {
+            // Single option: constraints go directly onto the PropertyShape
+            ShaclOrListItem item = cleanItems.get(0);
+            triple(out, subject, SH_DATATYPE);
+            iri(out, item.getDataTypeOrClass()).append(" .\n");
+            writeNodeKind(out, subject, item.getNodeKind());
+            writeItemMetrics(out, subject, item);
+        } else if (cleanItems.size() > 1) {
+            // Multiple options: sh:or list of blank node constraint objects
+            String list = document.newBlankNode();
+            triple(out, subject, SH_OR).append(list).append(" .\n");
+            for (int i = 0; i < cleanItems.size(); i++) {
+                ShaclOrListItem item = cleanItems.get(i);
+                String member = document.newBlankNode();
+                out.append(list).append(' ').append(RDF_FIRST).append(' ').append(member).append(" .\n");
+                boolean isIri = "IRI".equals(item.getNodeKind());
+                out.append(member).append(' ').append(SH_NODE_KIND).append(' ')
+                        .append(isIri ? SH_IRI : SH_LITERAL).append(" .\n");
+                out.append(member).append(' ').append(isIri ? SH_CLASS : SH_DATATYPE).append(' ');
+                iri(out, item.getDataTypeOrClass()).append(" .\n");
+                writeItemMetrics(out, member, item);
+
+                String rest = i < cleanItems.size() - 1 ? document.newBlankNode() : RDF_NIL;
+                out.append(list).append(' ').append(RDF_REST).append(' ').append(rest).append(" .\n");
+                list = rest;
+            }
+        }
+        // If no clean items, no constraints are added (graceful handling of empty lists)
+    }
+
+    private static void writeItemMetrics(StringBuilder out, String subject, ShaclOrListItem item) {
+        Integer support = null;
+        Double confidence = null;
+        try { support = item.getSupport(); } catch (Throwable ignored) { /* ignore missing API methods gracefully */ }
+        try { confidence = item.getConfidence(); } catch (Throwable ignored) { /* ignore missing API methods gracefully */ }
+        writeMetrics(out, subject, support, confidence);
+    }
+
+    private static void writeMetrics(StringBuilder out, String subject, Integer support, Double confidence) {
+        if (support != null) {
+            triple(out, subject, QSE_SUPPORT).append('"').append(support.intValue()).append(XSD_INT).append(" .\n");
+        }
+        if (confidence != null) {
+            triple(out, subject, QSE_CONFIDENCE).append('"')
+                    .append(ShaclTurtleWriter.doubleLexicalForm(confidence)).append(XSD_DOUBLE).append(" .\n");
+        }
+    }
+
+    private static void writeNodeKind(StringBuilder out, String subject, String nodeKind) {
+        // Legacy QSE values report "NodeKind" where "IRI" is meant
+        String corrected = "NodeKind".equals(nodeKind) ? "IRI" : nodeKind;
+        if ("IRI".equals(corrected)) {
+            triple(out, subject, SH_NODE_KIND).append(SH_IRI).append(" .\n");
+        } else if ("Literal".equals(corrected)) {
+            triple(out, subject, SH_NODE_KIND).append(SH_LITERAL).append(" .\n");
+        }
+    }
+
+    /**
+     * Appends subject (an IRI or blank node label) and predicate, leaving the object to the caller.
+     */
+    private static StringBuilder triple(StringBuilder out, String subject, String predicate) {
+        if (subject.startsWith("_:")) {
+            out.append(subject);
+        } else {
+            iri(out, subject);
+        }
+        return out.append(' ').append(predicate).append(' ');
+    }
+
+    private static StringBuilder iri(StringBuilder out, String iri) {
+        ShaclTurtleWriter.appendIriRef(out, iri);
+        return out;
+    }
+
+    private static void flush(StringBuilder out, Writer writer) throws IOException {
+        writer.append(out);
+        out.setLength(0);
+    }
+
+    private static boolean isDefined(String dataTypeOrClass) {
+        return dataTypeOrClass != null && !dataTypeOrClass.equals("Undefined");
+    }
+
+    /**
+     * Returns the format name for this formatter.
+     *
+     * @return "SHACL-NT" as the format identifier
+     */
+    @Override
+    public String getFormatName() {
+        return "SHACL-NT";
+    }
+
+    /**
+     * Returns the file extension for N-Triples files.
+     *
+     * @return "nt" as the file extension
+     */
+    @Override
+    public String getFileExtension() {
+        return "nt";
+    }
+
+    /**
+     * Validates that the provided NodeShapes can be formatted as SHACL N-Triples.
+     *
+     * @param nodeShapes The set of NodeShapes to validate
+     * @return true if every NodeShape has an IRI and target class and every PropertyShape an IRI and path
+     * @throws IllegalArgumentException if nodeShapes is null
+     */
+    @Override
+    public boolean canFormat(Set<NS> nodeShapes) {
+        if (nodeShapes == null) {
+            throw new IllegalArgumentException("NodeShapes cannot be null");
+        }
+        for (NS nodeShape : nodeShapes) {
+            if (nodeShape.getIri() == null || nodeShape.getTargetClass() == null) {
+                return false;
+            }
+            if (nodeShape.getPropertyShapes() != null) {
+                for (PS propertyShape : nodeShape.getPropertyShapes()) {
+                    if (propertyShape.getIri() == null || propertyShape.getPath() == null) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+}
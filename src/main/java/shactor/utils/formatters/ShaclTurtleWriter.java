@@ -0,0 +1,358 @@
+package shactor.utils.formatters;
+
+import cs.qse.common.structure.NS;
+import cs.qse.common.structure.PS;
+import cs.qse.common.structure.ShaclOrListItem;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Single-pass SHACL Turtle emitter used by {@link ShaclFormatter} in direct mode.
+ *
+ * Instead of building an Apache Jena model, serializing it and repairing the output
+ * with regular expressions, this writer walks the NS/PS/ShaclOrListItem structures
+ * once and writes grouped, prefixed Turtle directly. The emitted triples are the same
+ * as those produced by the Jena-based path:
+ * - one {@code sh:NodeShape} block per NodeShape with sh:targetClass and sh:property links
+ * - one {@code sh:PropertyShape} block per PropertyShape with sh:path and constraints
+ * - sh:or lists of blank nodes for OR-lists with more than one valid item
+ * - qse:support as {@code xsd:int} and qse:confidence as {@code xsd:double} typed literals
+ *
+ * Confidence values are always written with a locale independent lexical form
+ * ({@link Double#toString(double)}), so no post-processing is required.
+ *
+ * Instances are cheap and hold only per-invocation state; create one per call. Large
+ * inputs are rendered per NodeShape on the ForkJoin pool (see {@link ParallelShapeRenderer}).
+ */
+final class ShaclTurtleWriter {
+
+    /**
+     * Built-in SHACL prefixes (qse, sh, xsd) plus those from application.properties.
+     */
+    static final PrefixMap DEFAULT_PREFIXES = PrefixMap.shaclDefaults();
+
+    private static final String INDENT = "  ";
+
+    private final int parallelThreshold;
+    private final PrefixMap prefixes;
+
+    // PropertyShape IRIs already written (a shared PS would otherwise repeat its triples)
+    private final Set<String> writtenPropertyShapes = new HashSet<>();
+
+    /**
+     * Creates a writer that renders sequentially.
+     */
+    ShaclTurtleWriter() {
+        this(ParallelShapeRenderer.SEQUENTIAL);
+    }
+
+    /**
+     * Creates a writer that renders NodeShapes in parallel once the input reaches the threshold.
+     *
+     * @param parallelThreshold Minimum number of NodeShapes for parallel rendering
+     */
+    ShaclTurtleWriter(int parallelThreshold) {
+        this(parallelThreshold, DEFAULT_PREFIXES);
+    }
+
+    /**
+     * Creates a writer with an explicit prefix map. Every binding is declared with
+     * {@code @prefix}; IRIs in bound namespaces are written as CURIEs.
+     *
+     * @param parallelThreshold Minimum number of NodeShapes for parallel rendering
+     * @param prefixes The prefix map of the document
+     */
+    ShaclTurtleWriter(int parallelThreshold, PrefixMap prefixes) {
+        this.parallelThreshold = parallelThreshold;
+        this.prefixes = prefixes;
+    }
+
+    /**
+     * Returns the prefix map this writer declares and compacts with.
+     */
+    PrefixMap prefixes() {
+        return prefixes;
+    }
+
+    /**
+     * Rendered Turtle of one NodeShape: its own block plus one block per PropertyShape.
+     */
+    static final class Fragment {
+        final String nodeShapeBlock;
+        final List<String> propertyShapeIris = new ArrayList<>();
+        final List<String> propertyShapeBlocks = new ArrayList<>();
+
+        Fragment(String nodeShapeBlock) {
+            this.nodeShapeBlock = nodeShapeBlock;
+        }
+    }
+
+    /**
+     * Writes the SHACL Turtle document for the given NodeShapes.
+     *
+     * Each NodeShape (with its PropertyShapes) is rendered into a fragment which is
+     * written as soon as it is available; fragments are always written in input order.
+     * An empty input yields empty output.
+     *
+     * @param nodeShapes The NodeShapes to write
+     * @param writer The target writer (not flushed or closed)
+     * @throws IOException if writing fails
+     */
+    void write(Set<NS> nodeShapes, Writer writer) throws IOException {
+        if (nodeShapes.isEmpty()) {
+            return;
+        }
+        StringBuilder header = new StringBuilder();
+        writePrefixes(header);
+        writer.append(header);
+        ParallelShapeRenderer.render(new ArrayList<>(nodeShapes), parallelThreshold,
+                this::renderNodeShape, fragment -> writeFragment(fragment, writer));
+    }
+
+    /**
+     * Writes a document assembled from fragments previously rendered with this writer's
+     * prefix map (see {@link ShapeFragmentStore}); equivalent to {@link #write(Set, Writer)}
+     * for the same NodeShapes in the same order.
+     *
+     * @param fragments Rendered NodeShapes in document order
+     * @param writer The target writer (not flushed or closed)
+     * @throws IOException if writing fails
+     */
+    void writeFragments(List<Fragment> fragments, Writer writer) throws IOException {
+        if (fragments.isEmpty()) {
+            return;
+        }
+        StringBuilder header = new StringBuilder();
+        writePrefixes(header);
+        writer.append(header);
+        for (Fragment fragment : fragments) {
+            writeFragment(fragment, writer);
+        }
+    }
+
+    /**
+     * Returns the prefix map of one document: the defaults plus, if enabled, the
+     * namespaces detected in the given NodeShapes.
+     */
+    static PrefixMap documentPrefixes(Set<NS> nodeShapes) {
+        return PrefixMap.autoDetectEnabled()
+                ? DEFAULT_PREFIXES.withAutoDetected(nodeShapes)
+                : DEFAULT_PREFIXES;
+    }
+
+    private void writeFragment(Fragment fragment, Writer writer) throws IOException {
+        writer.write(fragment.nodeShapeBlock);
+        for (int i = 0; i < fragment.propertyShapeIris.size(); i++) {
+            if (writtenPropertyShapes.add(fragment.propertyShapeIris.get(i))) {
+                writer.write(fragment.propertyShapeBlocks.get(i));
+            }
+        }
+    }
+
+    private void writePrefixes(StringBuilder out) {
+        for (java.util.Map.Entry<String, String> binding : prefixes.bindings().entrySet()) {
+            out.append("@prefix ").append(binding.getKey()).append(": <").append(binding.getValue()).append("> .\n");
+        }
+    }
+
+    /**
+     * Renders one NodeShape and its PropertyShapes. Only touches fragment-local state
+     * (the prefix map is read-only), so it is safe to call concurrently for different NodeShapes.
+     */
+    Fragment renderNodeShape(NS nodeShape) {
+        List<PS> propertyShapes = nodeShape.getPropertyShapes() != null
+                ? nodeShape.getPropertyShapes() : new ArrayList<>();
+
+        StringBuilder out = new StringBuilder(256);
+        out.append('\n');
+        appendIri(out, prefixes, nodeShape.getIri().toString());
+        out.append(" a sh:NodeShape ;\n");
+        out.append(INDENT).append("sh:targetClass ");
+        appendIri(out, prefixes, nodeShape.getTargetClass().toString());
+
+        if (!propertyShapes.isEmpty()) {
+            out.append(" ;\n").append(INDENT).append("sh:property ");
+            boolean first = true;
+            for (PS propertyShape : propertyShapes) {
+                if (!first) {
+                    out.append(",\n").append(INDENT).append(INDENT);
+                }
+                appendIri(out, prefixes, propertyShape.getIri().toString());
+                first = false;
+            }
+        }
+        out.append(" .\n");
+
+        Fragment fragment = new Fragment(out.toString());
+        for (PS propertyShape : propertyShapes) {
+            out.setLength(0);
+            writePropertyShape(out, propertyShape);
+            fragment.propertyShapeIris.add(propertyShape.getIri().toString());
+            fragment.propertyShapeBlocks.add(out.toString());
+        }
+        return fragment;
+    }
+
+    private void writePropertyShape(StringBuilder out, PS propertyShape) {
+        out.append('\n');
+        appendIri(out, prefixes, propertyShape.getIri().toString());
+        out.append(" a sh:PropertyShape ;\n");
+        out.append(INDENT).append("sh:path ");
+        appendIri(out, prefixes, propertyShape.getPath());
+
+        if (Boolean.TRUE.equals(propertyShape.getHasOrList())) {
+            writeOrListConstraints(out, propertyShape);
+        } else {
+            writeSimpleConstraints(out, propertyShape);
+        }
+        out.append(" .\n");
+    }
+
+    private void writeSimpleConstraints(StringBuilder out, PS propertyShape) {
+        String dataTypeOrClass = propertyShape.getDataTypeOrClass();
+        String nodeKind = propertyShape.getNodeKind();
+
+        if (isDefined(dataTypeOrClass)) {
+            // For IRI node kind use sh:class, for literals or unspecified node kind sh:datatype
+            predicate(out, "IRI".equals(nodeKind) ? "sh:class" : "sh:datatype");
+            appendIri(out, prefixes, dataTypeOrClass);
+        }
+        writeNodeKind(out, nodeKind);
+
+        Integer support = null;
+        Double confidence = null;
+        try { support = propertyShape.getSupport(); } catch (Throwable ignored) { /* ignore missing API methods gracefully */ }
+        try { confidence = propertyShape.getConfidence(); } catch (Throwable ignored) { /* ignore missing API methods gracefully */ }
+        writeMetrics(out, support, confidence, "");
+    }
+
+    private void writeOrListConstraints(StringBuilder out, PS propertyShape) {
+        List<ShaclOrListItem> cleanItems = new ArrayList<>();
+        if (propertyShape.getShaclOrListItems() != null) {
+            for (ShaclOrListItem item : propertyShape.getShaclOrListItems()) {
+                if (item != null && isDefined(item.getDataTypeOrClass())) {
+                    cleanItems.add(item);
+                }
+            }
+        }
+
+        if (cleanItems.size() == 1) {
+            // Single option: constraints go directly onto the PropertyShape
+            ShaclOrListItem item = cleanItems.get(0);
+            predicate(out, "sh:datatype");
+            appendIri(out, prefixes, item.getDataTypeOrClass());
+            writeNodeKind(out, item.getNodeKind());
+            writeItemMetrics(out, item, "");
+        } else if (cleanItems.size() > 1) {
+            // Multiple options: sh:or list of blank node constraint objects
+            predicate(out, "sh:or");
+            out.append('(');
+            String inner = INDENT + INDENT + INDENT;
+            for (ShaclOrListItem item : cleanItems) {
+                out.append(" [\n").append(inner);
+                if ("IRI".equals(item.getNodeKind())) {
+                    out.append("sh:nodeKind sh:IRI ;\n").append(inner).append("sh:class ");
+                } else {
+                    out.append("sh:nodeKind sh:Literal ;\n").append(inner).append("sh:datatype ");
+                }
+                appendIri(out, prefixes, item.getDataTypeOrClass());
+                writeItemMetrics(out, item, inner.substring(INDENT.length()));
+                out.append('\n').append(INDENT).append(INDENT).append(']');
+            }
+            out.append(" )");
+        }
+        // If no clean items, no constraints are added (graceful handling of empty lists)
+    }
+
+    private static void writeItemMetrics(StringBuilder out, ShaclOrListItem item, String extraIndent) {
+        Integer support = null;
+        Double confidence = null;
+        try { support = item.getSupport(); } catch (Throwable ignored) { /* ignore missing API methods gracefully */ }
+        try { confidence = item.getConfidence(); } catch (Throwable ignored) { /* ignore missing API methods gracefully */ }
+        writeMetrics(out, support, confidence, extraIndent);
+    }
+
+    private static void writeMetrics(StringBuilder out, Integer support, Double confidence, String extraIndent) {
+        if (support != null) {
+            out.append(" ;\n").append(extraIndent).append(INDENT).append("qse:support \"")
+                    .append(support.intValue()).append("\"^^xsd:int");
+        }
+        if (confidence != null) {
+            out.append(" ;\n").append(extraIndent).append(INDENT).append("qse:confidence \"")
+                    .append(doubleLexicalForm(confidence)).append("\"^^xsd:double");
+        }
+    }
+
+    private static void writeNodeKind(StringBuilder out, String nodeKind) {
+        // Legacy QSE values report "NodeKind" where "IRI" is meant
+        String corrected = "NodeKind".equals(nodeKind) ? "IRI" : nodeKind;
+        if ("IRI".equals(corrected)) {
+            predicate(out, "sh:nodeKind");
+            out.append("sh:IRI");
+        } else if ("Literal".equals(corrected)) {
+            predicate(out, "sh:nodeKind");
+            out.append("sh:Literal");
+        }
+    }
+
+    private static void predicate(StringBuilder out, String curie) {
+        out.append(" ;\n").append(INDENT).append(curie).append(' ');
+    }
+
+    private static boolean isDefined(String dataTypeOrClass) {
+        return dataTypeOrClass != null && !dataTypeOrClass.equals("Undefined");
+    }
+
+    /**
+     * Returns the canonical-style xsd:double lexical form of a value (dot decimal
+     * separator, INF/-INF/NaN for special values), independent of the default locale.
+     */
+    static String doubleLexicalForm(double value) {
+        if (Double.isNaN(value)) return "NaN";
+        if (Double.isInfinite(value)) return value > 0 ? "INF" : "-INF";
+        return Double.toString(value);
+    }
+
+    /**
+     * Appends an IRI using the default prefixes, see {@link #appendIri(StringBuilder, PrefixMap, String)}.
+     */
+    static void appendIri(StringBuilder out, String iri) {
+        appendIri(out, DEFAULT_PREFIXES, iri);
+    }
+
+    /**
+     * Appends an IRI either as a CURIE (for bound namespaces when the local name is a
+     * safe Turtle local name) or as an escaped {@code <IRI>} reference.
+     */
+    static void appendIri(StringBuilder out, PrefixMap prefixes, String iri) {
+        String curie = prefixes.compact(iri);
+        if (curie != null) {
+            out.append(curie);
+            return;
+        }
+        appendIriRef(out, iri);
+    }
+
+    /**
+     * Appends an IRI as an {@code <IRI>} reference, escaping characters that are not
+     * allowed in IRIREFs (shared by Turtle and N-Triples).
+     */
+    static void appendIriRef(StringBuilder out, String iri) {
+        out.append('<');
+        for (int i = 0; i < iri.length(); i++) {
+            char c = iri.charAt(i);
+            if (c <= 0x20 || c == '<' || c == '>' || c == '"' || c == '{' || c == '}'
+                    || c == '|' || c == '^' || c == '`' || c == '\\') {
+                out.append(String.format("\\u%04X", (int) c));
+            } else {
+                out.append(c);
+            }
+        }
+        out.append('>');
+    }
+}
@@ -1,6 +1,9 @@
 package shactor.utils.formatters;
 
 import cs.qse.common.structure.NS;
+
+import java.io.IOException;
+import java.io.Writer;
 import java.util.Set;
 
 /**
@@ -44,6 +47,33 @@ public interface ShapeFormatter {
      * @throws RuntimeException if formatting fails due to internal errors
      */
     String formatShapes(Set<NS> nodeShapes);
+
+    /**
+     * Formats a set of NodeShapes and writes the result directly into the given writer.
+     * 
+     * This is the streaming counterpart of {@link #formatShapes(Set)}. It is intended
+     * for large downloads where holding the complete document as a String (and again
+     * as a byte array) would multiply the heap footprint of the export.
+     * 
+     * The default implementation simply writes the result of {@link #formatShapes(Set)},
+     * so existing implementations keep working unchanged. Implementations that can emit
+     * their output incrementally should override this method so that peak memory is
+     * bounded by a single shape fragment instead of the whole document.
+     * 
+     * The writer is neither flushed nor closed by this method; this remains the
+     * responsibility of the caller.
+     * 
+     * @param nodeShapes A set of NodeShape objects containing the shapes to format
+     * @param writer The writer that receives the formatted output
+     * @throws IllegalArgumentException if nodeShapes or writer is null
+     * @throws IOException if writing to the underlying writer fails
+     */
+    default void formatShapes(Set<NS> nodeShapes, Writer writer) throws IOException {
+        if (writer == null) {
+            throw new IllegalArgumentException("Writer cannot be null");
+        }
+        writer.write(formatShapes(nodeShapes));
+    }
     
     /**
      * Returns the format name supported by this formatter.
@@ -4,14 +4,15 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
  * Factory class for creating and managing ShapeFormatter implementations.
  * 
  * This factory provides a centralized way to obtain ShapeFormatter instances
- * based on format names. It supports both SHACL and ShEx formatters and can
- * be easily extended to support additional shape expression formats in the future.
+ * based on format names. It supports SHACL (Turtle and N-Triples) and ShEx
+ * (ShExC and ShExJ) formatters and can be easily extended to support additional shape expression formats in the future.
  * 
  * The factory uses Spring's dependency injection to automatically discover
  * and register all available ShapeFormatter implementations, making it
@@ -46,13 +47,29 @@ public class ShapeFormatterFactory {
      * Constructor that initializes the factory with available formatters.
      * 
      * Spring automatically injects all ShapeFormatter implementations
-     * and this constructor registers them by their format names for
-     * easy lookup and retrieval.
+     * (SHACL, ShEx, ShExJ, SHACL N-Triples, ...) and this constructor registers
+     * them by their format names for easy lookup and retrieval.
+     * 
+     * @param formatters The formatter implementations to register
+     * @throws IllegalArgumentException if the list or one of its formatters is null
+     */
+    @Autowired
+    public ShapeFormatterFactory(List<ShapeFormatter> formatters) {
+        if (formatters == null) {
+            throw new IllegalArgumentException("Formatters cannot be null");
+        }
+        this.formatters = new HashMap<>();
+        for (ShapeFormatter formatter : formatters) {
+            registerFormatter(formatter);
+        }
+    }
+
+    /**
+     * Creates a factory with only the SHACL and ShEx formatters.
      * 
      * @param shaclFormatter The SHACL formatter implementation
      * @param shexFormatter The ShEx formatter implementation
      */
-    @Autowired
     public ShapeFormatterFactory(ShaclFormatter shaclFormatter, ShExFormatter shexFormatter) {
         this.formatters = new HashMap<>();
         
@@ -96,6 +113,8 @@ public class ShapeFormatterFactory {
      * Supported formats:
      * - "SHACL" - Returns ShaclFormatter for SHACL Turtle output
      * - "ShEx" - Returns ShExFormatter for ShEx syntax output
+     * - "ShExJ" - Returns ShExJFormatter for ShExJ (JSON) output
+     * - "SHACL-NT" - Returns ShaclNTriplesFormatter for SHACL N-Triples output
      * 
      * @param formatName The name of the desired format (case-insensitive)
      * @return The ShapeFormatter implementation for the specified format
@@ -206,4 +225,31 @@ public class ShapeFormatterFactory {
         ShapeFormatter formatter = getFormatter(formatName);
         return formatter.formatShapes(nodeShapes);
     }
-}
\ No newline at end of file
+
+    /**
+     * Streams shapes in the specified format into the given writer.
+     * 
+     * Streaming counterpart of {@link #formatShapes(java.util.Set, String)}; the
+     * output is written incrementally instead of being returned as a String.
+     * 
+     * @param nodeShapes The set of NodeShapes to format
+     * @param formatName The desired output format
+     * @param writer The writer receiving the formatted output (not closed)
+     * @throws IllegalArgumentException if parameters are invalid or format is unsupported
+     * @throws java.io.IOException if writing to the writer fails
+     */
+    public void formatShapes(java.util.Set<cs.qse.common.structure.NS> nodeShapes, String formatName,
+                             java.io.Writer writer) throws java.io.IOException {
+        // Validate input parameters
+        if (nodeShapes == null) {
+            throw new IllegalArgumentException("NodeShapes cannot be null");
+        }
+        if (writer == null) {
+            throw new IllegalArgumentException("Writer cannot be null");
+        }
+
+        // Get the appropriate formatter and stream the shapes
+        ShapeFormatter formatter = getFormatter(formatName);
+        formatter.formatShapes(nodeShapes, writer);
+    }
+}
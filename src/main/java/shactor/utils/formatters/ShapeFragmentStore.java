@@ -0,0 +1,274 @@
+package shactor.utils.formatters;
+
+import cs.qse.common.structure.NS;
+import cs.qse.common.structure.PS;
+import shactor.config.ConfigurationManager;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Per-NodeShape fragment cache for re-formatting pruned variants of one shape set.
+ *
+ * While tuning support/confidence thresholds, each pruning run produces a new list of
+ * NodeShapes that differ from the previous run only in a few kept PropertyShapes. This
+ * store keeps the rendered text of every NodeShape per format, together with the
+ * PropertyShapes it was rendered from. On the next download only NodeShapes whose kept
+ * PropertyShapes changed are rendered again; the document is assembled from the cached
+ * fragments.
+ *
+ * The prefix map of each format is fixed from the base (unpruned) shape set when the
+ * store is created, so every fragment stays valid for any subset of it. Pruned documents
+ * may therefore declare prefixes that they no longer use.
+ *
+ * Extractors rebuild their NS/PS objects on every run, so the store identifies its base
+ * set by a structural fingerprint (see {@link #isFor(Collection)}) and matches kept
+ * PropertyShapes by IRI rather than by reference.
+ *
+ * Supports ShEx and SHACL in {@link ShaclFormatter.Mode#DIRECT} mode; callers fall back
+ * to the regular formatters for other formats (see {@link #supports(String)}).
+ * Writes are serialized per store instance.
+ */
+public final class ShapeFragmentStore {
+
+    private static final String SHACL = "shacl";
+    private static final String SHEX = "shex";
+
+    private final ShaclFormatter.Mode shaclMode;
+    private final ShExFormatter shexFormatter;
+    private final PrefixMap shexPrefixes;
+    private final int baseCount;
+    private final long baseHash1;
+    private final long baseHash2;
+    private final ShaclTurtleWriter shaclRenderer;
+
+    // format -> NodeShape key -> last rendered fragment
+    private final Map<String, Map<Key, Entry>> fragments = new HashMap<>();
+
+    private long rendered;
+    private long reused;
+
+    /**
+     * Fragment key of a NodeShape: its IRI and target class, without building a combined string.
+     */
+    private static final class Key {
+        final String iri;
+        final String targetClass;
+
+        Key(NS ns) {
+            this.iri = String.valueOf(ns.getIri());
+            this.targetClass = String.valueOf(ns.getTargetClass());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return iri.equals(other.iri) && targetClass.equals(other.targetClass);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * iri.hashCode() + targetClass.hashCode();
+        }
+    }
+
+    private static final class Entry {
+        final List<PS> propertyShapes;
+        final Object fragment;
+
+        Entry(List<PS> propertyShapes, Object fragment) {
+            this.propertyShapes = propertyShapes;
+            this.fragment = fragment;
+        }
+    }
+
+    /**
+     * Creates a store for subsets of the given shapes, using the configured SHACL writer mode.
+     *
+     * @param baseShapes The complete (unpruned) shape set
+     * @throws IllegalArgumentException if baseShapes is null
+     */
+    public ShapeFragmentStore(Collection<NS> baseShapes) {
+        this(baseShapes, ShaclFormatter.Mode.fromName(ConfigurationManager.getInstance()
+                .getProperty(ShaclFormatter.WRITER_MODE_PROPERTY, "direct")));
+    }
+
+    /**
+     * Creates a store for subsets of the given shapes, using the configured ShEx deduplication setting.
+     *
+     * @param baseShapes The complete (unpruned) shape set
+     * @param shaclMode The SHACL writer mode; fragments are only used for {@link ShaclFormatter.Mode#DIRECT}
+     * @throws IllegalArgumentException if baseShapes or shaclMode is null
+     */
+    public ShapeFragmentStore(Collection<NS> baseShapes, ShaclFormatter.Mode shaclMode) {
+        this(baseShapes, shaclMode, ShExFormatter.configuredDeduplicate());
+    }
+
+    /**
+     * Creates a store for subsets of the given shapes.
+     *
+     * @param baseShapes The complete (unpruned) shape set
+     * @param shaclMode The SHACL writer mode; fragments are only used for {@link ShaclFormatter.Mode#DIRECT}
+     * @param shexDeduplicate Whether ShEx fragments share OR-list value expressions (see {@link ShExFormatter#ShExFormatter(int, boolean)})
+     * @throws IllegalArgumentException if baseShapes or shaclMode is null
+     */
+    public ShapeFragmentStore(Collection<NS> baseShapes, ShaclFormatter.Mode shaclMode, boolean shexDeduplicate) {
+        if (baseShapes == null) {
+            throw new IllegalArgumentException("NodeShapes cannot be null");
+        }
+        if (shaclMode == null) {
+            throw new IllegalArgumentException("Mode cannot be null");
+        }
+        Set<NS> base = new LinkedHashSet<>(baseShapes);
+        FormattedOutputCache.Fingerprint fingerprint = fingerprint(baseShapes);
+        this.baseCount = baseShapes.size();
+        this.baseHash1 = fingerprint.h1;
+        this.baseHash2 = fingerprint.h2;
+        this.shaclMode = shaclMode;
+        this.shexFormatter = new ShExFormatter(ParallelShapeRenderer.SEQUENTIAL, shexDeduplicate);
+        this.shexPrefixes = ShExFormatter.documentPrefixes(base);
+        this.shaclRenderer = new ShaclTurtleWriter(ParallelShapeRenderer.SEQUENTIAL, ShaclTurtleWriter.documentPrefixes(base));
+    }
+
+    /**
+     * Returns whether the store was created for shapes structurally equal to the given ones
+     * (same IRIs, constraints, support and confidence, in the same order), e.g. the result of
+     * re-running the same extraction.
+     */
+    public boolean isFor(Collection<NS> baseShapes) {
+        if (baseShapes == null || baseShapes.size() != baseCount) {
+            return false;
+        }
+        FormattedOutputCache.Fingerprint fingerprint = fingerprint(baseShapes);
+        return fingerprint.h1 == baseHash1 && fingerprint.h2 == baseHash2;
+    }
+
+    private static FormattedOutputCache.Fingerprint fingerprint(Collection<NS> nodeShapes) {
+        FormattedOutputCache.Fingerprint fingerprint = new FormattedOutputCache.Fingerprint();
+        for (NS ns : nodeShapes) {
+            fingerprint.add(ns);
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Returns whether documents in the given format can be assembled from fragments.
+     */
+    public boolean supports(String formatName) {
+        String format = normalize(formatName);
+        return SHEX.equals(format) || (SHACL.equals(format) && shaclMode == ShaclFormatter.Mode.DIRECT);
+    }
+
+    /**
+     * Writes the document for the given NodeShapes (a subset of the base set, in the given order).
+     *
+     * @param nodeShapes The NodeShapes to write
+     * @param formatName "SHACL" or "ShEx" (case-insensitive)
+     * @param writer The writer receiving the document (not flushed or closed)
+     * @throws IllegalArgumentException if an argument is null or the format is not supported
+     * @throws IOException if writing fails
+     */
+    public synchronized void write(Collection<NS> nodeShapes, String formatName, Writer writer) throws IOException {
+        if (nodeShapes == null) {
+            throw new IllegalArgumentException("NodeShapes cannot be null");
+        }
+        if (writer == null) {
+            throw new IllegalArgumentException("Writer cannot be null");
+        }
+        if (!supports(formatName)) {
+            throw new IllegalArgumentException("Unsupported format for fragment rendering: " + formatName);
+        }
+        String format = normalize(formatName);
+        Map<Key, Entry> cache = fragments.computeIfAbsent(format, f -> new HashMap<>());
+
+        List<Object> document = new ArrayList<>(nodeShapes.size());
+        for (NS ns : nodeShapes) {
+            Key key = new Key(ns);
+            Entry entry = cache.get(key);
+            if (entry != null && sameElements(entry.propertyShapes, ns.getPropertyShapes())) {
+                reused++;
+            } else {
+                Object fragment = SHEX.equals(format)
+                        ? shexFormatter.renderFragment(ns, shexPrefixes)
+                        : shaclRenderer.renderNodeShape(ns);
+                List<PS> propertyShapes = ns.getPropertyShapes() != null
+                        ? new ArrayList<>(ns.getPropertyShapes()) : new ArrayList<>();
+                entry = new Entry(propertyShapes, fragment);
+                cache.put(key, entry);
+                rendered++;
+            }
+            document.add(entry.fragment);
+        }
+
+        if (SHEX.equals(format)) {
+            List<ShExFormatter.Fragment> shexFragments = new ArrayList<>(document.size());
+            for (Object fragment : document) shexFragments.add((ShExFormatter.Fragment) fragment);
+            shexFormatter.writeFragments(shexFragments, shexPrefixes, writer);
+        } else {
+            List<ShaclTurtleWriter.Fragment> shaclFragments = new ArrayList<>(document.size());
+            for (Object fragment : document) shaclFragments.add((ShaclTurtleWriter.Fragment) fragment);
+            // A fresh writer per document: PropertyShape de-duplication is per document
+            new ShaclTurtleWriter(ParallelShapeRenderer.SEQUENTIAL, shaclRenderer.prefixes()).writeFragments(shaclFragments, writer);
+        }
+    }
+
+    /**
+     * Returns the document for the given NodeShapes as a string, see {@link #write(Collection, String, Writer)}.
+     */
+    public String format(Collection<NS> nodeShapes, String formatName) {
+        StringWriter out = new StringWriter();
+        try {
+            write(nodeShapes, formatName, out);
+        } catch (IOException e) {
+            // StringWriter never throws; keep the compiler satisfied
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Number of NodeShape fragments rendered so far.
+     */
+    public synchronized long getRenderedCount() {
+        return rendered;
+    }
+
+    /**
+     * Number of NodeShape fragments served from the store so far.
+     */
+    public synchronized long getReusedCount() {
+        return reused;
+    }
+
+    private static boolean sameElements(List<PS> cached, List<PS> current) {
+        // Within one base set a PropertyShape IRI identifies its constraints, also across re-extractions
+        int size = current != null ? current.size() : 0;
+        if (cached.size() != size) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            PS before = cached.get(i);
+            PS now = current.get(i);
+            if (before == now) continue;
+            if (before == null || now == null || before.getIri() == null || !before.getIri().equals(now.getIri())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String normalize(String formatName) {
+        return formatName == null ? "" : formatName.trim().toLowerCase(java.util.Locale.ROOT);
+    }
+}
@@ -0,0 +1,246 @@
+package shactor.utils.nodeshapes;
+
+import cs.qse.common.structure.NS;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import shactor.config.ConfigurationManager;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Background writer for the NodeShapes snapshot file.
+ *
+ * Formatting code submits the shapes it is about to format and returns immediately;
+ * a single daemon thread writes the snapshot once no new submission arrived for the
+ * debounce interval. Only the most recent submission is written - superseded ones are
+ * dropped - and the file is replaced atomically (see {@link NodeShapesSnapshotIO#save}),
+ * so readers never observe a partially written snapshot. The shared writer writes a
+ * pending submission before the JVM exits.
+ *
+ * Configuration (application.properties):
+ * - {@value #ENABLED_PROPERTY}: set to false to disable snapshots entirely (e.g. in production)
+ * - {@value #DEBOUNCE_PROPERTY}: quiet period in milliseconds before writing
+ */
+public final class AsyncSnapshotWriter {
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncSnapshotWriter.class);
+
+    public static final String ENABLED_PROPERTY = "shactor.snapshot.enabled";
+    public static final String DEBOUNCE_PROPERTY = "shactor.snapshot.debounceMs";
+
+    static final long DEFAULT_DEBOUNCE_MILLIS = 500;
+    static final long SHUTDOWN_TIMEOUT_MILLIS = 10_000;
+
+    private static volatile AsyncSnapshotWriter shared;
+
+    private final Path file;
+    private final long debounceMillis;
+    private final boolean enabled;
+
+    private final AtomicReference<List<NS>> pending = new AtomicReference<>();
+    private final AtomicLong lastSubmitNanos = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final ScheduledThreadPoolExecutor executor;
+    private boolean scheduled; // guarded by this
+
+    /**
+     * Creates a writer for the given snapshot file.
+     *
+     * @param file Target snapshot file
+     * @param debounceMillis Quiet period before a submission is written (0 writes as soon as possible)
+     * @param enabled Whether submissions are written at all
+     * @throws IllegalArgumentException if debounceMillis is negative
+     */
+    public AsyncSnapshotWriter(Path file, long debounceMillis, boolean enabled) {
+        Objects.requireNonNull(file, "file");
+        if (debounceMillis < 0) {
+            throw new IllegalArgumentException("Debounce interval cannot be negative");
+        }
+        this.file = file;
+        this.debounceMillis = debounceMillis;
+        this.enabled = enabled;
+        if (enabled) {
+            this.executor = new ScheduledThreadPoolExecutor(1, r -> {
+                Thread t = new Thread(r, "node-shapes-snapshot-writer");
+                t.setDaemon(true);
+                return t;
+            });
+            // shutdown() writes the pending submission itself; do not wait for debounce timers
+            this.executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        } else {
+            this.executor = null;
+        }
+    }
+
+    /**
+     * Returns the application-wide writer for {@link NodeShapesSnapshotIO#DEFAULT_SNAPSHOT},
+     * configured from application.properties. A JVM shutdown hook writes its pending submission.
+     */
+    public static AsyncSnapshotWriter shared() {
+        AsyncSnapshotWriter writer = shared;
+        if (writer == null) {
+            synchronized (AsyncSnapshotWriter.class) {
+                writer = shared;
+                if (writer == null) {
+                    ConfigurationManager config = ConfigurationManager.getInstance();
+                    boolean enabled = Boolean.parseBoolean(config.getProperty(ENABLED_PROPERTY, "true").trim());
+                    long debounce = DEFAULT_DEBOUNCE_MILLIS;
+                    try {
+                        debounce = Math.max(0L, Long.parseLong(config.getProperty(DEBOUNCE_PROPERTY,
+                                String.valueOf(DEFAULT_DEBOUNCE_MILLIS)).trim()));
+                    } catch (RuntimeException ignored) {
+                        // keep default
+                    }
+                    writer = new AsyncSnapshotWriter(NodeShapesSnapshotIO.DEFAULT_SNAPSHOT, debounce, enabled);
+                    if (enabled) {
+                        AsyncSnapshotWriter hooked = writer;
+                        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                            try {
+                                hooked.shutdown(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                        }, "node-shapes-snapshot-shutdown"));
+                    }
+                    shared = writer;
+                }
+            }
+        }
+        return writer;
+    }
+
+    /**
+     * Schedules the given shapes to be written. Never blocks on I/O; a submission that is
+     * superseded before it was written is dropped.
+     *
+     * @param nodeShapes The shapes to persist (copied, so later changes to the set are not seen)
+     */
+    public void submit(Set<NS> nodeShapes) {
+        if (!enabled || nodeShapes == null) {
+            return;
+        }
+        lastSubmitNanos.set(System.nanoTime());
+        if (pending.getAndSet(new ArrayList<>(nodeShapes)) != null) {
+            dropped.incrementAndGet();
+        }
+        synchronized (this) {
+            if (!scheduled && !executor.isShutdown()) {
+                try {
+                    executor.schedule(this::drain, debounceMillis, TimeUnit.MILLISECONDS);
+                    scheduled = true;
+                } catch (RejectedExecutionException ignored) {
+                    // shut down concurrently; submissions are no longer written
+                }
+            }
+        }
+    }
+
+    private void drain() {
+        // Debounce: wait until no submission arrived for the configured interval
+        long quietNanos = System.nanoTime() - lastSubmitNanos.get();
+        long remainingMillis = debounceMillis - TimeUnit.NANOSECONDS.toMillis(quietNanos);
+        if (remainingMillis > 0 && !executor.isShutdown()) {
+            executor.schedule(this::drain, remainingMillis, TimeUnit.MILLISECONDS);
+            return;
+        }
+        synchronized (this) {
+            scheduled = false;
+        }
+        writePending();
+    }
+
+    private void writePending() {
+        List<NS> latest = pending.getAndSet(null);
+        if (latest == null) {
+            return;
+        }
+        try {
+            NodeShapesSnapshotIO.save(latest, file);
+            written.incrementAndGet();
+        } catch (RuntimeException e) {
+            LOG.error("[AsyncSnapshotWriter] Failed to write snapshot {}: {}", file.toAbsolutePath(), e.toString(), e);
+        }
+    }
+
+    /**
+     * Writes a pending submission immediately and waits for it (for tests and shutdown).
+     *
+     * @param timeout Maximum time to wait
+     * @param unit Unit of the timeout
+     * @return true if nothing is pending anymore; false if the wait timed out or the writer
+     *         is shut down
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean flush(long timeout, TimeUnit unit) throws InterruptedException {
+        if (!enabled) {
+            return true;
+        }
+        CountDownLatch done = new CountDownLatch(1);
+        try {
+            executor.execute(() -> {
+                writePending();
+                done.countDown();
+            });
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+        return done.await(timeout, unit) && pending.get() == null;
+    }
+
+    /**
+     * Stops the background thread after writing a pending submission. Calling it more than
+     * once has no effect.
+     */
+    public void shutdown() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            executor.execute(this::writePending);
+        } catch (RejectedExecutionException ignored) {
+            // already shut down
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * Stops the background thread and waits until a pending submission is written.
+     *
+     * @param timeout Maximum time to wait
+     * @param unit Unit of the timeout
+     * @return true if the writer stopped in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        shutdown();
+        return !enabled || executor.awaitTermination(timeout, unit);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Number of snapshots written so far.
+     */
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    /**
+     * Number of submissions superseded before they were written.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+}
@@ -0,0 +1,450 @@
+package shactor.utils.nodeshapes;
+
+import cs.qse.common.structure.NS;
+import shactor.utils.nodeshapes.NodeShapesSnapshotIO.SnapshotNS;
+import shactor.utils.nodeshapes.NodeShapesSnapshotIO.SnapshotOrItem;
+import shactor.utils.nodeshapes.NodeShapesSnapshotIO.SnapshotPS;
+import shactor.utils.qse.InternPool;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Binary snapshot format used for files ending in {@value NodeShapesSnapshotIO#BINARY_EXTENSION}.
+ *
+ * Layout (big-endian):
+ *   header      int magic "NSB1", int version
+ *   dictionary  int count, then per string: int byte length, UTF-8 bytes
+ *   nodes       int count, then per NodeShape: int byte length, NS record
+ *   index       int count, then per NodeShape: int IRI id, int target class id, long record offset (version 2)
+ *   trailer     long index offset (version 2), int CRC32C of all preceding bytes
+ *
+ * All IRIs, paths, datatypes and node kinds are stored once in the dictionary and referenced by
+ * their index (-1 for null). NS, PS and OR-item records are length-prefixed so readers can skip
+ * them and newer versions can append fields. Optional numbers are guarded by a flags byte.
+ *
+ * The index lets {@link NodeShapesSnapshotView} locate single NodeShapes without reading the
+ * records in between. Version 1 files have no index; it is rebuilt by skipping over the records.
+ */
+final class NodeShapesBinaryCodec {
+
+    static final int MAGIC = 0x4E534231; // "NSB1"
+    static final int VERSION = 2;
+    static final int MIN_VERSION = 1;
+
+    private static final int HEADER_BYTES = 12; // magic, version, dictionary count
+    private static final int INDEX_ENTRY_BYTES = 16;
+
+    private static final int HAS_SUPPORT = 1;
+    private static final int HAS_CONFIDENCE = 2;
+    private static final int HAS_OR_FLAG = 4;
+    private static final int OR_FLAG_VALUE = 8;
+
+    private NodeShapesBinaryCodec() {}
+
+    // ===================== Writing =====================
+
+    /**
+     * Writes the snapshot to the given stream. NodeShapes are mapped twice (once to build the
+     * dictionary, once to write records) so only one record is held in memory at a time.
+     *
+     * @return The number of node shapes and property shapes written
+     */
+    static int[] write(Collection<NS> nodeShapes, OutputStream target) throws IOException {
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> dictionary = new ArrayList<>();
+        int nodes = 0;
+        if (nodeShapes != null) {
+            for (NS ns : nodeShapes) {
+                if (ns == null) continue;
+                collectStrings(NodeShapesSnapshotIO.toSnapshotNS(ns), ids, dictionary);
+                nodes++;
+            }
+        }
+
+        CheckedOutputStream checked = new CheckedOutputStream(target, new CRC32C());
+        DataOutputStream out = new DataOutputStream(checked);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(dictionary.size());
+        long position = HEADER_BYTES;
+        for (String s : dictionary) {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+            position += 4 + bytes.length;
+        }
+
+        out.writeInt(nodes);
+        position += 4;
+        int[] iriIds = new int[nodes];
+        int[] targetClassIds = new int[nodes];
+        long[] offsets = new long[nodes];
+        int node = 0;
+        int propertyShapes = 0;
+        RecordBuffer nsRecord = new RecordBuffer();
+        RecordBuffer psRecord = new RecordBuffer();
+        RecordBuffer orRecord = new RecordBuffer();
+        if (nodeShapes != null) {
+            for (NS ns : nodeShapes) {
+                if (ns == null) continue;
+                SnapshotNS x = NodeShapesSnapshotIO.toSnapshotNS(ns);
+                writeNS(x, ids, nsRecord, psRecord, orRecord);
+                iriIds[node] = id(x.iri, ids);
+                targetClassIds[node] = id(x.targetClass, ids);
+                offsets[node++] = position;
+                position += 4 + nsRecord.bytes.size();
+                nsRecord.writeTo(out);
+                if (x.propertyShapes != null) propertyShapes += x.propertyShapes.size();
+            }
+        }
+
+        long indexOffset = position;
+        out.writeInt(nodes);
+        for (int i = 0; i < nodes; i++) {
+            out.writeInt(iriIds[i]);
+            out.writeInt(targetClassIds[i]);
+            out.writeLong(offsets[i]);
+        }
+        out.writeLong(indexOffset);
+        out.flush();
+        int checksum = (int) checked.getChecksum().getValue();
+        out.writeInt(checksum);
+        out.flush();
+        return new int[]{nodes, propertyShapes};
+    }
+
+    private static void collectStrings(SnapshotNS x, Map<String, Integer> ids, List<String> dictionary) {
+        intern(x.iri, ids, dictionary);
+        intern(x.targetClass, ids, dictionary);
+        if (x.propertyShapes == null) return;
+        for (SnapshotPS p : x.propertyShapes) {
+            intern(p.iri, ids, dictionary);
+            intern(p.path, ids, dictionary);
+            intern(p.dataTypeOrClass, ids, dictionary);
+            intern(p.nodeKind, ids, dictionary);
+            if (p.orItems == null) continue;
+            for (SnapshotOrItem o : p.orItems) {
+                intern(o.dataTypeOrClass, ids, dictionary);
+                intern(o.nodeKind, ids, dictionary);
+            }
+        }
+    }
+
+    private static void intern(String s, Map<String, Integer> ids, List<String> dictionary) {
+        if (s != null && !ids.containsKey(s)) {
+            ids.put(s, dictionary.size());
+            dictionary.add(s);
+        }
+    }
+
+    private static int id(String s, Map<String, Integer> ids) {
+        return s == null ? -1 : ids.get(s);
+    }
+
+    private static void writeNS(SnapshotNS x, Map<String, Integer> ids,
+                                RecordBuffer ns, RecordBuffer ps, RecordBuffer or) throws IOException {
+        ns.reset();
+        ns.data.writeInt(id(x.iri, ids));
+        ns.data.writeInt(id(x.targetClass, ids));
+        ns.data.writeByte(x.support != null ? HAS_SUPPORT : 0);
+        if (x.support != null) ns.data.writeInt(x.support);
+        if (x.propertyShapes == null) {
+            ns.data.writeInt(-1);
+            return;
+        }
+        ns.data.writeInt(x.propertyShapes.size());
+        for (SnapshotPS p : x.propertyShapes) {
+            writePS(p, ids, ps, or);
+            ps.writeTo(ns.data);
+        }
+    }
+
+    private static void writePS(SnapshotPS p, Map<String, Integer> ids, RecordBuffer ps, RecordBuffer or) throws IOException {
+        ps.reset();
+        ps.data.writeInt(id(p.iri, ids));
+        ps.data.writeInt(id(p.path, ids));
+        ps.data.writeInt(id(p.dataTypeOrClass, ids));
+        ps.data.writeInt(id(p.nodeKind, ids));
+        int flags = (p.support != null ? HAS_SUPPORT : 0) | (p.confidence != null ? HAS_CONFIDENCE : 0);
+        if (p.hasOrList != null) flags |= HAS_OR_FLAG | (p.hasOrList ? OR_FLAG_VALUE : 0);
+        ps.data.writeByte(flags);
+        if (p.support != null) ps.data.writeInt(p.support);
+        if (p.confidence != null) ps.data.writeDouble(p.confidence);
+        if (p.orItems == null) {
+            ps.data.writeInt(-1);
+            return;
+        }
+        ps.data.writeInt(p.orItems.size());
+        for (SnapshotOrItem o : p.orItems) {
+            or.reset();
+            or.data.writeInt(id(o.dataTypeOrClass, ids));
+            or.data.writeInt(id(o.nodeKind, ids));
+            or.data.writeByte((o.support != null ? HAS_SUPPORT : 0) | (o.confidence != null ? HAS_CONFIDENCE : 0));
+            if (o.support != null) or.data.writeInt(o.support);
+            if (o.confidence != null) or.data.writeDouble(o.confidence);
+            or.writeTo(ps.data);
+        }
+    }
+
+    /**
+     * Reusable buffer for one length-prefixed record.
+     */
+    private static final class RecordBuffer {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        final DataOutputStream data = new DataOutputStream(bytes);
+
+        void reset() {
+            bytes.reset();
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            out.writeInt(bytes.size());
+            bytes.writeTo(out);
+        }
+    }
+
+    // ===================== Reading =====================
+
+    /**
+     * Reads a binary snapshot through a memory-mapped file, after verifying its checksum.
+     *
+     * @throws IOException if the file is not a supported binary snapshot or is corrupted
+     */
+    static Set<NS> read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < 16) {
+                throw new IOException("Binary snapshot is truncated: " + size + " bytes");
+            }
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Binary snapshot is too large to map: " + size + " bytes (open it as a view instead)");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            verifyChecksum(buffer);
+
+            Reader reader = new Reader(buffer);
+            String[] dictionary = reader.header();
+            int nodes = buffer.getInt();
+            Set<NS> set = new LinkedHashSet<>(Math.max(16, nodes * 4 / 3 + 1));
+            for (int i = 0; i < nodes; i++) {
+                set.add(NodeShapesSnapshotIO.fromSnapshotNS(reader.readNS(dictionary)));
+            }
+            return set;
+        }
+    }
+
+    /**
+     * Reads the dictionary and the NodeShape offset index without decoding any NodeShape and
+     * without verifying the checksum, so that large snapshots open in time proportional to
+     * their dictionary and node count rather than their size.
+     *
+     * @throws IOException if the file is not a supported binary snapshot
+     */
+    static Index readIndex(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size < 16) {
+            throw new IOException("Binary snapshot is truncated: " + size + " bytes");
+        }
+        // The dictionary sits at the start of the file; map at most the first 2 GB to read it
+        MappedByteBuffer head = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, Integer.MAX_VALUE));
+        Reader reader = new Reader(head);
+        String[] dictionary = reader.header();
+        int nodes = head.getInt();
+        long position = head.position();
+
+        int[] iriIds = new int[nodes];
+        int[] targetClassIds = new int[nodes];
+        long[] offsets = new long[nodes];
+        if (reader.version >= 2) {
+            long indexOffset = readFully(channel, size - 12, 8).getLong();
+            ByteBuffer index = readFully(channel, indexOffset, 4 + (long) nodes * INDEX_ENTRY_BYTES);
+            if (index.getInt() != nodes) {
+                throw new IOException("Binary snapshot index does not match the node count");
+            }
+            for (int i = 0; i < nodes; i++) {
+                iriIds[i] = index.getInt();
+                targetClassIds[i] = index.getInt();
+                offsets[i] = index.getLong();
+            }
+        } else {
+            for (int i = 0; i < nodes; i++) {
+                ByteBuffer record = readFully(channel, position, 12);
+                offsets[i] = position;
+                position += 4 + record.getInt();
+                iriIds[i] = record.getInt();
+                targetClassIds[i] = record.getInt();
+            }
+        }
+        return new Index(dictionary, iriIds, targetClassIds, offsets);
+    }
+
+    /**
+     * Decodes the NodeShape record starting at the given offset.
+     */
+    static SnapshotNS readRecord(FileChannel channel, long offset, String[] dictionary) throws IOException {
+        int length = readFully(channel, offset, 4).getInt();
+        ByteBuffer record = readFully(channel, offset, 4 + (long) length);
+        return new Reader(record).readNS(dictionary);
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, long length) throws IOException {
+        if (length < 0 || length > Integer.MAX_VALUE || position < 0 || position + length > channel.size()) {
+            throw new IOException("Binary snapshot is corrupted: invalid range at " + position);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of binary snapshot");
+            }
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * Dictionary and per-NodeShape index of a binary snapshot.
+     */
+    static final class Index {
+        final String[] dictionary;
+        final int[] iriIds;
+        final int[] targetClassIds;
+        final long[] offsets;
+
+        Index(String[] dictionary, int[] iriIds, int[] targetClassIds, long[] offsets) {
+            this.dictionary = dictionary;
+            this.iriIds = iriIds;
+            this.targetClassIds = targetClassIds;
+            this.offsets = offsets;
+        }
+
+        int size() {
+            return offsets.length;
+        }
+
+        String iri(int node) {
+            return iriIds[node] < 0 ? null : dictionary[iriIds[node]];
+        }
+
+        String targetClass(int node) {
+            return targetClassIds[node] < 0 ? null : dictionary[targetClassIds[node]];
+        }
+    }
+
+    private static void verifyChecksum(ByteBuffer buffer) throws IOException {
+        int end = buffer.limit() - 4;
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.duplicate().position(0).limit(end));
+        if ((int) crc.getValue() != buffer.getInt(end)) {
+            throw new IOException("Binary snapshot checksum mismatch");
+        }
+    }
+
+    /**
+     * Decodes records from a buffer positioned at a record boundary.
+     */
+    static final class Reader {
+        private final ByteBuffer buffer;
+        private byte[] scratch = new byte[256];
+        private int version;
+
+        Reader(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        /**
+         * Reads the header and dictionary from the start of the buffer.
+         */
+        String[] header() throws IOException {
+            buffer.position(0);
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a NodeShapes binary snapshot");
+            }
+            version = buffer.getInt();
+            if (version < MIN_VERSION || version > VERSION) {
+                throw new IOException("Unsupported binary snapshot version " + version);
+            }
+            int count = buffer.getInt();
+            String[] dictionary = new String[count];
+            for (int i = 0; i < count; i++) {
+                int length = buffer.getInt();
+                if (scratch.length < length) scratch = new byte[Math.max(length, scratch.length * 2)];
+                buffer.get(scratch, 0, length);
+                dictionary[i] = InternPool.shared().string(new String(scratch, 0, length, StandardCharsets.UTF_8));
+            }
+            return dictionary;
+        }
+
+        SnapshotNS readNS(String[] dictionary) {
+            int end = recordEnd();
+            SnapshotNS x = new SnapshotNS();
+            x.iri = string(dictionary);
+            x.targetClass = string(dictionary);
+            if ((buffer.get() & HAS_SUPPORT) != 0) x.support = buffer.getInt();
+            int count = buffer.getInt();
+            if (count >= 0) {
+                x.propertyShapes = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) x.propertyShapes.add(readPS(dictionary));
+            }
+            buffer.position(end);
+            return x;
+        }
+
+        private SnapshotPS readPS(String[] dictionary) {
+            int end = recordEnd();
+            SnapshotPS p = new SnapshotPS();
+            p.iri = string(dictionary);
+            p.path = string(dictionary);
+            p.dataTypeOrClass = string(dictionary);
+            p.nodeKind = string(dictionary);
+            int flags = buffer.get();
+            if ((flags & HAS_SUPPORT) != 0) p.support = buffer.getInt();
+            if ((flags & HAS_CONFIDENCE) != 0) p.confidence = buffer.getDouble();
+            if ((flags & HAS_OR_FLAG) != 0) p.hasOrList = (flags & OR_FLAG_VALUE) != 0;
+            int count = buffer.getInt();
+            if (count >= 0) {
+                p.orItems = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    int itemEnd = recordEnd();
+                    SnapshotOrItem o = new SnapshotOrItem();
+                    o.dataTypeOrClass = string(dictionary);
+                    o.nodeKind = string(dictionary);
+                    int itemFlags = buffer.get();
+                    if ((itemFlags & HAS_SUPPORT) != 0) o.support = buffer.getInt();
+                    if ((itemFlags & HAS_CONFIDENCE) != 0) o.confidence = buffer.getDouble();
+                    buffer.position(itemEnd);
+                    p.orItems.add(o);
+                }
+            }
+            buffer.position(end);
+            return p;
+        }
+
+        private int recordEnd() {
+            int length = buffer.getInt();
+            return buffer.position() + length;
+        }
+
+        private String string(String[] dictionary) {
+            int id = buffer.getInt();
+            return id < 0 ? null : dictionary[id];
+        }
+    }
+}
@@ -3,18 +3,34 @@ package shactor.utils.nodeshapes;
 import cs.qse.common.structure.NS;
 import cs.qse.common.structure.PS;
 import cs.qse.common.structure.ShaclOrListItem;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import shactor.config.ConfigurationManager;
+import shactor.utils.qse.InternPool;
+import shactor.utils.qse.QseAccessors;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
-import org.eclipse.rdf4j.model.IRI;
-import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -24,12 +40,39 @@ import java.util.stream.Collectors;
  *
  * This stores a JSON snapshot at a stable path so benchmarks/tests can load
  * exactly the same NodeShapes input later, even across JVM runs.
+ *
+ * Snapshots are streamed: save writes one NodeShape at a time to the file and load decodes
+ * one NodeShape at a time from it, so memory use does not grow with the snapshot size beyond
+ * the resulting Set<NS>. Output is compact unless {@value #PRETTY_PROPERTY} is enabled.
+ *
+ * Files ending in {@value #BINARY_EXTENSION} use the binary format of {@link NodeShapesBinaryCodec}
+ * instead, which is smaller and loads considerably faster than JSON for large schemas.
  */
 public final class NodeShapesSnapshotIO {
     private static final Logger LOG = LoggerFactory.getLogger(NodeShapesSnapshotIO.class);
 
     public static final Path DEFAULT_SNAPSHOT = Path.of("evaluation", "latest-node-shapes.json");
 
+    /**
+     * Configuration key enabling indented (human-readable) JSON snapshots.
+     */
+    public static final String PRETTY_PROPERTY = "shactor.snapshot.pretty";
+
+    /**
+     * File extension selecting the binary snapshot codec; all other files are read and written as JSON.
+     */
+    public static final String BINARY_EXTENSION = ".nsb";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // Shared and thread-safe once configured; null fields are omitted to keep snapshots compact
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .findAndRegisterModules()
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+            .disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+
     private NodeShapesSnapshotIO() {}
 
     // ===================== Public API =====================
@@ -38,24 +81,65 @@ public final class NodeShapesSnapshotIO {
         save(nodeShapes, DEFAULT_SNAPSHOT);
     }
 
-    public static void save(Set<NS> nodeShapes, Path file) {
+    /**
+     * Writes the snapshot to a temporary file next to the target and renames it into place,
+     * so concurrent readers see either the previous or the new snapshot, never a partial one.
+     */
+    public static void save(Collection<NS> nodeShapes, Path file) {
+        save(nodeShapes, file, prettyPrintEnabled());
+    }
+
+    /**
+     * Same as {@link #save(Collection, Path)} with explicit control over indentation
+     * (ignored for binary snapshots).
+     */
+    public static void save(Collection<NS> nodeShapes, Path file, boolean pretty) {
         Objects.requireNonNull(file, "file");
+        Path dir = file.toAbsolutePath().getParent();
         try {
-            Files.createDirectories(file.getParent());
+            Files.createDirectories(dir);
         } catch (IOException e) {
             LOG.warn("[NodeShapesSnapshotIO] Failed to create directories for {}: {}", file, e.toString());
         }
 
-        Snapshot snapshot = toSnapshot(nodeShapes);
+        Path tmp = null;
         try {
-            String json = toJson(snapshot);
-            Files.writeString(file, json, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+            tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+            int[] counts;
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp), BUFFER_SIZE)) {
+                counts = isBinary(file)
+                        ? NodeShapesBinaryCodec.write(nodeShapes, out)
+                        : writeJson(nodeShapes, out, pretty);
+            }
+            moveIntoPlace(tmp, file);
+            tmp = null;
             LOG.info("[NodeShapesSnapshotIO] Saved NodeShapes snapshot: path={}, nodeShapes={}, propertyShapesTotal={}",
-                    file.toAbsolutePath(),
-                    snapshot.nodes != null ? snapshot.nodes.size() : 0,
-                    snapshot.totalPsCount());
+                    file.toAbsolutePath(), counts[0], counts[1]);
         } catch (Exception e) {
             LOG.error("[NodeShapesSnapshotIO] Error saving snapshot to {}: {}", file.toAbsolutePath(), e.toString(), e);
+        } finally {
+            if (tmp != null) {
+                try { Files.deleteIfExists(tmp); } catch (IOException ignored) {}
+            }
+        }
+    }
+
+    /**
+     * Returns whether snapshots are indented, as configured in application.properties.
+     */
+    static boolean prettyPrintEnabled() {
+        try {
+            return Boolean.parseBoolean(ConfigurationManager.getInstance().getProperty(PRETTY_PROPERTY, "false").trim());
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private static void moveIntoPlace(Path tmp, Path file) throws IOException {
+        try {
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
         }
     }
 
@@ -70,13 +154,9 @@ public final class NodeShapesSnapshotIO {
             return Collections.emptySet();
         }
         try {
-            String json = Files.readString(file);
-            Snapshot snapshot = fromJson(json);
-            Set<NS> set = fromSnapshot(snapshot);
+            Set<NS> set = isBinary(file) ? NodeShapesBinaryCodec.read(file) : readJson(file);
             LOG.info("[NodeShapesSnapshotIO] Loaded NodeShapes snapshot: path={}, nodeShapes={}, propertyShapesTotal={}",
-                    file.toAbsolutePath(),
-                    snapshot.nodes != null ? snapshot.nodes.size() : 0,
-                    snapshot.totalPsCount());
+                    file.toAbsolutePath(), set.size(), countPropertyShapes(set));
             return set;
         } catch (Exception e) {
             LOG.error("[NodeShapesSnapshotIO] Error loading snapshot from {}: {}", file.toAbsolutePath(), e.toString(), e);
@@ -84,6 +164,42 @@ public final class NodeShapesSnapshotIO {
         }
     }
 
+    /**
+     * Opens a binary snapshot as a lazily decoded, read-only Set<NS> view.
+     * Only the dictionary and offset index are read up front; close the view when done.
+     *
+     * @throws IllegalArgumentException if the file is not a binary snapshot
+     * @throws IOException if the file cannot be opened or is not a supported snapshot
+     */
+    public static NodeShapesSnapshotView open(Path file) throws IOException {
+        return open(file, NodeShapesSnapshotView.DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Same as {@link #open(Path)} keeping at most {@code cacheSize} decoded NodeShapes.
+     */
+    public static NodeShapesSnapshotView open(Path file, int cacheSize) throws IOException {
+        Objects.requireNonNull(file, "file");
+        if (!isBinary(file)) {
+            throw new IllegalArgumentException("Lazy snapshot views need a " + BINARY_EXTENSION + " snapshot: " + file);
+        }
+        return new NodeShapesSnapshotView(file, cacheSize);
+    }
+
+    /**
+     * Returns whether the file is stored in the binary snapshot format, judged by its extension.
+     */
+    public static boolean isBinary(Path file) {
+        Path name = file.getFileName();
+        return name != null && name.toString().toLowerCase(Locale.ROOT).endsWith(BINARY_EXTENSION);
+    }
+
+    private static int countPropertyShapes(Collection<NS> nodeShapes) {
+        int sum = 0;
+        for (NS ns : nodeShapes) if (ns.getPropertyShapes() != null) sum += ns.getPropertyShapes().size();
+        return sum;
+    }
+
     public static boolean snapshotExists(Path file) {
         return Files.exists(file) && Files.isRegularFile(file);
     }
@@ -94,33 +210,22 @@ public final class NodeShapesSnapshotIO {
 
     // ===================== Mapping =====================
 
-    private static Snapshot toSnapshot(Set<NS> nodeShapes) {
-        Snapshot s = new Snapshot();
-        if (nodeShapes == null || nodeShapes.isEmpty()) {
-            s.nodes = List.of();
-            return s;
-        }
-        List<SnapshotNS> nodes = new ArrayList<>();
-        for (NS ns : nodeShapes) {
-            if (ns == null) continue;
-            SnapshotNS x = new SnapshotNS();
-            try {
-                x.iri = ns.getIri() != null ? ns.getIri().toString() : null;
-                x.targetClass = ns.getTargetClass() != null ? ns.getTargetClass().toString() : null;
-                try { x.support = ns.getSupport(); } catch (Throwable ignored) {}
-                List<PS> psList = ns.getPropertyShapes();
-                if (psList != null) {
-                    List<SnapshotPS> sps = new ArrayList<>();
-                    for (PS ps : psList) sps.add(toSnapshotPS(ps));
-                    x.propertyShapes = sps;
-                }
-            } catch (Throwable e) {
-                LOG.warn("[NodeShapesSnapshotIO] Skipping NS due to error: {}", e.toString());
+    static SnapshotNS toSnapshotNS(NS ns) {
+        SnapshotNS x = new SnapshotNS();
+        try {
+            x.iri = ns.getIri() != null ? ns.getIri().toString() : null;
+            x.targetClass = ns.getTargetClass() != null ? ns.getTargetClass().toString() : null;
+            try { x.support = ns.getSupport(); } catch (Throwable ignored) {}
+            List<PS> psList = ns.getPropertyShapes();
+            if (psList != null) {
+                List<SnapshotPS> sps = new ArrayList<>(psList.size());
+                for (PS ps : psList) sps.add(toSnapshotPS(ps));
+                x.propertyShapes = sps;
             }
-            nodes.add(x);
+        } catch (Throwable e) {
+            LOG.warn("[NodeShapesSnapshotIO] Skipping NS due to error: {}", e.toString());
         }
-        s.nodes = nodes;
-        return s;
+        return x;
     }
 
     private static SnapshotPS toSnapshotPS(PS ps) {
@@ -160,42 +265,31 @@ public final class NodeShapesSnapshotIO {
         return x;
     }
 
-    private static Set<NS> fromSnapshot(Snapshot snapshot) {
-        if (snapshot == null || snapshot.nodes == null || snapshot.nodes.isEmpty()) return Collections.emptySet();
-        java.util.LinkedHashSet<NS> set = new java.util.LinkedHashSet<>();
-        for (SnapshotNS x : snapshot.nodes) {
-            try {
-                NS ns = new NS();
-                org.eclipse.rdf4j.model.ValueFactory vf = SimpleValueFactory.getInstance();
-                if (x.iri != null) ns.setIri(vf.createIRI(x.iri));
-                if (x.targetClass != null) ns.setTargetClass(vf.createIRI(x.targetClass));
-                if (x.support != null) {
-                    try {
-                        java.lang.reflect.Method m = ns.getClass().getMethod("setSupport", Integer.class);
-                        m.invoke(ns, x.support);
-                    } catch (Throwable ignored) {}
-                }
-                if (x.propertyShapes != null) {
-                    List<PS> psList = new ArrayList<>();
-                    for (SnapshotPS p : x.propertyShapes) psList.add(fromSnapshotPS(p));
-                    ns.setPropertyShapes(psList);
-                }
-                set.add(ns);
-            } catch (Throwable e) {
-                LOG.warn("[NodeShapesSnapshotIO] Skipping NS during load due to error: {}", e.toString());
-            }
+    static NS fromSnapshotNS(SnapshotNS x) {
+        NS ns = new NS();
+        // IRIs and constraint strings repeat across shapes; share one instance per value
+        InternPool pool = InternPool.shared();
+        if (x.iri != null) ns.setIri(pool.iri(x.iri));
+        if (x.targetClass != null) ns.setTargetClass(pool.iri(x.targetClass));
+        if (x.support != null) {
+            // setSupport is not available in every QSE version; resolved once per class
+            QseAccessors.of(ns.getClass()).set(ns, "setSupport", Integer.class, x.support);
         }
-        return set;
+        if (x.propertyShapes != null) {
+            List<PS> psList = new ArrayList<>(x.propertyShapes.size());
+            for (SnapshotPS p : x.propertyShapes) psList.add(fromSnapshotPS(p, pool));
+            ns.setPropertyShapes(psList);
+        }
+        return ns;
     }
 
-    private static PS fromSnapshotPS(SnapshotPS x) {
+    private static PS fromSnapshotPS(SnapshotPS x, InternPool pool) {
         PS ps = new PS();
         try {
-            org.eclipse.rdf4j.model.ValueFactory vf = SimpleValueFactory.getInstance();
-            if (x.iri != null) ps.setIri(vf.createIRI(x.iri));
-            if (x.path != null) ps.setPath(x.path);
-            if (x.dataTypeOrClass != null) ps.setDataTypeOrClass(x.dataTypeOrClass);
-            if (x.nodeKind != null) ps.setNodeKind(x.nodeKind);
+            if (x.iri != null) ps.setIri(pool.iri(x.iri));
+            if (x.path != null) ps.setPath(pool.string(x.path));
+            if (x.dataTypeOrClass != null) ps.setDataTypeOrClass(pool.string(x.dataTypeOrClass));
+            if (x.nodeKind != null) ps.setNodeKind(pool.string(x.nodeKind));
             if (x.support != null) { try { ps.setSupport(x.support); } catch (Throwable ignored) {} }
             if (x.confidence != null) { try { ps.setConfidence(x.confidence); } catch (Throwable ignored) {} }
             if (x.hasOrList != null) { try { ps.setHasOrList(x.hasOrList); } catch (Throwable ignored) {} }
@@ -204,8 +298,8 @@ public final class NodeShapesSnapshotIO {
                 for (SnapshotOrItem s : x.orItems) {
                     ShaclOrListItem it = new ShaclOrListItem();
                     try {
-                        if (s.dataTypeOrClass != null) it.setDataTypeOrClass(s.dataTypeOrClass);
-                        if (s.nodeKind != null) it.setNodeKind(s.nodeKind);
+                        if (s.dataTypeOrClass != null) it.setDataTypeOrClass(pool.string(s.dataTypeOrClass));
+                        if (s.nodeKind != null) it.setNodeKind(pool.string(s.nodeKind));
                         if (s.support != null) { try { it.setSupport(s.support); } catch (Throwable ignored) {} }
                         if (s.confidence != null) { try { it.setConfidence(s.confidence); } catch (Throwable ignored) {} }
                     } catch (Throwable ignored) {}
@@ -219,18 +313,68 @@ public final class NodeShapesSnapshotIO {
         return ps;
     }
 
-    // ===================== JSON helpers (Jackson) =====================
+    // ===================== JSON streaming (Jackson) =====================
 
-    private static String toJson(Snapshot s) throws Exception {
-        com.fasterxml.jackson.databind.ObjectMapper om = new com.fasterxml.jackson.databind.ObjectMapper();
-        om.findAndRegisterModules();
-        return om.writerWithDefaultPrettyPrinter().writeValueAsString(s);
+    /**
+     * Streams the snapshot as JSON ({"nodes":[...]}) to the given stream, one NodeShape at a time.
+     *
+     * @return The number of node shapes and property shapes written
+     */
+    static int[] writeJson(Collection<NS> nodeShapes, OutputStream out, boolean pretty) throws IOException {
+        int nodes = 0;
+        int propertyShapes = 0;
+        try (JsonGenerator gen = MAPPER.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            if (pretty) gen.useDefaultPrettyPrinter();
+            gen.writeStartObject();
+            gen.writeArrayFieldStart("nodes");
+            if (nodeShapes != null) {
+                for (NS ns : nodeShapes) {
+                    if (ns == null) continue;
+                    SnapshotNS x = toSnapshotNS(ns);
+                    MAPPER.writeValue(gen, x);
+                    nodes++;
+                    if (x.propertyShapes != null) propertyShapes += x.propertyShapes.size();
+                }
+            }
+            gen.writeEndArray();
+            gen.writeEndObject();
+        }
+        return new int[]{nodes, propertyShapes};
     }
 
-    private static Snapshot fromJson(String json) throws Exception {
-        com.fasterxml.jackson.databind.ObjectMapper om = new com.fasterxml.jackson.databind.ObjectMapper();
-        om.findAndRegisterModules();
-        return om.readValue(json, Snapshot.class);
+    private static Set<NS> readJson(Path file) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE)) {
+            return readJson(in);
+        }
+    }
+
+    /**
+     * Decodes a JSON snapshot from the given stream, one NodeShape at a time.
+     */
+    static Set<NS> readJson(InputStream in) throws IOException {
+        Set<NS> set = new LinkedHashSet<>();
+        try (JsonParser parser = MAPPER.getFactory().createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Snapshot is not a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (!"nodes".equals(field) || value != JsonToken.START_ARRAY) {
+                    parser.skipChildren();
+                    continue;
+                }
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    SnapshotNS x = MAPPER.readValue(parser, SnapshotNS.class);
+                    try {
+                        set.add(fromSnapshotNS(x));
+                    } catch (Throwable e) {
+                        LOG.warn("[NodeShapesSnapshotIO] Skipping NS during load due to error: {}", e.toString());
+                    }
+                }
+            }
+        }
+        return set;
     }
 
     // ===================== DTOs =====================
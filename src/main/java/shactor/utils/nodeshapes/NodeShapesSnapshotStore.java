@@ -0,0 +1,374 @@
+package shactor.utils.nodeshapes;
+
+import cs.qse.common.structure.NS;
+import cs.qse.common.structure.PS;
+import cs.qse.common.structure.ShaclOrListItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import shactor.config.ConfigurationManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keyed store for NodeShapes snapshots, replacing the former single-slot latest-snapshot cache.
+ *
+ * Each {@link SnapshotKey} (dataset, category, format, thresholds) has its own entry; a newer
+ * put always replaces the previous shapes of that key, regardless of their size. Entries are
+ * kept in memory up to an estimated retained size and evicted least recently used beyond it.
+ * Every put is also written in the background to a binary backing file per key, so evicted
+ * entries - and entries from earlier runs - are reloaded from disk on the next get.
+ *
+ * Reads of in-memory entries take no locks; eviction is serialized and only runs on puts.
+ *
+ * Configuration (application.properties):
+ * - {@value #MAX_BYTES_PROPERTY}: in-memory budget in bytes of estimated retained size
+ * - {@value #DIRECTORY_PROPERTY}: directory of the backing files
+ * - {@value AsyncSnapshotWriter#ENABLED_PROPERTY}: set to false to disable backing files
+ */
+public final class NodeShapesSnapshotStore {
+    private static final Logger LOG = LoggerFactory.getLogger(NodeShapesSnapshotStore.class);
+
+    public static final String MAX_BYTES_PROPERTY = "shactor.snapshot.store.maxBytes";
+    public static final String DIRECTORY_PROPERTY = "shactor.snapshot.store.directory";
+
+    static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+    static final Path DEFAULT_DIRECTORY = Path.of("evaluation", "snapshots");
+    static final long SHUTDOWN_TIMEOUT_MILLIS = 10_000;
+
+    private static volatile NodeShapesSnapshotStore shared;
+
+    private final Path directory;
+    private final long maxBytes;
+    private final boolean persistent;
+
+    private final ConcurrentHashMap<SnapshotKey, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong retainedBytes = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final Object evictionLock = new Object();
+
+    private final ConcurrentHashMap<SnapshotKey, Set<NS>> pendingWrites = new ConcurrentHashMap<>();
+    private final ExecutorService writer;
+
+    /**
+     * Creates a store.
+     *
+     * @param directory Directory of the backing files (created on first write)
+     * @param maxBytes In-memory budget of estimated retained size; 0 keeps nothing in memory
+     * @param persistent Whether puts are written to backing files and misses are loaded from them
+     * @throws IllegalArgumentException if maxBytes is negative
+     */
+    public NodeShapesSnapshotStore(Path directory, long maxBytes, boolean persistent) {
+        Objects.requireNonNull(directory, "directory");
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("Snapshot store budget cannot be negative");
+        }
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.persistent = persistent;
+        this.writer = persistent ? Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "node-shapes-snapshot-store");
+            t.setDaemon(true);
+            return t;
+        }) : null;
+    }
+
+    /**
+     * Returns the application-wide store, configured from application.properties.
+     */
+    public static NodeShapesSnapshotStore shared() {
+        NodeShapesSnapshotStore store = shared;
+        if (store == null) {
+            synchronized (NodeShapesSnapshotStore.class) {
+                store = shared;
+                if (store == null) {
+                    ConfigurationManager config = ConfigurationManager.getInstance();
+                    boolean persistent = Boolean.parseBoolean(
+                            config.getProperty(AsyncSnapshotWriter.ENABLED_PROPERTY, "true").trim());
+                    long maxBytes = DEFAULT_MAX_BYTES;
+                    try {
+                        maxBytes = Math.max(0L, Long.parseLong(config.getProperty(MAX_BYTES_PROPERTY,
+                                String.valueOf(DEFAULT_MAX_BYTES)).trim()));
+                    } catch (RuntimeException ignored) {
+                        // keep default
+                    }
+                    Path directory = Path.of(config.getProperty(DIRECTORY_PROPERTY, DEFAULT_DIRECTORY.toString()).trim());
+                    store = new NodeShapesSnapshotStore(directory, maxBytes, persistent);
+                    if (persistent) {
+                        // The writer thread is a daemon; write pending snapshots before the JVM exits
+                        NodeShapesSnapshotStore hooked = store;
+                        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                            try {
+                                hooked.shutdown(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                        }, "node-shapes-snapshot-store-shutdown"));
+                    }
+                    shared = store;
+                }
+            }
+        }
+        return store;
+    }
+
+    /**
+     * Stores a copy of the shapes under the key, replacing any previous shapes of that key,
+     * and schedules the backing file to be rewritten. Never blocks on I/O; after
+     * {@link #shutdown()} the shapes are only kept in memory.
+     */
+    public void put(SnapshotKey key, Collection<NS> nodeShapes) {
+        Objects.requireNonNull(key, "key");
+        if (nodeShapes == null) return;
+        Set<NS> copy = Collections.unmodifiableSet(new LinkedHashSet<>(nodeShapes));
+        cache(key, copy);
+        if (persistent) {
+            // Coalesce per key: a put that arrives before the write ran replaces the pending shapes
+            if (pendingWrites.put(key, copy) == null) {
+                try {
+                    writer.execute(() -> writePending(key));
+                } catch (RejectedExecutionException e) {
+                    // shut down; the backing file is no longer written
+                    pendingWrites.remove(key, copy);
+                }
+            }
+        }
+    }
+
+    private void cache(SnapshotKey key, Set<NS> nodeShapes) {
+        long bytes = estimateRetainedBytes(nodeShapes);
+        if (bytes > maxBytes) {
+            // Larger than the whole budget: keep only on disk
+            Entry previous = entries.remove(key);
+            if (previous != null) retainedBytes.addAndGet(-previous.bytes);
+            return;
+        }
+        Entry entry = new Entry(nodeShapes, bytes);
+        Entry previous = entries.put(key, entry);
+        retainedBytes.addAndGet(bytes - (previous == null ? 0 : previous.bytes));
+        evictIfNeeded(entry);
+    }
+
+    private void evictIfNeeded(Entry keep) {
+        if (retainedBytes.get() <= maxBytes) return;
+        synchronized (evictionLock) {
+            while (retainedBytes.get() > maxBytes) {
+                Map.Entry<SnapshotKey, Entry> eldest = null;
+                for (Map.Entry<SnapshotKey, Entry> e : entries.entrySet()) {
+                    if (e.getValue() == keep) continue;
+                    if (eldest == null || e.getValue().lastAccess < eldest.getValue().lastAccess) eldest = e;
+                }
+                if (eldest == null) return;
+                if (entries.remove(eldest.getKey(), eldest.getValue())) {
+                    retainedBytes.addAndGet(-eldest.getValue().bytes);
+                    evictions.incrementAndGet();
+                    LOG.debug("[NodeShapesSnapshotStore] Evicted {} ({} bytes)", eldest.getKey(), eldest.getValue().bytes);
+                }
+            }
+        }
+    }
+
+    private void writePending(SnapshotKey key) {
+        Set<NS> latest = pendingWrites.remove(key);
+        if (latest == null) return;
+        try {
+            NodeShapesSnapshotIO.save(latest, fileFor(key));
+        } catch (RuntimeException e) {
+            LOG.error("[NodeShapesSnapshotStore] Failed to write snapshot {}: {}", key, e.toString(), e);
+        }
+    }
+
+    /**
+     * Returns the shapes stored under the key, loading them from the backing file if they
+     * are not in memory.
+     *
+     * @return An unmodifiable set, or empty if nothing was stored under the key
+     */
+    public Optional<Set<NS>> get(SnapshotKey key) {
+        Objects.requireNonNull(key, "key");
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            entry.lastAccess = System.nanoTime();
+            return Optional.of(entry.nodeShapes);
+        }
+        Set<NS> pending = pendingWrites.get(key);
+        if (pending != null) {
+            return Optional.of(pending);
+        }
+        if (!persistent || !Files.isRegularFile(fileFor(key))) {
+            return Optional.empty();
+        }
+        Set<NS> loaded = NodeShapesSnapshotIO.load(fileFor(key));
+        if (loaded.isEmpty()) {
+            return Optional.empty();
+        }
+        Set<NS> nodeShapes = Collections.unmodifiableSet(loaded);
+        // Another thread may have put newer shapes meanwhile; those win
+        if (!entries.containsKey(key)) {
+            cache(key, nodeShapes);
+        }
+        return Optional.of(nodeShapes);
+    }
+
+    /**
+     * Returns whether shapes are stored under the key, in memory or on disk.
+     */
+    public boolean contains(SnapshotKey key) {
+        return entries.containsKey(key) || pendingWrites.containsKey(key)
+                || (persistent && Files.isRegularFile(fileFor(key)));
+    }
+
+    /**
+     * Removes the key from memory and deletes its backing file.
+     */
+    public void remove(SnapshotKey key) {
+        Entry previous = entries.remove(key);
+        if (previous != null) retainedBytes.addAndGet(-previous.bytes);
+        if (persistent) {
+            pendingWrites.remove(key);
+            try {
+                Files.deleteIfExists(fileFor(key));
+            } catch (IOException e) {
+                LOG.warn("[NodeShapesSnapshotStore] Failed to delete snapshot {}: {}", key, e.toString());
+            }
+        }
+    }
+
+    /**
+     * Backing file of the key (binary snapshot format).
+     */
+    public Path fileFor(SnapshotKey key) {
+        return directory.resolve(key.fileName(NodeShapesSnapshotIO.BINARY_EXTENSION));
+    }
+
+    /**
+     * Waits until all scheduled backing file writes are done (for tests and shutdown).
+     *
+     * @return true if the writes finished within the timeout
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean flush(long timeout, TimeUnit unit) throws InterruptedException {
+        if (!persistent) return true;
+        CountDownLatch done = new CountDownLatch(1);
+        try {
+            writer.execute(done::countDown);
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+        return done.await(timeout, unit);
+    }
+
+    /**
+     * Stops the background writer after finishing scheduled writes. Calling it more than
+     * once has no effect.
+     */
+    public void shutdown() {
+        if (persistent) writer.shutdown();
+    }
+
+    /**
+     * Stops the background writer and waits until the scheduled writes are done.
+     *
+     * @param timeout Maximum time to wait
+     * @param unit Unit of the timeout
+     * @return true if the writer stopped in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        shutdown();
+        return !persistent || writer.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * Keys currently held in memory.
+     */
+    public Set<SnapshotKey> getCachedKeys() {
+        return Collections.unmodifiableSet(entries.keySet());
+    }
+
+    /**
+     * Estimated retained size of all in-memory entries.
+     */
+    public long getRetainedBytes() {
+        return retainedBytes.get();
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Number of entries evicted from memory so far.
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Rough upper estimate of the heap retained by the shapes (64-bit JVM, compressed oops,
+     * compact strings), counting every string as if it were not shared with other shapes.
+     */
+    static long estimateRetainedBytes(Collection<NS> nodeShapes) {
+        long bytes = 0;
+        for (NS ns : nodeShapes) {
+            if (ns == null) continue;
+            bytes += 64 + iri(ns.getIri()) + iri(ns.getTargetClass());
+            List<PS> propertyShapes = ns.getPropertyShapes();
+            if (propertyShapes == null) continue;
+            bytes += 24 + 4L * propertyShapes.size();
+            for (PS ps : propertyShapes) {
+                if (ps == null) continue;
+                bytes += 72 + iri(ps.getIri()) + string(ps.getPath())
+                        + string(ps.getDataTypeOrClass()) + string(ps.getNodeKind());
+                List<ShaclOrListItem> items = null;
+                try { items = ps.getShaclOrListItems(); } catch (Throwable ignored) {}
+                if (items == null) continue;
+                bytes += 24 + 4L * items.size();
+                for (ShaclOrListItem item : items) {
+                    if (item == null) continue;
+                    bytes += 48 + string(item.getDataTypeOrClass()) + string(item.getNodeKind());
+                }
+            }
+        }
+        return bytes;
+    }
+
+    private static long iri(Object iri) {
+        return iri == null ? 0 : 16 + string(iri.toString());
+    }
+
+    private static long string(String s) {
+        return s == null ? 0 : 40 + s.length();
+    }
+
+    private static final class Entry {
+        final Set<NS> nodeShapes;
+        final long bytes;
+        volatile long lastAccess = System.nanoTime();
+
+        Entry(Set<NS> nodeShapes, long bytes) {
+            this.nodeShapes = nodeShapes;
+            this.bytes = bytes;
+        }
+    }
+}
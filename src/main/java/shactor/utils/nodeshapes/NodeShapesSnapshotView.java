@@ -0,0 +1,185 @@
+package shactor.utils.nodeshapes;
+
+import cs.qse.common.structure.NS;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-only, lazily decoded view of a binary NodeShapes snapshot.
+ *
+ * Opening reads only the string dictionary and the offset index; each NodeShape is decoded
+ * from the file on first access and kept in a small LRU cache, so single lookups on large
+ * snapshots do not materialize the whole Set<NS>. Iteration decodes NodeShapes one by one in
+ * file order. The view holds the file open until {@link #close()}.
+ *
+ * Usage example:
+ *   try (NodeShapesSnapshotView view = NodeShapesSnapshotIO.open(Path.of("evaluation", "latest-node-shapes.nsb"))) {
+ *       Optional<NS> person = view.findByTargetClass("http://xmlns.com/foaf/0.1/Person");
+ *   }
+ */
+public final class NodeShapesSnapshotView extends AbstractSet<NS> implements Closeable {
+
+    /**
+     * Number of decoded NodeShapes kept by default.
+     */
+    public static final int DEFAULT_CACHE_SIZE = 64;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final NodeShapesBinaryCodec.Index index;
+    private final Map<String, Integer> byIri;
+    private final Map<String, List<Integer>> byTargetClass;
+    private final Map<Integer, NS> cache;
+    private final AtomicLong decoded = new AtomicLong();
+
+    NodeShapesSnapshotView(Path file, int cacheSize) throws IOException {
+        if (cacheSize < 0) {
+            throw new IllegalArgumentException("Cache size cannot be negative");
+        }
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            this.index = NodeShapesBinaryCodec.readIndex(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        this.byIri = new HashMap<>(index.size() * 4 / 3 + 1);
+        this.byTargetClass = new HashMap<>();
+        for (int i = 0; i < index.size(); i++) {
+            String iri = index.iri(i);
+            if (iri != null) byIri.putIfAbsent(iri, i);
+            String targetClass = index.targetClass(i);
+            if (targetClass != null) byTargetClass.computeIfAbsent(targetClass, k -> new ArrayList<>(1)).add(i);
+        }
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, NS> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Number of NodeShapes in the snapshot, known from the index without decoding.
+     */
+    @Override
+    public int size() {
+        return index.size();
+    }
+
+    @Override
+    public Iterator<NS> iterator() {
+        return new Iterator<>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < index.size();
+            }
+
+            @Override
+            public NS next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return get(next++);
+            }
+        };
+    }
+
+    /**
+     * Returns the NodeShape at the given position in file order, decoding it if not cached.
+     *
+     * @throws IndexOutOfBoundsException if the position is outside the snapshot
+     * @throws UncheckedIOException if the record cannot be read
+     */
+    public NS get(int position) {
+        if (position < 0 || position >= index.size()) {
+            throw new IndexOutOfBoundsException("NodeShape " + position + " of " + index.size());
+        }
+        synchronized (cache) {
+            NS cached = cache.get(position);
+            if (cached != null) return cached;
+        }
+        NS ns;
+        try {
+            ns = NodeShapesSnapshotIO.fromSnapshotNS(
+                    NodeShapesBinaryCodec.readRecord(channel, index.offsets[position], index.dictionary));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read NodeShape " + position + " from " + file, e);
+        }
+        decoded.incrementAndGet();
+        synchronized (cache) {
+            NS raced = cache.putIfAbsent(position, ns);
+            return raced != null ? raced : ns;
+        }
+    }
+
+    /**
+     * Finds the NodeShape with the given IRI, decoding only that NodeShape.
+     */
+    public Optional<NS> findByIri(String iri) {
+        Integer position = byIri.get(iri);
+        return position == null ? Optional.empty() : Optional.of(get(position));
+    }
+
+    /**
+     * Finds the first NodeShape targeting the given class, decoding only that NodeShape.
+     */
+    public Optional<NS> findByTargetClass(String targetClass) {
+        List<Integer> positions = byTargetClass.get(targetClass);
+        return positions == null ? Optional.empty() : Optional.of(get(positions.get(0)));
+    }
+
+    /**
+     * Finds all NodeShapes targeting the given class.
+     */
+    public List<NS> findAllByTargetClass(String targetClass) {
+        List<Integer> positions = byTargetClass.getOrDefault(targetClass, Collections.emptyList());
+        List<NS> result = new ArrayList<>(positions.size());
+        for (int position : positions) result.add(get(position));
+        return result;
+    }
+
+    /**
+     * Target classes of all NodeShapes, read from the index.
+     */
+    public Set<String> getTargetClasses() {
+        return Collections.unmodifiableSet(byTargetClass.keySet());
+    }
+
+    /**
+     * Number of records decoded from the file so far (cache hits are not counted).
+     */
+    public long getDecodedCount() {
+        return decoded.get();
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+}
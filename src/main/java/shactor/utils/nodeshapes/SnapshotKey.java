@@ -0,0 +1,142 @@
+package shactor.utils.nodeshapes;
+
+import java.util.Objects;
+
+/**
+ * Identifies one NodeShapes snapshot in a {@link NodeShapesSnapshotStore}: the dataset, the
+ * input category (file, endpoint, ...), the output format and, for pruned shapes, the support
+ * and confidence thresholds.
+ *
+ * The textual form is "dataset/category/format[/support/confidence]", e.g.
+ * "LUBM-Mini/EXISTING_FILE_BASED/SHACL/10/0.25", and can be read back with {@link #parse(String)}.
+ */
+public final class SnapshotKey {
+
+    private final String dataset;
+    private final String category;
+    private final String format;
+    private final Integer support;
+    private final Double confidence;
+
+    private SnapshotKey(String dataset, String category, String format, Integer support, Double confidence) {
+        this.dataset = requireText(dataset, "Dataset");
+        this.category = requireText(category, "Category");
+        this.format = requireText(format, "Format");
+        this.support = support;
+        this.confidence = confidence;
+    }
+
+    private static String requireText(String value, String name) {
+        if (value == null || value.trim().isEmpty()) {
+            throw new IllegalArgumentException(name + " cannot be null or empty");
+        }
+        if (value.indexOf('/') >= 0) {
+            throw new IllegalArgumentException(name + " cannot contain '/': " + value);
+        }
+        return value.trim();
+    }
+
+    /**
+     * Key for the unpruned shapes of a dataset.
+     *
+     * @throws IllegalArgumentException if a part is null, empty or contains '/'
+     */
+    public static SnapshotKey of(String dataset, String category, String format) {
+        return new SnapshotKey(dataset, category, format, null, null);
+    }
+
+    /**
+     * Copy of this key for shapes pruned with the given thresholds.
+     */
+    public SnapshotKey withThresholds(Integer support, Double confidence) {
+        return new SnapshotKey(dataset, category, format, support, confidence);
+    }
+
+    /**
+     * Parses the textual form produced by {@link #toString()}.
+     *
+     * @throws IllegalArgumentException if the text is not a valid key
+     */
+    public static SnapshotKey parse(String text) {
+        String[] parts = Objects.requireNonNull(text, "text").split("/", -1);
+        if (parts.length != 3 && parts.length != 5) {
+            throw new IllegalArgumentException("Expected dataset/category/format[/support/confidence]: " + text);
+        }
+        SnapshotKey key = of(parts[0], parts[1], parts[2]);
+        if (parts.length == 5) {
+            try {
+                key = key.withThresholds(
+                        parts[3].equals("-") ? null : Integer.valueOf(parts[3]),
+                        parts[4].equals("-") ? null : Double.valueOf(parts[4]));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid thresholds in snapshot key: " + text, e);
+            }
+        }
+        return key;
+    }
+
+    /**
+     * File name of this key's backing snapshot, using the given extension.
+     *
+     * The readable part replaces characters that are unsafe in file names, so different keys
+     * can map to the same text (e.g. "a b" and "a_b"); a hash of {@link #toString()} keeps
+     * their file names apart.
+     */
+    String fileName(String extension) {
+        StringBuilder name = new StringBuilder()
+                .append(sanitize(dataset)).append("__")
+                .append(sanitize(category)).append("__")
+                .append(sanitize(format));
+        if (support != null || confidence != null) {
+            name.append("__s").append(support == null ? "-" : support)
+                    .append("__c").append(confidence == null ? "-" : sanitize(confidence.toString()));
+        }
+        return name.append("__").append(String.format("%08x", toString().hashCode()))
+                .append(extension).toString();
+    }
+
+    private static String sanitize(String part) {
+        return part.replaceAll("[^A-Za-z0-9.-]", "_");
+    }
+
+    public String getDataset() {
+        return dataset;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public Integer getSupport() {
+        return support;
+    }
+
+    public Double getConfidence() {
+        return confidence;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof SnapshotKey)) return false;
+        SnapshotKey other = (SnapshotKey) o;
+        return dataset.equals(other.dataset) && category.equals(other.category) && format.equals(other.format)
+                && Objects.equals(support, other.support) && Objects.equals(confidence, other.confidence);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(dataset, category, format, support, confidence);
+    }
+
+    @Override
+    public String toString() {
+        String base = dataset + "/" + category + "/" + format;
+        if (support == null && confidence == null) return base;
+        return base + "/" + (support == null ? "-" : support) + "/" + (confidence == null ? "-" : confidence);
+    }
+}
@@ -0,0 +1,160 @@
+package shactor.utils.qse;
+
+import cs.qse.common.structure.NS;
+import cs.qse.common.structure.PS;
+import cs.qse.common.structure.ShaclOrListItem;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+
+import java.lang.ref.WeakReference;
+import java.util.Collection;
+import java.util.List;
+import java.util.WeakHashMap;
+
+/**
+ * Weak-valued interning pool for the IRIs and constraint strings of NodeShape graphs.
+ *
+ * Property paths, datatypes, node kinds ("Literal", "IRI") and class IRIs repeat across
+ * hundreds of thousands of PropertyShapes and OR-list items. The pool hands out one canonical
+ * instance per distinct value, so equal values share memory. Entries are held weakly and
+ * disappear once no shape references the canonical instance anymore; the pool itself never
+ * keeps shapes alive.
+ *
+ * Thread-safe; lookups lock one of several stripes, selected by hash.
+ *
+ * Usage:
+ *   InternPool pool = InternPool.shared();
+ *   ps.setPath(pool.string(path));
+ *   ns.setTargetClass(pool.iri(classIri));
+ */
+public final class InternPool {
+
+    private static final int STRIPES = 16;
+    private static final InternPool SHARED = new InternPool();
+    private static final ValueFactory VF = SimpleValueFactory.getInstance();
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    private static final class Stripe {
+        // Keys are the canonical strings themselves, strongly reachable only through the values
+        final WeakHashMap<String, WeakReference<String>> strings = new WeakHashMap<>();
+        final WeakHashMap<String, WeakReference<IRI>> iris = new WeakHashMap<>();
+    }
+
+    public InternPool() {
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new Stripe();
+    }
+
+    /**
+     * Returns the application-wide pool.
+     */
+    public static InternPool shared() {
+        return SHARED;
+    }
+
+    private Stripe stripe(String value) {
+        int h = value.hashCode();
+        return stripes[(h ^ (h >>> 16)) & (STRIPES - 1)];
+    }
+
+    /**
+     * Returns the canonical instance of the string, or null for null.
+     */
+    public String string(String value) {
+        if (value == null) return null;
+        Stripe stripe = stripe(value);
+        synchronized (stripe) {
+            WeakReference<String> ref = stripe.strings.get(value);
+            String canonical = ref != null ? ref.get() : null;
+            if (canonical == null) {
+                canonical = value;
+                stripe.strings.put(canonical, new WeakReference<>(canonical));
+            }
+            return canonical;
+        }
+    }
+
+    /**
+     * Returns the canonical IRI for the string, creating it on first use, or null for null.
+     */
+    public IRI iri(String value) {
+        if (value == null) return null;
+        Stripe stripe = stripe(value);
+        synchronized (stripe) {
+            WeakReference<IRI> ref = stripe.iris.get(value);
+            IRI canonical = ref != null ? ref.get() : null;
+            if (canonical == null) {
+                canonical = VF.createIRI(string(value));
+                // Key by the IRI's own string so the entry lives exactly as long as the IRI
+                stripe.iris.put(canonical.stringValue(), new WeakReference<>(canonical));
+            }
+            return canonical;
+        }
+    }
+
+    /**
+     * Returns the canonical IRI equal to the given one, which becomes canonical if none exists yet.
+     */
+    public IRI iri(IRI value) {
+        if (value == null) return null;
+        String key = value.stringValue();
+        Stripe stripe = stripe(key);
+        synchronized (stripe) {
+            WeakReference<IRI> ref = stripe.iris.get(key);
+            IRI canonical = ref != null ? ref.get() : null;
+            if (canonical == null) {
+                canonical = value;
+                stripe.iris.put(key, new WeakReference<>(canonical));
+            }
+            return canonical;
+        }
+    }
+
+    /**
+     * Replaces the IRIs and constraint strings of the given shapes in place by their canonical
+     * instances. Accessors missing in the QSE version at hand are skipped.
+     */
+    public void internAll(Collection<NS> nodeShapes) {
+        if (nodeShapes == null) return;
+        for (NS ns : nodeShapes) {
+            if (ns == null) continue;
+            if (ns.getIri() != null) ns.setIri(iri(ns.getIri()));
+            if (ns.getTargetClass() != null) ns.setTargetClass(iri(ns.getTargetClass()));
+            List<PS> propertyShapes = ns.getPropertyShapes();
+            if (propertyShapes == null) continue;
+            for (PS ps : propertyShapes) {
+                if (ps == null) continue;
+                try {
+                    if (ps.getIri() != null) ps.setIri(iri(ps.getIri()));
+                    if (ps.getPath() != null) ps.setPath(string(ps.getPath()));
+                    if (ps.getDataTypeOrClass() != null) ps.setDataTypeOrClass(string(ps.getDataTypeOrClass()));
+                    if (ps.getNodeKind() != null) ps.setNodeKind(string(ps.getNodeKind()));
+                    List<ShaclOrListItem> items = ps.getShaclOrListItems();
+                    if (items == null) continue;
+                    for (ShaclOrListItem item : items) {
+                        if (item == null) continue;
+                        if (item.getDataTypeOrClass() != null) item.setDataTypeOrClass(string(item.getDataTypeOrClass()));
+                        if (item.getNodeKind() != null) item.setNodeKind(string(item.getNodeKind()));
+                    }
+                } catch (Throwable ignored) {
+                    // keep the remaining shapes canonicalized
+                }
+            }
+        }
+    }
+
+    /**
+     * Number of live canonical strings and IRIs (entries whose values were collected are not counted).
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                for (WeakReference<String> ref : stripe.strings.values()) if (ref.get() != null) size++;
+                for (WeakReference<IRI> ref : stripe.iris.values()) if (ref.get() != null) size++;
+            }
+        }
+        return size;
+    }
+}
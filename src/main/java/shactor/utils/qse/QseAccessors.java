@@ -0,0 +1,159 @@
+package shactor.utils.qse;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Registry of compiled accessors for QSE structure classes (NS, PS, ShaclOrListItem).
+ *
+ * Some accessors only exist in certain versions of the QSE library (e.g. enumeration
+ * getters or NS#setSupport), so callers cannot bind to them statically. Instead of
+ * resolving them with {@code getClass().getMethod(...)} on every call and relying on
+ * exceptions for absent methods, this registry resolves each accessor once per class
+ * into a {@link MethodHandle} and also caches the fact that a method is absent.
+ *
+ * Usage:
+ *   ClassAccessors ps = QseAccessors.of(propertyShape.getClass());
+ *   Object values = ps.firstNonNull(propertyShape, "getIn", "getEnumeration");
+ */
+public final class QseAccessors {
+
+    private static final ClassValue<ClassAccessors> REGISTRY = new ClassValue<>() {
+        @Override
+        protected ClassAccessors computeValue(Class<?> type) {
+            return new ClassAccessors(type);
+        }
+    };
+
+    private QseAccessors() {}
+
+    /**
+     * Returns the accessor cache for the given class (created on first use).
+     *
+     * @param type The class whose accessors are requested
+     * @return The per-class accessor cache
+     * @throws IllegalArgumentException if type is null
+     */
+    public static ClassAccessors of(Class<?> type) {
+        if (type == null) {
+            throw new IllegalArgumentException("Type cannot be null");
+        }
+        return REGISTRY.get(type);
+    }
+
+    /**
+     * Resolved accessors of one class. All lookups are cached, including misses.
+     */
+    public static final class ClassAccessors {
+        private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+        private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+        private final Class<?> type;
+        private final ConcurrentHashMap<String, Optional<MethodHandle>> getters = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<String, Optional<MethodHandle>> setters = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<List<String>, List<MethodHandle>> getterChains = new ConcurrentHashMap<>();
+
+        private ClassAccessors(Class<?> type) {
+            this.type = type;
+        }
+
+        /**
+         * Returns a public no-argument getter adapted to {@code (Object)Object}, or null if absent.
+         */
+        public MethodHandle getter(String name) {
+            return getters.computeIfAbsent(name, n -> resolve(n, GETTER_TYPE)).orElse(null);
+        }
+
+        /**
+         * Returns a public one-argument setter adapted to {@code (Object,Object)void}, or null if absent.
+         */
+        public MethodHandle setter(String name, Class<?> parameterType) {
+            String key = name + "(" + parameterType.getName() + ")";
+            return setters.computeIfAbsent(key, k -> resolve(name, SETTER_TYPE, parameterType)).orElse(null);
+        }
+
+        /**
+         * Invokes the given getters in order and returns the first non-null value.
+         * Absent getters are skipped without any lookup cost after the first call;
+         * failing invocations are treated like null values.
+         *
+         * @param target The object to read from (must be an instance of this class)
+         * @param names Candidate getter names, in priority order
+         * @return The first non-null value, or null if none of the getters yields a value
+         */
+        public Object firstNonNull(Object target, String... names) {
+            return firstMatching(target, Objects::nonNull, names);
+        }
+
+        /**
+         * Invokes the given getters in order and returns the first value accepted by the filter.
+         *
+         * @param target The object to read from (must be an instance of this class)
+         * @param filter Predicate a value must satisfy (null values are never passed)
+         * @param names Candidate getter names, in priority order
+         * @return The first accepted value, or null if no getter yields one
+         */
+        public Object firstMatching(Object target, Predicate<Object> filter, String... names) {
+            List<MethodHandle> chain = getterChains.computeIfAbsent(List.of(names), this::resolveChain);
+            for (MethodHandle handle : chain) {
+                try {
+                    Object value = (Object) handle.invokeExact(target);
+                    if (value != null && filter.test(value)) {
+                        return value;
+                    }
+                } catch (Throwable ignored) {
+                    // Treat failing accessors like absent values
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Invokes a setter if it exists.
+         *
+         * @return true if the setter exists and completed normally, false otherwise
+         */
+        public boolean set(Object target, String name, Class<?> parameterType, Object value) {
+            MethodHandle handle = setter(name, parameterType);
+            if (handle == null) {
+                return false;
+            }
+            try {
+                handle.invokeExact(target, value);
+                return true;
+            } catch (Throwable ignored) {
+                return false;
+            }
+        }
+
+        private List<MethodHandle> resolveChain(List<String> names) {
+            List<MethodHandle> chain = new ArrayList<>(names.size());
+            for (String name : names) {
+                MethodHandle handle = getter(name);
+                if (handle != null) {
+                    chain.add(handle);
+                }
+            }
+            return Collections.unmodifiableList(chain);
+        }
+
+        private Optional<MethodHandle> resolve(String name, MethodType adaptedType, Class<?>... parameterTypes) {
+            try {
+                Method method = type.getMethod(name, parameterTypes);
+                MethodHandle handle = MethodHandles.publicLookup().unreflect(method);
+                return Optional.of(handle.asType(adaptedType));
+            } catch (NoSuchMethodException | IllegalAccessException | SecurityException e) {
+                return Optional.empty();
+            }
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package shactor.graphdb;
+
+import org.eclipse.rdf4j.repository.Repository;
+import org.eclipse.rdf4j.repository.RepositoryConnection;
+import org.eclipse.rdf4j.repository.RepositoryException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Repository Registry Tests")
+class RepositoryRegistryTest {
+
+    /**
+     * In-memory stand-in for a remote repository that counts opened and closed connections.
+     */
+    private static final class FakeRepository {
+        final AtomicInteger opened = new AtomicInteger();
+        final AtomicInteger closed = new AtomicInteger();
+        final AtomicInteger rolledBack = new AtomicInteger();
+        final AtomicInteger concurrent = new AtomicInteger();
+        final AtomicInteger maxConcurrent = new AtomicInteger();
+        volatile boolean shutDown;
+
+        Repository repository() {
+            return (Repository) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Repository.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "getConnection":
+                                opened.incrementAndGet();
+                                return connection();
+                            case "shutDown":
+                                shutDown = true;
+                                return null;
+                            case "isInitialized":
+                                return true;
+                            case "toString":
+                                return "FakeRepository";
+                            default:
+                                return null;
+                        }
+                    });
+        }
+
+        private RepositoryConnection connection() {
+            boolean[] open = {true};
+            boolean[] active = {false};
+            return (RepositoryConnection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{RepositoryConnection.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "isOpen":
+                                return open[0];
+                            case "isActive":
+                                return active[0];
+                            case "begin":
+                                active[0] = true;
+                                return null;
+                            case "rollback":
+                                active[0] = false;
+                                rolledBack.incrementAndGet();
+                                return null;
+                            case "close":
+                                if (open[0]) closed.incrementAndGet();
+                                open[0] = false;
+                                return null;
+                            case "hashCode":
+                                return System.identityHashCode(proxy);
+                            case "equals":
+                                return proxy == args[0];
+                            default:
+                                return null;
+                        }
+                    });
+        }
+    }
+
+    @Test
+    @DisplayName("The same (url, repository) should share one repository and reuse its connections")
+    void shouldShareRepositoryAndReuseConnections() {
+        FakeRepository fake = new FakeRepository();
+        AtomicInteger repositoriesOpened = new AtomicInteger();
+        RepositoryRegistry registry = new RepositoryRegistry((url, name) -> {
+            repositoriesOpened.incrementAndGet();
+            return fake.repository();
+        }, 4, 0, 1000);
+
+        RepositoryPool pool = registry.pool("http://localhost:7200/", "LUBM");
+        assertSame(pool, registry.pool("http://localhost:7200", "LUBM"));
+        for (int i = 0; i < 10; i++) {
+            try (RepositoryPool.Lease lease = registry.borrow("http://localhost:7200/", "LUBM")) {
+                assertTrue(lease.getConnection().isOpen());
+            }
+        }
+
+        assertEquals(1, repositoriesOpened.get());
+        assertEquals(1, fake.opened.get());
+        RepositoryPool.Metrics metrics = pool.getMetrics();
+        assertEquals(10, metrics.getBorrows());
+        assertEquals(0, metrics.getActive());
+        assertEquals(1, metrics.getIdle());
+        assertEquals(1, registry.getMetrics().size());
+        registry.shutdown();
+    }
+
+    @Test
+    @DisplayName("Borrowers beyond the pool size should wait, and time out when nothing is returned")
+    void shouldBoundConnections() throws Exception {
+        FakeRepository fake = new FakeRepository();
+        RepositoryRegistry registry = new RepositoryRegistry((url, name) -> fake.repository(), 3, 0, 5000);
+        RepositoryPool pool = registry.pool("http://localhost:7200/", "LUBM");
+
+        ExecutorService executor = Executors.newFixedThreadPool(12);
+        CountDownLatch done = new CountDownLatch(60);
+        for (int i = 0; i < 60; i++) {
+            executor.execute(() -> {
+                try (RepositoryPool.Lease lease = pool.borrow()) {
+                    int now = fake.concurrent.incrementAndGet();
+                    fake.maxConcurrent.accumulateAndGet(now, Math::max);
+                    Thread.sleep(2);
+                    fake.concurrent.decrementAndGet();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        assertTrue(fake.maxConcurrent.get() <= 3, "max concurrent: " + fake.maxConcurrent.get());
+        assertTrue(fake.opened.get() <= 3, "connections opened: " + fake.opened.get());
+        assertEquals(60, pool.getMetrics().getBorrows());
+
+        RepositoryRegistry strict = new RepositoryRegistry((url, name) -> fake.repository(), 1, 0, 50);
+        try (RepositoryPool.Lease held = strict.borrow("http://localhost:7200/", "LUBM")) {
+            assertThrows(RepositoryException.class, () -> strict.borrow("http://localhost:7200/", "LUBM"));
+        }
+        assertEquals(1, strict.getMetrics().get(0).getTimeouts());
+        registry.shutdown();
+        strict.shutdown();
+    }
+
+    @Test
+    @DisplayName("Returned connections should be rolled back, broken ones discarded and idle ones evicted")
+    void shouldCleanUpReturnedAndIdleConnections() throws Exception {
+        FakeRepository fake = new FakeRepository();
+        RepositoryRegistry registry = new RepositoryRegistry((url, name) -> fake.repository(), 4, 1, 1000);
+        RepositoryPool pool = registry.pool("http://localhost:7200/", "LUBM");
+
+        try (RepositoryPool.Lease lease = pool.borrow()) {
+            lease.getConnection().begin();
+        }
+        assertEquals(1, fake.rolledBack.get());
+
+        try (RepositoryPool.Lease lease = pool.borrow()) {
+            lease.getConnection().close(); // broken by the caller
+        }
+        assertEquals(1, pool.getMetrics().getDiscarded());
+        assertEquals(0, pool.getMetrics().getIdle());
+
+        List<RepositoryPool.Lease> leases = new ArrayList<>();
+        for (int i = 0; i < 3; i++) leases.add(pool.borrow());
+        leases.forEach(RepositoryPool.Lease::close);
+        assertEquals(3, pool.getMetrics().getIdle());
+
+        Thread.sleep(5);
+        assertEquals(3, registry.evictIdle());
+        assertEquals(0, pool.getMetrics().getIdle());
+        assertEquals(3, pool.getMetrics().getEvicted());
+        assertEquals(fake.opened.get(), fake.closed.get());
+
+        RepositoryPool.Lease open = pool.borrow();
+        registry.shutdown();
+        assertTrue(fake.shutDown);
+        open.close();
+        assertEquals(fake.opened.get(), fake.closed.get());
+        assertThrows(RepositoryException.class, () -> registry.pool("http://localhost:7200/", "LUBM"));
+        assertThrows(IllegalStateException.class, open::getConnection);
+    }
+
+    @Test
+    @DisplayName("A repository that cannot answer a query should fail when it is first opened")
+    void shouldRejectMissingRepository() {
+        FakeRepository fake = new FakeRepository();
+        Repository missing = (Repository) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Repository.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getConnection":
+                            return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{RepositoryConnection.class},
+                                    (connection, m, a) -> {
+                                        if (m.getName().equals("prepareBooleanQuery")) {
+                                            throw new RepositoryException("Unknown repository: LUBM-Typo");
+                                        }
+                                        return null;
+                                    });
+                        case "shutDown":
+                            fake.shutDown = true;
+                            return null;
+                        default:
+                            return null;
+                    }
+                });
+        RepositoryRegistry registry = new RepositoryRegistry(
+                (url, name) -> RepositoryRegistry.verifyExists(missing, url, name), 2, 0, 100);
+
+        RepositoryException e = assertThrows(RepositoryException.class, () -> registry.pool("http://localhost:7200/", "LUBM-Typo"));
+        assertTrue(e.getMessage().contains("LUBM-Typo"));
+        assertTrue(fake.shutDown);
+        assertTrue(registry.getMetrics().isEmpty());
+        registry.shutdown();
+    }
+}
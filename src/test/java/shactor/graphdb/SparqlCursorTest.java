@@ -0,0 +1,194 @@
+package shactor.graphdb;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("SparqlCursor Tests")
+class SparqlCursorTest {
+
+    private static final String QUERY = "SELECT ?entity WHERE { ?entity a <http://example.org/Person> . }";
+    private static final Pattern PAGE = Pattern.compile("(?s).*LIMIT (\\d+) OFFSET (\\d+)$");
+
+    /**
+     * Answers paged queries from an in-memory result of the given size, where every solution
+     * yields {@code rowsPerSolution} rows, and records the queries it ran.
+     */
+    private static Function<String, List<String>> endpoint(int solutions, int rowsPerSolution, List<String> queries) {
+        return query -> {
+            queries.add(query);
+            Matcher matcher = PAGE.matcher(query);
+            int limit = solutions;
+            int offset = 0;
+            if (matcher.matches()) {
+                limit = Integer.parseInt(matcher.group(1));
+                offset = Integer.parseInt(matcher.group(2));
+            }
+            List<String> rows = new ArrayList<>();
+            for (int s = offset; s < Math.min(solutions, offset + limit); s++) {
+                for (int r = 0; r < rowsPerSolution; r++) rows.add(s + "." + r);
+            }
+            return rows;
+        };
+    }
+
+    @Test
+    @DisplayName("Only the pages covering the requested rows should be loaded, with a bounded page window")
+    void shouldLoadPagesOnDemand() {
+        List<String> queries = new ArrayList<>();
+        SparqlCursor<String> cursor = new SparqlCursor<>(QUERY, "?entity", endpoint(1_000_000, 1, queries),
+                countQuery -> 1_000_000L, true, 100, 3);
+
+        assertEquals(List.of("0.0", "1.0", "2.0"), cursor.fetch(0, 3));
+        assertEquals(1, queries.size());
+        assertTrue(queries.get(0).endsWith("\nORDER BY ?entity\nLIMIT 100 OFFSET 0"));
+
+        List<String> rows = cursor.fetch(150, 100);
+        assertEquals(100, rows.size());
+        assertEquals("150.0", rows.get(0));
+        assertEquals("249.0", rows.get(99));
+        assertEquals(3, queries.size());
+
+        for (int offset = 0; offset < 2_000; offset += 50) cursor.fetch(offset, 50);
+        assertTrue(cursor.getCachedPages() <= 3);
+        assertEquals(20, cursor.getPageQueries());
+        assertFalse(cursor.isExhausted());
+        assertEquals(1_000_000L, cursor.count());
+
+        // Scrolling back reloads an evicted page
+        assertEquals(List.of("0.0"), cursor.fetch(0, 1));
+        assertEquals(21, cursor.getPageQueries());
+    }
+
+    @Test
+    @DisplayName("Jumping far into a SELECT result should load only the page holding the rows")
+    void shouldLoadSelectPagesDirectly() {
+        List<String> queries = new ArrayList<>();
+        SparqlCursor<String> cursor = new SparqlCursor<>(QUERY, "?entity", endpoint(1_000_000, 1, queries),
+                countQuery -> 1_000_000L, true, 200, 3);
+
+        List<String> rows = cursor.fetch(100_000, 50);
+        assertEquals(50, rows.size());
+        assertEquals("100000.0", rows.get(0));
+        assertEquals(1, queries.size());
+        assertTrue(queries.get(0).endsWith("LIMIT 200 OFFSET 100000"));
+
+        // Reading across the end loads the last page and the empty one after it
+        assertEquals(50, cursor.fetch(999_950, 100).size());
+        assertEquals(3, cursor.getPageQueries());
+        assertTrue(cursor.isExhausted());
+        assertEquals(1_000_000L, cursor.count());
+    }
+
+    @Test
+    @DisplayName("Pages should be ordered by the key variables, or by all variables when none are given")
+    void shouldOrderPages() {
+        SparqlCursor<String> keyed = new SparqlCursor<>(QUERY, "?entity", query -> List.of(), null, true, 10, 1);
+        assertEquals(QUERY + "\nORDER BY ?entity\nLIMIT 10 OFFSET 20", keyed.pageQuery(2));
+
+        String construct = "PREFIX ex: <http://example.org/>\nCONSTRUCT WHERE { ?s a ex:C . ?s a ?types . ?s ex:p ?o . }";
+        SparqlCursor<String> derived = new SparqlCursor<>(construct, null, query -> List.of(), null, false, 10, 1);
+        assertEquals(construct + "\nORDER BY ?s ?types ?o\nLIMIT 10 OFFSET 0", derived.pageQuery(0));
+
+        String ordered = "SELECT ?x WHERE { ?x ?p ?o } ORDER BY DESC(?x)";
+        SparqlCursor<String> own = new SparqlCursor<>(ordered, "?x", query -> List.of(), null, true, 10, 1);
+        assertEquals(ordered + "\nLIMIT 10 OFFSET 10", own.pageQuery(1));
+    }
+
+    @Test
+    @DisplayName("A short last page should end the result and fix the count")
+    void shouldDetectEndOfResult() {
+        List<String> queries = new ArrayList<>();
+        AtomicInteger counts = new AtomicInteger();
+        SparqlCursor<String> cursor = new SparqlCursor<>(QUERY, "?entity", endpoint(250, 1, queries),
+                countQuery -> counts.incrementAndGet() * 1000L, true, 100, 10);
+
+        assertEquals(50, cursor.fetch(200, 100).size());
+        assertTrue(cursor.isExhausted());
+        assertEquals(250, cursor.count());
+        assertEquals(0, counts.get());
+        assertTrue(cursor.fetch(250, 10).isEmpty());
+        assertEquals(1, queries.size());
+    }
+
+    @Test
+    @DisplayName("CONSTRUCT pages with several rows per solution should map rows to the right pages")
+    void shouldPageConstructRows() {
+        List<String> queries = new ArrayList<>();
+        SparqlCursor<String> cursor = new SparqlCursor<>("CONSTRUCT WHERE { ?s a <http://example.org/C> . ?s ?p ?o . }", null,
+                endpoint(35, 3, queries), null, false, 10, 2);
+
+        assertEquals(-1, cursor.count());
+        List<String> expected = IntStream.range(0, 35).boxed()
+                .flatMap(s -> IntStream.range(0, 3).mapToObj(r -> s + "." + r))
+                .collect(Collectors.toList());
+        List<String> all = new ArrayList<>();
+        for (int offset = 0; ; offset += 7) {
+            List<String> rows = cursor.fetch(offset, 7);
+            if (rows.isEmpty()) break;
+            all.addAll(rows);
+        }
+        assertEquals(expected, all);
+        assertTrue(cursor.isExhausted());
+        assertEquals(105, cursor.count());
+        assertEquals(List.of("20.1", "20.2", "21.0"), cursor.fetch(61, 3));
+    }
+
+    @Test
+    @DisplayName("COUNT queries should wrap the query and keep its prologue; LIMITed queries are not paged")
+    void shouldBuildCountAndUnpagedQueries() {
+        SparqlCursor<String> prefixed = new SparqlCursor<>(
+                "PREFIX foaf: <http://xmlns.com/foaf/0.1/>\nSELECT ?p WHERE { ?p a foaf:Person }", "?p",
+                query -> List.of(), query -> 0L, true, 100, 1);
+        assertEquals("PREFIX foaf: <http://xmlns.com/foaf/0.1/>\nSELECT (COUNT(*) AS ?count) WHERE {\n"
+                + "SELECT ?p WHERE { ?p a foaf:Person }\n}", prefixed.countQuery());
+
+        List<String> queries = new ArrayList<>();
+        SparqlCursor<String> limited = new SparqlCursor<>(QUERY + " LIMIT 30", "?entity", endpoint(1000, 1, queries),
+                null, true, 10, 1);
+        assertEquals(20, limited.fetch(0, 20).size());
+        assertTrue(limited.isExhausted());
+        assertEquals(1, queries.size());
+        assertFalse(queries.get(0).contains("OFFSET"));
+    }
+
+    @Test
+    @DisplayName("A failed COUNT should report an unknown count and not be retried")
+    void shouldReportFailedCountAsUnknown() {
+        AtomicInteger counts = new AtomicInteger();
+        SparqlCursor<String> cursor = new SparqlCursor<>(QUERY, "?entity", endpoint(500, 1, new ArrayList<>()), countQuery -> {
+            counts.incrementAndGet();
+            throw new IllegalStateException("query timed out");
+        }, true, 100, 4);
+
+        assertEquals(-1, cursor.count());
+        assertEquals(-1, cursor.count());
+        assertEquals(1, counts.get());
+    }
+
+    @Test
+    @DisplayName("A failed page should not end the result")
+    void shouldRetryFailedPages() {
+        AtomicInteger calls = new AtomicInteger();
+        List<String> queries = new ArrayList<>();
+        Function<String, List<String>> endpoint = endpoint(500, 1, queries);
+        SparqlCursor<String> cursor = new SparqlCursor<>(QUERY, "?entity", query -> {
+            if (calls.incrementAndGet() == 1) throw new IllegalStateException("connection reset");
+            return endpoint.apply(query);
+        }, null, true, 100, 4);
+
+        assertTrue(cursor.fetch(0, 10).isEmpty());
+        assertFalse(cursor.isExhausted());
+        assertEquals(10, cursor.fetch(0, 10).size());
+    }
+}
@@ -0,0 +1,86 @@
+package shactor.utils;
+
+import com.vaadin.flow.server.StreamResource;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("DownloadUtil Tests")
+class DownloadUtilTest {
+
+    private static final String CONTENT = "@prefix sh: <http://www.w3.org/ns/shacl#> .\n".repeat(200);
+
+    @Test
+    @DisplayName("Gzip resources should compress the streamed content")
+    void gzipResourceShouldCompress() throws Exception {
+        StreamResource resource = DownloadUtil.resource("shapes.ttl",
+                (out, session) -> out.write(CONTENT.getBytes(StandardCharsets.UTF_8)), true);
+        assertEquals("shapes.ttl.gz", resource.getName());
+
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        resource.getWriter().accept(response, null);
+        assertTrue(response.size() < CONTENT.length() / 10);
+        assertEquals(CONTENT, gunzip(response.toByteArray()));
+    }
+
+    @Test
+    @DisplayName("Plain resources should pass the content through")
+    void plainResourceShouldPassThrough() throws Exception {
+        StreamResource resource = DownloadUtil.resource("shapes.shex",
+                (out, session) -> out.write(CONTENT.getBytes(StandardCharsets.UTF_8)), false);
+        assertEquals("shapes.shex", resource.getName());
+
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        resource.getWriter().accept(response, null);
+        assertEquals(CONTENT, response.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("File resources should stream the file at download time")
+    void fileResourceShouldStreamFile(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("stats.csv");
+        Files.writeString(file, "a,b\n1,2\n");
+        StreamResource resource = DownloadUtil.fileResource(file.toFile());
+
+        // Changes before the download are visible: nothing is read up front
+        Files.writeString(file, CONTENT);
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        resource.getWriter().accept(response, null);
+        String downloaded = resource.getName().endsWith(".gz")
+                ? gunzip(response.toByteArray())
+                : response.toString(StandardCharsets.UTF_8);
+        assertEquals(CONTENT, downloaded);
+
+        assertThrows(RuntimeException.class, () -> DownloadUtil.fileResource(new File(dir.toFile(), "missing.csv")));
+    }
+
+    @Test
+    @DisplayName("File writers should be compressible per download")
+    void fileWriterShouldBeCompressible(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("stats.csv");
+        Files.writeString(file, CONTENT);
+        StreamResource resource = DownloadUtil.resource("stats.csv", DownloadUtil.fileWriter(file.toFile()), true);
+        assertEquals("stats.csv.gz", resource.getName());
+
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        resource.getWriter().accept(response, null);
+        assertEquals(CONTENT, gunzip(response.toByteArray()));
+        assertThrows(RuntimeException.class, () -> DownloadUtil.fileWriter(new File(dir.toFile(), "missing.csv")));
+    }
+
+    private static String gunzip(byte[] bytes) throws Exception {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
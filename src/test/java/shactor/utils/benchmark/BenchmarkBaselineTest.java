@@ -0,0 +1,100 @@
+package shactor.utils.benchmark;
+
+import cs.qse.common.structure.NS;
+import cs.qse.common.structure.ShaclOrListItem;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BenchmarkBaselineTest {
+
+    @Test
+    @DisplayName("Fingerprint depends on the shapes, not on their iteration order")
+    void fingerprint_orderIndependent() {
+        Set<NS> shapes = SyntheticNodeShapes.generate(SyntheticNodeShapes.Profile.LUBM, 5L);
+        List<NS> reversed = new ArrayList<>(shapes);
+        Collections.reverse(reversed);
+
+        String fingerprint = BenchmarkBaseline.fingerprint(shapes);
+        assertEquals(fingerprint, BenchmarkBaseline.fingerprint(new LinkedHashSet<>(reversed)));
+        assertTrue(fingerprint.startsWith("ns22-ps"), fingerprint);
+        assertNotEquals(fingerprint, BenchmarkBaseline.fingerprint(SyntheticNodeShapes.generate(SyntheticNodeShapes.Profile.LUBM, 6L)));
+    }
+
+    @Test
+    @DisplayName("Fingerprint covers the constraints of OR-list items")
+    void fingerprint_coversOrListItems() {
+        Set<NS> shapes = SyntheticNodeShapes.generate(SyntheticNodeShapes.Profile.LUBM.withOrLists(0.5, 3), 5L);
+        String fingerprint = BenchmarkBaseline.fingerprint(shapes);
+        ShaclOrListItem item = shapes.stream()
+                .flatMap(ns -> ns.getPropertyShapes().stream())
+                .filter(ps -> ps.getShaclOrListItems() != null && !ps.getShaclOrListItems().isEmpty())
+                .findFirst().orElseThrow()
+                .getShaclOrListItems().get(0);
+
+        item.setDataTypeOrClass("http://example.org/OtherClass");
+        String changedClass = BenchmarkBaseline.fingerprint(shapes);
+        assertNotEquals(fingerprint, changedClass);
+
+        item.setNodeKind("BlankNode");
+        assertNotEquals(changedClass, BenchmarkBaseline.fingerprint(shapes));
+    }
+
+    @Test
+    @DisplayName("Saved baselines load back with the same samples, keyed by formatter, input and JVM")
+    void saveAndLoad_roundTrip(@TempDir Path dir) throws Exception {
+        BenchmarkBaseline baselines = new BenchmarkBaseline(dir, "17-test");
+        RuntimeStats stats = RuntimeStats.ofSamples(List.of(
+                new RuntimeStats.Sample(1.5, 1.2, 1000, 0, 0, 200, 10),
+                new RuntimeStats.Sample(2.5, 2.0, 1200, 1, 3.0, 200, 10)));
+
+        Path file = baselines.save("SHACL direct", "ns1-ps10-abc", stats);
+        assertEquals(baselines.fileFor("SHACL direct", "ns1-ps10-abc"), file);
+        assertTrue(file.getFileName().toString().contains("17-test"));
+
+        RuntimeStats loaded = baselines.load("SHACL direct", "ns1-ps10-abc").orElseThrow();
+        assertEquals(stats.getSamplesMs(), loaded.getSamplesMs());
+        assertEquals(1100.0, loaded.getMeanAllocatedBytes());
+        assertEquals(Optional.empty(), baselines.load("SHACL direct", "other-input"));
+        assertEquals(Optional.empty(), new BenchmarkBaseline(dir, "21-test").load("SHACL direct", "ns1-ps10-abc"));
+
+        Files.writeString(file, Files.readString(file).replace("\"schemaVersion\" : 1", "\"schemaVersion\" : 99"));
+        assertThrows(IllegalArgumentException.class, () -> baselines.load("SHACL direct", "ns1-ps10-abc"));
+    }
+
+    @Test
+    @DisplayName("Command line check stores baselines and compares against them")
+    void regressionCheck_updateThenCompare(@TempDir Path dir) throws Exception {
+        Map<String, String> options = BenchmarkRegressionCheck.parseOptions(new String[]{
+                "--input=preset:LUBM", "--iterations=3", "--warmup=0", "--baselines=" + dir, "--update"});
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(buffer, true, StandardCharsets.UTF_8);
+
+        assertEquals(0, BenchmarkRegressionCheck.run(options, out));
+        assertTrue(buffer.toString(StandardCharsets.UTF_8).contains("no baseline"));
+        try (var files = Files.list(dir)) {
+            assertEquals(3, files.count());
+        }
+
+        options.remove("update");
+        buffer.reset();
+        BenchmarkRegressionCheck.run(options, out);
+        assertTrue(buffer.toString(StandardCharsets.UTF_8).contains("ShEx:"));
+        assertThrows(IllegalArgumentException.class, () -> BenchmarkRegressionCheck.parseOptions(new String[]{"oops"}));
+    }
+}
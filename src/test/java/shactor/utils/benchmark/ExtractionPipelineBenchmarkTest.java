@@ -0,0 +1,43 @@
+package shactor.utils.benchmark;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExtractionPipelineBenchmarkTest {
+
+    @Test
+    @DisplayName("Rejects missing datasets and out-of-range thresholds")
+    void constructor_validatesArguments(@TempDir Path dir) throws Exception {
+        Path dataset = Files.writeString(dir.resolve("tiny.nt"),
+                "<http://ex.org/a> <http://www.w3.org/1999/02/22-rdf-syntax-ns#type> <http://ex.org/C> .\n");
+
+        assertThrows(IllegalArgumentException.class, () -> new ExtractionPipelineBenchmark(dir.resolve("missing.nt"), 10, 0.25));
+        assertThrows(IllegalArgumentException.class, () -> new ExtractionPipelineBenchmark(dataset, -1, 0.25));
+        assertThrows(IllegalArgumentException.class, () -> new ExtractionPipelineBenchmark(dataset, 10, 25));
+        assertDoesNotThrow(() -> new ExtractionPipelineBenchmark(dataset, 10, 0.25));
+    }
+
+    @Test
+    @DisplayName("Report and CSV list every stage of every run")
+    void reportAndCsv_listStages() {
+        List<ExtractionPipelineBenchmark.StageResult> run = List.of(
+                new ExtractionPipelineBenchmark.StageResult("entityExtraction", 12.5, 20.0, 64L << 20, -1, 17246),
+                new ExtractionPipelineBenchmark.StageResult("formatShEx", 3.25, 3.0, 80L << 20, 52_000, 51_000));
+
+        String report = ExtractionPipelineBenchmark.report(run);
+        assertTrue(report.contains("entityExtraction"));
+        assertTrue(report.contains("64.0"));
+
+        String[] csv = ExtractionPipelineBenchmark.toCsv(List.of(run, run)).split("\n");
+        assertEquals(5, csv.length);
+        assertEquals("run,stage,wall_ms,cpu_ms,peak_heap_bytes,output_bytes,output_items", csv[0]);
+        assertEquals("1,formatShEx,3.250,3.000,83886080,52000,51000", csv[4]);
+    }
+}
@@ -0,0 +1,71 @@
+package shactor.utils.benchmark;
+
+import cs.qse.common.structure.NS;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import shactor.utils.formatters.ShExFormatter;
+import shactor.utils.formatters.ShExJFormatter;
+import shactor.utils.formatters.ShapeFormatter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FormatterPipelineTest {
+
+    private static final Set<NS> INPUT = SyntheticNodeShapes.generate(SyntheticNodeShapes.Profile.LUBM, 3L);
+
+    @Test
+    @DisplayName("Input is loaded only during pipeline creation, never while formatting")
+    void load_isMemoized() {
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<Set<NS>> source = () -> {
+            loads.incrementAndGet();
+            return INPUT;
+        };
+
+        FormatterPipeline pipeline = FormatterPipeline.load(source, 3);
+        assertEquals(3, loads.get());
+        assertEquals(3, pipeline.getLoadStats().getSamplesMs().size());
+
+        pipeline.compare(4, 1, new ShExFormatter(), new ShExJFormatter());
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    @DisplayName("Every stage is timed per formatter, results keep argument order")
+    void compare_timesAllStages() {
+        FormatterPipeline pipeline = FormatterPipeline.load(() -> INPUT, 1);
+        Map<String, FormatterPipeline.Result> results = pipeline.compare(5, 1, new ShExJFormatter(), new ShExFormatter());
+
+        assertEquals(List.of("ShExJ", "ShEx"), List.copyOf(results.keySet()));
+        for (FormatterPipeline.Result result : results.values()) {
+            for (FormatterPipeline.Stage stage : FormatterPipeline.Stage.values()) {
+                int expected = stage == FormatterPipeline.Stage.LOAD ? 1 : 5;
+                assertEquals(expected, result.getStats(stage).getSamplesMs().size(), result.getName() + " " + stage);
+            }
+            assertTrue(result.getStats(FormatterPipeline.Stage.FORMAT).hasResourceMetrics());
+        }
+        String report = FormatterPipeline.report(results);
+        assertTrue(report.contains("FORMAT"));
+        assertTrue(report.contains("ENCODE"));
+    }
+
+    @Test
+    @DisplayName("A formatter that rejects the input fails the validate stage")
+    void run_rejectsUnformattableInput() {
+        ShapeFormatter rejecting = new ShExFormatter() {
+            @Override
+            public boolean canFormat(Set<NS> nodeShapes) {
+                return false;
+            }
+        };
+        FormatterPipeline pipeline = FormatterPipeline.of(INPUT);
+        assertThrows(IllegalArgumentException.class, () -> pipeline.run(rejecting, 2, 0));
+        assertThrows(IllegalArgumentException.class, () -> FormatterPipeline.load(() -> null, 1));
+    }
+}
@@ -6,7 +6,6 @@ import org.junit.jupiter.api.Test;
 import shactor.utils.formatters.ShExFormatter;
 import shactor.utils.formatters.ShaclFormatter;
 
-import java.util.Collections;
 import java.util.Set;
 import java.util.function.Supplier;
 import shactor.utils.benchmark.NodeShapesSource;
@@ -15,8 +14,8 @@ import shactor.utils.benchmark.NodeShapesSource;
  * Demonstrates simple runtime measurements for ShaclFormatter and ShExFormatter.
  *
  * This test is disabled by default to avoid slowing down CI. Enable locally by
- * removing @Disabled or running it explicitly from your IDE. Replace the inputSupplier
- * with real NodeShapes from your pipeline for meaningful results.
+ * removing @Disabled or running it explicitly from your IDE. Without an app snapshot the
+ * measurements run on synthetic shapes from {@link SyntheticNodeShapes}.
  */
 @Disabled("Benchmark test - enable and run locally as needed")
 class FormatterRuntimeTest {
@@ -30,10 +29,10 @@ class FormatterRuntimeTest {
 
         Supplier<Set<NS>> inputSupplier = available
                 ? NodeShapesSource.fromAppCache()
-                : () -> Collections.emptySet();
+                : syntheticFallback();
 
         if (!available) {
-            System.out.println("[FormatterRuntimeTest][WARN] Snapshot not found or empty. Start the app, open a view to generate shapes, then rerun this test.");
+            System.out.println("[FormatterRuntimeTest][WARN] Snapshot not found or empty. Using synthetic DBpedia-like shapes instead.");
         } else {
             // One-time load to report size
             Set<NS> sample = inputSupplier.get();
@@ -54,4 +53,31 @@ class FormatterRuntimeTest {
 
         System.out.println("[FormatterRuntimeTest] Runtime comparison:\n" + FormatterRuntime.report(result));
     }
+
+    @Test
+    void compareDirectAndJenaShaclWriterRuntime() {
+        boolean available = NodeShapesSource.appCacheAvailable();
+        Supplier<Set<NS>> inputSupplier = available
+                ? NodeShapesSource.fromAppCache()
+                : syntheticFallback();
+
+        if (!available) {
+            System.out.println("[FormatterRuntimeTest][WARN] Snapshot not found or empty. Using synthetic DBpedia-like shapes instead.");
+        }
+
+        FormatterRuntime.CompareResult result = FormatterRuntime.compare(
+                "SHACL (direct)", new ShaclFormatter(ShaclFormatter.Mode.DIRECT),
+                "SHACL (jena)", new ShaclFormatter(ShaclFormatter.Mode.JENA),
+                inputSupplier,
+                100,   // iterations
+                5,    // repetitions per iteration
+                3     // warmup iterations
+        );
+
+        System.out.println("[FormatterRuntimeTest] SHACL writer comparison:\n" + FormatterRuntime.report(result));
+    }
+
+    private static Supplier<Set<NS>> syntheticFallback() {
+        return SyntheticNodeShapes.supplier(SyntheticNodeShapes.preset("DBpedia"), 42L);
+    }
 }
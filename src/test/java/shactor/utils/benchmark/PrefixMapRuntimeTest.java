@@ -0,0 +1,96 @@
+package shactor.utils.benchmark;
+
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import shactor.utils.formatters.PrefixMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Micro-measurement of the per-IRI cost of CURIE compaction.
+ *
+ * Compares the former startsWith chain with regex fallback against PrefixMap on a
+ * cold map (trie lookup) and a warm map (memoized). Disabled by default like the
+ * other runtime tests; run locally as needed.
+ */
+@Disabled("Benchmark test - enable and run locally as needed")
+class PrefixMapRuntimeTest {
+
+    private static final int DISTINCT_IRIS = 2_000;
+    private static final int ROUNDS = 200;
+
+    @Test
+    void measurePerIriCompactionCost() {
+        List<String> iris = new ArrayList<>(DISTINCT_IRIS);
+        for (int i = 0; i < DISTINCT_IRIS; i++) {
+            switch (i % 4) {
+                case 0: iris.add("http://swat.cse.lehigh.edu/onto/univ-bench.owl#prop" + i); break;
+                case 1: iris.add("http://www.w3.org/2001/XMLSchema#type" + i); break;
+                case 2: iris.add("http://dbpedia.org/ontology/Class" + i); break;
+                default: iris.add("http://example.org/other/path/x" + i);
+            }
+        }
+
+        // Warmup
+        for (int r = 0; r < 20; r++) {
+            runLegacy(iris);
+            runPrefixMap(PrefixMap.shexDefaults(), iris);
+        }
+
+        List<Double> legacy = new ArrayList<>();
+        List<Double> cold = new ArrayList<>();
+        List<Double> warm = new ArrayList<>();
+        PrefixMap shared = PrefixMap.shexDefaults();
+        for (int r = 0; r < ROUNDS; r++) {
+            legacy.add(runLegacy(iris));
+            cold.add(runPrefixMap(PrefixMap.shexDefaults(), iris));
+            warm.add(runPrefixMap(shared, iris));
+        }
+
+        System.out.println("[PrefixMapRuntimeTest] per-IRI cost (ns): legacy=" + format(legacy)
+                + ", prefixMap(cold)=" + format(cold) + ", prefixMap(memoized)=" + format(warm));
+    }
+
+    private static String format(List<Double> nanosPerIri) {
+        RuntimeStats stats = new RuntimeStats(nanosPerIri);
+        return String.format(Locale.ROOT, "median %.1f / p95 %.1f", stats.getMedianMs(), stats.getP95Ms());
+    }
+
+    private static double runLegacy(List<String> iris) {
+        long sink = 0;
+        long start = System.nanoTime();
+        for (String iri : iris) {
+            sink += legacyToPrefixed(iri).length();
+        }
+        return perIri(start, sink, iris.size());
+    }
+
+    private static double runPrefixMap(PrefixMap prefixes, List<String> iris) {
+        long sink = 0;
+        long start = System.nanoTime();
+        for (String iri : iris) {
+            String curie = prefixes.compact(iri);
+            sink += curie != null ? curie.length() : iri.length();
+        }
+        return perIri(start, sink, iris.size());
+    }
+
+    private static double perIri(long start, long sink, int count) {
+        double nanos = System.nanoTime() - start;
+        if (sink == 42) System.out.print("");
+        return nanos / count;
+    }
+
+    // The mapping the ShEx formatter used before PrefixMap
+    private static String legacyToPrefixed(String s) {
+        if (s.startsWith("http://www.w3.org/1999/02/22-rdf-syntax-ns#")) return "rdf:" + s.substring(43);
+        if (s.startsWith("http://www.w3.org/2001/XMLSchema#")) return "xsd:" + s.substring(33);
+        if (s.startsWith("http://swat.cse.lehigh.edu/onto/univ-bench.owl#")) return "ub:" + s.substring(47);
+        if (s.startsWith("http://example.org/shapes/")) return "ex:" + s.substring(26);
+        if (s.contains("#")) return "ex:" + s.substring(s.lastIndexOf('#') + 1);
+        if (s.contains("/")) return "ex:" + s.substring(s.lastIndexOf('/') + 1);
+        return "ex:" + s.replaceAll("[^a-zA-Z0-9]", "_");
+    }
+}
@@ -0,0 +1,67 @@
+package shactor.utils.benchmark;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RegressionDetectorTest {
+
+    @Test
+    @DisplayName("Normal CDF matches reference values")
+    void normalCdf_referenceValues() {
+        assertEquals(0.5, RegressionDetector.normalCdf(0.0), 1e-7);
+        assertEquals(0.975002, RegressionDetector.normalCdf(1.96), 1e-6);
+        assertEquals(0.024998, RegressionDetector.normalCdf(-1.96), 1e-6);
+    }
+
+    @Test
+    @DisplayName("Mann-Whitney detects a shifted sample and ignores identical ones")
+    void mannWhitney_shiftAndNoShift() {
+        List<Double> low = range(1, 20);
+        List<Double> high = range(11, 30);
+        assertTrue(RegressionDetector.mannWhitneyGreater(high, low) < 0.01);
+        assertTrue(RegressionDetector.mannWhitneyGreater(low, high) > 0.99);
+        assertEquals(1.0, RegressionDetector.mannWhitneyGreater(List.of(2.0, 2.0), List.of(2.0, 2.0)));
+        assertEquals(1.0, RegressionDetector.mannWhitneyGreater(List.of(), low));
+    }
+
+    @Test
+    @DisplayName("Regression requires significance and a median increase beyond the threshold")
+    void compare_flagsOnlySignificantSlowdowns() {
+        RuntimeStats baseline = new RuntimeStats(noisy(100.0, 30, 1L));
+        RegressionDetector detector = new RegressionDetector(5.0, 0.01);
+
+        RegressionDetector.Verdict slower = detector.compare("fmt", baseline, new RuntimeStats(noisy(120.0, 30, 2L)));
+        assertTrue(slower.regression, slower.toString());
+        assertFalse(slower.improvement);
+
+        // Significant, but below the 5% threshold
+        RegressionDetector.Verdict slightly = detector.compare("fmt", baseline, new RuntimeStats(noisy(102.0, 30, 3L)));
+        assertFalse(slightly.regression, slightly.toString());
+
+        RegressionDetector.Verdict faster = detector.compare("fmt", baseline, new RuntimeStats(noisy(80.0, 30, 4L)));
+        assertFalse(faster.regression);
+        assertTrue(faster.improvement, faster.toString());
+
+        assertThrows(IllegalArgumentException.class, () -> new RegressionDetector(-1, 0.05));
+        assertThrows(IllegalArgumentException.class, () -> new RegressionDetector(5, 1.0));
+    }
+
+    private static List<Double> range(int from, int to) {
+        List<Double> values = new ArrayList<>();
+        for (int i = from; i <= to; i++) values.add((double) i);
+        return values;
+    }
+
+    private static List<Double> noisy(double center, int n, long seed) {
+        Random random = new Random(seed);
+        List<Double> values = new ArrayList<>();
+        for (int i = 0; i < n; i++) values.add(center + random.nextGaussian());
+        return values;
+    }
+}
@@ -0,0 +1,99 @@
+package shactor.utils.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import shactor.utils.formatters.ShExFormatter;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuntimeStatsTest {
+
+    @Test
+    @DisplayName("Summary statistics of 1..100 ms")
+    void summaryStatistics() {
+        List<Double> samples = new ArrayList<>();
+        for (int i = 100; i >= 1; i--) samples.add((double) i);
+        RuntimeStats stats = new RuntimeStats(samples);
+
+        assertEquals(50.0, stats.getMedianMs());
+        assertEquals(99.0, stats.getP99Ms());
+        assertEquals(100.0, stats.getMaxMs());
+        assertEquals(50.5, stats.getMeanMs(), 1e-9);
+        assertEquals(29.011, stats.getStdDevMs(), 1e-3);
+        // Normal approximation above 30 degrees of freedom: 1.96 * sd / sqrt(100)
+        assertEquals(1.96 * stats.getStdDevMs() / 10, stats.getConfidenceHalfWidthMs(), 1e-9);
+        assertFalse(stats.hasResourceMetrics());
+        assertEquals(-1.0, stats.getMeanAllocatedBytes());
+    }
+
+    @Test
+    @DisplayName("Small samples use Student's t for the confidence interval")
+    void confidenceInterval_smallSample() {
+        RuntimeStats stats = new RuntimeStats(List.of(1.0, 2.0, 3.0));
+        // t(0.975, 2) = 4.303, sd = 1
+        assertEquals(4.303 / Math.sqrt(3), stats.getConfidenceHalfWidthMs(), 1e-9);
+        double[] ci = stats.getConfidenceIntervalMs();
+        assertEquals(2.0 - stats.getConfidenceHalfWidthMs(), ci[0], 1e-9);
+        assertEquals(0.0, new RuntimeStats(List.of(5.0)).getConfidenceHalfWidthMs());
+    }
+
+    @Test
+    @DisplayName("Histogram buckets are powers of two and count every sample")
+    void histogram_powerOfTwoBuckets() {
+        RuntimeStats stats = new RuntimeStats(List.of(0.9, 1.0, 1.5, 3.0, 7.9, 8.0));
+        Map<Double, Integer> histogram = stats.getHistogram();
+
+        assertEquals(List.of(1.0, 2.0, 4.0, 8.0), new ArrayList<>(histogram.keySet()));
+        assertEquals(List.of(2, 1, 1, 2), new ArrayList<>(histogram.values()));
+    }
+
+    @Test
+    @DisplayName("FormatterRuntime records allocation, output size and exports CSV/JSON")
+    void measureFormatter_recordsResourcesAndExports(@TempDir Path dir) throws Exception {
+        var input = SyntheticNodeShapes.supplier(SyntheticNodeShapes.Profile.DEFAULT.withNodeShapes(50), 1L);
+        RuntimeStats stats = FormatterRuntime.measureFormatter(new ShExFormatter(), input, 4, 2, 1);
+
+        assertTrue(stats.hasResourceMetrics());
+        assertEquals(4, stats.getSamples().size());
+        String output = new ShExFormatter().formatShapes(input.get());
+        assertEquals(output.getBytes(StandardCharsets.UTF_8).length, stats.getMeanOutputBytes(), 1e-9);
+        assertTrue(stats.getTotalGcCount() >= 0);
+        if (stats.getMeanAllocatedBytes() >= 0) {
+            // Formatting cannot allocate less than the output it returns
+            assertTrue(stats.getMeanAllocatedBytes() >= output.length());
+            assertTrue(stats.getAllocatedBytesPerPropertyShape() > 0);
+        }
+
+        Path csv = dir.resolve("stats.csv");
+        Path json = dir.resolve("out/stats.json");
+        stats.export(csv);
+        stats.export(json);
+
+        List<String> lines = Files.readAllLines(csv);
+        assertEquals(5, lines.size());
+        assertTrue(lines.get(0).startsWith("iteration,wall_ms,cpu_ms,allocated_bytes"));
+
+        JsonNode root = new ObjectMapper().readTree(json.toFile());
+        assertEquals(4, root.get("n").asInt());
+        assertEquals(4, root.get("samples").size());
+        assertEquals(2, root.get("ci95Ms").size());
+        assertTrue(root.has("meanAllocatedBytes"));
+    }
+
+    @Test
+    @DisplayName("UTF-8 length matches String.getBytes without encoding")
+    void utf8Length_matchesEncoder() {
+        String text = "ascii é € 😀 end";
+        assertEquals(text.getBytes(StandardCharsets.UTF_8).length, FormatterRuntime.utf8Length(text));
+    }
+}
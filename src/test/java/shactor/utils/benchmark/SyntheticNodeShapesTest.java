@@ -0,0 +1,92 @@
+package shactor.utils.benchmark;
+
+import cs.qse.common.structure.NS;
+import cs.qse.common.structure.PS;
+import cs.qse.common.structure.ShaclOrListItem;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import shactor.utils.formatters.ShExFormatter;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SyntheticNodeShapesTest {
+
+    @Test
+    @DisplayName("Same profile and seed produce identical shapes; another seed does not")
+    void generate_isDeterministic() {
+        SyntheticNodeShapes.Profile profile = SyntheticNodeShapes.preset("DBpedia").withNodeShapes(200);
+        ShExFormatter formatter = new ShExFormatter();
+
+        String first = formatter.formatShapes(SyntheticNodeShapes.generate(profile, 7L));
+        String second = formatter.formatShapes(SyntheticNodeShapes.generate(profile, 7L));
+        String other = formatter.formatShapes(SyntheticNodeShapes.generate(profile, 8L));
+
+        assertEquals(first, second);
+        assertNotEquals(first, other);
+    }
+
+    @Test
+    @DisplayName("Generated shapes follow the profile's counts, ratios and namespaces")
+    void generate_followsProfile() {
+        SyntheticNodeShapes.Profile profile = SyntheticNodeShapes.Profile.DEFAULT
+                .withNodeShapes(2_000)
+                .withPropertiesPerShape(10)
+                .withOrLists(0.25, 4)
+                .withNamespaces(3);
+        Set<NS> shapes = SyntheticNodeShapes.generate(profile, 42L);
+
+        assertEquals(2_000, shapes.size());
+        List<PS> props = new ArrayList<>();
+        Set<String> namespaces = new HashSet<>();
+        for (NS ns : shapes) {
+            assertFalse(ns.getPropertyShapes().isEmpty());
+            props.addAll(ns.getPropertyShapes());
+            String target = ns.getTargetClass().stringValue();
+            namespaces.add(target.substring(0, target.lastIndexOf('/') + 1));
+        }
+        assertEquals(3, namespaces.size());
+
+        // Mean of uniform [1, 19] is 10
+        double perShape = props.size() / (double) shapes.size();
+        assertTrue(perShape > 9 && perShape < 11, "PS per NS: " + perShape);
+
+        long withOr = props.stream().filter(PS::getHasOrList).count();
+        double orRatio = withOr / (double) props.size();
+        assertTrue(orRatio > 0.22 && orRatio < 0.28, "OR-list ratio: " + orRatio);
+
+        for (PS ps : props) {
+            assertTrue(ps.getConfidence() > 0 && ps.getConfidence() <= 1.0);
+            assertTrue(ps.getSupport() >= 1);
+            if (ps.getHasOrList()) {
+                List<ShaclOrListItem> items = ps.getShaclOrListItems();
+                assertTrue(items.size() >= 2 && items.size() <= 4);
+                assertNull(ps.getDataTypeOrClass());
+            } else {
+                assertNotNull(ps.getDataTypeOrClass());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Presets exist for the datasets shown in the charts")
+    void preset_coversChartDatasets() {
+        assertEquals(22, SyntheticNodeShapes.preset("LUBM").getNodeShapes());
+        assertEquals(427, SyntheticNodeShapes.preset("DBpedia").getNodeShapes());
+        assertEquals(153, SyntheticNodeShapes.preset("YAGO-4").getNodeShapes());
+        assertThrows(IllegalArgumentException.class, () -> SyntheticNodeShapes.preset("unknown"));
+        assertThrows(IllegalArgumentException.class, () -> SyntheticNodeShapes.Profile.DEFAULT.withOrLists(1.5, 3));
+    }
+
+    @Test
+    @DisplayName("Supplier generates once and returns the same set")
+    void supplier_memoizes() {
+        var supplier = SyntheticNodeShapes.supplier(SyntheticNodeShapes.Profile.LUBM, 1L);
+        assertSame(supplier.get(), supplier.get());
+        assertEquals(22, supplier.get().size());
+    }
+}
@@ -0,0 +1,126 @@
+package shactor.utils.formatters;
+
+import cs.qse.common.structure.NS;
+import cs.qse.common.structure.PS;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("FormattedOutputCache Tests")
+class FormattedOutputCacheTest {
+
+    @Test
+    @DisplayName("Should serve structurally equal shapes from the cache")
+    void shouldHitForStructurallyEqualShapes() {
+        FormattedOutputCache cache = new FormattedOutputCache(1 << 20);
+        AtomicInteger formatted = new AtomicInteger();
+
+        String first = cache.getOrFormat(TestShapes.generate(10), "ShEx", () -> "doc" + formatted.incrementAndGet());
+        // Rebuilt NS/PS objects with the same content
+        String second = cache.getOrFormat(TestShapes.generate(10), "shex", () -> "doc" + formatted.incrementAndGet());
+
+        assertEquals("doc1", first);
+        assertEquals("doc1", second);
+        assertEquals(1, formatted.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    @DisplayName("Should miss when constraints, metrics or format differ")
+    void shouldMissForDifferentContent() {
+        FormattedOutputCache cache = new FormattedOutputCache(1 << 20);
+        Set<NS> shapes = TestShapes.generate(10);
+        cache.getOrFormat(shapes, "ShEx", () -> "a");
+
+        assertEquals("b", cache.getOrFormat(shapes, "SHACL", () -> "b"));
+
+        PS ps = shapes.iterator().next().getPropertyShapes().get(0);
+        ps.setConfidence(0.75);
+        assertEquals("c", cache.getOrFormat(shapes, "ShEx", () -> "c"));
+
+        ps.setPath("http://example.org/other");
+        assertEquals("d", cache.getOrFormat(shapes, "ShEx", () -> "d"));
+        assertEquals(0, cache.getHits());
+        assertEquals(4, cache.getMisses());
+    }
+
+    @Test
+    @DisplayName("Should evict least recently used entries by size")
+    void shouldEvictBySize() {
+        // 4 KB budget, 1 KB per entry limit; each document is 400 chars (800 bytes)
+        FormattedOutputCache cache = new FormattedOutputCache(4096);
+        String doc = "x".repeat(400);
+        for (int i = 1; i <= 6; i++) {
+            cache.getOrFormat(TestShapes.generate(i), "ShEx", () -> doc);
+        }
+        assertTrue(cache.getSizeBytes() <= 4096);
+        assertEquals(5, cache.size());
+        assertEquals(1, cache.getEvictions());
+
+        // Oversized documents are never cached
+        String large = "y".repeat(1000);
+        cache.getOrFormat(TestShapes.generate(20), "ShEx", () -> large);
+        cache.getOrFormat(TestShapes.generate(20), "ShEx", () -> large);
+        assertEquals(0, cache.getHits());
+    }
+
+    @Test
+    @DisplayName("Streaming misses should be captured for later hits")
+    void streamingMissShouldBeCaptured() throws Exception {
+        FormattedOutputCache cache = new FormattedOutputCache(1 << 20);
+        ShExFormatter formatter = new ShExFormatter();
+        Set<NS> shapes = TestShapes.generate(5);
+
+        StringWriter first = new StringWriter();
+        cache.writeOrFormat(shapes, "ShEx", first, out -> formatter.formatShapes(shapes, out));
+        StringWriter second = new StringWriter();
+        cache.writeOrFormat(shapes, "ShEx", second, out -> fail("Expected a cache hit"));
+
+        assertEquals(formatter.formatShapes(shapes), first.toString());
+        assertEquals(first.toString(), second.toString());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    @DisplayName("Large streamed documents should not be captured")
+    void largeStreamedDocumentShouldNotBeCaptured() throws Exception {
+        // The budget would admit the document; the capture cap does not
+        FormattedOutputCache cache = new FormattedOutputCache(64L * 1024 * 1024);
+        Set<NS> shapes = TestShapes.generate(5);
+        String chunk = "z".repeat(1024);
+        int chunks = FormattedOutputCache.MAX_CAPTURE_CHARS / chunk.length() + 1;
+        AtomicInteger formatted = new AtomicInteger();
+        FormattedOutputCache.StreamingDocumentFormatter large = out -> {
+            formatted.incrementAndGet();
+            for (int i = 0; i < chunks; i++) {
+                out.write(chunk);
+            }
+        };
+
+        StringWriter first = new StringWriter();
+        cache.writeOrFormat(shapes, "ShEx", first, large);
+        cache.writeOrFormat(shapes, "ShEx", new StringWriter(), large);
+
+        assertEquals(chunks * chunk.length(), first.toString().length());
+        assertEquals(2, formatted.get());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    @DisplayName("A zero budget should disable caching")
+    void zeroBudgetShouldDisableCaching() {
+        FormattedOutputCache cache = new FormattedOutputCache(0);
+        AtomicInteger formatted = new AtomicInteger();
+        cache.getOrFormat(TestShapes.generate(3), "ShEx", () -> "doc" + formatted.incrementAndGet());
+        cache.getOrFormat(TestShapes.generate(3), "ShEx", () -> "doc" + formatted.incrementAndGet());
+        assertEquals(2, formatted.get());
+        assertEquals(0, cache.size());
+        assertThrows(IllegalArgumentException.class, () -> new FormattedOutputCache(-1));
+    }
+}
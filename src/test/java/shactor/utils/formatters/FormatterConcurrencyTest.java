@@ -0,0 +1,106 @@
+package shactor.utils.formatters;
+
+import cs.qse.common.structure.NS;
+import cs.qse.common.structure.PS;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Stress harness for the shared formatter singletons.
+ *
+ * N threads format different shape sets through the same formatter instances at the
+ * same time (as concurrent Vaadin sessions do). Every output must equal the output of a
+ * single-threaded run, and the input PropertyShape lists must not be modified.
+ */
+@DisplayName("Formatter Concurrency Tests")
+class FormatterConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int ROUNDS_PER_THREAD = 25;
+
+    @Test
+    @DisplayName("ShEx formatter should be reentrant across threads")
+    void shexFormatterShouldBeReentrant() throws Exception {
+        hammer(new ShExFormatter(ParallelShapeRenderer.SEQUENTIAL));
+    }
+
+    @Test
+    @DisplayName("ShEx formatter with parallel rendering should be reentrant across threads")
+    void parallelShexFormatterShouldBeReentrant() throws Exception {
+        hammer(new ShExFormatter(1));
+    }
+
+    @Test
+    @DisplayName("SHACL formatter should be reentrant across threads")
+    void shaclFormatterShouldBeReentrant() throws Exception {
+        hammer(new ShaclFormatter(ShaclFormatter.Mode.DIRECT, 1));
+        hammer(new ShaclFormatter(ShaclFormatter.Mode.JENA, ParallelShapeRenderer.SEQUENTIAL));
+    }
+
+    @Test
+    @DisplayName("ShEx formatter should not reorder the caller's property shapes")
+    void shexFormatterShouldNotMutateInput() {
+        Set<NS> shapes = TestShapes.generate(20);
+        List<List<PS>> before = snapshotPropertyShapeOrder(shapes);
+        new ShExFormatter().formatShapes(shapes);
+        assertEquals(before, snapshotPropertyShapeOrder(shapes));
+    }
+
+    private static void hammer(ShapeFormatter formatter) throws Exception {
+        // Distinct inputs per thread, so leaked helper shapes would show up in other documents
+        List<Set<NS>> inputs = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            Set<NS> shapes = TestShapes.generate(40 + t * 7, "Thread" + t + "Class");
+            inputs.add(shapes);
+            expected.add(formatter.formatShapes(shapes));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                final int index = t;
+                Callable<Integer> task = () -> {
+                    start.await();
+                    int mismatches = 0;
+                    for (int r = 0; r < ROUNDS_PER_THREAD; r++) {
+                        if (!expected.get(index).equals(formatter.formatShapes(inputs.get(index)))) {
+                            mismatches++;
+                        }
+                    }
+                    return mismatches;
+                };
+                results.add(pool.submit(task));
+            }
+            start.countDown();
+            for (int t = 0; t < THREADS; t++) {
+                assertEquals(0, results.get(t).get(60, TimeUnit.SECONDS).intValue(),
+                        formatter.getFormatName() + " output differed from single-threaded result for thread " + t);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static List<List<PS>> snapshotPropertyShapeOrder(Set<NS> shapes) {
+        List<List<PS>> order = new ArrayList<>();
+        for (NS ns : shapes) {
+            order.add(new ArrayList<>(ns.getPropertyShapes()));
+        }
+        return order;
+    }
+}
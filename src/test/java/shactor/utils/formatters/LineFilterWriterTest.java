@@ -0,0 +1,58 @@
+package shactor.utils.formatters;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the line based post-processing writer used by streaming downloads.
+ */
+@DisplayName("LineFilterWriter Tests")
+class LineFilterWriterTest {
+
+    @Test
+    @DisplayName("Should apply filter to every complete line")
+    void shouldApplyFilterToEveryLine() throws Exception {
+        StringWriter target = new StringWriter();
+        LineFilterWriter writer = new LineFilterWriter(target, String::toUpperCase);
+        writer.write("ab\ncd\n");
+        writer.finish();
+        assertEquals("AB\nCD\n", target.toString());
+    }
+
+    @Test
+    @DisplayName("Should not split a line across chunked writes")
+    void shouldNotSplitLineAcrossChunks() throws Exception {
+        StringWriter target = new StringWriter();
+        LineFilterWriter writer = new LineFilterWriter(target,
+                line -> line.replace("qse:confidence 1E0 ;", "qse:confidence \"1.0E0\"^^xsd:double ;"));
+        String turtle = "  qse:confidence 1E0 ;\n";
+        for (char c : turtle.toCharArray()) {
+            writer.write(c);
+            writer.flush();
+        }
+        writer.finish();
+        assertEquals("  qse:confidence \"1.0E0\"^^xsd:double ;\n", target.toString());
+    }
+
+    @Test
+    @DisplayName("Should emit trailing partial line on finish")
+    void shouldEmitTrailingPartialLineOnFinish() throws Exception {
+        StringWriter target = new StringWriter();
+        LineFilterWriter writer = new LineFilterWriter(target, line -> "[" + line + "]");
+        writer.write("a\nb");
+        assertEquals("[a\n]", target.toString());
+        writer.finish();
+        assertEquals("[a\n][b]", target.toString());
+    }
+
+    @Test
+    @DisplayName("Should reject null arguments")
+    void shouldRejectNullArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new LineFilterWriter(null, s -> s));
+        assertThrows(IllegalArgumentException.class, () -> new LineFilterWriter(new StringWriter(), null));
+    }
+}
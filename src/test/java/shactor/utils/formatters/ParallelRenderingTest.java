@@ -0,0 +1,57 @@
+package shactor.utils.formatters;
+
+import cs.qse.common.structure.NS;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies that parallel rendering produces exactly the same output as sequential rendering.
+ */
+@DisplayName("Parallel Rendering Tests")
+class ParallelRenderingTest {
+
+    @Test
+    @DisplayName("ShEx parallel output should equal sequential output")
+    void shexParallelOutputShouldEqualSequentialOutput() {
+        Set<NS> shapes = TestShapes.generate(600);
+        String sequential = new ShExFormatter(ParallelShapeRenderer.SEQUENTIAL).formatShapes(shapes);
+        String parallel = new ShExFormatter(1).formatShapes(shapes);
+        assertEquals(sequential, parallel);
+    }
+
+    @Test
+    @DisplayName("SHACL direct parallel output should equal sequential output")
+    void shaclParallelOutputShouldEqualSequentialOutput() throws Exception {
+        Set<NS> shapes = TestShapes.generate(600);
+        StringWriter sequential = new StringWriter();
+        new ShaclTurtleWriter(ParallelShapeRenderer.SEQUENTIAL).write(shapes, sequential);
+        StringWriter parallel = new StringWriter();
+        new ShaclTurtleWriter(1).write(shapes, parallel);
+        assertEquals(sequential.toString(), parallel.toString());
+    }
+
+    @Test
+    @DisplayName("Fragments should reach the sink in input order")
+    void fragmentsShouldReachSinkInInputOrder() throws Exception {
+        List<NS> shapes = new ArrayList<>(TestShapes.generate(5000));
+        List<String> seen = new ArrayList<>();
+        ParallelShapeRenderer.render(shapes, 1, ns -> ns.getIri().toString(), seen::add);
+        assertEquals(shapes.size(), seen.size());
+        for (int i = 0; i < shapes.size(); i++) {
+            assertEquals(shapes.get(i).getIri().toString(), seen.get(i));
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject non-positive thresholds")
+    void shouldRejectNonPositiveThresholds() {
+        assertThrows(IllegalArgumentException.class, () -> new ShExFormatter(0));
+    }
+}
@@ -0,0 +1,131 @@
+package shactor.utils.formatters;
+
+import cs.qse.common.structure.NS;
+import cs.qse.common.structure.PS;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("PrefixMap Tests")
+class PrefixMapTest {
+
+    private static final ValueFactory VF = SimpleValueFactory.getInstance();
+
+    @Test
+    @DisplayName("Should compact using the longest matching namespace")
+    void shouldCompactUsingLongestNamespace() {
+        Map<String, String> bindings = new LinkedHashMap<>();
+        bindings.put("a", "http://a.org/");
+        bindings.put("sub", "http://a.org/sub/");
+        PrefixMap prefixes = PrefixMap.of(bindings);
+
+        assertEquals("sub:Thing", prefixes.compact("http://a.org/sub/Thing"));
+        assertEquals("a:Other", prefixes.compact("http://a.org/Other"));
+        assertNull(prefixes.compact("http://b.org/Other"));
+    }
+
+    @Test
+    @DisplayName("Should fall back to a shorter namespace or null for invalid local names")
+    void shouldRejectInvalidLocalNames() {
+        Map<String, String> bindings = new LinkedHashMap<>();
+        bindings.put("a", "http://a.org/");
+        bindings.put("sub", "http://a.org/sub/");
+        PrefixMap prefixes = PrefixMap.of(bindings);
+
+        assertNull(prefixes.compact("http://a.org/sub/1st"));
+        assertNull(prefixes.compact("http://a.org/with space"));
+        assertNull(prefixes.compact("http://a.org/"));
+        // Repeated lookups are served from the memo and stay stable
+        assertEquals("sub:Thing", prefixes.compact("http://a.org/sub/Thing"));
+        assertEquals("sub:Thing", prefixes.compact("http://a.org/sub/Thing"));
+    }
+
+    @Test
+    @DisplayName("The memo should evict least recently used IRIs")
+    void memoShouldEvictLeastRecentlyUsed() {
+        PrefixMap prefixes = PrefixMap.shexDefaults();
+        String hot = PrefixMap.XSD_NAMESPACE + "string";
+        for (int i = 0; i <= PrefixMap.MAX_MEMO_ENTRIES * 2; i++) {
+            assertEquals("ub:C" + i, prefixes.compact(PrefixMap.UB_NAMESPACE + "C" + i));
+            assertEquals("xsd:string", prefixes.compact(hot));
+        }
+        assertEquals(PrefixMap.MAX_MEMO_ENTRIES, prefixes.memoSize());
+    }
+
+    @Test
+    @DisplayName("Should recognize prefixed names without regular expressions")
+    void shouldRecognizePrefixedNames() {
+        for (String value : List.of("ex:Foo", "xsd:string", "_a:b", "a-b:c", "ub:")) {
+            assertTrue(PrefixMap.isPrefixedName(value), value);
+        }
+        for (String value : List.of("http://example.org/x", "https://x", "bar", "1a:b", ":b", "a b:c", "")) {
+            assertFalse(PrefixMap.isPrefixedName(value), value);
+        }
+    }
+
+    @Test
+    @DisplayName("Should auto-detect namespaces deterministically")
+    void shouldAutoDetectNamespaces() {
+        Set<NS> shapes = shapes(
+                "http://dbpedia.org/ontology/Person", "http://dbpedia.org/ontology/birthPlace",
+                "http://example.com/vocab/ontology/Thing", "http://xmlns.com/foaf/0.1/name");
+        PrefixMap prefixes = PrefixMap.shaclDefaults().withAutoDetected(shapes);
+
+        assertEquals("http://dbpedia.org/ontology/", prefixes.namespace("ontology"));
+        assertEquals("http://example.com/vocab/ontology/", prefixes.namespace("ontology2"));
+        assertEquals("ontology:birthPlace", prefixes.compact("http://dbpedia.org/ontology/birthPlace"));
+        // "0.1" has no letters, so the prefix comes from the previous path segment
+        assertEquals("foaf:name", prefixes.compact("http://xmlns.com/foaf/0.1/name"));
+        // Defaults stay first and unchanged
+        assertEquals(List.of("qse", "sh", "xsd"), List.copyOf(prefixes.bindings().keySet()).subList(0, 3));
+        assertEquals(prefixes.bindings(), PrefixMap.shaclDefaults().withAutoDetected(shapes).bindings());
+    }
+
+    @Test
+    @DisplayName("ShEx output should declare and use detected prefixes")
+    void shexOutputShouldUseDetectedPrefixes() {
+        String out = new ShExFormatter().formatShapes(shapes(
+                "http://dbpedia.org/ontology/Person", "http://dbpedia.org/ontology/birthPlace"));
+
+        assertTrue(out.contains("PREFIX ontology: <http://dbpedia.org/ontology/>"));
+        assertTrue(out.contains("ontology:birthPlace"));
+        assertTrue(out.startsWith("PREFIX ex: <http://example.org/shapes/>\n"));
+    }
+
+    @Test
+    @DisplayName("Should reject invalid bindings")
+    void shouldRejectInvalidBindings() {
+        assertThrows(IllegalArgumentException.class, () -> PrefixMap.of(null));
+        assertThrows(IllegalArgumentException.class, () -> PrefixMap.of(Map.of("1x", "http://a.org/")));
+        assertThrows(IllegalArgumentException.class, () -> PrefixMap.of(Map.of("x", "")));
+    }
+
+    private static Set<NS> shapes(String targetClass, String... paths) {
+        List<PS> props = new java.util.ArrayList<>();
+        for (int i = 0; i < paths.length; i++) {
+            PS ps = new PS();
+            ps.setIri(VF.createIRI("http://shaclshapes.org/p" + i));
+            ps.setPath(paths[i]);
+            ps.setDataTypeOrClass("http://www.w3.org/2001/XMLSchema#string");
+            ps.setNodeKind("Literal");
+            ps.setHasOrList(false);
+            props.add(ps);
+        }
+        NS ns = new NS();
+        ns.setIri(VF.createIRI("http://shaclshapes.org/TestShape"));
+        ns.setTargetClass(VF.createIRI(targetClass));
+        ns.setPropertyShapes(props);
+        Set<NS> shapes = new LinkedHashSet<>();
+        shapes.add(ns);
+        return shapes;
+    }
+}
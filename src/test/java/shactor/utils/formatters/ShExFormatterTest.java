@@ -75,6 +75,25 @@ class ShExFormatterTest {
         });
     }
 
+    @Test
+    @DisplayName("Streaming output should match string output")
+    void streamingOutputShouldMatchStringOutput() throws Exception {
+        Set<NS> shapes = TestShapes.generate(20);
+        java.io.StringWriter writer = new java.io.StringWriter();
+        shexFormatter.formatShapes(shapes, writer);
+        String expected = shexFormatter.formatShapes(shapes);
+        assertTrue(expected.contains("ub:takesCourse"));
+        assertEquals(expected, writer.toString());
+    }
+
+    @Test
+    @DisplayName("Should throw exception for null Writer")
+    void shouldThrowExceptionForNullWriter() {
+        assertThrows(IllegalArgumentException.class, () -> {
+            shexFormatter.formatShapes(new HashSet<>(), null);
+        });
+    }
+
     @Test
     @DisplayName("Should generate proper ShEx namespace prefixes")
     void shouldGenerateProperShExNamespacePrefixes() {
@@ -201,4 +220,55 @@ class ShExFormatterTest {
         String path = ShExFormatter.formatPath("http://swat.cse.lehigh.edu/onto/univ-bench.owl#memberOf");
         assertEquals("ub:memberOf", path);
     }
+
+    @Test
+    @DisplayName("Dedup mode emits each OR-list disjunction once and references it")
+    void dedup_sharesIdenticalDisjunctions() {
+        Set<NS> shapes = TestShapes.generate(50);
+        String plain = new ShExFormatter(ParallelShapeRenderer.SEQUENTIAL, false).formatShapes(shapes);
+        String deduplicated = new ShExFormatter(ParallelShapeRenderer.SEQUENTIAL, true).formatShapes(shapes);
+
+        // TestShapes uses 5 distinct OR-lists (Course0..4 OR xsd:string)
+        assertEquals(50, countOccurrences(plain, " OR "));
+        assertEquals(5, countOccurrences(deduplicated, " OR "));
+        assertEquals(50 + 5, countOccurrences(deduplicated, ShExFormatter.SHARED_EXPRESSION_PREFIX));
+        assertTrue(deduplicated.contains("ub:takesCourse @" + ShExFormatter.SHARED_EXPRESSION_PREFIX));
+
+        // Labels are content-derived, so parallel rendering yields the same document
+        assertEquals(deduplicated, new ShExFormatter(2, true).formatShapes(shapes));
+    }
+
+    @Test
+    @DisplayName("Classes with the same local name in different namespaces get distinct helper shapes")
+    void helperShapes_uniquePerNamespace() {
+        org.eclipse.rdf4j.model.ValueFactory vf = org.eclipse.rdf4j.model.impl.SimpleValueFactory.getInstance();
+        Set<NS> shapes = new LinkedHashSet<>();
+        String[] classes = {"http://xmlns.com/foaf/0.1/Person", "http://schema.org/Person"};
+        for (int i = 0; i < classes.length; i++) {
+            cs.qse.common.structure.PS knows = new cs.qse.common.structure.PS();
+            knows.setIri(vf.createIRI("http://shaclshapes.org/knows" + i));
+            knows.setPath("http://example.org/vocab/knows" + i);
+            knows.setDataTypeOrClass(classes[i]);
+            knows.setNodeKind("IRI");
+            NS ns = new NS();
+            ns.setIri(vf.createIRI("http://shaclshapes.org/Agent" + i + "Shape"));
+            ns.setTargetClass(vf.createIRI("http://example.org/vocab/Agent" + i));
+            ns.setPropertyShapes(new ArrayList<>(List.of(knows)));
+            shapes.add(ns);
+        }
+
+        String out = new ShExFormatter().formatShapes(shapes);
+
+        assertTrue(out.contains("IRI AND @ex:foaf_PersonShape"), out);
+        assertTrue(out.contains("IRI AND @ex:schema_PersonShape"), out);
+        assertEquals(1, countOccurrences(out, "ex:foaf_PersonShape { rdf:type [foaf:Person] + }"));
+        assertEquals(1, countOccurrences(out, "ex:schema_PersonShape { rdf:type [schema:Person] + }"));
+        assertFalse(out.contains("ex:PersonShape"));
+    }
+
+    private static int countOccurrences(String text, String token) {
+        int count = 0;
+        for (int i = text.indexOf(token); i >= 0; i = text.indexOf(token, i + token.length())) count++;
+        return count;
+    }
 }
\ No newline at end of file
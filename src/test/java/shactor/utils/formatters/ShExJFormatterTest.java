@@ -0,0 +1,162 @@
+package shactor.utils.formatters;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cs.qse.common.structure.NS;
+import cs.qse.common.structure.PS;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ShExJ Formatter Tests")
+class ShExJFormatterTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final ValueFactory VF = SimpleValueFactory.getInstance();
+    private static final String UB = "http://swat.cse.lehigh.edu/onto/univ-bench.owl#";
+    private static final String EX = "http://example.org/shapes/";
+
+    private final ShExJFormatter formatter = new ShExJFormatter();
+
+    @Test
+    @DisplayName("Should write an empty schema for empty input")
+    void shouldWriteEmptySchema() throws Exception {
+        JsonNode schema = MAPPER.readTree(formatter.formatShapes(new HashSet<>()));
+        assertEquals(ShExJFormatter.SHEX_CONTEXT, schema.get("@context").asText());
+        assertEquals("Schema", schema.get("type").asText());
+        assertFalse(schema.has("shapes"));
+    }
+
+    @Test
+    @DisplayName("Should map NodeShapes to shapes with triple constraints")
+    void shouldMapNodeShapes() throws Exception {
+        JsonNode shapes = MAPPER.readTree(formatter.formatShapes(TestShapes.generate(1))).get("shapes");
+
+        JsonNode shape = shapes.get(0);
+        assertEquals("Shape", shape.get("type").asText());
+        assertEquals(EX + "Class0Shape", shape.get("id").asText());
+        JsonNode expressions = shape.get("expression").get("expressions");
+        // rdf:type + advisor + name + takesCourse (sorted by path)
+        assertEquals(4, expressions.size());
+
+        JsonNode type = expressions.get(0);
+        assertEquals(PrefixMap.RDF_NAMESPACE + "type", type.get("predicate").asText());
+        assertEquals(UB + "Class0", type.get("valueExpr").get("values").get(0).asText());
+        assertEquals(1, type.get("min").asInt());
+        assertEquals(-1, type.get("max").asInt());
+
+        JsonNode advisor = expressions.get(1);
+        assertEquals(UB + "advisor", advisor.get("predicate").asText());
+        assertEquals("ShapeAnd", advisor.get("valueExpr").get("type").asText());
+        assertEquals("iri", advisor.get("valueExpr").get("shapeExprs").get(0).get("nodeKind").asText());
+        assertEquals(0, advisor.get("min").asInt());
+
+        JsonNode name = expressions.get(2);
+        assertEquals(PrefixMap.XSD_NAMESPACE + "string", name.get("valueExpr").get("datatype").asText());
+
+        JsonNode takes = expressions.get(3);
+        assertEquals("ShapeOr", takes.get("valueExpr").get("type").asText());
+        assertEquals(2, takes.get("valueExpr").get("shapeExprs").size());
+    }
+
+    @Test
+    @DisplayName("Referenced class shapes should be declared once")
+    void referencedClassShapesShouldBeDeclared() throws Exception {
+        Set<NS> nodeShapes = TestShapes.generate(20);
+        JsonNode shapes = MAPPER.readTree(formatter.formatShapes(nodeShapes)).get("shapes");
+
+        Set<String> ids = new HashSet<>();
+        for (JsonNode shape : shapes) {
+            assertTrue(ids.add(shape.get("id").asText()), "Duplicate shape id " + shape.get("id"));
+        }
+        // Every shape reference resolves to a declared shape
+        for (JsonNode shape : shapes) {
+            for (JsonNode ref : shape.findValues("shapeExprs")) {
+                for (JsonNode expr : ref) {
+                    if (expr.isTextual()) {
+                        assertTrue(ids.contains(expr.asText()), "Undeclared shape " + expr);
+                    }
+                }
+            }
+        }
+        // 20 NodeShapes + type-only helper shapes for Class0..16 and Course0..4, as in ShExC
+        assertEquals(42, shapes.size());
+    }
+
+    @Test
+    @DisplayName("Classes sharing a local name should get distinct shapes")
+    void classesSharingLocalNameShouldNotCollide() throws Exception {
+        String foaf = "http://xmlns.com/foaf/0.1/";
+        String schema = "http://schema.org/";
+        Set<NS> nodeShapes = new LinkedHashSet<>();
+        nodeShapes.add(nodeShape(foaf + "Person", schema + "Person"));
+        nodeShapes.add(nodeShape(schema + "Person", foaf + "Person"));
+        JsonNode shapes = MAPPER.readTree(formatter.formatShapes(nodeShapes)).get("shapes");
+
+        Map<String, JsonNode> byId = new HashMap<>();
+        for (JsonNode shape : shapes) {
+            assertNull(byId.put(shape.get("id").asText(), shape), "Duplicate shape id " + shape.get("id"));
+        }
+        assertEquals(4, byId.size());
+        // Helper shapes carry the prefix of their class, as in ShExC, and are typed with that class
+        assertEquals(foaf + "Person", helperClass(byId.get(EX + "foaf_PersonShape")));
+        assertEquals(schema + "Person", helperClass(byId.get(EX + "schema_PersonShape")));
+        // References resolve to the helper shape of the referenced class
+        assertEquals(EX + "schema_PersonShape", shapeRef(shapes.get(0)));
+        assertEquals(EX + "foaf_PersonShape", shapeRef(shapes.get(1)));
+        // The NodeShapes both have the ShExC label ex:PersonShape; the second one is suffixed
+        assertEquals(EX + "PersonShape", shapes.get(0).get("id").asText());
+        assertEquals(EX + "PersonShape_2", shapes.get(1).get("id").asText());
+    }
+
+    @Test
+    @DisplayName("Streaming and string output should be identical")
+    void streamingShouldEqualStringOutput() throws Exception {
+        Set<NS> nodeShapes = TestShapes.generate(10);
+        StringWriter out = new StringWriter();
+        formatter.formatShapes(nodeShapes, out);
+        assertEquals(formatter.formatShapes(nodeShapes), out.toString());
+        assertEquals("ShExJ", formatter.getFormatName());
+        assertEquals("json", formatter.getFileExtension());
+        assertThrows(IllegalArgumentException.class, () -> formatter.formatShapes(null));
+    }
+
+    private static NS nodeShape(String targetClass, String knows) {
+        PS ps = new PS();
+        ps.setIri(VF.createIRI("http://shaclshapes.org/knows" + targetClass.hashCode()));
+        ps.setPath("http://xmlns.com/foaf/0.1/knows");
+        ps.setDataTypeOrClass(knows);
+        ps.setNodeKind("IRI");
+        ps.setHasOrList(false);
+        NS ns = new NS();
+        ns.setIri(VF.createIRI("http://shaclshapes.org/" + targetClass.hashCode() + "Shape"));
+        ns.setTargetClass(VF.createIRI(targetClass));
+        ns.setPropertyShapes(List.of(ps));
+        return ns;
+    }
+
+    private static String helperClass(JsonNode helper) {
+        return helper.get("expression").get("valueExpr").get("values").get(0).asText();
+    }
+
+    private static String shapeRef(JsonNode nodeShape) {
+        for (JsonNode expr : nodeShape.get("expression").get("expressions")) {
+            JsonNode valueExpr = expr.get("valueExpr");
+            if (valueExpr != null && "ShapeAnd".equals(valueExpr.path("type").asText())) {
+                return valueExpr.get("shapeExprs").get(1).asText();
+            }
+        }
+        return null;
+    }
+}
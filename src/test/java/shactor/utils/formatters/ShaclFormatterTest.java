@@ -75,6 +75,28 @@ class ShaclFormatterTest {
         });
     }
 
+    @Test
+    @DisplayName("Streaming output should match string output")
+    void streamingOutputShouldMatchStringOutput() throws Exception {
+        Set<NS> shapes = TestShapes.generate(20);
+        for (ShaclFormatter.Mode mode : ShaclFormatter.Mode.values()) {
+            ShaclFormatter formatter = new ShaclFormatter(mode);
+            java.io.StringWriter writer = new java.io.StringWriter();
+            formatter.formatShapes(shapes, writer);
+            String expected = formatter.formatShapes(shapes);
+            assertTrue(expected.contains("sh:NodeShape"), mode.name());
+            assertEquals(expected, writer.toString(), mode.name());
+        }
+    }
+
+    @Test
+    @DisplayName("Should throw exception for null Writer")
+    void shouldThrowExceptionForNullWriter() {
+        assertThrows(IllegalArgumentException.class, () -> {
+            shaclFormatter.formatShapes(new HashSet<>(), null);
+        });
+    }
+
     @Test
     @DisplayName("Should handle runtime exceptions gracefully")
     void shouldHandleRuntimeExceptionsGracefully() {
@@ -0,0 +1,59 @@
+package shactor.utils.formatters;
+
+import cs.qse.common.structure.NS;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("SHACL N-Triples Formatter Tests")
+class ShaclNTriplesFormatterTest {
+
+    private final ShaclNTriplesFormatter formatter = new ShaclNTriplesFormatter();
+
+    @Test
+    @DisplayName("Should write one statement per line")
+    void shouldWriteOneStatementPerLine() {
+        String output = formatter.formatShapes(TestShapes.generate(3));
+        String[] lines = output.split("\n");
+        // Per NodeShape: 2 + 3 sh:property; per PS: 2 + 4 (simple) or 3 + 2 * 6 (two-item OR list)
+        assertEquals(3 * (5 + 6 + 6 + 15), lines.length);
+        for (String line : lines) {
+            assertTrue(line.endsWith(" ."), line);
+        }
+        assertTrue(output.contains("\"10\"^^<http://www.w3.org/2001/XMLSchema#int>"));
+        assertTrue(output.contains("\"0.5\"^^<http://www.w3.org/2001/XMLSchema#double>"));
+        assertEquals("", formatter.formatShapes(new HashSet<>()));
+    }
+
+    @Test
+    @DisplayName("Should produce the same graph as the Turtle writer")
+    void shouldBeIsomorphicToTurtle() {
+        Set<NS> nodeShapes = TestShapes.generate(10);
+
+        Model fromNTriples = ModelFactory.createDefaultModel();
+        fromNTriples.read(new StringReader(formatter.formatShapes(nodeShapes)), null, "N-TRIPLES");
+        Model fromTurtle = ModelFactory.createDefaultModel();
+        fromTurtle.read(new StringReader(new ShaclFormatter(ShaclFormatter.Mode.DIRECT).formatShapes(nodeShapes)), null, "TURTLE");
+
+        assertTrue(fromNTriples.isIsomorphicWith(fromTurtle));
+    }
+
+    @Test
+    @DisplayName("Streaming and string output should be identical")
+    void streamingShouldEqualStringOutput() throws Exception {
+        Set<NS> nodeShapes = TestShapes.generate(10);
+        StringWriter out = new StringWriter();
+        formatter.formatShapes(nodeShapes, out);
+        assertEquals(formatter.formatShapes(nodeShapes), out.toString());
+        assertEquals("SHACL-NT", formatter.getFormatName());
+        assertEquals("nt", formatter.getFileExtension());
+    }
+}
@@ -0,0 +1,199 @@
+package shactor.utils.formatters;
+
+import cs.qse.common.structure.NS;
+import cs.qse.common.structure.PS;
+import cs.qse.common.structure.ShaclOrListItem;
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.rdf.model.Literal;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.rdf.model.Statement;
+import org.apache.jena.rdf.model.StmtIterator;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Golden-equivalence tests for the direct SHACL Turtle writer.
+ *
+ * The output of {@link ShaclFormatter.Mode#DIRECT} is parsed back and compared by graph
+ * isomorphism against the output of the Jena-based {@link ShaclFormatter.Mode#JENA} path.
+ * xsd:double literals are compared by value, since both writers may choose different
+ * (but equivalent) lexical forms.
+ */
+@DisplayName("SHACL Direct Turtle Writer Tests")
+class ShaclTurtleWriterTest {
+
+    private static final ValueFactory VF = SimpleValueFactory.getInstance();
+    private static final String QSE = "http://shaclshapes.org/";
+    private static final String UB = "http://swat.cse.lehigh.edu/onto/univ-bench.owl#";
+    private static final String XSD = "http://www.w3.org/2001/XMLSchema#";
+
+    private final ShaclFormatter direct = new ShaclFormatter(ShaclFormatter.Mode.DIRECT);
+    private final ShaclFormatter jena = new ShaclFormatter(ShaclFormatter.Mode.JENA);
+
+    @Test
+    @DisplayName("Direct output should be isomorphic to Jena output")
+    void directOutputShouldBeIsomorphicToJenaOutput() {
+        Set<NS> shapes = sampleShapes();
+        assertIsomorphic(jena.formatShapes(shapes), direct.formatShapes(shapes));
+    }
+
+    @Test
+    @DisplayName("Direct output should stay locale independent")
+    void directOutputShouldStayLocaleIndependent() {
+        Locale previous = Locale.getDefault();
+        try {
+            Locale.setDefault(Locale.GERMANY);
+            Set<NS> shapes = sampleShapes();
+            String turtle = direct.formatShapes(shapes);
+            assertTrue(turtle.contains("qse:confidence \"0.125\"^^xsd:double"), turtle);
+            assertFalse(turtle.contains("0,125"), turtle);
+            assertDoesNotThrow(() -> parse(turtle));
+        } finally {
+            Locale.setDefault(previous);
+        }
+    }
+
+    @Test
+    @DisplayName("Direct streaming output should match direct string output")
+    void directStreamingShouldMatchStringOutput() throws Exception {
+        Set<NS> shapes = sampleShapes();
+        StringWriter writer = new StringWriter();
+        direct.formatShapes(shapes, writer);
+        assertEquals(direct.formatShapes(shapes), writer.toString());
+    }
+
+    @Test
+    @DisplayName("Direct output should be empty for empty input")
+    void directOutputShouldBeEmptyForEmptyInput() {
+        String turtle = direct.formatShapes(new LinkedHashSet<>());
+        assertTrue(turtle.isBlank());
+    }
+
+    @Test
+    @DisplayName("Should escape IRIs that cannot be written as CURIEs")
+    void shouldEscapeUnsafeIris() {
+        StringBuilder out = new StringBuilder();
+        ShaclTurtleWriter.appendIri(out, QSE + "Shape With Space");
+        assertEquals("<http://shaclshapes.org/Shape\\u0020With\\u0020Space>", out.toString());
+
+        out.setLength(0);
+        ShaclTurtleWriter.appendIri(out, XSD + "string");
+        assertEquals("xsd:string", out.toString());
+    }
+
+    @Test
+    @DisplayName("Should write special double values in xsd:double lexical form")
+    void shouldWriteSpecialDoubleValues() {
+        assertEquals("INF", ShaclTurtleWriter.doubleLexicalForm(Double.POSITIVE_INFINITY));
+        assertEquals("-INF", ShaclTurtleWriter.doubleLexicalForm(Double.NEGATIVE_INFINITY));
+        assertEquals("NaN", ShaclTurtleWriter.doubleLexicalForm(Double.NaN));
+        assertEquals("1.0E-4", ShaclTurtleWriter.doubleLexicalForm(1.0E-4));
+    }
+
+    // ===================== Helpers =====================
+
+    private static void assertIsomorphic(String expectedTurtle, String actualTurtle) {
+        Model expected = normalizeDoubles(parse(expectedTurtle));
+        Model actual = normalizeDoubles(parse(actualTurtle));
+        assertTrue(expected.isIsomorphicWith(actual),
+                "Graphs differ.\n--- jena ---\n" + expectedTurtle + "\n--- direct ---\n" + actualTurtle);
+    }
+
+    private static Model parse(String turtle) {
+        Model model = ModelFactory.createDefaultModel();
+        model.read(new StringReader(turtle), null, "TTL");
+        return model;
+    }
+
+    private static Model normalizeDoubles(Model model) {
+        Model normalized = ModelFactory.createDefaultModel();
+        StmtIterator it = model.listStatements();
+        while (it.hasNext()) {
+            Statement st = it.next();
+            RDFNode object = st.getObject();
+            if (object.isLiteral() && XSDDatatype.XSDdouble.getURI().equals(object.asLiteral().getDatatypeURI())) {
+                Literal literal = normalized.createTypedLiteral(object.asLiteral().getDouble());
+                normalized.add(st.getSubject(), st.getPredicate(), literal);
+            } else {
+                normalized.add(st);
+            }
+        }
+        return normalized;
+    }
+
+    private static Set<NS> sampleShapes() {
+        Set<NS> shapes = new LinkedHashSet<>();
+
+        List<PS> studentProps = new ArrayList<>();
+        studentProps.add(simplePs("StudentShape_name", UB + "name", XSD + "string", "Literal", 120, 1.0));
+        studentProps.add(simplePs("StudentShape_advisor", UB + "advisor", UB + "Professor", "IRI", 80, 0.125));
+        studentProps.add(simplePs("StudentShape_legacy", UB + "memberOf", UB + "Department", "NodeKind", 3, 1.0E-4));
+        studentProps.add(simplePs("StudentShape_undefined", UB + "undefinedProp", "Undefined", "Literal", null, null));
+
+        PS takesCourse = simplePs("StudentShape_takesCourse", UB + "takesCourse", null, null, null, null);
+        takesCourse.setHasOrList(true);
+        List<ShaclOrListItem> items = new ArrayList<>();
+        items.add(orItem(UB + "Course", "IRI", 50, 0.5));
+        items.add(orItem(UB + "GraduateCourse", "IRI", 25, 0.25));
+        items.add(orItem(XSD + "string", "Literal", 1, 0.0125));
+        items.add(orItem("Undefined", "Literal", 1, 0.01));
+        takesCourse.setShaclOrListItems(items);
+        studentProps.add(takesCourse);
+
+        PS email = simplePs("StudentShape_email", UB + "emailAddress", null, null, null, null);
+        email.setHasOrList(true);
+        List<ShaclOrListItem> single = new ArrayList<>();
+        single.add(orItem(XSD + "string", "Literal", 99, 0.99));
+        single.add(orItem("Undefined", "IRI", 1, 0.01));
+        email.setShaclOrListItems(single);
+        studentProps.add(email);
+
+        shapes.add(ns("StudentShape", UB + "Student", studentProps));
+        shapes.add(ns("EmptyShape", UB + "Thing", new ArrayList<>()));
+        return shapes;
+    }
+
+    private static NS ns(String localName, String targetClass, List<PS> propertyShapes) {
+        NS ns = new NS();
+        ns.setIri(VF.createIRI(QSE + localName));
+        ns.setTargetClass(VF.createIRI(targetClass));
+        ns.setPropertyShapes(propertyShapes);
+        return ns;
+    }
+
+    private static PS simplePs(String localName, String path, String dataTypeOrClass, String nodeKind,
+                               Integer support, Double confidence) {
+        PS ps = new PS();
+        ps.setIri(VF.createIRI(QSE + localName));
+        ps.setPath(path);
+        ps.setDataTypeOrClass(dataTypeOrClass);
+        ps.setNodeKind(nodeKind);
+        if (support != null) ps.setSupport(support);
+        if (confidence != null) ps.setConfidence(confidence);
+        ps.setHasOrList(false);
+        return ps;
+    }
+
+    private static ShaclOrListItem orItem(String dataTypeOrClass, String nodeKind, Integer support, Double confidence) {
+        ShaclOrListItem item = new ShaclOrListItem();
+        item.setDataTypeOrClass(dataTypeOrClass);
+        item.setNodeKind(nodeKind);
+        if (support != null) item.setSupport(support);
+        if (confidence != null) item.setConfidence(confidence);
+        return item;
+    }
+}
@@ -0,0 +1,139 @@
+package shactor.utils.formatters;
+
+import cs.qse.common.structure.NS;
+import cs.qse.common.structure.PS;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ShapeFragmentStore Tests")
+class ShapeFragmentStoreTest {
+
+    @Test
+    @DisplayName("Assembled ShEx should equal the formatter output")
+    void assembledShexShouldEqualFormatterOutput() {
+        List<NS> base = new ArrayList<>(TestShapes.generate(30));
+        ShapeFragmentStore store = new ShapeFragmentStore(base, ShaclFormatter.Mode.DIRECT);
+        List<NS> pruned = prune(base, 2);
+
+        String expected = new ShExFormatter(ParallelShapeRenderer.SEQUENTIAL).formatShapes(new LinkedHashSet<>(pruned));
+        assertEquals(expected, store.format(pruned, "ShEx"));
+    }
+
+    @Test
+    @DisplayName("Assembled ShEx should equal the formatter output with shared OR-list expressions")
+    void assembledShexShouldEqualDeduplicatedFormatterOutput() {
+        List<NS> base = new ArrayList<>(TestShapes.generate(30));
+        ShapeFragmentStore store = new ShapeFragmentStore(base, ShaclFormatter.Mode.DIRECT, true);
+        List<NS> pruned = prune(base, 3);
+
+        String expected = new ShExFormatter(ParallelShapeRenderer.SEQUENTIAL, true).formatShapes(new LinkedHashSet<>(pruned));
+        assertTrue(expected.contains(ShExFormatter.SHARED_EXPRESSION_PREFIX));
+        assertEquals(expected, store.format(pruned, "ShEx"));
+        // Reused fragments keep their shared expressions
+        assertEquals(expected, store.format(prune(base, 3), "ShEx"));
+        assertEquals(30, store.getReusedCount());
+    }
+
+    @Test
+    @DisplayName("Assembled SHACL should equal the direct writer output")
+    void assembledShaclShouldEqualFormatterOutput() {
+        List<NS> base = new ArrayList<>(TestShapes.generate(30));
+        ShapeFragmentStore store = new ShapeFragmentStore(base, ShaclFormatter.Mode.DIRECT);
+        List<NS> pruned = prune(base, 2);
+
+        String expected = new ShaclFormatter(ShaclFormatter.Mode.DIRECT, ParallelShapeRenderer.SEQUENTIAL)
+                .formatShapes(new LinkedHashSet<>(pruned));
+        assertEquals(expected, store.format(pruned, "SHACL"));
+    }
+
+    @Test
+    @DisplayName("Only NodeShapes with changed PropertyShapes should be re-rendered")
+    void onlyChangedNodeShapesShouldBeRerendered() {
+        List<NS> base = new ArrayList<>(TestShapes.generate(50));
+        ShapeFragmentStore store = new ShapeFragmentStore(base, ShaclFormatter.Mode.DIRECT);
+
+        store.format(prune(base, 3), "ShEx");
+        assertEquals(50, store.getRenderedCount());
+
+        // Same thresholds again: everything is reused
+        store.format(prune(base, 3), "ShEx");
+        assertEquals(50, store.getRenderedCount());
+        assertEquals(50, store.getReusedCount());
+
+        // A stricter threshold for a single NodeShape only re-renders that one
+        List<NS> stricter = prune(base, 3);
+        stricter.set(7, copyWith(stricter.get(7), stricter.get(7).getPropertyShapes().subList(0, 1)));
+        String assembled = store.format(stricter, "ShEx");
+        assertEquals(51, store.getRenderedCount());
+        assertEquals(new ShExFormatter(ParallelShapeRenderer.SEQUENTIAL).formatShapes(new LinkedHashSet<>(stricter)), assembled);
+
+        // Fragments are kept per format
+        store.format(stricter, "SHACL");
+        assertEquals(101, store.getRenderedCount());
+    }
+
+    @Test
+    @DisplayName("Re-extracted NodeShapes with equal content should reuse the fragments of the previous run")
+    void reExtractedShapesShouldReuseFragments() {
+        // Each pruning run re-extracts: equal content, new NS/PS instances
+        List<NS> firstRun = new ArrayList<>(TestShapes.generate(40));
+        ShapeFragmentStore store = new ShapeFragmentStore(firstRun, ShaclFormatter.Mode.DIRECT);
+        store.format(prune(firstRun, 3), "ShEx");
+        assertEquals(40, store.getRenderedCount());
+
+        List<NS> secondRun = new ArrayList<>(TestShapes.generate(40));
+        assertNotSame(firstRun.get(0).getPropertyShapes().get(0), secondRun.get(0).getPropertyShapes().get(0));
+        assertTrue(store.isFor(secondRun));
+        List<NS> pruned = prune(secondRun, 2);
+        String assembled = store.format(pruned, "ShEx");
+        // Only NodeShapes whose kept PropertyShapes changed (3 -> 2) are rendered again
+        assertEquals(80, store.getRenderedCount());
+        assertEquals(new ShExFormatter(ParallelShapeRenderer.SEQUENTIAL).formatShapes(new LinkedHashSet<>(pruned)), assembled);
+
+        store.format(prune(new ArrayList<>(TestShapes.generate(40)), 2), "ShEx");
+        assertEquals(80, store.getRenderedCount());
+        assertEquals(40, store.getReusedCount());
+
+        assertFalse(store.isFor(new ArrayList<>(TestShapes.generate(40, "Other"))));
+        assertFalse(store.isFor(new ArrayList<>(TestShapes.generate(39))));
+    }
+
+    @Test
+    @DisplayName("Should only support SHACL in direct mode")
+    void shouldOnlySupportShaclInDirectMode() {
+        Set<NS> base = TestShapes.generate(3);
+        assertTrue(new ShapeFragmentStore(base, ShaclFormatter.Mode.DIRECT).supports("SHACL"));
+        assertFalse(new ShapeFragmentStore(base, ShaclFormatter.Mode.JENA).supports("SHACL"));
+        assertTrue(new ShapeFragmentStore(base, ShaclFormatter.Mode.JENA).supports("ShEx"));
+        assertThrows(IllegalArgumentException.class,
+                () -> new ShapeFragmentStore(base, ShaclFormatter.Mode.JENA).format(base, "SHACL"));
+        assertThrows(IllegalArgumentException.class, () -> new ShapeFragmentStore(null));
+    }
+
+    /**
+     * Mimics ExtractionView#buildPrunedNodeShapes: new NS objects sharing the extractor's PS instances.
+     */
+    private static List<NS> prune(List<NS> base, int keptPerShape) {
+        List<NS> pruned = new ArrayList<>();
+        for (NS ns : base) {
+            List<PS> kept = ns.getPropertyShapes().subList(0, Math.min(keptPerShape, ns.getPropertyShapes().size()));
+            pruned.add(copyWith(ns, kept));
+        }
+        return pruned;
+    }
+
+    private static NS copyWith(NS ns, List<PS> propertyShapes) {
+        NS copy = new NS();
+        copy.setIri(ns.getIri());
+        copy.setTargetClass(ns.getTargetClass());
+        copy.setPropertyShapes(new ArrayList<>(propertyShapes));
+        return copy;
+    }
+}
@@ -0,0 +1,82 @@
+package shactor.utils.formatters;
+
+import cs.qse.common.structure.NS;
+import cs.qse.common.structure.PS;
+import cs.qse.common.structure.ShaclOrListItem;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Small NS/PS fixtures shared by the formatter tests.
+ */
+final class TestShapes {
+
+    private static final ValueFactory VF = SimpleValueFactory.getInstance();
+    private static final String QSE = "http://shaclshapes.org/";
+    private static final String UB = "http://swat.cse.lehigh.edu/onto/univ-bench.owl#";
+    private static final String XSD = "http://www.w3.org/2001/XMLSchema#";
+
+    private TestShapes() {}
+
+    /**
+     * Generates {@code count} NodeShapes, each with a literal, an IRI and an OR-list PropertyShape.
+     * Class references repeat across shapes so that ShEx helper shapes are shared.
+     */
+    static Set<NS> generate(int count) {
+        return generate(count, "Class");
+    }
+
+    /**
+     * Same as {@link #generate(int)}, with all class names starting with {@code classPrefix},
+     * so that documents generated with different prefixes share no helper shapes.
+     */
+    static Set<NS> generate(int count, String classPrefix) {
+        Set<NS> shapes = new LinkedHashSet<>();
+        for (int i = 0; i < count; i++) {
+            List<PS> props = new ArrayList<>();
+            props.add(ps(classPrefix + i + "_name", UB + "name", XSD + "string", "Literal"));
+            props.add(ps(classPrefix + i + "_advisor", UB + "advisor", UB + classPrefix + (i % 17), "IRI"));
+
+            PS or = ps(classPrefix + i + "_takes", UB + "takesCourse", null, null);
+            or.setHasOrList(true);
+            List<ShaclOrListItem> items = new ArrayList<>();
+            items.add(item(UB + classPrefix + "Course" + (i % 5), "IRI"));
+            items.add(item(XSD + "string", "Literal"));
+            or.setShaclOrListItems(items);
+            props.add(or);
+
+            NS ns = new NS();
+            ns.setIri(VF.createIRI(QSE + classPrefix + i + "Shape"));
+            ns.setTargetClass(VF.createIRI(UB + classPrefix + i));
+            ns.setPropertyShapes(props);
+            shapes.add(ns);
+        }
+        return shapes;
+    }
+
+    private static PS ps(String localName, String path, String dataTypeOrClass, String nodeKind) {
+        PS ps = new PS();
+        ps.setIri(VF.createIRI(QSE + localName));
+        ps.setPath(path);
+        ps.setDataTypeOrClass(dataTypeOrClass);
+        ps.setNodeKind(nodeKind);
+        ps.setSupport(10);
+        ps.setConfidence(0.5);
+        ps.setHasOrList(false);
+        return ps;
+    }
+
+    private static ShaclOrListItem item(String dataTypeOrClass, String nodeKind) {
+        ShaclOrListItem item = new ShaclOrListItem();
+        item.setDataTypeOrClass(dataTypeOrClass);
+        item.setNodeKind(nodeKind);
+        item.setSupport(5);
+        item.setConfidence(0.25);
+        return item;
+    }
+}
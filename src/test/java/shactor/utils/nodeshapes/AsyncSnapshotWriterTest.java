@@ -0,0 +1,100 @@
+package shactor.utils.nodeshapes;
+
+import cs.qse.common.structure.NS;
+import cs.qse.common.structure.PS;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("AsyncSnapshotWriter Tests")
+class AsyncSnapshotWriterTest {
+
+    @Test
+    @DisplayName("Should write only the latest of coalesced submissions")
+    void shouldCoalesceSubmissions() throws Exception {
+        Path file = Files.createTempDirectory("snapshot-test").resolve("latest-node-shapes.json");
+        AsyncSnapshotWriter writer = new AsyncSnapshotWriter(file, 200, true);
+
+        writer.submit(shapes(1));
+        writer.submit(shapes(2));
+        writer.submit(shapes(3));
+        // Submitting never waits for the write
+        assertFalse(Files.exists(file));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (writer.getWrittenCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(1, writer.getWrittenCount());
+        assertEquals(2, writer.getDroppedCount());
+        assertEquals(3, NodeShapesSnapshotIO.load(file).size());
+        writer.shutdown();
+    }
+
+    @Test
+    @DisplayName("Flush should write a pending submission immediately")
+    void flushShouldWritePendingSubmission() throws Exception {
+        Path file = Files.createTempDirectory("snapshot-test").resolve("latest-node-shapes.json");
+        AsyncSnapshotWriter writer = new AsyncSnapshotWriter(file, TimeUnit.MINUTES.toMillis(10), true);
+
+        writer.submit(shapes(4));
+        assertTrue(writer.flush(5, TimeUnit.SECONDS));
+        assertEquals(4, NodeShapesSnapshotIO.load(file).size());
+        // No temporary files are left behind
+        try (var files = Files.list(file.getParent())) {
+            assertEquals(1, files.count());
+        }
+        writer.shutdown();
+    }
+
+    @Test
+    @DisplayName("Shutdown should write a pending submission without waiting for the debounce interval")
+    void shutdownShouldWritePendingSubmission() throws Exception {
+        Path file = Files.createTempDirectory("snapshot-test").resolve("latest-node-shapes.json");
+        AsyncSnapshotWriter writer = new AsyncSnapshotWriter(file, TimeUnit.MINUTES.toMillis(10), true);
+
+        writer.submit(shapes(5));
+        assertTrue(writer.shutdown(5, TimeUnit.SECONDS));
+        assertEquals(5, NodeShapesSnapshotIO.load(file).size());
+
+        // Later calls neither throw nor write
+        writer.submit(shapes(6));
+        assertFalse(writer.flush(1, TimeUnit.SECONDS));
+        writer.shutdown();
+        assertEquals(5, NodeShapesSnapshotIO.load(file).size());
+        assertEquals(1, writer.getWrittenCount());
+    }
+
+    @Test
+    @DisplayName("Disabled writer should not write anything")
+    void disabledWriterShouldNotWrite() throws Exception {
+        Path file = Files.createTempDirectory("snapshot-test").resolve("latest-node-shapes.json");
+        AsyncSnapshotWriter writer = new AsyncSnapshotWriter(file, 0, false);
+
+        writer.submit(shapes(2));
+        assertTrue(writer.flush(1, TimeUnit.SECONDS));
+        assertFalse(Files.exists(file));
+        assertFalse(writer.isEnabled());
+    }
+
+    private static Set<NS> shapes(int count) {
+        Set<NS> shapes = new LinkedHashSet<>();
+        for (int i = 0; i < count; i++) {
+            NS ns = new NS();
+            ns.setIri(SimpleValueFactory.getInstance().createIRI("http://shaclshapes.org/Shape" + i));
+            ns.setTargetClass(SimpleValueFactory.getInstance().createIRI("http://example.org/Class" + i));
+            ns.setPropertyShapes(new ArrayList<PS>());
+            shapes.add(ns);
+        }
+        return shapes;
+    }
+}
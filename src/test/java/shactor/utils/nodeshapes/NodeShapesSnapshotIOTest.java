@@ -0,0 +1,104 @@
+package shactor.utils.nodeshapes;
+
+import cs.qse.common.structure.NS;
+import cs.qse.common.structure.PS;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import shactor.utils.benchmark.BenchmarkBaseline;
+import shactor.utils.benchmark.SyntheticNodeShapes;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("NodeShapesSnapshotIO Tests")
+class NodeShapesSnapshotIOTest {
+
+    private static final Set<NS> SHAPES = SyntheticNodeShapes.generate(
+            SyntheticNodeShapes.Profile.LUBM.withOrLists(0.3, 3), 11L);
+
+    @Test
+    @DisplayName("Compact and pretty snapshots should round-trip the same shapes")
+    void shouldRoundTripCompactAndPretty() throws Exception {
+        Path dir = Files.createTempDirectory("snapshot-io-test");
+        Path compact = dir.resolve("compact.json");
+        Path pretty = dir.resolve("pretty.json");
+
+        NodeShapesSnapshotIO.save(SHAPES, compact, false);
+        NodeShapesSnapshotIO.save(SHAPES, pretty, true);
+
+        String expected = BenchmarkBaseline.fingerprint(SHAPES);
+        assertEquals(expected, BenchmarkBaseline.fingerprint(NodeShapesSnapshotIO.load(compact)));
+        assertEquals(expected, BenchmarkBaseline.fingerprint(NodeShapesSnapshotIO.load(pretty)));
+        assertFalse(Files.readString(compact).contains("\n"));
+        assertTrue(Files.size(compact) < Files.size(pretty));
+    }
+
+    @Test
+    @DisplayName("Loading should keep supports, confidences and or-list items")
+    void shouldKeepConstraintDetails() throws Exception {
+        Path file = Files.createTempDirectory("snapshot-io-test").resolve("latest-node-shapes.json");
+        NodeShapesSnapshotIO.save(SHAPES, file, false);
+
+        Set<NS> loaded = NodeShapesSnapshotIO.load(file);
+        NS original = SHAPES.iterator().next();
+        NS copy = loaded.iterator().next();
+        assertEquals(original.getIri().toString(), copy.getIri().toString());
+        assertEquals(original.getPropertyShapes().size(), copy.getPropertyShapes().size());
+        for (int i = 0; i < original.getPropertyShapes().size(); i++) {
+            PS a = original.getPropertyShapes().get(i);
+            PS b = copy.getPropertyShapes().get(i);
+            assertEquals(a.getPath(), b.getPath());
+            assertEquals(a.getSupport(), b.getSupport());
+            assertEquals(a.getConfidence(), b.getConfidence());
+            int orA = a.getShaclOrListItems() == null ? 0 : a.getShaclOrListItems().size();
+            int orB = b.getShaclOrListItems() == null ? 0 : b.getShaclOrListItems().size();
+            assertEquals(orA, orB);
+        }
+    }
+
+    @Test
+    @DisplayName("Unknown fields and malformed files should not break loading")
+    void shouldTolerateUnknownFieldsAndMalformedFiles() throws Exception {
+        Path dir = Files.createTempDirectory("snapshot-io-test");
+        Path extended = dir.resolve("extended.json");
+        Files.writeString(extended, "{\"version\":2,\"nodes\":[{\"iri\":\"http://example.org/AShape\","
+                + "\"extra\":{\"a\":[1,2]},\"propertyShapes\":[]}],\"trailer\":true}");
+        assertEquals(1, NodeShapesSnapshotIO.load(extended).size());
+
+        Path broken = dir.resolve("broken.json");
+        Files.writeString(broken, "{\"nodes\":[{\"iri\":");
+        assertTrue(NodeShapesSnapshotIO.load(broken).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Binary snapshots should round-trip and be smaller than JSON")
+    void shouldRoundTripBinary() throws Exception {
+        Path dir = Files.createTempDirectory("snapshot-io-test");
+        Path json = dir.resolve("latest-node-shapes.json");
+        Path binary = dir.resolve("latest-node-shapes" + NodeShapesSnapshotIO.BINARY_EXTENSION);
+
+        NodeShapesSnapshotIO.save(SHAPES, json, false);
+        NodeShapesSnapshotIO.save(SHAPES, binary);
+
+        assertTrue(NodeShapesSnapshotIO.isBinary(binary));
+        assertFalse(NodeShapesSnapshotIO.isBinary(json));
+        assertEquals(BenchmarkBaseline.fingerprint(SHAPES), BenchmarkBaseline.fingerprint(NodeShapesSnapshotIO.load(binary)));
+        assertTrue(Files.size(binary) < Files.size(json));
+    }
+
+    @Test
+    @DisplayName("Corrupted binary snapshots should be rejected by the checksum")
+    void shouldRejectCorruptedBinary() throws Exception {
+        Path file = Files.createTempDirectory("snapshot-io-test").resolve("snapshot" + NodeShapesSnapshotIO.BINARY_EXTENSION);
+        NodeShapesSnapshotIO.save(SHAPES, file);
+        assertFalse(NodeShapesSnapshotIO.load(file).isEmpty());
+
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 0x5A;
+        Files.write(file, bytes);
+        assertTrue(NodeShapesSnapshotIO.load(file).isEmpty());
+    }
+}
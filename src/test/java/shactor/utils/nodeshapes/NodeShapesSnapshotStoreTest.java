@@ -0,0 +1,106 @@
+package shactor.utils.nodeshapes;
+
+import cs.qse.common.structure.NS;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import shactor.utils.benchmark.BenchmarkBaseline;
+import shactor.utils.benchmark.SyntheticNodeShapes;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("NodeShapesSnapshotStore Tests")
+class NodeShapesSnapshotStoreTest {
+
+    private static final SnapshotKey LUBM = SnapshotKey.of("LUBM-Mini", "EXISTING_FILE_BASED", "SHACL");
+
+    private static Set<NS> shapes(int nodeShapes, long seed) {
+        return SyntheticNodeShapes.generate(SyntheticNodeShapes.Profile.LUBM.withNodeShapes(nodeShapes), seed);
+    }
+
+    @Test
+    @DisplayName("A newer, smaller set should replace the previous shapes of the same key only")
+    void shouldReplacePerKey() throws Exception {
+        NodeShapesSnapshotStore store = new NodeShapesSnapshotStore(Files.createTempDirectory("snapshot-store-test"), 1 << 30, false);
+        SnapshotKey pruned = LUBM.withThresholds(10, 0.25);
+
+        store.put(LUBM, shapes(20, 1L));
+        store.put(pruned, shapes(8, 2L));
+        store.put(LUBM, shapes(5, 3L));
+
+        assertEquals(5, store.get(LUBM).orElseThrow().size());
+        assertEquals(8, store.get(pruned).orElseThrow().size());
+        assertTrue(store.get(LUBM.withThresholds(50, 0.5)).isEmpty());
+        assertThrows(UnsupportedOperationException.class, () -> store.get(LUBM).orElseThrow().clear());
+    }
+
+    @Test
+    @DisplayName("Memory should stay within budget, evicted entries reload from their backing files")
+    void shouldEvictLeastRecentlyUsedAndReload() throws Exception {
+        Path dir = Files.createTempDirectory("snapshot-store-test");
+        Set<NS> first = shapes(20, 4L);
+        long budget = NodeShapesSnapshotStore.estimateRetainedBytes(first) * 5 / 2;
+        NodeShapesSnapshotStore store = new NodeShapesSnapshotStore(dir, budget, true);
+        SnapshotKey a = LUBM.withThresholds(1, 0.1);
+        SnapshotKey b = LUBM.withThresholds(2, 0.2);
+        SnapshotKey c = LUBM.withThresholds(3, 0.3);
+
+        store.put(a, first);
+        store.put(b, shapes(20, 5L));
+        Thread.sleep(2);
+        store.get(a); // a is now more recently used than b
+        store.put(c, shapes(20, 6L));
+
+        assertTrue(store.getRetainedBytes() <= budget);
+        assertEquals(Set.of(a, c), store.getCachedKeys());
+        assertEquals(1, store.getEvictionCount());
+
+        assertTrue(store.flush(5, TimeUnit.SECONDS));
+        assertTrue(Files.isRegularFile(store.fileFor(b)));
+        Set<NS> reloaded = store.get(b).orElseThrow();
+        assertEquals(BenchmarkBaseline.fingerprint(shapes(20, 5L)), BenchmarkBaseline.fingerprint(reloaded));
+
+        // A new store over the same directory finds the snapshots of earlier runs
+        NodeShapesSnapshotStore restarted = new NodeShapesSnapshotStore(dir, budget, true);
+        assertTrue(restarted.contains(c));
+        assertEquals(20, restarted.get(c).orElseThrow().size());
+        store.shutdown();
+        restarted.shutdown();
+    }
+
+    @Test
+    @DisplayName("Shutdown should write scheduled snapshots; later puts stay in memory")
+    void shutdownShouldWritePendingSnapshots() throws Exception {
+        NodeShapesSnapshotStore store = new NodeShapesSnapshotStore(Files.createTempDirectory("snapshot-store-test"), 1 << 30, true);
+        SnapshotKey pruned = LUBM.withThresholds(10, 0.25);
+
+        store.put(LUBM, shapes(20, 7L));
+        assertTrue(store.shutdown(5, TimeUnit.SECONDS));
+        assertTrue(Files.isRegularFile(store.fileFor(LUBM)));
+
+        store.put(pruned, shapes(8, 8L));
+        assertEquals(8, store.get(pruned).orElseThrow().size());
+        assertFalse(Files.exists(store.fileFor(pruned)));
+        assertFalse(store.flush(1, TimeUnit.SECONDS));
+        store.shutdown();
+    }
+
+    @Test
+    @DisplayName("Snapshot keys should round-trip through their textual form")
+    void shouldParseKeys() {
+        SnapshotKey pruned = LUBM.withThresholds(10, 0.25);
+        assertEquals("LUBM-Mini/EXISTING_FILE_BASED/SHACL/10/0.25", pruned.toString());
+        assertEquals(pruned, SnapshotKey.parse(pruned.toString()));
+        assertEquals(LUBM, SnapshotKey.parse("LUBM-Mini/EXISTING_FILE_BASED/SHACL"));
+        assertNotEquals(LUBM.fileName(".nsb"), pruned.fileName(".nsb"));
+        // Keys that only differ in characters replaced for the file name keep distinct files
+        assertNotEquals(SnapshotKey.of("a b", "FILE", "SHACL").fileName(".nsb"),
+                SnapshotKey.of("a_b", "FILE", "SHACL").fileName(".nsb"));
+        assertThrows(IllegalArgumentException.class, () -> SnapshotKey.parse("LUBM-Mini/SHACL"));
+        assertThrows(IllegalArgumentException.class, () -> SnapshotKey.of("", "FILE", "SHACL"));
+    }
+}
@@ -0,0 +1,75 @@
+package shactor.utils.nodeshapes;
+
+import cs.qse.common.structure.NS;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import shactor.utils.benchmark.BenchmarkBaseline;
+import shactor.utils.benchmark.SyntheticNodeShapes;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("NodeShapesSnapshotView Tests")
+class NodeShapesSnapshotViewTest {
+
+    private static final Set<NS> SHAPES = SyntheticNodeShapes.generate(
+            SyntheticNodeShapes.Profile.LUBM.withOrLists(0.3, 3), 17L);
+
+    private static Path binarySnapshot() throws Exception {
+        Path file = Files.createTempDirectory("snapshot-view-test").resolve("latest-node-shapes" + NodeShapesSnapshotIO.BINARY_EXTENSION);
+        NodeShapesSnapshotIO.save(SHAPES, file);
+        return file;
+    }
+
+    @Test
+    @DisplayName("Lookups should decode only the requested NodeShape")
+    void shouldDecodeOnlyRequestedNodeShape() throws Exception {
+        List<NS> expected = new ArrayList<>(SHAPES);
+        NS target = expected.get(expected.size() / 2);
+
+        try (NodeShapesSnapshotView view = NodeShapesSnapshotIO.open(binarySnapshot())) {
+            assertEquals(SHAPES.size(), view.size());
+            assertEquals(0, view.getDecodedCount());
+
+            NS byIri = view.findByIri(target.getIri().toString()).orElseThrow();
+            assertEquals(target.getPropertyShapes().size(), byIri.getPropertyShapes().size());
+            assertEquals(1, view.getDecodedCount());
+
+            NS byClass = view.findByTargetClass(target.getTargetClass().toString()).orElseThrow();
+            assertSame(byIri, byClass);
+            assertEquals(1, view.getDecodedCount());
+
+            assertTrue(view.findByIri("http://example.org/missing").isEmpty());
+            assertTrue(view.getTargetClasses().contains(target.getTargetClass().toString()));
+        }
+    }
+
+    @Test
+    @DisplayName("Iteration should yield the saved shapes while the cache stays bounded")
+    void shouldIterateWithBoundedCache() throws Exception {
+        try (NodeShapesSnapshotView view = NodeShapesSnapshotIO.open(binarySnapshot(), 2)) {
+            Set<NS> copy = new LinkedHashSet<>(view);
+            assertEquals(BenchmarkBaseline.fingerprint(SHAPES), BenchmarkBaseline.fingerprint(copy));
+            assertEquals(SHAPES.size(), view.getDecodedCount());
+
+            // The first NodeShape has been evicted and is decoded again
+            view.get(0);
+            assertEquals(SHAPES.size() + 1, view.getDecodedCount());
+            assertThrows(IndexOutOfBoundsException.class, () -> view.get(SHAPES.size()));
+        }
+    }
+
+    @Test
+    @DisplayName("Only binary snapshots can be opened as a view")
+    void shouldRejectJsonSnapshots() throws Exception {
+        Path json = Files.createTempDirectory("snapshot-view-test").resolve("latest-node-shapes.json");
+        NodeShapesSnapshotIO.save(SHAPES, json);
+        assertThrows(IllegalArgumentException.class, () -> NodeShapesSnapshotIO.open(json));
+    }
+}
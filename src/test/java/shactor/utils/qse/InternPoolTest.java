@@ -0,0 +1,119 @@
+package shactor.utils.qse;
+
+import cs.qse.common.structure.NS;
+import cs.qse.common.structure.PS;
+import cs.qse.common.structure.ShaclOrListItem;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import shactor.utils.benchmark.BenchmarkBaseline;
+import shactor.utils.benchmark.SyntheticNodeShapes;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Intern Pool Tests")
+class InternPoolTest {
+
+    @Test
+    @DisplayName("Equal strings and IRIs resolve to one canonical instance")
+    void returnsCanonicalInstances() {
+        InternPool pool = new InternPool();
+        String path = pool.string(new String("http://xmlns.com/foaf/0.1/name"));
+        assertSame(path, pool.string(new String("http://xmlns.com/foaf/0.1/name")));
+        assertNull(pool.string(null));
+
+        IRI person = pool.iri(new String("http://xmlns.com/foaf/0.1/Person"));
+        assertSame(person, pool.iri("http://xmlns.com/foaf/0.1/Person"));
+        assertSame(person, pool.iri(SimpleValueFactory.getInstance().createIRI("http://xmlns.com/foaf/0.1/Person")));
+        assertEquals("http://xmlns.com/foaf/0.1/Person", person.stringValue());
+    }
+
+    @Test
+    @Disabled("Depends on System.gc() actually collecting - enable and run locally as needed")
+    @DisplayName("Entries are released once no shape references them")
+    void releasesUnreferencedEntries() throws InterruptedException {
+        InternPool pool = new InternPool();
+        List<Object> held = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            held.add(pool.string("http://example.org/p" + i));
+            held.add(pool.iri("http://example.org/C" + i));
+        }
+        // Each IRI also holds its canonical string
+        assertEquals(3000, pool.size());
+
+        held.removeIf(value -> value instanceof String);
+        for (int i = 0; i < 20 && pool.size() > 2000; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        assertTrue(pool.size() <= 2000, "pool size after GC: " + pool.size());
+        assertSame(held.get(0), pool.iri("http://example.org/C0"));
+    }
+
+    /**
+     * Checks an estimate, not measured heap: the retained size is computed by
+     * {@link #estimateRetainedBytes(Set)} from object counts and a fixed layout model, so the
+     * result is deterministic but does not prove the saving on a real JVM (use a heap dump or
+     * MemoryMXBean deltas around a full GC for that).
+     *
+     * Runs on 20k PropertyShapes by default; pass -Dshactor.footprint.propertyShapes=1000000
+     * for the full-scale estimate.
+     */
+    @Test
+    @DisplayName("Interning a synthetic schema shrinks its estimated retained size")
+    void internAllReducesEstimatedFootprint() {
+        int propertyShapes = Integer.getInteger("shactor.footprint.propertyShapes", 20_000);
+        Set<NS> shapes = SyntheticNodeShapes.generate(SyntheticNodeShapes.Profile.DBPEDIA
+                .withPropertyShapes(propertyShapes).withOrLists(0.2, 3), 7L);
+        String fingerprint = BenchmarkBaseline.fingerprint(shapes);
+
+        long before = estimateRetainedBytes(shapes);
+        new InternPool().internAll(shapes);
+        long after = estimateRetainedBytes(shapes);
+
+        assertEquals(fingerprint, BenchmarkBaseline.fingerprint(shapes));
+        assertTrue(after < before * 0.9, "expected at least 10% less estimated retained memory for "
+                + propertyShapes + " PropertyShapes: " + before + " -> " + after + " bytes");
+    }
+
+    /**
+     * Estimated heap retained by the shapes (64-bit JVM, compressed oops, compact strings),
+     * counting each distinct String and IRI instance once.
+     */
+    private static long estimateRetainedBytes(Set<NS> shapes) {
+        Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        long bytes = 0;
+        for (NS ns : shapes) {
+            bytes += 40 + iri(ns.getIri(), seen) + iri(ns.getTargetClass(), seen);
+            bytes += 24 + 4L * ns.getPropertyShapes().size();
+            for (PS ps : ns.getPropertyShapes()) {
+                bytes += 56 + iri(ps.getIri(), seen) + string(ps.getPath(), seen)
+                        + string(ps.getDataTypeOrClass(), seen) + string(ps.getNodeKind(), seen);
+                if (ps.getShaclOrListItems() == null) continue;
+                bytes += 24 + 4L * ps.getShaclOrListItems().size();
+                for (ShaclOrListItem item : ps.getShaclOrListItems()) {
+                    bytes += 40 + string(item.getDataTypeOrClass(), seen) + string(item.getNodeKind(), seen);
+                }
+            }
+        }
+        return bytes;
+    }
+
+    private static long iri(IRI iri, Set<Object> seen) {
+        if (iri == null || !seen.add(iri)) return 0;
+        return 16 + string(iri.stringValue(), seen);
+    }
+
+    private static long string(String s, Set<Object> seen) {
+        if (s == null || !seen.add(s)) return 0;
+        return 24 + 16 + ((s.length() + 7) & ~7);
+    }
+}
@@ -0,0 +1,74 @@
+package shactor.utils.qse;
+
+import cs.qse.common.structure.NS;
+import cs.qse.common.structure.PS;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the cached MethodHandle accessors used for optional QSE methods.
+ */
+@DisplayName("QSE Accessor Registry Tests")
+class QseAccessorsTest {
+
+    public static class Bean {
+        private Integer support;
+        public String getName() { return "bean"; }
+        public List<String> getValues() { return List.of("a", "b"); }
+        public Object getNothing() { return null; }
+        public int getCount() { return 3; }
+        public void setSupport(Integer support) { this.support = support; }
+        public Integer getSupport() { return support; }
+    }
+
+    @Test
+    @DisplayName("Should resolve present getters and cache absent ones")
+    void shouldResolvePresentAndCacheAbsentGetters() {
+        QseAccessors.ClassAccessors accessors = QseAccessors.of(Bean.class);
+        assertNotNull(accessors.getter("getName"));
+        assertNull(accessors.getter("getMissing"));
+        assertNull(accessors.getter("getMissing"));
+        assertSame(accessors.getter("getName"), accessors.getter("getName"));
+        assertSame(accessors, QseAccessors.of(Bean.class));
+    }
+
+    @Test
+    @DisplayName("Should return the first non-null value in priority order")
+    void shouldReturnFirstNonNullValue() {
+        Bean bean = new Bean();
+        QseAccessors.ClassAccessors accessors = QseAccessors.of(Bean.class);
+        assertEquals("bean", accessors.firstNonNull(bean, "getMissing", "getNothing", "getName", "getValues"));
+        assertEquals(3, accessors.firstNonNull(bean, "getCount"));
+        assertNull(accessors.firstNonNull(bean, "getMissing", "getNothing"));
+    }
+
+    @Test
+    @DisplayName("Should skip values rejected by the filter")
+    void shouldSkipValuesRejectedByFilter() {
+        Bean bean = new Bean();
+        Object value = QseAccessors.of(Bean.class)
+                .firstMatching(bean, v -> v instanceof List, "getName", "getValues");
+        assertEquals(List.of("a", "b"), value);
+    }
+
+    @Test
+    @DisplayName("Should invoke setters when present")
+    void shouldInvokeSettersWhenPresent() {
+        Bean bean = new Bean();
+        QseAccessors.ClassAccessors accessors = QseAccessors.of(Bean.class);
+        assertTrue(accessors.set(bean, "setSupport", Integer.class, 42));
+        assertEquals(Integer.valueOf(42), bean.getSupport());
+        assertFalse(accessors.set(bean, "setMissing", Integer.class, 1));
+    }
+
+    @Test
+    @DisplayName("Should resolve accessors of QSE structure classes")
+    void shouldResolveQseStructureAccessors() {
+        assertNotNull(QseAccessors.of(PS.class).getter("getSupport"));
+        assertNotNull(QseAccessors.of(NS.class).getter("getIri"));
+    }
+}